@@ -25,6 +25,7 @@ import org.wso2.carbon.databridge.agent.endpoint.DataEndpointGroup;
 import org.wso2.carbon.databridge.agent.exception.*;
 import org.wso2.carbon.databridge.agent.util.DataPublisherUtil;
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.EventBatch;
 import org.wso2.carbon.databridge.commons.exception.TransportException;
 
 import java.util.ArrayList;
@@ -267,6 +268,41 @@ public class DataPublisher {
                 payloadDataArray, arbitraryDataMap));
     }
 
+    /**
+     * Publish all the events of the batch for all receiver groups which has been specified
+     * in the DataPublisher, in the order of the rows of the batch.
+     * This is a blocking invocation until all the events can be inserted in to internal
+     * queue for the publishing to the endpoint groups, as same as publish(Event).
+     *
+     * @param eventBatch The events of a single stream that needs to sent for the receiver groups
+     */
+    public void publish(EventBatch eventBatch) {
+        for (DataEndpointGroup endpointGroup : endpointGroups) {
+            endpointGroup.publish(eventBatch);
+        }
+    }
+
+    /**
+     * Publish all the events of the batch for all receiver groups which has been specified
+     * in the DataPublisher. This is a non-blocking invocation and if the queue if full
+     * then it will simply drop the events that cannot be inserted.
+     *
+     * @param eventBatch The events of a single stream that needs to sent for the receiver groups
+     * @return the number of events that has been published to all the receiver groups.
+     */
+    public int tryPublish(EventBatch eventBatch) {
+        int sentCount = eventBatch.size();
+        for (DataEndpointGroup endpointGroup : endpointGroups) {
+            int groupSentCount = endpointGroup.tryPublish(eventBatch);
+            if (groupSentCount < eventBatch.size()) {
+                log.error("Unable to process " + (eventBatch.size() - groupSentCount) + " events of the batch for "
+                        + "endpoint group " + endpointGroup.toString() + ", dropping the events.");
+            }
+            sentCount = Math.min(sentCount, groupSentCount);
+        }
+        return sentCount;
+    }
+
     /**
      * Publish an event based on the event properties that are passed
      * for all receiver groups which has been specified in the DataPublisher.
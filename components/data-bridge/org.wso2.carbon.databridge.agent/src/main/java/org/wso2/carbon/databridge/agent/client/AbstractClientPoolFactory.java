@@ -22,6 +22,8 @@ import org.wso2.carbon.databridge.agent.exception.DataEndpointSecurityException;
 import org.wso2.carbon.databridge.agent.exception.DataEndpointException;
 import org.wso2.carbon.databridge.agent.util.DataPublisherUtil;
 
+import java.util.Map;
+
 /**
  * The abstract class that needs to be implemented when supporting a new non-secure transport
  * to mainly create, validate and terminate  the client to the endpoint.
@@ -33,7 +35,26 @@ public abstract class AbstractClientPoolFactory extends BaseKeyedPoolableObjectF
     public Object makeObject(Object key)
             throws DataEndpointException, DataEndpointSecurityException {
        Object[] urlParams = DataPublisherUtil.getProtocolHostPort(key.toString());
-        return createClient(urlParams[0].toString(),urlParams[1].toString(), Integer.parseInt(urlParams[2].toString()));
+        return createClient(urlParams[0].toString(), urlParams[1].toString(), Integer.parseInt(urlParams[2].toString()),
+                DataPublisherUtil.getURLOptions(key.toString()));
+    }
+
+    /**
+     * Make a connection to the receiver with the transport specific options provided in the URL
+     * and return the client. By default the options are ignored.
+     *
+     * @param protocol protocol that is used to connect to the endpoint
+     * @param hostName hostname of the endpoint
+     * @param port port of the endpoint that is listening to
+     * @param options transport specific options provided in the endpoint URL
+     * @return A valid client which has connected to the receiver and can be used
+     *         for rest of the operations regarding the endpoint.
+     * @throws DataEndpointException
+     * @throws DataEndpointSecurityException
+     */
+    public Object createClient(String protocol, String hostName, int port, Map<String, String> options)
+            throws DataEndpointException, DataEndpointSecurityException {
+        return createClient(protocol, hostName, port);
     }
 
     /**
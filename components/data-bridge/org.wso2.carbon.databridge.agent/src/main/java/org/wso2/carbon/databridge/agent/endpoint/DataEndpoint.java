@@ -25,6 +25,7 @@ import org.wso2.carbon.databridge.agent.exception.DataEndpointException;
 import org.wso2.carbon.databridge.agent.conf.DataEndpointConfiguration;
 import org.wso2.carbon.databridge.agent.util.DataEndpointConstants;
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.EventBatch;
 import org.wso2.carbon.databridge.commons.exception.SessionTimeoutException;
 import org.wso2.carbon.databridge.commons.exception.TransportException;
 import org.wso2.carbon.databridge.commons.exception.UndefinedEventTypeException;
@@ -60,6 +61,10 @@ public abstract class DataEndpoint {
 
     private List<Event> events;
 
+    private List<EventBatch> eventBatches;
+
+    private int eventCount;
+
     private State state;
 
     public enum State {
@@ -73,11 +78,23 @@ public abstract class DataEndpoint {
         eventPublisher = new EventPublisher();
         connectionService = Executors.newSingleThreadExecutor();
         events = new ArrayList<Event>();
+        eventBatches = new ArrayList<EventBatch>();
     }
 
     void collectAndSend(Event event) {
         events.add(event);
-        if (events.size() == batchSize) {
+        collected(1);
+    }
+
+    void collectAndSend(EventBatch eventBatch) {
+        eventBatches.add(eventBatch);
+        collected(eventBatch.size());
+    }
+
+    private void collected(int count) {
+        int previousEventCount = eventCount;
+        eventCount += count;
+        if (previousEventCount < batchSize && eventCount >= batchSize) {
             this.state = State.BUSY;
             Thread thread = new Thread(eventPublisher);
             thread.start();
@@ -85,7 +102,7 @@ public abstract class DataEndpoint {
     }
 
     void flushEvents() {
-        if (events.size() != 0) {
+        if (eventCount != 0) {
             if (isPublishing.compareAndSet(false, true)) {
                 state = State.BUSY;
                 Thread thread = new Thread(eventPublisher);
@@ -162,6 +179,21 @@ public abstract class DataEndpoint {
     protected abstract void send(Object client, List<Event> events) throws
             DataEndpointException, SessionTimeoutException, UndefinedEventTypeException;
 
+    /**
+     * Send the events of the batch to the actual endpoint. Transports that can serialise the
+     * columns of the batch directly override this, by default the rows are sent as events.
+     *
+     * @param client     The client that can be used to send the events.
+     * @param eventBatch Events of a single stream that needs to be sent.
+     * @throws DataEndpointException
+     * @throws SessionTimeoutException
+     * @throws UndefinedEventTypeException
+     */
+    protected void send(Object client, EventBatch eventBatch) throws
+            DataEndpointException, SessionTimeoutException, UndefinedEventTypeException {
+        send(client, eventBatch.toEventList());
+    }
+
 
     protected DataEndpointConfiguration getDataEndpointConfiguration() {
         return this.connectionWorker.getDataEndpointConfiguration();
@@ -219,6 +251,10 @@ public abstract class DataEndpoint {
 
         private void handleFailedEvents() {
             deactivate();
+            for (EventBatch eventBatch : eventBatches) {
+                events.addAll(eventBatch.toEventList());
+            }
+            eventBatches.clear();
             dataEndpointFailureCallback.tryResendEvents(events);
             isPublishing.set(false);
         }
@@ -227,8 +263,15 @@ public abstract class DataEndpoint {
                 SessionTimeoutException,
                 UndefinedEventTypeException {
             Object client = getClient();
-            send(client, events);
-            events.clear();
+            if (!events.isEmpty()) {
+                send(client, events);
+                eventCount -= events.size();
+                events.clear();
+            }
+            while (!eventBatches.isEmpty()) {
+                send(client, eventBatches.get(0));
+                eventCount -= eventBatches.remove(0).size();
+            }
             state = State.ACTIVE;
             isPublishing.set(false);
             returnClient(client);
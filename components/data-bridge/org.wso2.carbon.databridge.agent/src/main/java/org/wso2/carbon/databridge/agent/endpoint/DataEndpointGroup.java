@@ -27,6 +27,7 @@ import org.wso2.carbon.databridge.agent.exception.EventQueueFullException;
 import org.wso2.carbon.databridge.agent.util.DataEndpointConstants;
 import org.wso2.carbon.databridge.agent.util.DataPublisherUtil;
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.EventBatch;
 
 import java.io.IOException;
 import java.net.Socket;
@@ -92,18 +93,44 @@ public class DataEndpointGroup implements DataEndpointFailureCallback {
         eventQueue.put(event);
     }
 
+    /**
+     * Puts a copy of the batch in to the queue as a single entry, blocking until there is space for it.
+     * The endpoints serialise the rows from the columns of the copy, hence the batch can be cleared and
+     * refilled once this returns.
+     */
+    public void publish(EventBatch eventBatch) {
+        eventQueue.put(eventBatch);
+    }
+
+    /**
+     * Puts a copy of the batch in to the queue as a single entry if there is space for it, without blocking.
+     *
+     * @return the number of rows put in to the queue, which is either all or none of the rows
+     */
+    public int tryPublish(EventBatch eventBatch) {
+        return eventQueue.tryPut(eventBatch);
+    }
+
+    /**
+     * Entry of the event queue, holding either a single event or a batch of events of one stream.
+     */
+    static class EventQueueEntry {
+        private final Event event = new Event();
+        private EventBatch eventBatch;
+    }
+
     class EventQueue {
-        private RingBuffer<Event> ringBuffer;
-        private Disruptor<Event> eventQueue;
+        private RingBuffer<EventQueueEntry> ringBuffer;
+        private Disruptor<EventQueueEntry> eventQueue;
 
-        public final EventFactory<Event> EVENT_FACTORY = new EventFactory<Event>() {
-            public Event newInstance() {
-                return new Event();
+        public final EventFactory<EventQueueEntry> EVENT_FACTORY = new EventFactory<EventQueueEntry>() {
+            public EventQueueEntry newInstance() {
+                return new EventQueueEntry();
             }
         };
 
         EventQueue(int queueSize) {
-            eventQueue = new Disruptor<Event>(EVENT_FACTORY, queueSize, Executors.newCachedThreadPool());
+            eventQueue = new Disruptor<EventQueueEntry>(EVENT_FACTORY, queueSize, Executors.newCachedThreadPool());
             eventQueue.handleEventsWith(new EventQueueWorker());
             this.ringBuffer = eventQueue.start();
         }
@@ -112,8 +139,7 @@ public class DataEndpointGroup implements DataEndpointFailureCallback {
             long sequence;
             try {
                 sequence = this.ringBuffer.tryNext(1);
-                Event bufferedEvent = this.ringBuffer.get(sequence);
-                updateEvent(bufferedEvent, event);
+                updateEntry(this.ringBuffer.get(sequence), event);
                 this.ringBuffer.publish(sequence);
             } catch (InsufficientCapacityException e) {
                 throw new EventQueueFullException("Cannot send events because the event queue is full", e);
@@ -126,8 +152,7 @@ public class DataEndpointGroup implements DataEndpointFailureCallback {
             while (true) {
                 try {
                     sequence = this.ringBuffer.tryNext(1);
-                    Event bufferedEvent = this.ringBuffer.get(sequence);
-                    updateEvent(bufferedEvent, event);
+                    updateEntry(this.ringBuffer.get(sequence), event);
                     this.ringBuffer.publish(sequence);
                     break;
                 } catch (InsufficientCapacityException ex) {
@@ -140,11 +165,41 @@ public class DataEndpointGroup implements DataEndpointFailureCallback {
 
         private void put(Event event) {
             long sequence = this.ringBuffer.next();
-            Event bufferedEvent = this.ringBuffer.get(sequence);
-            updateEvent(bufferedEvent, event);
+            updateEntry(this.ringBuffer.get(sequence), event);
             this.ringBuffer.publish(sequence);
         }
 
+        private void put(EventBatch eventBatch) {
+            if (eventBatch.isEmpty()) {
+                return;
+            }
+            EventBatch queuedEventBatch = eventBatch.copy();
+            long sequence = this.ringBuffer.next();
+            this.ringBuffer.get(sequence).eventBatch = queuedEventBatch;
+            this.ringBuffer.publish(sequence);
+        }
+
+        private int tryPut(EventBatch eventBatch) {
+            if (eventBatch.isEmpty() || this.ringBuffer.remainingCapacity() == 0) {
+                return 0;
+            }
+            EventBatch queuedEventBatch = eventBatch.copy();
+            long sequence;
+            try {
+                sequence = this.ringBuffer.tryNext(1);
+            } catch (InsufficientCapacityException e) {
+                return 0;
+            }
+            this.ringBuffer.get(sequence).eventBatch = queuedEventBatch;
+            this.ringBuffer.publish(sequence);
+            return queuedEventBatch.size();
+        }
+
+        private void updateEntry(EventQueueEntry entry, Event event) {
+            entry.eventBatch = null;
+            updateEvent(entry.event, event);
+        }
+
         private void updateEvent(Event oldEvent, Event newEvent) {
             oldEvent.setArbitraryDataMap(newEvent.getArbitraryDataMap());
             oldEvent.setCorrelationData(newEvent.getCorrelationData());
@@ -159,12 +214,17 @@ public class DataEndpointGroup implements DataEndpointFailureCallback {
         }
     }
 
-    class EventQueueWorker implements EventHandler<Event> {
+    class EventQueueWorker implements EventHandler<EventQueueEntry> {
 
         @Override
-        public void onEvent(Event event, long sequence, boolean endOfBatch) throws Exception {
+        public void onEvent(EventQueueEntry entry, long sequence, boolean endOfBatch) throws Exception {
             DataEndpoint endpoint = getDataEndpoint(true);
-            endpoint.collectAndSend(event);
+            if (entry.eventBatch != null) {
+                endpoint.collectAndSend(entry.eventBatch);
+                entry.eventBatch = null;
+            } else {
+                endpoint.collectAndSend(entry.event);
+            }
             if (endOfBatch) {
                 flushAllDataEndpoints();
             }
@@ -17,11 +17,16 @@
 */
 package org.wso2.carbon.databridge.agent.endpoint.binary;
 
+import org.wso2.carbon.databridge.agent.conf.DataEndpointConfiguration;
 import org.wso2.carbon.databridge.agent.endpoint.DataEndpoint;
 import org.wso2.carbon.databridge.agent.exception.DataEndpointAuthenticationException;
 import org.wso2.carbon.databridge.agent.exception.DataEndpointException;
+import org.wso2.carbon.databridge.agent.util.DataPublisherUtil;
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.EventBatch;
+import org.wso2.carbon.databridge.commons.binary.BinaryMessageConstants;
 import org.wso2.carbon.databridge.commons.exception.SessionTimeoutException;
+import org.wso2.carbon.databridge.commons.exception.TransportException;
 import org.wso2.carbon.databridge.commons.exception.UndefinedEventTypeException;
 
 import java.net.Socket;
@@ -34,6 +39,33 @@ import static org.wso2.carbon.databridge.agent.endpoint.binary.BinaryEventSender
  */
 public class BinaryDataEndpoint extends DataEndpoint {
 
+    private int encodingVersion = BinaryMessageConstants.ENCODING_VERSION_1;
+
+    /**
+     * The version 2 encoding is used only when the receiver URL asks for it,
+     * eg: tcp://localhost:9611?version=2, and the receiver needs to support the version 2 messages.
+     */
+    @Override
+    public void initialize(DataEndpointConfiguration dataEndpointConfiguration)
+            throws DataEndpointException, DataEndpointAuthenticationException, TransportException {
+        String version = DataPublisherUtil.getURLOptions(dataEndpointConfiguration.getReceiverURL()).
+                get(BinaryMessageConstants.ENCODING_VERSION_OPTION);
+        if (version != null) {
+            try {
+                encodingVersion = Integer.parseInt(version.trim());
+            } catch (NumberFormatException e) {
+                throw new DataEndpointException("Invalid binary encoding version : " + version + " in receiver URL : "
+                        + dataEndpointConfiguration.getReceiverURL(), e);
+            }
+            if (encodingVersion != BinaryMessageConstants.ENCODING_VERSION_1 &&
+                    encodingVersion != BinaryMessageConstants.ENCODING_VERSION_2) {
+                throw new DataEndpointException("Unsupported binary encoding version : " + version +
+                        " in receiver URL : " + dataEndpointConfiguration.getReceiverURL());
+            }
+        }
+        super.initialize(dataEndpointConfiguration);
+    }
+
     @Override
     protected String login(Object client, String userName, String password) throws DataEndpointAuthenticationException {
         Socket socket = (Socket) client;
@@ -72,7 +104,33 @@ public class BinaryDataEndpoint extends DataEndpoint {
         Socket socket = (Socket) client;
         String sessionId = getDataEndpointConfiguration().getSessionId();
         try {
-            sendBinaryPublishMessage(socket, events, sessionId);
+            if (encodingVersion == BinaryMessageConstants.ENCODING_VERSION_2) {
+                sendBinaryPublishMessageV2(socket, events, sessionId);
+            } else {
+                sendBinaryPublishMessage(socket, events, sessionId);
+            }
+            processResponse(socket);
+        } catch (Exception e) {
+            if (e instanceof DataEndpointException) {
+                throw (DataEndpointException) e;
+            } else {
+                throw new DataEndpointException("Error while trying to publish events to data receiver :"
+                        + socket.getRemoteSocketAddress().toString(), e);
+            }
+        }
+    }
+
+    @Override
+    protected void send(Object client, EventBatch eventBatch) throws DataEndpointException,
+            SessionTimeoutException, UndefinedEventTypeException {
+        Socket socket = (Socket) client;
+        String sessionId = getDataEndpointConfiguration().getSessionId();
+        try {
+            if (encodingVersion == BinaryMessageConstants.ENCODING_VERSION_2) {
+                sendBinaryPublishMessageV2(socket, eventBatch, sessionId);
+            } else {
+                sendBinaryPublishMessage(socket, eventBatch, sessionId);
+            }
             processResponse(socket);
         } catch (Exception e) {
             if (e instanceof DataEndpointException) {
@@ -18,6 +18,7 @@
 package org.wso2.carbon.databridge.agent.endpoint.binary;
 
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.EventBatch;
 import org.wso2.carbon.databridge.commons.binary.BinaryMessageConstants;
 
 import java.io.*;
@@ -30,6 +31,10 @@ import java.util.Map;
 import static org.wso2.carbon.databridge.commons.binary.BinaryMessageConverterUtil.assignData;
 import static org.wso2.carbon.databridge.commons.binary.BinaryMessageConverterUtil.getSize;
 import static org.wso2.carbon.databridge.commons.binary.BinaryMessageConverterUtil.loadData;
+import static org.wso2.carbon.databridge.commons.binary.BinaryMessageConverterUtil.putString;
+import static org.wso2.carbon.databridge.commons.binary.BinaryMessageConverterUtil.putUnsignedVarInt;
+import static org.wso2.carbon.databridge.commons.binary.BinaryMessageConverterUtil.putVarInt;
+import static org.wso2.carbon.databridge.commons.binary.BinaryMessageConverterUtil.putVarLong;
 
 /**
  * This is a Util class which does the Binary message transformation for publish, login, logout operations.
@@ -98,13 +103,33 @@ public class BinaryEventSender {
             }
             bytes.add(eventDataBuffer.array());
         }
+        writePublishMessage(socket, sessionId, messageSize, events.size(), bytes);
+    }
+
+    /**
+     * Sends the rows of the batch with the version 1 encoding, reading the attribute values from the columns
+     * of the batch instead of creating an event per row.
+     */
+    public static void sendBinaryPublishMessage(Socket socket, EventBatch eventBatch, String sessionId)
+            throws IOException {
+        int messageSize = 8 + sessionId.length();
+        List<byte[]> bytes = new ArrayList<byte[]>(eventBatch.size());
+        for (int row = 0; row < eventBatch.size(); row++) {
+            byte[] eventBytes = getEventBytes(eventBatch, row);
+            messageSize += eventBytes.length;
+            bytes.add(eventBytes);
+        }
+        writePublishMessage(socket, sessionId, messageSize, eventBatch.size(), bytes);
+    }
 
+    private static void writePublishMessage(Socket socket, String sessionId, int messageSize, int eventCount,
+                                            List<byte[]> bytes) throws IOException {
         ByteBuffer buf = ByteBuffer.allocate(sessionId.length() + 13);
         buf.put((byte) 2);  //1
         buf.putInt(messageSize); //4
         buf.putInt(sessionId.length()); //4
         buf.put(sessionId.getBytes(BinaryMessageConstants.DEFAULT_CHARSET));
-        buf.putInt(events.size()); //4
+        buf.putInt(eventCount); //4
 
         OutputStream outputstream = new BufferedOutputStream(socket.getOutputStream());
         outputstream.write(buf.array());
@@ -114,6 +139,274 @@ public class BinaryEventSender {
         outputstream.flush();
     }
 
+    /**
+     * Encodes the row with the size prefix of the version 1 encoding. The version 1 encoding cannot mark null
+     * attributes, hence null numeric and boolean attributes are written as zero in the width of their type.
+     */
+    private static byte[] getEventBytes(EventBatch eventBatch, int row) throws IOException {
+        String streamId = eventBatch.getStreamId();
+        int eventSize = 4 + streamId.length() + 8;
+        for (int i = 0; i < eventBatch.getAttributeCount(); i++) {
+            switch (eventBatch.getAttributeType(i)) {
+                case INT:
+                case FLOAT:
+                    eventSize += 4;
+                    break;
+                case LONG:
+                case DOUBLE:
+                    eventSize += 8;
+                    break;
+                case BOOL:
+                    eventSize += 1;
+                    break;
+                default:
+                    eventSize += getSize(eventBatch.getString(row, i));
+                    break;
+            }
+        }
+        Map<String, String> arbitraryDataMap = eventBatch.getArbitraryDataMap(row);
+        if (arbitraryDataMap != null) {
+            for (Map.Entry<String, String> aArbitraryData : arbitraryDataMap.entrySet()) {
+                eventSize += 8 + aArbitraryData.getKey().length() + aArbitraryData.getValue().length();
+            }
+        }
+
+        ByteBuffer eventDataBuffer = ByteBuffer.allocate(4 + eventSize);
+        eventDataBuffer.putInt(eventSize);
+        eventDataBuffer.putLong(eventBatch.getTimeStamp(row));
+        eventDataBuffer.putInt(streamId.length());
+        eventDataBuffer.put(streamId.getBytes(BinaryMessageConstants.DEFAULT_CHARSET));
+        for (int i = 0; i < eventBatch.getAttributeCount(); i++) {
+            boolean isNull = eventBatch.isNull(row, i);
+            switch (eventBatch.getAttributeType(i)) {
+                case INT:
+                    eventDataBuffer.putInt(isNull ? 0 : eventBatch.getInt(row, i));
+                    break;
+                case LONG:
+                    eventDataBuffer.putLong(isNull ? 0 : eventBatch.getLong(row, i));
+                    break;
+                case FLOAT:
+                    eventDataBuffer.putFloat(isNull ? 0 : eventBatch.getFloat(row, i));
+                    break;
+                case DOUBLE:
+                    eventDataBuffer.putDouble(isNull ? 0 : eventBatch.getDouble(row, i));
+                    break;
+                case BOOL:
+                    eventDataBuffer.put((byte) (!isNull && eventBatch.getBool(row, i) ? 1 : 0));
+                    break;
+                default:
+                    assignData(eventBatch.getString(row, i), eventDataBuffer);
+                    break;
+            }
+        }
+        if (arbitraryDataMap != null) {
+            for (Map.Entry<String, String> aArbitraryData : arbitraryDataMap.entrySet()) {
+                assignData(aArbitraryData.getKey(), eventDataBuffer);
+                assignData(aArbitraryData.getValue(), eventDataBuffer);
+            }
+        }
+        return eventDataBuffer.array();
+    }
+
+    /**
+     * Sends the events with the version 2 encoding. Int and long attributes are written as zig-zag varints,
+     * null attributes are marked in a per event bitmap instead of being written, and the event timestamps are
+     * delta encoded relative to the timestamp of the first event of the batch.
+     */
+    public static void sendBinaryPublishMessageV2(Socket socket, List<Event> events, String sessionId)
+            throws IOException {
+        long baseTimeStamp = events.isEmpty() ? 0 : events.get(0).getTimeStamp();
+
+        ByteArrayOutputStream messageStream = new ByteArrayOutputStream();
+        ByteArrayOutputStream eventStream = new ByteArrayOutputStream();
+        for (Event event : events) {
+            eventStream.reset();
+            writeEventV2(event, baseTimeStamp, eventStream);
+            putUnsignedVarInt(eventStream.size(), messageStream);
+            eventStream.writeTo(messageStream);
+        }
+        writePublishMessageV2(socket, sessionId, events.size(), baseTimeStamp, messageStream);
+    }
+
+    /**
+     * Sends the rows of the batch with the version 2 encoding, reading the attribute values and the null
+     * markers from the columns of the batch instead of creating an event per row.
+     */
+    public static void sendBinaryPublishMessageV2(Socket socket, EventBatch eventBatch, String sessionId)
+            throws IOException {
+        long baseTimeStamp = eventBatch.isEmpty() ? 0 : eventBatch.getTimeStamp(0);
+
+        ByteArrayOutputStream messageStream = new ByteArrayOutputStream();
+        ByteArrayOutputStream eventStream = new ByteArrayOutputStream();
+        for (int row = 0; row < eventBatch.size(); row++) {
+            eventStream.reset();
+            writeEventV2(eventBatch, row, baseTimeStamp, eventStream);
+            putUnsignedVarInt(eventStream.size(), messageStream);
+            eventStream.writeTo(messageStream);
+        }
+        writePublishMessageV2(socket, sessionId, eventBatch.size(), baseTimeStamp, messageStream);
+    }
+
+    private static void writePublishMessageV2(Socket socket, String sessionId, int eventCount, long baseTimeStamp,
+                                              ByteArrayOutputStream messageStream) throws IOException {
+        byte[] sessionIdBytes = sessionId.getBytes(BinaryMessageConstants.DEFAULT_CHARSET);
+        ByteBuffer buf = ByteBuffer.allocate(sessionIdBytes.length + 21);
+        buf.put((byte) BinaryMessageConstants.PUBLISH_MESSAGE_V2);  //1
+        buf.putInt(16 + sessionIdBytes.length + messageStream.size()); //4
+        buf.putInt(sessionIdBytes.length); //4
+        buf.put(sessionIdBytes);
+        buf.putInt(eventCount); //4
+        buf.putLong(baseTimeStamp); //8
+
+        OutputStream outputstream = new BufferedOutputStream(socket.getOutputStream());
+        outputstream.write(buf.array());
+        messageStream.writeTo(outputstream);
+        outputstream.flush();
+    }
+
+    private static void writeEventV2(Event event, long baseTimeStamp, ByteArrayOutputStream eventStream)
+            throws IOException {
+        putString(event.getStreamId(), eventStream);
+        putVarLong(event.getTimeStamp() - baseTimeStamp, eventStream);
+
+        Object[] metaData = event.getMetaData();
+        Object[] correlationData = event.getCorrelationData();
+        Object[] payloadData = event.getPayloadData();
+        int metaLength = metaData == null ? 0 : metaData.length;
+        int correlationLength = correlationData == null ? 0 : correlationData.length;
+        int payloadLength = payloadData == null ? 0 : payloadData.length;
+        int attributeCount = metaLength + correlationLength + payloadLength;
+
+        byte[] nullBitmap = new byte[(attributeCount + 7) / 8];
+        for (int i = 0; i < attributeCount; i++) {
+            Object data;
+            if (i < metaLength) {
+                data = metaData[i];
+            } else if (i < metaLength + correlationLength) {
+                data = correlationData[i - metaLength];
+            } else {
+                data = payloadData[i - metaLength - correlationLength];
+            }
+            if (data == null) {
+                nullBitmap[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        putUnsignedVarInt(attributeCount, eventStream);
+        eventStream.write(nullBitmap);
+
+        for (int i = 0; i < metaLength; i++) {
+            assignDataV2(metaData[i], eventStream);
+        }
+        for (int i = 0; i < correlationLength; i++) {
+            assignDataV2(correlationData[i], eventStream);
+        }
+        for (int i = 0; i < payloadLength; i++) {
+            assignDataV2(payloadData[i], eventStream);
+        }
+
+        writeArbitraryDataV2(event.getArbitraryDataMap(), eventStream);
+    }
+
+    private static void writeEventV2(EventBatch eventBatch, int row, long baseTimeStamp,
+                                     ByteArrayOutputStream eventStream) throws IOException {
+        putString(eventBatch.getStreamId(), eventStream);
+        putVarLong(eventBatch.getTimeStamp(row) - baseTimeStamp, eventStream);
+
+        int attributeCount = eventBatch.getAttributeCount();
+        byte[] nullBitmap = new byte[(attributeCount + 7) / 8];
+        for (int i = 0; i < attributeCount; i++) {
+            if (eventBatch.isNull(row, i)) {
+                nullBitmap[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        putUnsignedVarInt(attributeCount, eventStream);
+        eventStream.write(nullBitmap);
+
+        for (int i = 0; i < attributeCount; i++) {
+            if ((nullBitmap[i >> 3] & (1 << (i & 7))) != 0) {
+                continue;
+            }
+            switch (eventBatch.getAttributeType(i)) {
+                case INT:
+                    putVarInt(eventBatch.getInt(row, i), eventStream);
+                    break;
+                case LONG:
+                    putVarLong(eventBatch.getLong(row, i), eventStream);
+                    break;
+                case FLOAT:
+                    writeFloat(eventBatch.getFloat(row, i), eventStream);
+                    break;
+                case DOUBLE:
+                    writeDouble(eventBatch.getDouble(row, i), eventStream);
+                    break;
+                case BOOL:
+                    eventStream.write(eventBatch.getBool(row, i) ? 1 : 0);
+                    break;
+                default:
+                    putString(eventBatch.getString(row, i), eventStream);
+                    break;
+            }
+        }
+        writeArbitraryDataV2(eventBatch.getArbitraryDataMap(row), eventStream);
+    }
+
+    private static void writeArbitraryDataV2(Map<String, String> arbitraryDataMap,
+                                             ByteArrayOutputStream eventStream) throws IOException {
+        int arbitraryDataCount = 0;
+        if (arbitraryDataMap != null) {
+            for (Map.Entry<String, String> aArbitraryData : arbitraryDataMap.entrySet()) {
+                if (aArbitraryData.getKey() != null && aArbitraryData.getValue() != null) {
+                    arbitraryDataCount++;
+                }
+            }
+        }
+        putUnsignedVarInt(arbitraryDataCount, eventStream);
+        if (arbitraryDataCount != 0) {
+            for (Map.Entry<String, String> aArbitraryData : arbitraryDataMap.entrySet()) {
+                if (aArbitraryData.getKey() != null && aArbitraryData.getValue() != null) {
+                    putString(aArbitraryData.getKey(), eventStream);
+                    putString(aArbitraryData.getValue(), eventStream);
+                }
+            }
+        }
+    }
+
+    private static void assignDataV2(Object data, ByteArrayOutputStream eventStream) throws IOException {
+        if (data == null) {
+            return;
+        }
+        if (data instanceof String) {
+            putString((String) data, eventStream);
+        } else if (data instanceof Integer) {
+            putVarInt((Integer) data, eventStream);
+        } else if (data instanceof Long) {
+            putVarLong((Long) data, eventStream);
+        } else if (data instanceof Float) {
+            writeFloat((Float) data, eventStream);
+        } else if (data instanceof Double) {
+            writeDouble((Double) data, eventStream);
+        } else if (data instanceof Boolean) {
+            eventStream.write(((Boolean) data) ? 1 : 0);
+        } else {
+            putString(data.toString(), eventStream);
+        }
+    }
+
+    private static void writeFloat(float value, ByteArrayOutputStream eventStream) {
+        int bits = Float.floatToIntBits(value);
+        eventStream.write(bits >>> 24);
+        eventStream.write(bits >>> 16);
+        eventStream.write(bits >>> 8);
+        eventStream.write(bits);
+    }
+
+    private static void writeDouble(double value, ByteArrayOutputStream eventStream) {
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            eventStream.write((int) (bits >>> shift));
+        }
+    }
+
     private static int getEventSize(Event event) {
         int eventSize = 4 + event.getStreamId().length() + 8;
         Object[] data = event.getMetaData();
@@ -17,24 +17,46 @@
 */
 package org.wso2.carbon.databridge.agent.endpoint.thrift;
 
-import org.apache.thrift.protocol.TBinaryProtocol;
 import org.apache.thrift.protocol.TProtocol;
 import org.apache.thrift.transport.*;
 import org.wso2.carbon.databridge.agent.exception.DataEndpointException;
 import org.wso2.carbon.databridge.agent.client.AbstractClientPoolFactory;
 import org.wso2.carbon.databridge.agent.conf.DataEndpointConfiguration;
 import org.wso2.carbon.databridge.commons.thrift.service.general.ThriftEventTransmissionService;
+import org.wso2.carbon.databridge.commons.thrift.utils.CommonThriftConstants;
+import org.wso2.carbon.databridge.commons.thrift.utils.ThriftTransportUtils;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This is a Thrift Transport implementation for AbstractClientPoolFactory for Thrift Endpoint.
+ * The thrift protocol and transport can be selected in the receiver URL,
+ * eg: tcp://localhost:7611?protocol=compact&transport=framed
  */
 public class ThriftClientPoolFactory extends AbstractClientPoolFactory {
 
     @Override
     public Object createClient(String protocol, String hostName, int port) throws DataEndpointException {
+        return createClient(protocol, hostName, port, new HashMap<String, String>());
+    }
+
+    @Override
+    public Object createClient(String protocol, String hostName, int port, Map<String, String> options)
+            throws DataEndpointException {
         if (protocol.equalsIgnoreCase(DataEndpointConfiguration.Protocol.TCP.toString())) {
+            ThriftTransportUtils.ProtocolType protocolType;
+            ThriftTransportUtils.TransportType transportType;
+            try {
+                protocolType = ThriftTransportUtils.getProtocolType(options.get(CommonThriftConstants.PROTOCOL_OPTION));
+                transportType = ThriftTransportUtils.getTransportType(
+                        options.get(CommonThriftConstants.TRANSPORT_OPTION));
+            } catch (IllegalArgumentException e) {
+                throw new DataEndpointException(e.getMessage(), e);
+            }
             TTransport receiverTransport = new TSocket(hostName, port);
-            TProtocol tProtocol = new TBinaryProtocol(receiverTransport);
+            TProtocol tProtocol = ThriftTransportUtils.getClientProtocol(receiverTransport, protocolType,
+                    transportType);
             ThriftEventTransmissionService.Client client = new ThriftEventTransmissionService.Client(tProtocol);
             try {
                 receiverTransport.open();
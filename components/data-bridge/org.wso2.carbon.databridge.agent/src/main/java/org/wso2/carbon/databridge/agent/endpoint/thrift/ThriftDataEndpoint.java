@@ -22,6 +22,7 @@ import org.wso2.carbon.databridge.agent.exception.DataEndpointAuthenticationExce
 import org.wso2.carbon.databridge.agent.exception.DataEndpointException;
 import org.wso2.carbon.databridge.agent.endpoint.DataEndpoint;
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.EventBatch;
 import org.wso2.carbon.databridge.commons.exception.SessionTimeoutException;
 import org.wso2.carbon.databridge.commons.exception.UndefinedEventTypeException;
 import org.wso2.carbon.databridge.commons.thrift.data.ThriftEventBundle;
@@ -69,6 +70,22 @@ public class ThriftDataEndpoint extends DataEndpoint {
             thriftEventBundle = ThriftEventConverter.toThriftEventBundle(event, thriftEventBundle,
                     getDataEndpointConfiguration().getSessionId());
         }
+        publish(client, thriftEventBundle);
+    }
+
+    @Override
+    protected void send(Object client, EventBatch eventBatch) throws DataEndpointException,
+            SessionTimeoutException, UndefinedEventTypeException {
+        ThriftEventBundle thriftEventBundle = null;
+        for (int row = 0; row < eventBatch.size(); row++) {
+            thriftEventBundle = ThriftEventConverter.toThriftEventBundle(eventBatch, row, thriftEventBundle,
+                    getDataEndpointConfiguration().getSessionId());
+        }
+        publish(client, thriftEventBundle);
+    }
+
+    private void publish(Object client, ThriftEventBundle thriftEventBundle) throws DataEndpointException,
+            SessionTimeoutException, UndefinedEventTypeException {
         try {
             if (client instanceof ThriftSecureEventTransmissionService.Client) {
                 ((ThriftSecureEventTransmissionService.Client) client).publish(thriftEventBundle);
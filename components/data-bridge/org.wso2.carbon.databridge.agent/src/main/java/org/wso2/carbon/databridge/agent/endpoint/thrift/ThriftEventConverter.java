@@ -21,6 +21,7 @@ package org.wso2.carbon.databridge.agent.endpoint.thrift;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.EventBatch;
 import org.wso2.carbon.databridge.commons.thrift.data.ThriftEventBundle;
 import org.wso2.carbon.databridge.commons.utils.EventDefinitionConverterUtils;
 
@@ -43,11 +44,7 @@ public final class ThriftEventConverter {
                                                         String sessionId) {
         ThriftEventBundle thriftEventBundle = eventBundle;
         if (thriftEventBundle == null) {
-            thriftEventBundle = new ThriftEventBundle();
-            thriftEventBundle.setStringAttributeList(new LinkedList<String>());//adding string list
-            thriftEventBundle.setLongAttributeList(new LinkedList<Long>());//adding long list
-            thriftEventBundle.setSessionId(sessionId);
-            thriftEventBundle.setEventNum(0);
+            thriftEventBundle = createThriftEventBundle(sessionId);
         }
         thriftEventBundle.addToStringAttributeList(event.getStreamId());
         thriftEventBundle.addToLongAttributeList(event.getTimeStamp());
@@ -61,6 +58,72 @@ public final class ThriftEventConverter {
         return thriftEventBundle;
     }
 
+    /**
+     * Appends the row of the batch to the bundle, reading the attribute values from the columns of the batch.
+     * Thrift bundles can only mark null strings, hence null numeric and boolean attributes are sent as zero
+     * and false, which keeps the attribute lists of the bundle aligned with the stream definition.
+     */
+    public static ThriftEventBundle toThriftEventBundle(EventBatch eventBatch, int row,
+                                                        ThriftEventBundle eventBundle,
+                                                        String sessionId) {
+        ThriftEventBundle thriftEventBundle = eventBundle;
+        if (thriftEventBundle == null) {
+            thriftEventBundle = createThriftEventBundle(sessionId);
+        }
+        thriftEventBundle.addToStringAttributeList(eventBatch.getStreamId());
+        thriftEventBundle.addToLongAttributeList(eventBatch.getTimeStamp(row));
+
+        for (int i = 0; i < eventBatch.getAttributeCount(); i++) {
+            boolean isNull = eventBatch.isNull(row, i);
+            switch (eventBatch.getAttributeType(i)) {
+                case INT:
+                    if (!thriftEventBundle.isSetIntAttributeList()) {
+                        thriftEventBundle.setIntAttributeList(new LinkedList<Integer>());
+                    }
+                    thriftEventBundle.addToIntAttributeList(isNull ? 0 : eventBatch.getInt(row, i));
+                    break;
+                case LONG:
+                    thriftEventBundle.addToLongAttributeList(isNull ? 0 : eventBatch.getLong(row, i));
+                    break;
+                case FLOAT:
+                    if (!thriftEventBundle.isSetDoubleAttributeList()) {
+                        thriftEventBundle.setDoubleAttributeList(new LinkedList<Double>());
+                    }
+                    thriftEventBundle.addToDoubleAttributeList(isNull ? 0 : eventBatch.getFloat(row, i));
+                    break;
+                case DOUBLE:
+                    if (!thriftEventBundle.isSetDoubleAttributeList()) {
+                        thriftEventBundle.setDoubleAttributeList(new LinkedList<Double>());
+                    }
+                    thriftEventBundle.addToDoubleAttributeList(isNull ? 0 : eventBatch.getDouble(row, i));
+                    break;
+                case BOOL:
+                    if (!thriftEventBundle.isSetBoolAttributeList()) {
+                        thriftEventBundle.setBoolAttributeList(new LinkedList<Boolean>());
+                    }
+                    thriftEventBundle.addToBoolAttributeList(!isNull && eventBatch.getBool(row, i));
+                    break;
+                default:
+                    thriftEventBundle.addToStringAttributeList(isNull ? EventDefinitionConverterUtils.nullString :
+                            eventBatch.getString(row, i));
+                    break;
+            }
+        }
+        thriftEventBundle = assignMap(thriftEventBundle, eventBatch.getArbitraryDataMap(row));
+        thriftEventBundle.setEventNum(thriftEventBundle.getEventNum() + 1);
+
+        return thriftEventBundle;
+    }
+
+    private static ThriftEventBundle createThriftEventBundle(String sessionId) {
+        ThriftEventBundle thriftEventBundle = new ThriftEventBundle();
+        thriftEventBundle.setStringAttributeList(new LinkedList<String>());//adding string list
+        thriftEventBundle.setLongAttributeList(new LinkedList<Long>());//adding long list
+        thriftEventBundle.setSessionId(sessionId);
+        thriftEventBundle.setEventNum(0);
+        return thriftEventBundle;
+    }
+
     private static ThriftEventBundle assignAttributes(ThriftEventBundle thriftEventBundle,
                                                       Object[] attributes) {
         if (attributes != null) {
@@ -17,7 +17,6 @@
 */
 package org.wso2.carbon.databridge.agent.endpoint.thrift;
 
-import org.apache.thrift.protocol.TBinaryProtocol;
 import org.apache.thrift.protocol.TProtocol;
 import org.apache.thrift.transport.TSSLTransportFactory;
 import org.apache.thrift.transport.TTransport;
@@ -26,6 +25,11 @@ import org.wso2.carbon.databridge.agent.exception.DataEndpointSecurityException;
 import org.wso2.carbon.databridge.agent.client.AbstractSecureClientPoolFactory;
 import org.wso2.carbon.databridge.agent.conf.DataEndpointConfiguration;
 import org.wso2.carbon.databridge.commons.thrift.service.secure.ThriftSecureEventTransmissionService;
+import org.wso2.carbon.databridge.commons.thrift.utils.CommonThriftConstants;
+import org.wso2.carbon.databridge.commons.thrift.utils.ThriftTransportUtils;
+
+import java.util.HashMap;
+import java.util.Map;
 
 
 /**
@@ -46,15 +50,28 @@ public class ThriftSecureClientPoolFactory extends AbstractSecureClientPoolFacto
     @Override
     public Object createClient(String protocol, String hostName, int port) throws
             DataEndpointSecurityException {
+        return createClient(protocol, hostName, port, new HashMap<String, String>());
+    }
+
+    @Override
+    public Object createClient(String protocol, String hostName, int port, Map<String, String> options) throws
+            DataEndpointSecurityException {
         if (protocol.equalsIgnoreCase(DataEndpointConfiguration.Protocol.SSL.toString())) {
             try {
+                ThriftTransportUtils.ProtocolType protocolType = ThriftTransportUtils.getProtocolType(
+                        options.get(CommonThriftConstants.PROTOCOL_OPTION));
+                ThriftTransportUtils.TransportType transportType = ThriftTransportUtils.getTransportType(
+                        options.get(CommonThriftConstants.TRANSPORT_OPTION));
                 TTransport receiverTransport = TSSLTransportFactory.
                         getClientSocket(hostName, port, 0, params);
-                TProtocol tProtocol = new TBinaryProtocol(receiverTransport);
+                TProtocol tProtocol = ThriftTransportUtils.getClientProtocol(receiverTransport, protocolType,
+                        transportType);
                 return new ThriftSecureEventTransmissionService.Client(tProtocol);
             } catch (TTransportException e) {
                 throw new DataEndpointSecurityException("Error while trying to connect to " +
                         protocol + "://" + hostName + ":" + port, e);
+            } catch (IllegalArgumentException e) {
+                throw new DataEndpointSecurityException(e.getMessage(), e);
             }
         }
         throw new DataEndpointSecurityException("Unsupported protocol :" + protocol
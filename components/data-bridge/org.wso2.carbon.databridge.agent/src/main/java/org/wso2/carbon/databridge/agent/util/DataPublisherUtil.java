@@ -21,6 +21,8 @@ import org.wso2.carbon.databridge.agent.exception.DataEndpointConfigurationExcep
 import org.wso2.carbon.databridge.agent.conf.DataEndpointConfiguration;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -166,10 +168,43 @@ public class DataPublisherUtil {
      */
     public static String[] getProtocolHostPort(String url) {
         String[] keyElements = url.split(DataEndpointConstants.SEPARATOR);
-        String[] urlElements = keyElements[0].split(":");
+        String[] urlElements = getURLWithoutOptions(keyElements[0]).split(":");
         return new String[]{urlElements[0], urlElements[1].replace("//", ""), urlElements[2]};
     }
 
+    /**
+     * Extracts the transport specific options appended to the URL,
+     * eg: tcp://localhost:7611?protocol=compact&transport=framed
+     *
+     * @param url String of URL that needs to be processed.
+     * @return Map of option names and values, empty if no options are provided.
+     */
+    public static Map<String, String> getURLOptions(String url) {
+        Map<String, String> options = new HashMap<String, String>();
+        String urlElement = url.split(DataEndpointConstants.SEPARATOR)[0];
+        int optionsIndex = urlElement.indexOf(DataEndpointConstants.URL_OPTIONS_SEPARATOR);
+        if (optionsIndex != -1) {
+            String[] optionElements = urlElement.substring(optionsIndex + 1).
+                    split(DataEndpointConstants.URL_OPTION_SEPARATOR);
+            for (String optionElement : optionElements) {
+                int valueIndex = optionElement.indexOf(DataEndpointConstants.URL_OPTION_VALUE_SEPARATOR);
+                if (valueIndex > 0) {
+                    options.put(optionElement.substring(0, valueIndex).trim().toLowerCase(),
+                            optionElement.substring(valueIndex + 1).trim());
+                }
+            }
+        }
+        return options;
+    }
+
+    private static String getURLWithoutOptions(String url) {
+        int optionsIndex = url.indexOf(DataEndpointConstants.URL_OPTIONS_SEPARATOR);
+        if (optionsIndex != -1) {
+            return url.substring(0, optionsIndex);
+        }
+        return url;
+    }
+
     /**
      * Deduce the default authentication URL based on the receiver URL passed in.
      *
@@ -180,8 +215,13 @@ public class DataPublisherUtil {
         String[] urlElements = getProtocolHostPort(receiverURL);
         int port = Integer.parseInt(urlElements[2]);
         String host = urlElements[1];
-        return DataEndpointConfiguration.Protocol.SSL.toString() + "://" + host + ":" +
+        String authURL = DataEndpointConfiguration.Protocol.SSL.toString() + "://" + host + ":" +
                 (port + DataEndpointConstants.DEFAULT_AUTH_PORT_OFFSET);
+        int optionsIndex = receiverURL.indexOf(DataEndpointConstants.URL_OPTIONS_SEPARATOR);
+        if (optionsIndex != -1) {
+            authURL += receiverURL.substring(optionsIndex);
+        }
+        return authURL;
     }
 
     /**
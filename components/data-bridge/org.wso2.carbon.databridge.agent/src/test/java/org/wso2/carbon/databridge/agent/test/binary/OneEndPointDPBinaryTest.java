@@ -133,6 +133,37 @@ public class OneEndPointDPBinaryTest extends TestCase {
         testServer.stop();
     }
 
+    public void testOneDataEndpointWithVersion2Encoding() throws DataEndpointAuthenticationException, DataEndpointAgentConfigurationException, TransportException, DataEndpointException, DataEndpointConfigurationException, MalformedStreamDefinitionException, DataBridgeException, StreamDefinitionStoreException, IOException {
+        startServer(9661, 9761);
+        AgentHolder.setConfigPath(DataPublisherTestUtil.getDataAgentConfigPath());
+        String hostName = DataPublisherTestUtil.LOCAL_HOST;
+        DataPublisher dataPublisher = new DataPublisher("Binary", "tcp://" + hostName + ":9661?version=2",
+                "ssl://" + hostName + ":9761?version=2", "admin", "admin");
+        Event event = new Event();
+        event.setStreamId(DataBridgeCommonsUtils.generateStreamId(STREAM_NAME, VERSION));
+        event.setMetaData(new Object[]{"127.0.0.1"});
+        event.setCorrelationData(null);
+        event.setPayloadData(new Object[]{"WSO2", 123.4, -2, null, 1.3});
+        Map<String, String> arbitrary = new HashMap<String, String>();
+        arbitrary.put("test", "testValue");
+        event.setArbitraryDataMap(arbitrary);
+
+        int numberOfEventsSent = 1000;
+        for (int i = 0; i < numberOfEventsSent; i++) {
+            event.setTimeStamp(System.currentTimeMillis());
+            dataPublisher.publish(event);
+        }
+
+        try {
+            Thread.sleep(5000);
+        } catch (InterruptedException e) {
+        }
+        dataPublisher.shutdown();
+        Assert.assertEquals(numberOfEventsSent, testServer.getNumberOfEventsReceived());
+        testServer.resetReceivedEvents();
+        testServer.stop();
+    }
+
     public void testTwoDataEndpoint() throws DataEndpointAuthenticationException,
             DataEndpointAgentConfigurationException, TransportException,
             DataEndpointException, DataEndpointConfigurationException,
@@ -30,6 +30,7 @@ import org.wso2.carbon.databridge.agent.test.DataPublisherTestUtil;
 import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
 import org.wso2.carbon.databridge.commons.exception.TransportException;
+import org.wso2.carbon.databridge.commons.thrift.utils.ThriftTransportUtils;
 import org.wso2.carbon.databridge.commons.utils.DataBridgeCommonsUtils;
 import org.wso2.carbon.databridge.core.exception.DataBridgeException;
 import org.wso2.carbon.databridge.core.exception.StreamDefinitionStoreException;
@@ -101,6 +102,43 @@ public class OneEndPointDPThriftTest extends TestCase {
     }
 
 
+    public void testCompactFramedDataEndpoint() throws DataEndpointAuthenticationException,
+            DataEndpointAgentConfigurationException, TransportException,
+            DataEndpointException, DataEndpointConfigurationException,
+            MalformedStreamDefinitionException, DataBridgeException,
+            StreamDefinitionStoreException, SocketException {
+        thriftTestServer = new ThriftTestServer();
+        thriftTestServer.start(7631, ThriftTransportUtils.ProtocolType.COMPACT, ThriftTransportUtils.TransportType.FRAMED);
+        thriftTestServer.addStreamDefinition(STREAM_DEFN, -1234);
+        DataPublisherTestUtil.setKeyStoreParams();
+        DataPublisherTestUtil.setTrustStoreParams();
+
+        AgentHolder.setConfigPath(DataPublisherTestUtil.getDataAgentConfigPath());
+        String hostName = DataPublisherTestUtil.LOCAL_HOST;
+        String options = "?protocol=compact&transport=framed";
+        DataPublisher dataPublisher = new DataPublisher("Thrift", "tcp://" + hostName + ":7631" + options,
+                "ssl://" + hostName + ":7731" + options, "admin", "admin");
+        Event event = new Event();
+        event.setStreamId(DataBridgeCommonsUtils.generateStreamId(STREAM_NAME, VERSION));
+        event.setMetaData(new Object[]{"127.0.0.1"});
+        event.setCorrelationData(null);
+        event.setPayloadData(new Object[]{"WSO2", 123.4, 2, 12.4, 1.3});
+
+        int numberOfEventsSent = 1000;
+        for (int i = 0; i < numberOfEventsSent; i++) {
+            dataPublisher.publish(event);
+        }
+
+        try {
+            Thread.sleep(5000);
+        } catch (InterruptedException e) {
+        }
+        dataPublisher.shutdown();
+        Assert.assertEquals(numberOfEventsSent, thriftTestServer.getNumberOfEventsReceived());
+        thriftTestServer.resetReceivedEvents();
+        thriftTestServer.stop();
+    }
+
     public void testTwoDataEndpoint() throws DataEndpointAuthenticationException,
             DataEndpointAgentConfigurationException, TransportException,
             DataEndpointException, DataEndpointConfigurationException,
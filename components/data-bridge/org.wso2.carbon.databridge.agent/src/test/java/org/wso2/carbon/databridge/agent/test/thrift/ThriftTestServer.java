@@ -24,6 +24,8 @@ import org.wso2.carbon.databridge.commons.Credentials;
 import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+import org.wso2.carbon.databridge.commons.thrift.utils.CommonThriftConstants;
+import org.wso2.carbon.databridge.commons.thrift.utils.ThriftTransportUtils;
 import org.wso2.carbon.databridge.commons.utils.EventDefinitionConverterUtils;
 import org.wso2.carbon.databridge.core.AgentCallback;
 import org.wso2.carbon.databridge.core.DataBridge;
@@ -33,6 +35,7 @@ import org.wso2.carbon.databridge.core.exception.DataBridgeException;
 import org.wso2.carbon.databridge.core.exception.StreamDefinitionStoreException;
 import org.wso2.carbon.databridge.core.internal.authentication.AuthenticationHandler;
 import org.wso2.carbon.databridge.receiver.thrift.ThriftDataReceiver;
+import org.wso2.carbon.databridge.receiver.thrift.conf.ThriftDataReceiverConfiguration;
 import org.wso2.carbon.user.api.UserStoreException;
 
 import java.net.SocketException;
@@ -73,6 +76,11 @@ public class ThriftTestServer {
     }
 
     public void start(int receiverPort) throws DataBridgeException {
+        start(receiverPort, ThriftTransportUtils.ProtocolType.BINARY, ThriftTransportUtils.TransportType.BUFFERED);
+    }
+
+    public void start(int receiverPort, ThriftTransportUtils.ProtocolType protocolType,
+                      ThriftTransportUtils.TransportType transportType) throws DataBridgeException {
         DataPublisherTestUtil.setKeyStoreParams();
         streamDefinitionStore = getStreamDefinitionStore();
         numberOfEventsReceived = new AtomicInteger(0);
@@ -105,7 +113,11 @@ public class ThriftTestServer {
             }
         }, streamDefinitionStore, DataPublisherTestUtil.getDataBridgeConfigPath());
 
-        thriftDataReceiver = new ThriftDataReceiver(receiverPort, databridge);
+        ThriftDataReceiverConfiguration thriftDataReceiverConfiguration = new ThriftDataReceiverConfiguration(
+                receiverPort + CommonThriftConstants.SECURE_EVENT_RECEIVER_PORT_OFFSET, receiverPort);
+        thriftDataReceiverConfiguration.setProtocolType(protocolType);
+        thriftDataReceiverConfiguration.setTransportType(transportType);
+        thriftDataReceiver = new ThriftDataReceiver(thriftDataReceiverConfiguration, databridge);
 
         databridge.subscribe(new AgentCallback() {
             int totalSize = 0;
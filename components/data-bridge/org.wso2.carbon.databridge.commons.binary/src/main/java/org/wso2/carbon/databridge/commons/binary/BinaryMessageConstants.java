@@ -20,4 +20,13 @@ package org.wso2.carbon.databridge.commons.binary;
 public class BinaryMessageConstants {
     public static final String DEFAULT_CHARSET = "UTF-8";
 
+    public static final int LOGIN_MESSAGE = 0;
+    public static final int LOGOUT_MESSAGE = 1;
+    public static final int PUBLISH_MESSAGE = 2;
+    public static final int PUBLISH_MESSAGE_V2 = 3;
+
+    public static final String ENCODING_VERSION_OPTION = "version";
+    public static final int ENCODING_VERSION_1 = 1;
+    public static final int ENCODING_VERSION_2 = 2;
+
 }
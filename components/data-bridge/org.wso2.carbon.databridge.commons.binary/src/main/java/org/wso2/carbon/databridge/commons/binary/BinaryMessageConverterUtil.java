@@ -17,6 +17,7 @@
 */
 package org.wso2.carbon.databridge.commons.binary;
 
+import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -84,4 +85,77 @@ public class BinaryMessageConverterUtil {
         }
 
     }
+
+    /**
+     * Writes the zig-zag encoded variable length representation of an int, used by the version 2 encoding.
+     * Small positive and negative values take one byte, and at most five bytes are written.
+     */
+    public static void putVarInt(int value, ByteArrayOutputStream outputStream) {
+        putUnsignedVarLong(((long) ((value << 1) ^ (value >> 31))) & 0xFFFFFFFFL, outputStream);
+    }
+
+    /**
+     * Writes the zig-zag encoded variable length representation of a long, used by the version 2 encoding.
+     */
+    public static void putVarLong(long value, ByteArrayOutputStream outputStream) {
+        putUnsignedVarLong((value << 1) ^ (value >> 63), outputStream);
+    }
+
+    /**
+     * Writes a non negative value such as a length or a count as a variable length value.
+     */
+    public static void putUnsignedVarInt(int value, ByteArrayOutputStream outputStream) {
+        putUnsignedVarLong(((long) value) & 0xFFFFFFFFL, outputStream);
+    }
+
+    private static void putUnsignedVarLong(long value, ByteArrayOutputStream outputStream) {
+        while ((value & ~0x7FL) != 0) {
+            outputStream.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        outputStream.write((int) value);
+    }
+
+    public static int getVarInt(ByteBuffer byteBuffer) {
+        int raw = getUnsignedVarInt(byteBuffer);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public static long getVarLong(ByteBuffer byteBuffer) {
+        long raw = getUnsignedVarLong(byteBuffer);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public static int getUnsignedVarInt(ByteBuffer byteBuffer) {
+        return (int) getUnsignedVarLong(byteBuffer);
+    }
+
+    private static long getUnsignedVarLong(ByteBuffer byteBuffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IllegalArgumentException("Malformed variable length value in the binary message");
+            }
+            b = byteBuffer.get();
+            value |= ((long) (b & 0x7F)) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    public static void putString(String value, ByteArrayOutputStream outputStream) throws IOException {
+        byte[] bytes = value.getBytes(BinaryMessageConstants.DEFAULT_CHARSET);
+        putUnsignedVarInt(bytes.length, outputStream);
+        outputStream.write(bytes);
+    }
+
+    public static String getVarString(ByteBuffer byteBuffer) throws IOException {
+        int size = getUnsignedVarInt(byteBuffer);
+        String value = new String(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), size,
+                BinaryMessageConstants.DEFAULT_CHARSET);
+        byteBuffer.position(byteBuffer.position() + size);
+        return value;
+    }
 }
@@ -21,4 +21,7 @@ public class CommonThriftConstants {
 
     public static final int SECURE_EVENT_RECEIVER_PORT_OFFSET = 100;
     public static final int DEFAULT_RECEIVER_PORT = 7611;
+
+    public static final String PROTOCOL_OPTION = "protocol";
+    public static final String TRANSPORT_OPTION = "transport";
 }
@@ -0,0 +1,124 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.databridge.commons.thrift.utils;
+
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportFactory;
+
+/**
+ * Resolves the Thrift wire protocol and transport framing used between the agents and the receiver.
+ * Both ends must be configured with the same protocol and transport, and binary/buffered is the default.
+ */
+public class ThriftTransportUtils {
+
+    public enum ProtocolType {
+        BINARY, COMPACT;
+
+        @Override
+        public String toString() {
+            return super.toString().toLowerCase();
+        }
+    }
+
+    public enum TransportType {
+        BUFFERED, FRAMED;
+
+        @Override
+        public String toString() {
+            return super.toString().toLowerCase();
+        }
+    }
+
+    private ThriftTransportUtils() {
+    }
+
+    /**
+     * Returns the protocol type for the given name, falling back to binary when no name is given.
+     *
+     * @param name protocol name, binary or compact
+     * @return the matching protocol type
+     * @throws IllegalArgumentException if the name is not a known protocol
+     */
+    public static ProtocolType getProtocolType(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return ProtocolType.BINARY;
+        }
+        try {
+            return ProtocolType.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported thrift protocol : " + name + ", only " +
+                    ProtocolType.BINARY + " and " + ProtocolType.COMPACT + " are supported", e);
+        }
+    }
+
+    /**
+     * Returns the transport type for the given name, falling back to buffered when no name is given.
+     *
+     * @param name transport name, buffered or framed
+     * @return the matching transport type
+     * @throws IllegalArgumentException if the name is not a known transport
+     */
+    public static TransportType getTransportType(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return TransportType.BUFFERED;
+        }
+        try {
+            return TransportType.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported thrift transport : " + name + ", only " +
+                    TransportType.BUFFERED + " and " + TransportType.FRAMED + " are supported", e);
+        }
+    }
+
+    public static TProtocolFactory getProtocolFactory(ProtocolType protocolType) {
+        if (protocolType == ProtocolType.COMPACT) {
+            return new TCompactProtocol.Factory();
+        }
+        return new TBinaryProtocol.Factory();
+    }
+
+    public static TTransportFactory getTransportFactory(TransportType transportType) {
+        if (transportType == TransportType.FRAMED) {
+            return new TFramedTransport.Factory();
+        }
+        return new TTransportFactory();
+    }
+
+    /**
+     * Wraps the socket transport of a client according to the transport type and creates the protocol on top.
+     * The socket transport is already buffered, hence only framing needs an extra layer.
+     *
+     * @param socketTransport the underlying socket transport
+     * @param protocolType    protocol to be used
+     * @param transportType   transport to be used
+     * @return protocol to be passed to the generated thrift client
+     */
+    public static TProtocol getClientProtocol(TTransport socketTransport, ProtocolType protocolType,
+                                              TransportType transportType) {
+        TTransport transport = socketTransport;
+        if (transportType == TransportType.FRAMED) {
+            transport = new TFramedTransport(socketTransport);
+        }
+        return getProtocolFactory(protocolType).getProtocol(transport);
+    }
+}
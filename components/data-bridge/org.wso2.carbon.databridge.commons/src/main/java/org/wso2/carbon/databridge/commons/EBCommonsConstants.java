@@ -29,4 +29,6 @@ public class EBCommonsConstants {
     public static final String ARBITRARY_DATA_MAP = "arbitraryDataMap";
     public static final String PAYLOAD_DATA = "payloadData";
     public static final String TIME_STAMP = "timeStamp";
+    public static final String META_PREFIX = "meta_";
+    public static final String CORRELATION_PREFIX = "correlation_";
 }
@@ -0,0 +1,632 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.databridge.commons;
+
+import org.wso2.carbon.databridge.commons.exception.MalformedEventException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar container for the events of a single stream. Each attribute of the stream is kept in a primitive
+ * array of its type, hence numeric and boolean attributes are never boxed while they are in the batch.
+ * Attributes are addressed by their index in the flattened meta, correlation and payload attribute order.
+ * <p/>
+ * An EventBatch is not thread safe while it is being filled, but it can be shared read only once filled.
+ */
+public class EventBatch {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final String streamId;
+    private final AttributeType[] attributeTypes;
+    private final int metaDataCount;
+    private final int correlationDataCount;
+    private final int payloadDataCount;
+
+    private int size;
+    private int capacity;
+    private long[] timeStamps;
+    private Object[] columns;
+    private BitSet[] nullColumns;
+    private Map<String, String>[] arbitraryDataMaps;
+
+    public EventBatch(StreamDefinition streamDefinition) {
+        this(streamDefinition, DEFAULT_CAPACITY);
+    }
+
+    public EventBatch(StreamDefinition streamDefinition, int initialCapacity) {
+        StreamAttributeLayout layout = streamDefinition.getAttributeLayout();
+        this.streamId = streamDefinition.getStreamId();
+        this.metaDataCount = layout.getMetaDataCount();
+        this.correlationDataCount = layout.getCorrelationDataCount();
+        this.payloadDataCount = layout.getPayloadDataCount();
+        this.attributeTypes = layout.getAttributeTypes();
+
+        this.capacity = initialCapacity > 0 ? initialCapacity : DEFAULT_CAPACITY;
+        this.timeStamps = new long[capacity];
+        this.columns = new Object[attributeTypes.length];
+        this.nullColumns = new BitSet[attributeTypes.length];
+        for (int i = 0; i < attributeTypes.length; i++) {
+            columns[i] = newColumn(attributeTypes[i], capacity);
+        }
+    }
+
+    /**
+     * Creates a batch holding the given events, all of which need to belong to the given stream definition.
+     *
+     * @param streamDefinition definition of the stream the events belong to
+     * @param events           events to be added to the batch
+     * @return the filled batch
+     */
+    public static EventBatch fromEventList(StreamDefinition streamDefinition, List<Event> events) {
+        EventBatch eventBatch = new EventBatch(streamDefinition, events.size());
+        for (Event event : events) {
+            eventBatch.add(event);
+        }
+        return eventBatch;
+    }
+
+    private EventBatch(EventBatch eventBatch) {
+        this.streamId = eventBatch.streamId;
+        this.attributeTypes = eventBatch.attributeTypes;
+        this.metaDataCount = eventBatch.metaDataCount;
+        this.correlationDataCount = eventBatch.correlationDataCount;
+        this.payloadDataCount = eventBatch.payloadDataCount;
+
+        this.size = eventBatch.size;
+        this.capacity = eventBatch.size;
+        this.timeStamps = Arrays.copyOf(eventBatch.timeStamps, capacity);
+        this.columns = new Object[attributeTypes.length];
+        this.nullColumns = new BitSet[attributeTypes.length];
+        for (int i = 0; i < attributeTypes.length; i++) {
+            columns[i] = copyColumn(eventBatch.columns[i], capacity);
+            if (eventBatch.nullColumns[i] != null) {
+                nullColumns[i] = eventBatch.nullColumns[i].get(0, capacity);
+            }
+        }
+        if (eventBatch.arbitraryDataMaps != null) {
+            arbitraryDataMaps = Arrays.copyOf(eventBatch.arbitraryDataMaps, capacity);
+        }
+    }
+
+    /**
+     * Creates a batch holding a copy of the rows of this batch, which stays intact when this batch is cleared
+     * and refilled. The arbitrary data maps are shared with this batch.
+     *
+     * @return the copy
+     */
+    public EventBatch copy() {
+        return new EventBatch(this);
+    }
+
+    private static Object newColumn(AttributeType type, int capacity) {
+        switch (type) {
+            case INT:
+                return new int[capacity];
+            case LONG:
+                return new long[capacity];
+            case FLOAT:
+                return new float[capacity];
+            case DOUBLE:
+                return new double[capacity];
+            case BOOL:
+                return new boolean[capacity];
+            default:
+                return new String[capacity];
+        }
+    }
+
+    private static Object copyColumn(Object column, int capacity) {
+        if (column instanceof int[]) {
+            return Arrays.copyOf((int[]) column, capacity);
+        } else if (column instanceof long[]) {
+            return Arrays.copyOf((long[]) column, capacity);
+        } else if (column instanceof float[]) {
+            return Arrays.copyOf((float[]) column, capacity);
+        } else if (column instanceof double[]) {
+            return Arrays.copyOf((double[]) column, capacity);
+        } else if (column instanceof boolean[]) {
+            return Arrays.copyOf((boolean[]) column, capacity);
+        } else {
+            return Arrays.copyOf((String[]) column, capacity);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity) {
+            int newCapacity = Math.max(capacity << 1, minCapacity);
+            timeStamps = Arrays.copyOf(timeStamps, newCapacity);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = copyColumn(columns[i], newCapacity);
+            }
+            if (arbitraryDataMaps != null) {
+                arbitraryDataMaps = Arrays.copyOf(arbitraryDataMaps, newCapacity);
+            }
+            capacity = newCapacity;
+        }
+    }
+
+    /**
+     * Appends an empty row and returns its index. Numeric attributes of the new row are zero,
+     * boolean attributes are false and string attributes are null until they are set.
+     *
+     * @param timeStamp timestamp of the new row
+     * @return index of the new row
+     */
+    public int addRow(long timeStamp) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        timeStamps[row] = timeStamp;
+        for (int i = 0; i < nullColumns.length; i++) {
+            if (nullColumns[i] != null) {
+                nullColumns[i].clear(row);
+            }
+        }
+        if (arbitraryDataMaps != null) {
+            arbitraryDataMaps[row] = null;
+        }
+        for (int i = 0; i < attributeTypes.length; i++) {
+            switch (attributeTypes[i]) {
+                case INT:
+                    ((int[]) columns[i])[row] = 0;
+                    break;
+                case LONG:
+                    ((long[]) columns[i])[row] = 0;
+                    break;
+                case FLOAT:
+                    ((float[]) columns[i])[row] = 0;
+                    break;
+                case DOUBLE:
+                    ((double[]) columns[i])[row] = 0;
+                    break;
+                case BOOL:
+                    ((boolean[]) columns[i])[row] = false;
+                    break;
+                default:
+                    ((String[]) columns[i])[row] = null;
+                    break;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Appends the event as a new row.
+     *
+     * @param event event of the stream of this batch
+     * @return index of the new row
+     * @throws MalformedEventException if the event does not match the stream definition
+     */
+    public int add(Event event) {
+        int row = addRow(event.getTimeStamp());
+        try {
+            setData(row, 0, metaDataCount, event.getMetaData(), EBCommonsConstants.META_DATA);
+            setData(row, metaDataCount, correlationDataCount, event.getCorrelationData(),
+                    EBCommonsConstants.CORRELATION_DATA);
+            setData(row, metaDataCount + correlationDataCount, payloadDataCount, event.getPayloadData(),
+                    EBCommonsConstants.PAYLOAD_DATA);
+        } catch (MalformedEventException e) {
+            size--;
+            throw e;
+        }
+        if (event.getArbitraryDataMap() != null) {
+            setArbitraryDataMap(row, event.getArbitraryDataMap());
+        }
+        return row;
+    }
+
+    private void setData(int row, int offset, int count, Object[] data, String type) {
+        int length = data == null ? 0 : data.length;
+        if (length != count) {
+            throw new MalformedEventException("Expected " + count + " " + type + " attributes for stream " +
+                    streamId + " but the event has " + length);
+        }
+        for (int i = 0; i < count; i++) {
+            setValue(row, offset + i, data[i]);
+        }
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the rows while keeping the allocated columns for reuse.
+     */
+    public void clear() {
+        if (arbitraryDataMaps != null) {
+            Arrays.fill(arbitraryDataMaps, 0, size, null);
+        }
+        size = 0;
+    }
+
+    public int getAttributeCount() {
+        return attributeTypes.length;
+    }
+
+    public int getMetaDataCount() {
+        return metaDataCount;
+    }
+
+    public int getCorrelationDataCount() {
+        return correlationDataCount;
+    }
+
+    public int getPayloadDataCount() {
+        return payloadDataCount;
+    }
+
+    public AttributeType getAttributeType(int attribute) {
+        return attributeTypes[attribute];
+    }
+
+    public long getTimeStamp(int row) {
+        checkRow(row);
+        return timeStamps[row];
+    }
+
+    public void setTimeStamp(int row, long timeStamp) {
+        checkRow(row);
+        timeStamps[row] = timeStamp;
+    }
+
+    public int getInt(int row, int attribute) {
+        checkRow(row);
+        return ((int[]) columns[attribute])[row];
+    }
+
+    public long getLong(int row, int attribute) {
+        checkRow(row);
+        return ((long[]) columns[attribute])[row];
+    }
+
+    public float getFloat(int row, int attribute) {
+        checkRow(row);
+        return ((float[]) columns[attribute])[row];
+    }
+
+    public double getDouble(int row, int attribute) {
+        checkRow(row);
+        return ((double[]) columns[attribute])[row];
+    }
+
+    public boolean getBool(int row, int attribute) {
+        checkRow(row);
+        return ((boolean[]) columns[attribute])[row];
+    }
+
+    public String getString(int row, int attribute) {
+        checkRow(row);
+        return ((String[]) columns[attribute])[row];
+    }
+
+    public void setInt(int row, int attribute, int value) {
+        checkRow(row);
+        ((int[]) columns[attribute])[row] = value;
+        clearNull(row, attribute);
+    }
+
+    public void setLong(int row, int attribute, long value) {
+        checkRow(row);
+        ((long[]) columns[attribute])[row] = value;
+        clearNull(row, attribute);
+    }
+
+    public void setFloat(int row, int attribute, float value) {
+        checkRow(row);
+        ((float[]) columns[attribute])[row] = value;
+        clearNull(row, attribute);
+    }
+
+    public void setDouble(int row, int attribute, double value) {
+        checkRow(row);
+        ((double[]) columns[attribute])[row] = value;
+        clearNull(row, attribute);
+    }
+
+    public void setBool(int row, int attribute, boolean value) {
+        checkRow(row);
+        ((boolean[]) columns[attribute])[row] = value;
+        clearNull(row, attribute);
+    }
+
+    public void setString(int row, int attribute, String value) {
+        checkRow(row);
+        ((String[]) columns[attribute])[row] = value;
+        if (value == null) {
+            setNull(row, attribute);
+        } else {
+            clearNull(row, attribute);
+        }
+    }
+
+    public boolean isNull(int row, int attribute) {
+        checkRow(row);
+        if (attributeTypes[attribute] == AttributeType.STRING) {
+            return ((String[]) columns[attribute])[row] == null;
+        }
+        return nullColumns[attribute] != null && nullColumns[attribute].get(row);
+    }
+
+    public void setNull(int row, int attribute) {
+        checkRow(row);
+        if (attributeTypes[attribute] == AttributeType.STRING) {
+            ((String[]) columns[attribute])[row] = null;
+            return;
+        }
+        if (nullColumns[attribute] == null) {
+            nullColumns[attribute] = new BitSet(capacity);
+        }
+        nullColumns[attribute].set(row);
+    }
+
+    private void clearNull(int row, int attribute) {
+        if (nullColumns[attribute] != null) {
+            nullColumns[attribute].clear(row);
+        }
+    }
+
+    /**
+     * Returns the boxed value of the attribute, or null if the attribute is null.
+     */
+    public Object getValue(int row, int attribute) {
+        if (isNull(row, attribute)) {
+            return null;
+        }
+        switch (attributeTypes[attribute]) {
+            case INT:
+                return ((int[]) columns[attribute])[row];
+            case LONG:
+                return ((long[]) columns[attribute])[row];
+            case FLOAT:
+                return ((float[]) columns[attribute])[row];
+            case DOUBLE:
+                return ((double[]) columns[attribute])[row];
+            case BOOL:
+                return ((boolean[]) columns[attribute])[row];
+            default:
+                return ((String[]) columns[attribute])[row];
+        }
+    }
+
+    /**
+     * Sets the attribute from a boxed value. Integral values are accepted for int and long attributes as long as
+     * they fit in to the attribute type, and floating point values for float and double attributes as long as they
+     * are represented exactly, so that a value is never silently truncated or rounded.
+     *
+     * @throws MalformedEventException if the value does not match the type of the attribute, or cannot be
+     *                                 converted to it without losing precision
+     */
+    public void setValue(int row, int attribute, Object value) {
+        if (value == null) {
+            setNull(row, attribute);
+            return;
+        }
+        switch (attributeTypes[attribute]) {
+            case INT:
+                if (!isIntegral(value) || ((Number) value).longValue() != ((Number) value).intValue()) {
+                    throw invalidValue(attribute, value);
+                }
+                setInt(row, attribute, ((Number) value).intValue());
+                break;
+            case LONG:
+                if (!isIntegral(value)) {
+                    throw invalidValue(attribute, value);
+                }
+                setLong(row, attribute, ((Number) value).longValue());
+                break;
+            case FLOAT:
+                if (value instanceof Float) {
+                    setFloat(row, attribute, (Float) value);
+                } else if (value instanceof Double && (((Double) value).floatValue() == (Double) value
+                        || ((Double) value).isNaN())) {
+                    setFloat(row, attribute, ((Double) value).floatValue());
+                } else {
+                    throw invalidValue(attribute, value);
+                }
+                break;
+            case DOUBLE:
+                if (!(value instanceof Double || value instanceof Float)) {
+                    throw invalidValue(attribute, value);
+                }
+                setDouble(row, attribute, ((Number) value).doubleValue());
+                break;
+            case BOOL:
+                if (!(value instanceof Boolean)) {
+                    throw invalidValue(attribute, value);
+                }
+                setBool(row, attribute, (Boolean) value);
+                break;
+            default:
+                if (!(value instanceof String)) {
+                    throw invalidValue(attribute, value);
+                }
+                setString(row, attribute, (String) value);
+                break;
+        }
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    private MalformedEventException invalidValue(int attribute, Object value) {
+        return new MalformedEventException("Value " + value + " of type " + value.getClass().getName() +
+                " cannot be assigned to attribute " + attribute + " of type " + attributeTypes[attribute] +
+                " in stream " + streamId);
+    }
+
+    public Map<String, String> getArbitraryDataMap(int row) {
+        checkRow(row);
+        return arbitraryDataMaps == null ? null : arbitraryDataMaps[row];
+    }
+
+    @SuppressWarnings("unchecked")
+    public void setArbitraryDataMap(int row, Map<String, String> arbitraryDataMap) {
+        checkRow(row);
+        if (arbitraryDataMaps == null) {
+            if (arbitraryDataMap == null) {
+                return;
+            }
+            arbitraryDataMaps = new Map[capacity];
+        }
+        arbitraryDataMaps[row] = arbitraryDataMap;
+    }
+
+    public Row getRow(int row) {
+        checkRow(row);
+        return new Row(row);
+    }
+
+    /**
+     * Materialises the row as an event, boxing its attribute values.
+     */
+    public Event toEvent(int row) {
+        return toEvent(row, new Event());
+    }
+
+    /**
+     * Materialises the row into the given event, replacing all of its fields, so that preallocated events such
+     * as the slots of a ring buffer can be filled without creating an event per row.
+     *
+     * @return the given event
+     */
+    public Event toEvent(int row, Event event) {
+        checkRow(row);
+        event.setStreamId(streamId);
+        event.setTimeStamp(timeStamps[row]);
+        event.setMetaData(toObjectArray(row, 0, metaDataCount));
+        event.setCorrelationData(toObjectArray(row, metaDataCount, correlationDataCount));
+        event.setPayloadData(toObjectArray(row, metaDataCount + correlationDataCount, payloadDataCount));
+        event.setArbitraryDataMap(getArbitraryDataMap(row));
+        return event;
+    }
+
+    private Object[] toObjectArray(int row, int offset, int count) {
+        if (count == 0) {
+            return null;
+        }
+        Object[] data = new Object[count];
+        for (int i = 0; i < count; i++) {
+            data[i] = getValue(row, offset + i);
+        }
+        return data;
+    }
+
+    public List<Event> toEventList() {
+        List<Event> events = new ArrayList<Event>(size);
+        for (int i = 0; i < size; i++) {
+            events.add(toEvent(i));
+        }
+        return events;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " is not in the event batch of size " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EventBatch{" +
+                "streamId='" + streamId + '\'' +
+                ", size=" + size +
+                '}';
+    }
+
+    /**
+     * Read and write view of a single row of the batch.
+     */
+    public class Row {
+        private final int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        public int getIndex() {
+            return row;
+        }
+
+        public String getStreamId() {
+            return streamId;
+        }
+
+        public long getTimeStamp() {
+            return EventBatch.this.getTimeStamp(row);
+        }
+
+        public int getInt(int attribute) {
+            return EventBatch.this.getInt(row, attribute);
+        }
+
+        public long getLong(int attribute) {
+            return EventBatch.this.getLong(row, attribute);
+        }
+
+        public float getFloat(int attribute) {
+            return EventBatch.this.getFloat(row, attribute);
+        }
+
+        public double getDouble(int attribute) {
+            return EventBatch.this.getDouble(row, attribute);
+        }
+
+        public boolean getBool(int attribute) {
+            return EventBatch.this.getBool(row, attribute);
+        }
+
+        public String getString(int attribute) {
+            return EventBatch.this.getString(row, attribute);
+        }
+
+        public boolean isNull(int attribute) {
+            return EventBatch.this.isNull(row, attribute);
+        }
+
+        public Object getValue(int attribute) {
+            return EventBatch.this.getValue(row, attribute);
+        }
+
+        public void setValue(int attribute, Object value) {
+            EventBatch.this.setValue(row, attribute, value);
+        }
+
+        public Map<String, String> getArbitraryDataMap() {
+            return EventBatch.this.getArbitraryDataMap(row);
+        }
+
+        public Event toEvent() {
+            return EventBatch.this.toEvent(row);
+        }
+    }
+}
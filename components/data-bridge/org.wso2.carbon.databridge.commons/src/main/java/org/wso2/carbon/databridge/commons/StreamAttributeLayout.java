@@ -0,0 +1,218 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.databridge.commons;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable layout of the attributes of a stream definition, derived once per definition and cached with it
+ * (see {@link StreamDefinition#getAttributeLayout()}). Attributes are addressed by their index in the flattened
+ * meta, correlation and payload attribute order, and are named as meta_&lt;name&gt;, correlation_&lt;name&gt;
+ * and &lt;name&gt; respectively in that order.
+ * <p/>
+ * The arrays returned by this class are shared and must not be modified.
+ */
+public final class StreamAttributeLayout {
+
+    private static final int STRING_SIZE = -1;
+
+    private final AttributeType[] metaDataTypes;
+    private final AttributeType[] correlationDataTypes;
+    private final AttributeType[] payloadDataTypes;
+    private final AttributeType[] attributeTypes;
+    private final int metaDataCount;
+    private final int correlationDataCount;
+    private final int payloadDataCount;
+    private final int[] primitiveOffsets;
+    private final int primitiveSize;
+    private final int stringCount;
+    private final Map<String, Integer> attributeIndexMap;
+
+    public StreamAttributeLayout(StreamDefinition streamDefinition) {
+        this.metaDataTypes = getTypes(streamDefinition.getMetaData());
+        this.correlationDataTypes = getTypes(streamDefinition.getCorrelationData());
+        this.payloadDataTypes = getTypes(streamDefinition.getPayloadData());
+        this.metaDataCount = metaDataTypes == null ? 0 : metaDataTypes.length;
+        this.correlationDataCount = correlationDataTypes == null ? 0 : correlationDataTypes.length;
+        this.payloadDataCount = payloadDataTypes == null ? 0 : payloadDataTypes.length;
+
+        int attributeCount = metaDataCount + correlationDataCount + payloadDataCount;
+        this.attributeTypes = new AttributeType[attributeCount];
+        copyTypes(metaDataTypes, 0);
+        copyTypes(correlationDataTypes, metaDataCount);
+        copyTypes(payloadDataTypes, metaDataCount + correlationDataCount);
+
+        this.primitiveOffsets = new int[attributeCount];
+        int offset = 0;
+        int strings = 0;
+        for (int i = 0; i < attributeCount; i++) {
+            int size = getPrimitiveSize(attributeTypes[i]);
+            if (size == STRING_SIZE) {
+                primitiveOffsets[i] = -1;
+                strings++;
+            } else {
+                primitiveOffsets[i] = offset;
+                offset += size;
+            }
+        }
+        this.primitiveSize = offset;
+        this.stringCount = strings;
+
+        Map<String, Integer> indexMap = new HashMap<String, Integer>(attributeCount * 2);
+        int index = addNames(indexMap, EBCommonsConstants.META_PREFIX, streamDefinition.getMetaData(), 0);
+        index = addNames(indexMap, EBCommonsConstants.CORRELATION_PREFIX, streamDefinition.getCorrelationData(), index);
+        addNames(indexMap, "", streamDefinition.getPayloadData(), index);
+        this.attributeIndexMap = Collections.unmodifiableMap(indexMap);
+    }
+
+    private static AttributeType[] getTypes(List<Attribute> attributes) {
+        if (attributes == null) {
+            return null;
+        }
+        AttributeType[] types = new AttributeType[attributes.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = attributes.get(i).getType();
+        }
+        return types;
+    }
+
+    private void copyTypes(AttributeType[] types, int offset) {
+        if (types != null) {
+            System.arraycopy(types, 0, attributeTypes, offset, types.length);
+        }
+    }
+
+    private static int addNames(Map<String, Integer> indexMap, String prefix, List<Attribute> attributes,
+                                int index) {
+        if (attributes != null) {
+            for (Attribute attribute : attributes) {
+                if (attribute.getName() != null) {
+                    indexMap.put(prefix + attribute.getName(), index);
+                }
+                index++;
+            }
+        }
+        return index;
+    }
+
+    private static int getPrimitiveSize(AttributeType type) {
+        if (type == null) {
+            return STRING_SIZE;
+        }
+        switch (type) {
+            case BOOL:
+                return 1;
+            case INT:
+            case FLOAT:
+                return 4;
+            case LONG:
+            case DOUBLE:
+                return 8;
+            default:
+                return STRING_SIZE;
+        }
+    }
+
+    /**
+     * @return meta, correlation and payload attribute types, where a section is null when the definition has
+     * no attribute list for it
+     */
+    public AttributeType[][] getSectionTypes() {
+        return new AttributeType[][]{metaDataTypes, correlationDataTypes, payloadDataTypes};
+    }
+
+    public AttributeType[] getMetaDataTypes() {
+        return metaDataTypes;
+    }
+
+    public AttributeType[] getCorrelationDataTypes() {
+        return correlationDataTypes;
+    }
+
+    public AttributeType[] getPayloadDataTypes() {
+        return payloadDataTypes;
+    }
+
+    /**
+     * @return types of all the attributes in the flattened attribute order
+     */
+    public AttributeType[] getAttributeTypes() {
+        return attributeTypes;
+    }
+
+    public int getAttributeCount() {
+        return attributeTypes.length;
+    }
+
+    public int getMetaDataCount() {
+        return metaDataCount;
+    }
+
+    public int getCorrelationDataCount() {
+        return correlationDataCount;
+    }
+
+    public int getPayloadDataCount() {
+        return payloadDataCount;
+    }
+
+    public int getCorrelationDataOffset() {
+        return metaDataCount;
+    }
+
+    public int getPayloadDataOffset() {
+        return metaDataCount + correlationDataCount;
+    }
+
+    /**
+     * @param attributeIndex index of the attribute in the flattened attribute order
+     * @return byte offset of the attribute when all the fixed size attributes are packed in order,
+     * or -1 for string attributes
+     */
+    public int getPrimitiveOffset(int attributeIndex) {
+        return primitiveOffsets[attributeIndex];
+    }
+
+    /**
+     * @return number of bytes needed to hold all the fixed size (non string) attributes of an event
+     */
+    public int getPrimitiveSize() {
+        return primitiveSize;
+    }
+
+    public int getStringCount() {
+        return stringCount;
+    }
+
+    /**
+     * @param attributeName name of the attribute, prefixed with meta_ or correlation_ for meta and correlation
+     *                      attributes
+     * @return index of the attribute in the flattened attribute order, or -1 if there is no such attribute
+     */
+    public int getAttributeIndex(String attributeName) {
+        Integer index = attributeIndexMap.get(attributeName);
+        return index == null ? -1 : index;
+    }
+
+    public Map<String, Integer> getAttributeIndexMap() {
+        return attributeIndexMap;
+    }
+}
@@ -41,6 +41,8 @@ public class StreamDefinition {
 
     private IndexDefinition indexDefinition;
 
+    private transient volatile StreamAttributeLayout attributeLayout;
+
     @Deprecated
     /**
      *    @deprecated As of release 4.0.7 as streamId will ba always generated by as <StreamName>-<StreamVersion>
@@ -93,14 +95,17 @@ public class StreamDefinition {
 
     public void setMetaData(List<Attribute> metaData) {
         this.metaData = metaData;
+        this.attributeLayout = null;
     }
 
     public void setCorrelationData(List<Attribute> correlationData) {
         this.correlationData = correlationData;
+        this.attributeLayout = null;
     }
 
     public void setPayloadData(List<Attribute> payloadData) {
         this.payloadData = payloadData;
+        this.attributeLayout = null;
     }
 
     public String getStreamId() {
@@ -139,6 +144,21 @@ public class StreamDefinition {
         return payloadData;
     }
 
+    /**
+     * Returns the attribute layout of this definition, which is derived once and cached until the attribute
+     * lists are replaced or added to through this class. Attribute lists modified directly are not tracked.
+     *
+     * @return attribute layout of the stream definition
+     */
+    public StreamAttributeLayout getAttributeLayout() {
+        StreamAttributeLayout layout = attributeLayout;
+        if (layout == null) {
+            layout = new StreamAttributeLayout(this);
+            attributeLayout = layout;
+        }
+        return layout;
+    }
+
     public List<Attribute> getAttributeListForKey(String key) {
         if (key.equals("metaData")) {
             return metaData;
@@ -215,6 +235,7 @@ public class StreamDefinition {
             metaData = new ArrayList<Attribute>();
         }
         metaData.add(new Attribute(name, type));
+        attributeLayout = null;
     }
 
     public void addCorrelationData(String name, AttributeType type) {
@@ -222,6 +243,7 @@ public class StreamDefinition {
             correlationData = new ArrayList<Attribute>();
         }
         correlationData.add(new Attribute(name, type));
+        attributeLayout = null;
     }
 
     public void addPayloadData(String name, AttributeType type) {
@@ -229,6 +251,7 @@ public class StreamDefinition {
             payloadData = new ArrayList<Attribute>();
         }
         payloadData.add(new Attribute(name, type));
+        attributeLayout = null;
     }
 
     public IndexDefinition getIndexDefinition() {
@@ -5,17 +5,25 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.wso2.carbon.databridge.commons.Attribute;
 import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.EBCommonsConstants;
 import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.databridge.commons.exception.MalformedEventException;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -132,6 +140,20 @@ public class EventConverterUtils {
 
 
     public static List<Event> convertFromJson(String json) {
+        List<Event> eventList = readEvents(json, null);
+        if (eventList != null) {
+            for (Event event : eventList) {
+                if (event.getStreamId() == null || event.getStreamId().equals("")) {
+                    // let the tree based conversion report the malformed event
+                    return convertFromJsonTree(json);
+                }
+            }
+            return eventList;
+        }
+        return convertFromJsonTree(json);
+    }
+
+    private static List<Event> convertFromJsonTree(String json) {
         List<Event> eventList = new ArrayList<Event>();
         try {
             JSONArray eventObjects = new JSONArray(json);
@@ -206,7 +228,14 @@ public class EventConverterUtils {
             }
             throw malformedEventException;
         }
-        List<Event> eventList = new ArrayList<Event>();
+        List<Event> eventList = readEvents(json, null);
+        if (eventList != null) {
+            for (Event event : eventList) {
+                event.setStreamId(streamId);
+            }
+            return eventList;
+        }
+        eventList = new ArrayList<Event>();
         try {
             JSONArray eventObjects = new JSONArray(json);
             for (int i = 0; i < eventObjects.length(); i++) {
@@ -240,7 +269,14 @@ public class EventConverterUtils {
             }
             throw malformedEventException;
         }
-        List<Event> eventList = new ArrayList<Event>();
+        List<Event> eventList = readEvents(json, streamDefinition);
+        if (eventList != null) {
+            for (Event event : eventList) {
+                event.setStreamId(streamId);
+            }
+            return eventList;
+        }
+        eventList = new ArrayList<Event>();
         try {
             JsonParser jsonParser = new JsonParser();
             JSONArray eventObjects = new JSONArray(json);
@@ -290,6 +326,203 @@ public class EventConverterUtils {
         return eventList;
     }
 
+    /**
+     * Converts the events in to a JSON array of the same form accepted by {@link #convertFromJson(String)},
+     * writing the values straight in to the output without building an intermediate JSON tree.
+     *
+     * @param events events to be converted
+     * @return JSON array of events
+     */
+    public static String convertToJson(List<Event> events) {
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        writer.setLenient(true);
+        try {
+            writer.beginArray();
+            for (Event event : events) {
+                writeEvent(writer, event);
+            }
+            writer.endArray();
+            writer.close();
+        } catch (IOException e) {
+            // cannot happen when writing in to a StringWriter
+            throw new IllegalStateException("Error converting events to JSON", e);
+        }
+        return stringWriter.toString();
+    }
+
+    public static String convertToJson(Event event) {
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        writer.setLenient(true);
+        try {
+            writeEvent(writer, event);
+            writer.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("Error converting event to JSON", e);
+        }
+        return stringWriter.toString();
+    }
+
+    /**
+     * Reads the JSON event array with a streaming reader, mapping the values directly to the attribute types of
+     * the stream definition when it is given. Returns null when the JSON cannot be read this way, so that the
+     * callers can fall back to the tree based conversion, which reports the errors.
+     */
+    private static List<Event> readEvents(String json, StreamDefinition streamDefinition) {
+        if (json == null) {
+            return null;
+        }
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setLenient(true);
+        try {
+            List<Event> eventList = new ArrayList<Event>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                eventList.add(readEvent(reader, streamDefinition));
+            }
+            reader.endArray();
+            return eventList;
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cannot stream convert JSON to events, hence using tree conversion : " + e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cannot stream convert JSON to events, hence using tree conversion : " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private static Event readEvent(JsonReader reader, StreamDefinition streamDefinition) throws IOException {
+        Event event = new Event();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (streamDefinition != null) {
+                List<Attribute> attributeList = streamDefinition.getAttributeListForKey(key);
+                if (attributeList != null && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    event.setData(key, readValues(reader, attributeList));
+                } else {
+                    reader.skipValue();
+                }
+            } else if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            } else if (EBCommonsConstants.STREAM_ID.equals(key)) {
+                event.setStreamId(reader.nextString());
+            } else if (EBCommonsConstants.TIME_STAMP.equals(key)) {
+                event.setTimeStamp(reader.nextLong());
+            } else if (EBCommonsConstants.META_DATA.equals(key) || EBCommonsConstants.CORRELATION_DATA.equals(key)
+                       || EBCommonsConstants.PAYLOAD_DATA.equals(key)) {
+                event.setData(key, readValues(reader, null));
+            } else if (EBCommonsConstants.ARBITRARY_DATA_MAP.equals(key)) {
+                Map<String, String> arbitraryDataMap = new HashMap<String, String>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                        arbitraryDataMap.put(name, null);
+                    } else {
+                        arbitraryDataMap.put(name, reader.nextString());
+                    }
+                }
+                reader.endObject();
+                event.setArbitraryDataMap(arbitraryDataMap);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return event;
+    }
+
+    private static Object[] readValues(JsonReader reader, List<Attribute> attributeList) throws IOException {
+        List<Object> values = new ArrayList<Object>(attributeList != null ? attributeList.size() : 10);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            JsonToken token = reader.peek();
+            if (token == JsonToken.NULL) {
+                reader.nextNull();
+                values.add(null);
+            } else if (attributeList != null) {
+                values.add(readValue(reader, token, attributeList.get(values.size()).getType()));
+            } else if (token == JsonToken.NUMBER) {
+                // same as the Gson conversion of untyped numbers
+                values.add(reader.nextDouble());
+            } else if (token == JsonToken.BOOLEAN) {
+                values.add(reader.nextBoolean());
+            } else {
+                values.add(reader.nextString());
+            }
+        }
+        reader.endArray();
+        return values.toArray();
+    }
+
+    private static Object readValue(JsonReader reader, JsonToken token, AttributeType attributeType)
+            throws IOException {
+        if (token == JsonToken.BOOLEAN) {
+            boolean value = reader.nextBoolean();
+            return attributeType == AttributeType.BOOL ? value : getValue(String.valueOf(value), attributeType);
+        }
+        switch (attributeType) {
+            case DOUBLE:
+                return reader.nextDouble();
+            case STRING:
+                return reader.nextString();
+            default:
+                return getValue(reader.nextString(), attributeType);
+        }
+    }
+
+    private static void writeEvent(JsonWriter writer, Event event) throws IOException {
+        writer.beginObject();
+        if (event.getStreamId() != null) {
+            writer.name(EBCommonsConstants.STREAM_ID).value(event.getStreamId());
+        }
+        writer.name(EBCommonsConstants.TIME_STAMP).value(event.getTimeStamp());
+        writeValues(writer, EBCommonsConstants.META_DATA, event.getMetaData());
+        writeValues(writer, EBCommonsConstants.CORRELATION_DATA, event.getCorrelationData());
+        writeValues(writer, EBCommonsConstants.PAYLOAD_DATA, event.getPayloadData());
+        Map<String, String> arbitraryDataMap = event.getArbitraryDataMap();
+        if (arbitraryDataMap != null) {
+            writer.name(EBCommonsConstants.ARBITRARY_DATA_MAP).beginObject();
+            for (Map.Entry<String, String> entry : arbitraryDataMap.entrySet()) {
+                writer.name(entry.getKey());
+                if (entry.getValue() == null) {
+                    writer.nullValue();
+                } else {
+                    writer.value(entry.getValue());
+                }
+            }
+            writer.endObject();
+        }
+        writer.endObject();
+    }
+
+    private static void writeValues(JsonWriter writer, String key, Object[] values) throws IOException {
+        if (values == null) {
+            return;
+        }
+        writer.name(key).beginArray();
+        for (Object value : values) {
+            if (value == null) {
+                writer.nullValue();
+            } else if (value instanceof String) {
+                writer.value((String) value);
+            } else if (value instanceof Boolean) {
+                writer.value((Boolean) value);
+            } else if (value instanceof Number) {
+                writer.value((Number) value);
+            } else {
+                writer.value(value.toString());
+            }
+        }
+        writer.endArray();
+    }
+
     public static Object getValue(String val, AttributeType attributeType) {
         switch (attributeType) {
             case BOOL: {
@@ -21,13 +21,20 @@ package org.wso2.carbon.databridge.commons.utils;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.wso2.carbon.databridge.commons.Attribute;
 import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.EBCommonsConstants;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -62,10 +69,13 @@ public final class EventDefinitionConverterUtils {
     public static StreamDefinition convertFromJson(String streamDefinition)
             throws MalformedStreamDefinitionException {
         try {
-            StreamDefinition tempStreamDefinition = gson.fromJson(streamDefinition.
-                    replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)int('|\")", "'type':'INT'").replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)long('|\")", "'type':'LONG'").
-                    replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)float('|\")", "'type':'FLOAT'").replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)double('|\")", "'type':'DOUBLE'").
-                    replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)bool('|\")", "'type':'BOOL'").replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)string('|\")", "'type':'STRING'"), StreamDefinition.class);
+            StreamDefinitionTemplate tempStreamDefinition = readStreamDefinition(streamDefinition);
+            if (tempStreamDefinition == null) {
+                tempStreamDefinition = new StreamDefinitionTemplate(gson.fromJson(streamDefinition.
+                        replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)int('|\")", "'type':'INT'").replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)long('|\")", "'type':'LONG'").
+                        replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)float('|\")", "'type':'FLOAT'").replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)double('|\")", "'type':'DOUBLE'").
+                        replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)bool('|\")", "'type':'BOOL'").replaceAll("('|\")type('|\")\\W*:\\W*('|\")(?i)string('|\")", "'type':'STRING'"), StreamDefinition.class));
+            }
 
             String name = tempStreamDefinition.getName();
             String version = tempStreamDefinition.getVersion();
@@ -139,8 +149,154 @@ public final class EventDefinitionConverterUtils {
     }
 
     public static String convertToBasicJson(StreamDefinition existingDefinition) {
-        return gson.toJson(new StreamDefinitionTemplate(existingDefinition));
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        writer.setIndent("  ");
+        try {
+            writer.beginObject();
+            writeString(writer, EBCommonsConstants.NAME, existingDefinition.getName());
+            writeString(writer, EBCommonsConstants.VERSION, existingDefinition.getVersion());
+            writeString(writer, EBCommonsConstants.NICK_NAME, existingDefinition.getNickName());
+            writeString(writer, EBCommonsConstants.DESCRIPTION, existingDefinition.getDescription());
+            List<String> tags = existingDefinition.getTags();
+            if (tags != null) {
+                writer.name(EBCommonsConstants.TAGS).beginArray();
+                for (String tag : tags) {
+                    if (tag == null) {
+                        writer.nullValue();
+                    } else {
+                        writer.value(tag);
+                    }
+                }
+                writer.endArray();
+            }
+            writeAttributes(writer, EBCommonsConstants.META_DATA, existingDefinition.getMetaData());
+            writeAttributes(writer, EBCommonsConstants.CORRELATION_DATA, existingDefinition.getCorrelationData());
+            writeAttributes(writer, EBCommonsConstants.PAYLOAD_DATA, existingDefinition.getPayloadData());
+            writer.endObject();
+            writer.close();
+        } catch (IOException e) {
+            // cannot happen when writing in to a StringWriter, hence using the reflection based conversion
+            return gson.toJson(new StreamDefinitionTemplate(existingDefinition));
+        }
+        return stringWriter.toString();
+    }
+
+    /**
+     * Reads the stream definition with a streaming reader, accepting attribute types in any case.
+     * Returns null when the definition cannot be read this way, so that the caller can fall back
+     * to the reflection based conversion.
+     */
+    private static StreamDefinitionTemplate readStreamDefinition(String streamDefinition) {
+        if (streamDefinition == null) {
+            return null;
+        }
+        JsonReader reader = new JsonReader(new StringReader(streamDefinition));
+        reader.setLenient(true);
+        try {
+            StreamDefinitionTemplate template = new StreamDefinitionTemplate();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                } else if (EBCommonsConstants.NAME.equals(key)) {
+                    template.setName(reader.nextString());
+                } else if (EBCommonsConstants.VERSION.equals(key)) {
+                    template.setVersion(reader.nextString());
+                } else if (EBCommonsConstants.NICK_NAME.equals(key)) {
+                    template.setNickName(reader.nextString());
+                } else if (EBCommonsConstants.DESCRIPTION.equals(key)) {
+                    template.setDescription(reader.nextString());
+                } else if (EBCommonsConstants.TAGS.equals(key)) {
+                    List<String> tags = new ArrayList<String>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (reader.peek() == JsonToken.NULL) {
+                            reader.nextNull();
+                            tags.add(null);
+                        } else {
+                            tags.add(reader.nextString());
+                        }
+                    }
+                    reader.endArray();
+                    template.setTags(tags);
+                } else if (EBCommonsConstants.META_DATA.equals(key)) {
+                    template.setMetaData(readAttributes(reader));
+                } else if (EBCommonsConstants.CORRELATION_DATA.equals(key)) {
+                    template.setCorrelationData(readAttributes(reader));
+                } else if (EBCommonsConstants.PAYLOAD_DATA.equals(key)) {
+                    template.setPayloadData(readAttributes(reader));
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return template;
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static List<Attribute> readAttributes(JsonReader reader) throws IOException {
+        List<Attribute> attributes = new ArrayList<Attribute>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String name = null;
+            AttributeType type = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                } else if ("name".equals(key)) {
+                    name = reader.nextString();
+                } else if ("type".equals(key)) {
+                    type = getAttributeType(reader.nextString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            attributes.add(new Attribute(name, type));
+        }
+        reader.endArray();
+        return attributes;
+    }
 
+    private static AttributeType getAttributeType(String type) {
+        for (AttributeType attributeType : AttributeType.values()) {
+            if (attributeType.name().equalsIgnoreCase(type)) {
+                return attributeType;
+            }
+        }
+        // invalid types are reported when validating the attribute list
+        return null;
+    }
+
+    private static void writeString(JsonWriter writer, String key, String value) throws IOException {
+        if (value != null) {
+            writer.name(key).value(value);
+        }
+    }
+
+    private static void writeAttributes(JsonWriter writer, String key, List<Attribute> attributes)
+            throws IOException {
+        if (attributes == null) {
+            return;
+        }
+        writer.name(key).beginArray();
+        for (Attribute attribute : attributes) {
+            writer.beginObject();
+            writeString(writer, "name", attribute.getName());
+            if (attribute.getType() != null) {
+                writer.name("type").value(attribute.getType().name());
+            }
+            writer.endObject();
+        }
+        writer.endArray();
     }
 
     private static boolean checkInvalidAttributeType(List<Attribute> attributeList, String attributeType)throws MalformedStreamDefinitionException {
@@ -168,6 +324,8 @@ public final class EventDefinitionConverterUtils {
         private List<Attribute> correlationData;
         private List<Attribute> payloadData;
 
+        public StreamDefinitionTemplate() {
+        }
 
         public StreamDefinitionTemplate(StreamDefinition existingDefinition) {
 
@@ -120,5 +120,26 @@ public class DefinitionConversionTest {
         Assert.assertEquals(streamDefinition1, streamDefinition2);
     }
 
+    @Test
+    public void testBasicJsonRoundTrip() throws MalformedStreamDefinitionException {
+        StreamDefinition streamDefinition = new StreamDefinition("org.wso2.esb.MediatorStatistics", "2.3.0");
+        streamDefinition.setNickName("Stock Quote Information");
+        streamDefinition.addTag("foo");
+        streamDefinition.addMetaData("ipAdd", AttributeType.STRING);
+        streamDefinition.addCorrelationData("id", AttributeType.LONG);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+        streamDefinition.addPayloadData("volume", AttributeType.INT);
+
+        String json = EventDefinitionConverterUtils.convertToBasicJson(streamDefinition);
+        StreamDefinition convertedStreamDefinition = EventDefinitionConverterUtils.convertFromJson(json);
+        Assert.assertEquals(streamDefinition, convertedStreamDefinition);
+        Assert.assertEquals("Stock Quote Information", convertedStreamDefinition.getNickName());
+        Assert.assertEquals(streamDefinition.getTags(), convertedStreamDefinition.getTags());
+    }
+
+    @Test(expected = MalformedStreamDefinitionException.class)
+    public void testInvalidAttributeType() throws MalformedStreamDefinitionException {
+        EventDefinitionConverterUtils.convertFromJson("{'name':'foo', 'payloadData':[{'name':'a','type':'integer'}]}");
+    }
 
 }
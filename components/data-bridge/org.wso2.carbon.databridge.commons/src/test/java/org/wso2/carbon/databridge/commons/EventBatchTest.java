@@ -0,0 +1,186 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.databridge.commons;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.exception.MalformedEventException;
+import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class EventBatchTest {
+
+    private StreamDefinition createStreamDefinition() throws MalformedStreamDefinitionException {
+        StreamDefinition streamDefinition = new StreamDefinition("org.wso2.test.Metrics", "1.0.0");
+        streamDefinition.addMetaData("host", AttributeType.STRING);
+        streamDefinition.addCorrelationData("requestId", AttributeType.LONG);
+        streamDefinition.addPayloadData("count", AttributeType.INT);
+        streamDefinition.addPayloadData("load", AttributeType.DOUBLE);
+        streamDefinition.addPayloadData("ratio", AttributeType.FLOAT);
+        streamDefinition.addPayloadData("active", AttributeType.BOOL);
+        return streamDefinition;
+    }
+
+    @Test
+    public void testEventListConversion() throws MalformedStreamDefinitionException {
+        StreamDefinition streamDefinition = createStreamDefinition();
+        List<Event> events = new ArrayList<Event>();
+        Map<String, String> arbitraryDataMap = new HashMap<String, String>();
+        arbitraryDataMap.put("key", "value");
+        for (int i = 0; i < 40; i++) {
+            Event event = new Event(streamDefinition.getStreamId(), 1000 + i, new Object[]{"host" + i},
+                    new Object[]{(long) i}, new Object[]{i, i * 1.5, i * 0.5f, i % 2 == 0});
+            if (i == 3) {
+                event.setArbitraryDataMap(arbitraryDataMap);
+            }
+            events.add(event);
+        }
+
+        EventBatch eventBatch = EventBatch.fromEventList(streamDefinition, events);
+        Assert.assertEquals(40, eventBatch.size());
+        Assert.assertEquals(6, eventBatch.getAttributeCount());
+        Assert.assertEquals(7, eventBatch.getInt(7, 2));
+        Assert.assertEquals(10.5, eventBatch.getDouble(7, 3), 0.0);
+        Assert.assertEquals(7L, eventBatch.getLong(7, 1));
+        Assert.assertFalse(eventBatch.getBool(7, 5));
+        Assert.assertEquals("host7", eventBatch.getRow(7).getString(0));
+        Assert.assertEquals(arbitraryDataMap, eventBatch.getArbitraryDataMap(3));
+        Assert.assertNull(eventBatch.getArbitraryDataMap(4));
+        Assert.assertEquals(events, eventBatch.toEventList());
+    }
+
+    @Test
+    public void testNullAttributes() throws MalformedStreamDefinitionException {
+        StreamDefinition streamDefinition = createStreamDefinition();
+        EventBatch eventBatch = new EventBatch(streamDefinition, 1);
+        Event event = new Event(streamDefinition.getStreamId(), 1000, new Object[]{null},
+                new Object[]{5L}, new Object[]{null, 2.0, 1.0f, null});
+        eventBatch.add(event);
+        Assert.assertTrue(eventBatch.isNull(0, 0));
+        Assert.assertFalse(eventBatch.isNull(0, 1));
+        Assert.assertTrue(eventBatch.isNull(0, 2));
+        Assert.assertTrue(eventBatch.isNull(0, 5));
+        Assert.assertEquals(event, eventBatch.toEvent(0));
+
+        int row = eventBatch.addRow(2000);
+        eventBatch.setInt(row, 2, 4);
+        Assert.assertFalse(eventBatch.isNull(row, 2));
+        Assert.assertEquals(4, eventBatch.getValue(row, 2));
+        Assert.assertEquals(2000L, eventBatch.getTimeStamp(row));
+    }
+
+    @Test
+    public void testFillPreallocatedEvent() throws MalformedStreamDefinitionException {
+        StreamDefinition streamDefinition = createStreamDefinition();
+        EventBatch eventBatch = new EventBatch(streamDefinition);
+        Event first = new Event(streamDefinition.getStreamId(), 1000, new Object[]{"host1"},
+                new Object[]{1L}, new Object[]{1, 1.5, 0.5f, true});
+        Event second = new Event(streamDefinition.getStreamId(), 2000, new Object[]{"host2"},
+                new Object[]{2L}, new Object[]{2, 3.0, 1.0f, false});
+        eventBatch.add(first);
+        eventBatch.add(second);
+
+        Event slot = new Event();
+        Assert.assertSame(slot, eventBatch.toEvent(0, slot));
+        Assert.assertEquals(first, slot);
+        eventBatch.toEvent(1, slot);
+        Assert.assertEquals(second, slot);
+    }
+
+    @Test
+    public void testMalformedEvent() throws MalformedStreamDefinitionException {
+        StreamDefinition streamDefinition = createStreamDefinition();
+        EventBatch eventBatch = new EventBatch(streamDefinition);
+        boolean expected = false;
+        try {
+            eventBatch.add(new Event(streamDefinition.getStreamId(), 1000, new Object[]{"host"},
+                    new Object[]{5L}, new Object[]{"wrong", 2.0, 1.0f, true}));
+        } catch (MalformedEventException e) {
+            expected = true;
+        }
+        Assert.assertTrue("String value passed for an int attribute, and hence expected to fail", expected);
+        Assert.assertEquals(0, eventBatch.size());
+    }
+
+    @Test
+    public void testLosslessValueConversion() throws MalformedStreamDefinitionException {
+        StreamDefinition streamDefinition = createStreamDefinition();
+        EventBatch eventBatch = new EventBatch(streamDefinition);
+        int row = eventBatch.addRow(1000);
+        eventBatch.setValue(row, 1, 5);
+        eventBatch.setValue(row, 2, 7L);
+        eventBatch.setValue(row, 3, 0.5f);
+        eventBatch.setValue(row, 4, 0.25);
+        Assert.assertEquals(5L, eventBatch.getLong(row, 1));
+        Assert.assertEquals(7, eventBatch.getInt(row, 2));
+        Assert.assertEquals(0.5, eventBatch.getDouble(row, 3), 0.0);
+        Assert.assertEquals(0.25f, eventBatch.getFloat(row, 4), 0.0f);
+    }
+
+    @Test
+    public void testLossyOrMismatchedValues() throws MalformedStreamDefinitionException {
+        StreamDefinition streamDefinition = createStreamDefinition();
+        EventBatch eventBatch = new EventBatch(streamDefinition);
+        int row = eventBatch.addRow(1000);
+        Object[][] invalidValues = {
+                {0, 5},
+                {1, 1.0},
+                {2, 1L << 40},
+                {2, 2.5},
+                {3, 4},
+                {4, 0.1},
+                {4, 1},
+                {5, "true"}
+        };
+        for (Object[] invalidValue : invalidValues) {
+            boolean expected = false;
+            try {
+                eventBatch.setValue(row, (Integer) invalidValue[0], invalidValue[1]);
+            } catch (MalformedEventException e) {
+                expected = true;
+            }
+            Assert.assertTrue(invalidValue[1] + " assigned to attribute " + invalidValue[0] +
+                    ", and hence expected to fail", expected);
+        }
+        Assert.assertEquals(0, eventBatch.getInt(row, 2));
+        Assert.assertNull(eventBatch.getString(row, 0));
+    }
+
+    @Test
+    public void testCopy() throws MalformedStreamDefinitionException {
+        StreamDefinition streamDefinition = createStreamDefinition();
+        EventBatch eventBatch = new EventBatch(streamDefinition);
+        Event first = new Event(streamDefinition.getStreamId(), 1000, new Object[]{"host1"},
+                new Object[]{1L}, new Object[]{null, 1.5, 0.5f, true});
+        eventBatch.add(first);
+
+        EventBatch copy = eventBatch.copy();
+        eventBatch.clear();
+        eventBatch.add(new Event(streamDefinition.getStreamId(), 2000, new Object[]{"host2"},
+                new Object[]{2L}, new Object[]{2, 3.0, 1.0f, false}));
+        Assert.assertEquals(1, copy.size());
+        Assert.assertTrue(copy.isNull(0, 2));
+        Assert.assertEquals(first, copy.toEvent(0));
+        copy.add(first);
+        Assert.assertEquals(first, copy.toEvent(1));
+    }
+}
@@ -182,6 +182,34 @@ public class EventConversionTest extends TestCase {
     }
 
 
+    @Test
+    public void testTypedRESTEventConversion() throws Exception {
+        StreamDefinition streamDefinition = new StreamDefinition("foo", "1.0.0");
+        streamDefinition.addMetaData("host", AttributeType.STRING);
+        streamDefinition.addCorrelationData("id", AttributeType.LONG);
+        streamDefinition.addPayloadData("count", AttributeType.INT);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+        streamDefinition.addPayloadData("active", AttributeType.BOOL);
+        String json = "[{\"metaData\" : [\"host1\"], \"correlationData\" : [\"12\"], " +
+                "\"payloadData\" : [5, \"2.5\", true]}]";
+        List<Event> eventList = EventConverterUtils.convertFromJson(json, streamDefinition.getStreamId(),
+                streamDefinition);
+        assertEquals(1, eventList.size());
+        Event event = eventList.get(0);
+        assertEquals(streamDefinition.getStreamId(), event.getStreamId());
+        assertEquals("host1", event.getMetaData()[0]);
+        assertEquals(12L, event.getCorrelationData()[0]);
+        assertEquals(5, event.getPayloadData()[0]);
+        assertEquals(2.5, event.getPayloadData()[1]);
+        assertEquals(true, event.getPayloadData()[2]);
+    }
+
+    @Test
+    public void testJSONRoundTrip() {
+        List<Event> eventList = EventConverterUtils.convertFromJson(properJSON);
+        assertEquals(eventList, EventConverterUtils.convertFromJson(EventConverterUtils.convertToJson(eventList)));
+    }
+
     @Test
     public void testEventEquality() {
         Event event1 = new Event();
@@ -0,0 +1,56 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.databridge.commons;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+
+public class StreamAttributeLayoutTest {
+
+    @Test
+    public void testAttributeLayout() throws MalformedStreamDefinitionException {
+        StreamDefinition streamDefinition = new StreamDefinition("org.wso2.test.Metrics", "1.0.0");
+        streamDefinition.addMetaData("host", AttributeType.STRING);
+        streamDefinition.addPayloadData("count", AttributeType.INT);
+        streamDefinition.addPayloadData("load", AttributeType.DOUBLE);
+        streamDefinition.addPayloadData("active", AttributeType.BOOL);
+
+        StreamAttributeLayout layout = streamDefinition.getAttributeLayout();
+        Assert.assertSame(layout, streamDefinition.getAttributeLayout());
+        Assert.assertEquals(4, layout.getAttributeCount());
+        Assert.assertEquals(1, layout.getMetaDataCount());
+        Assert.assertEquals(0, layout.getCorrelationDataCount());
+        Assert.assertNull(layout.getCorrelationDataTypes());
+        Assert.assertEquals(1, layout.getPayloadDataOffset());
+        Assert.assertEquals(AttributeType.DOUBLE, layout.getAttributeTypes()[2]);
+        Assert.assertEquals(0, layout.getAttributeIndex("meta_host"));
+        Assert.assertEquals(2, layout.getAttributeIndex("load"));
+        Assert.assertEquals(-1, layout.getAttributeIndex("host"));
+        Assert.assertEquals(-1, layout.getPrimitiveOffset(0));
+        Assert.assertEquals(4, layout.getPrimitiveOffset(2));
+        Assert.assertEquals(13, layout.getPrimitiveSize());
+        Assert.assertEquals(1, layout.getStringCount());
+
+        streamDefinition.addCorrelationData("requestId", AttributeType.LONG);
+        StreamAttributeLayout newLayout = streamDefinition.getAttributeLayout();
+        Assert.assertNotSame(layout, newLayout);
+        Assert.assertEquals(1, newLayout.getAttributeIndex("correlation_requestId"));
+        Assert.assertEquals(2, newLayout.getPayloadDataOffset());
+    }
+}
@@ -0,0 +1,36 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.databridge.core;
+
+import org.wso2.carbon.databridge.commons.Credentials;
+import org.wso2.carbon.databridge.commons.EventBatch;
+
+/**
+ * AgentCallback that receives the arrived events as columnar EventBatches, one per stream,
+ * instead of a list of events. The batches are shared between all such subscribers and must not be modified.
+ */
+public interface EventBatchAgentCallback extends AgentCallback {
+
+    /**
+     * will get called when Events arrive, instead of receive(List, Credentials)
+     *
+     * @param eventBatch  Arrived events of a single stream
+     * @param credentials Credentials of the publisher
+     */
+    void receive(EventBatch eventBatch, Credentials credentials);
+}
@@ -0,0 +1,38 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.databridge.core;
+
+import org.wso2.carbon.databridge.commons.EventBatch;
+
+import java.util.Collection;
+
+/**
+ * EventConverter that can also decode the event bundles straight in to columnar EventBatches,
+ * without creating an event per arrived event.
+ */
+public interface EventBatchConverter extends EventConverter {
+
+    /**
+     * Decodes the event bundle in to one batch per stream, keeping the arrival order within each stream.
+     *
+     * @param eventBundle      Arrived event bundle
+     * @param streamTypeHolder Stream definitions of the tenant
+     * @return the batches in the order of the first arrived event of their streams
+     */
+    public Collection<EventBatch> toEventBatches(Object eventBundle, StreamTypeHolder streamTypeHolder);
+}
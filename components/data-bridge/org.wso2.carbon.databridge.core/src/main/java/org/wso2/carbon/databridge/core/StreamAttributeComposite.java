@@ -18,8 +18,8 @@
 package org.wso2.carbon.databridge.core;
 
 import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamAttributeLayout;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
-import org.wso2.carbon.databridge.commons.utils.EventDefinitionConverterUtils;
 
 /**
  * Class to hold attribute type order array and size of attributes.
@@ -32,27 +32,12 @@ public class StreamAttributeComposite {
 
     public StreamAttributeComposite(StreamDefinition streamDefinition) {
         this.streamDefinition = streamDefinition;
-        this.attributeTypes = new AttributeType[][]{EventDefinitionConverterUtils.generateAttributeTypeArray(streamDefinition.getMetaData()),
-                                                    EventDefinitionConverterUtils.generateAttributeTypeArray(streamDefinition.getCorrelationData()),
-                                                    EventDefinitionConverterUtils.generateAttributeTypeArray(streamDefinition.getPayloadData())};
-        this.attributeSize = getSize(attributeTypes);
+        StreamAttributeLayout attributeLayout = streamDefinition.getAttributeLayout();
+        this.attributeTypes = attributeLayout.getSectionTypes();
+        this.attributeSize = attributeLayout.getAttributeCount();
 
     }
 
-    private int getSize(AttributeType[][] attributeTypes) {
-        int size = 0;
-        if (attributeTypes[0] != null) {
-            size += attributeTypes[0].length;
-        }
-        if (attributeTypes[1] != null) {
-            size += attributeTypes[1].length;
-        }
-        if (attributeTypes[2] != null) {
-            size += attributeTypes[2].length;
-        }
-        return size;
-    }
-
     public int getAttributeSize() {
         return attributeSize;
     }
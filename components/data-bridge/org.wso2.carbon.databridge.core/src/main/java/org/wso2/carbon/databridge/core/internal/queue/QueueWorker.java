@@ -20,12 +20,21 @@ package org.wso2.carbon.databridge.core.internal.queue;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.EventBatch;
 import org.wso2.carbon.databridge.core.AgentCallback;
+import org.wso2.carbon.databridge.core.EventBatchAgentCallback;
+import org.wso2.carbon.databridge.core.EventBatchConverter;
+import org.wso2.carbon.databridge.core.EventConverter;
 import org.wso2.carbon.databridge.core.RawDataAgentCallback;
+import org.wso2.carbon.databridge.core.StreamAttributeComposite;
+import org.wso2.carbon.databridge.core.StreamTypeHolder;
 import org.wso2.carbon.databridge.core.Utils.EventComposite;
 import org.wso2.carbon.databridge.core.exception.EventConversionException;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 /**
@@ -70,15 +79,37 @@ public class QueueWorker implements Runnable {
             }
             if (subscribers.size() > 0) {
                 try {
-                    eventList = eventComposite.getEventConverter().toEventList(eventComposite.getEventBundle(),
-                            eventComposite.getStreamTypeHolder());
+                    boolean eventListSubscribed = false;
+                    boolean eventBatchSubscribed = false;
+                    for (AgentCallback agentCallback : subscribers) {
+                        if (agentCallback instanceof EventBatchAgentCallback) {
+                            eventBatchSubscribed = true;
+                        } else {
+                            eventListSubscribed = true;
+                        }
+                    }
+                    if (eventListSubscribed) {
+                        eventList = eventComposite.getEventConverter().toEventList(eventComposite.getEventBundle(),
+                                eventComposite.getStreamTypeHolder());
+                    }
+                    Collection<EventBatch> eventBatches = null;
+                    if (eventBatchSubscribed) {
+                        eventBatches = toEventBatches(eventComposite, eventList);
+                    }
 
                     if (log.isDebugEnabled()) {
                         log.debug("Dispatching event to " + subscribers.size() + " subscriber(s)");
                     }
                     for (AgentCallback agentCallback : subscribers) {
                         try {
-                            agentCallback.receive(eventList, eventComposite.getAgentSession().getCredentials());
+                            if (agentCallback instanceof EventBatchAgentCallback) {
+                                for (EventBatch eventBatch : eventBatches) {
+                                    ((EventBatchAgentCallback) agentCallback).receive(eventBatch,
+                                            eventComposite.getAgentSession().getCredentials());
+                                }
+                            } else {
+                                agentCallback.receive(eventList, eventComposite.getAgentSession().getCredentials());
+                            }
                         } catch (Throwable e) {
                             log.error("Error in passing event eventList " + eventList + " to subscriber " + agentCallback, e);
                         }
@@ -97,5 +128,47 @@ public class QueueWorker implements Runnable {
         }
     }
 
+    /**
+     * Decodes the bundle straight in to columnar batches when the converter supports it, otherwise groups
+     * the decoded events by stream, keeping the arrival order within each stream.
+     */
+    private Collection<EventBatch> toEventBatches(EventComposite eventComposite, List<Event> eventList) {
+        EventConverter eventConverter = eventComposite.getEventConverter();
+        if (eventConverter instanceof EventBatchConverter) {
+            return ((EventBatchConverter) eventConverter).toEventBatches(eventComposite.getEventBundle(),
+                    eventComposite.getStreamTypeHolder());
+        }
+        if (eventList == null) {
+            eventList = eventConverter.toEventList(eventComposite.getEventBundle(),
+                    eventComposite.getStreamTypeHolder());
+        }
+        return toEventBatches(eventList, eventComposite.getStreamTypeHolder());
+    }
 
+    private Collection<EventBatch> toEventBatches(List<Event> eventList, StreamTypeHolder streamTypeHolder) {
+        Map<String, int[]> streamEventCounts = new LinkedHashMap<String, int[]>();
+        for (Event event : eventList) {
+            int[] eventCount = streamEventCounts.get(event.getStreamId());
+            if (eventCount == null) {
+                eventCount = new int[1];
+                streamEventCounts.put(event.getStreamId(), eventCount);
+            }
+            eventCount[0]++;
+        }
+        Map<String, EventBatch> eventBatches = new LinkedHashMap<String, EventBatch>(streamEventCounts.size() * 2);
+        for (Map.Entry<String, int[]> streamEventCount : streamEventCounts.entrySet()) {
+            StreamAttributeComposite attributeComposite =
+                    streamTypeHolder.getAttributeComposite(streamEventCount.getKey());
+            if (attributeComposite == null) {
+                throw new EventConversionException("No StreamDefinition for streamId " + streamEventCount.getKey()
+                        + " present in cache ");
+            }
+            eventBatches.put(streamEventCount.getKey(),
+                    new EventBatch(attributeComposite.getStreamDefinition(), streamEventCount.getValue()[0]));
+        }
+        for (Event event : eventList) {
+            eventBatches.get(event.getStreamId()).add(event);
+        }
+        return eventBatches.values();
+    }
 }
@@ -20,16 +20,23 @@ package org.wso2.carbon.databridge.receiver.binary;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.databridge.commons.AttributeType;
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.EventBatch;
+import org.wso2.carbon.databridge.commons.binary.BinaryMessageConstants;
 import org.wso2.carbon.databridge.commons.binary.BinaryMessageConverterUtil;
 import org.wso2.carbon.databridge.commons.exception.MalformedEventException;
-import org.wso2.carbon.databridge.core.EventConverter;
+import org.wso2.carbon.databridge.core.EventBatchConverter;
+import org.wso2.carbon.databridge.core.StreamAttributeComposite;
 import org.wso2.carbon.databridge.core.StreamTypeHolder;
 import org.wso2.carbon.databridge.core.exception.EventConversionException;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,10 +44,15 @@ import java.util.Map;
  * This class is a implementation EventConverter to create the event from the Binary message.
  * This is used within data bridge to create the event from the row message received.
  */
-public class BinaryEventConverter implements EventConverter {
-    private static BinaryEventConverter instance = new BinaryEventConverter();
+public class BinaryEventConverter implements EventBatchConverter {
+    private static BinaryEventConverter instance = new BinaryEventConverter(BinaryMessageConstants.ENCODING_VERSION_1);
+    private static BinaryEventConverter instanceV2 =
+            new BinaryEventConverter(BinaryMessageConstants.ENCODING_VERSION_2);
 
-    private BinaryEventConverter() {
+    private final int encodingVersion;
+
+    private BinaryEventConverter(int encodingVersion) {
+        this.encodingVersion = encodingVersion;
     }
 
     @Override
@@ -48,10 +60,21 @@ public class BinaryEventConverter implements EventConverter {
 
         ByteBuffer byteBuffer = ByteBuffer.wrap((byte[]) eventBundle);
         int sessionIdSize = byteBuffer.getInt();
-        byteBuffer.get(new byte[sessionIdSize]);
+        byteBuffer.position(byteBuffer.position() + sessionIdSize);
         int events = byteBuffer.getInt();
 
-        List<Event> eventList = new ArrayList<Event>();
+        List<Event> eventList = new ArrayList<Event>(events);
+        if (encodingVersion == BinaryMessageConstants.ENCODING_VERSION_2) {
+            long baseTimeStamp = byteBuffer.getLong();
+            for (int i = 0; i < events; i++) {
+                int eventSize = BinaryMessageConverterUtil.getUnsignedVarInt(byteBuffer);
+                ByteBuffer eventByteBuffer = ByteBuffer.wrap(byteBuffer.array(), byteBuffer.position(), eventSize)
+                        .slice();
+                byteBuffer.position(byteBuffer.position() + eventSize);
+                eventList.add(getEventV2(eventByteBuffer, baseTimeStamp, streamTypeHolder));
+            }
+            return eventList;
+        }
         for (int i = 0; i < events; i++) {
             int eventSize = byteBuffer.getInt();
             byte[] bytes= new byte[eventSize];
@@ -62,6 +85,36 @@ public class BinaryEventConverter implements EventConverter {
         return eventList;
     }
 
+    @Override
+    public Collection<EventBatch> toEventBatches(Object eventBundle, StreamTypeHolder streamTypeHolder) {
+
+        ByteBuffer byteBuffer = ByteBuffer.wrap((byte[]) eventBundle);
+        int sessionIdSize = byteBuffer.getInt();
+        byteBuffer.position(byteBuffer.position() + sessionIdSize);
+        int events = byteBuffer.getInt();
+
+        Map<String, EventBatch> eventBatches = new LinkedHashMap<String, EventBatch>();
+        if (encodingVersion == BinaryMessageConstants.ENCODING_VERSION_2) {
+            long baseTimeStamp = byteBuffer.getLong();
+            for (int i = 0; i < events; i++) {
+                int eventSize = BinaryMessageConverterUtil.getUnsignedVarInt(byteBuffer);
+                ByteBuffer eventByteBuffer = ByteBuffer.wrap(byteBuffer.array(), byteBuffer.position(), eventSize)
+                        .slice();
+                byteBuffer.position(byteBuffer.position() + eventSize);
+                addEventV2(eventByteBuffer, baseTimeStamp, streamTypeHolder, eventBatches, events - i);
+            }
+            return eventBatches.values();
+        }
+        for (int i = 0; i < events; i++) {
+            int eventSize = byteBuffer.getInt();
+            ByteBuffer eventByteBuffer = ByteBuffer.wrap(byteBuffer.array(), byteBuffer.position(), eventSize)
+                    .slice();
+            byteBuffer.position(byteBuffer.position() + eventSize);
+            addEvent(eventByteBuffer, streamTypeHolder, eventBatches, events - i);
+        }
+        return eventBatches.values();
+    }
+
     public Event getEvent(ByteBuffer byteBuffer, StreamTypeHolder streamTypeHolder) throws MalformedEventException {
 
 
@@ -73,29 +126,241 @@ public class BinaryEventConverter implements EventConverter {
         event.setStreamId(streamId);
         event.setTimeStamp(timeStamp);
 
-        AttributeType[][] attributeTypeOrder = streamTypeHolder.getDataType(event.getStreamId());
+        AttributeType[][] attributeTypeOrder = getAttributeTypeOrder(event.getStreamId(), streamTypeHolder);
+
+        event.setMetaData(this.toObjectArray(byteBuffer, attributeTypeOrder[0],
+                BinaryDataReceiverConstants.META_DATA_FIELD));
+        event.setCorrelationData(this.toObjectArray(byteBuffer, attributeTypeOrder[1],
+                BinaryDataReceiverConstants.CORRELATION_DATA_FIELD));
+        event.setPayloadData(this.toObjectArray(byteBuffer, attributeTypeOrder[2],
+                BinaryDataReceiverConstants.PAYLOAD_DATA_FIELD));
+        event.setArbitraryDataMap(this.toStringMap(byteBuffer));
+        return event;
+    }
+
+    /**
+     * Reads an event in the version 2 encoding, where int and long attributes are zig-zag varints,
+     * null attributes are only marked in the null bitmap and the timestamp is relative to the batch base.
+     */
+    public Event getEventV2(ByteBuffer byteBuffer, long baseTimeStamp, StreamTypeHolder streamTypeHolder)
+            throws MalformedEventException {
+        try {
+            String streamId = BinaryMessageConverterUtil.getVarString(byteBuffer);
+            long timeStamp = baseTimeStamp + BinaryMessageConverterUtil.getVarLong(byteBuffer);
+
+            Event event = new Event();
+            event.setStreamId(streamId);
+            event.setTimeStamp(timeStamp);
+
+            AttributeType[][] attributeTypeOrder = getAttributeTypeOrder(streamId, streamTypeHolder);
+            int metaLength = attributeTypeOrder[0] == null ? 0 : attributeTypeOrder[0].length;
+            int correlationLength = attributeTypeOrder[1] == null ? 0 : attributeTypeOrder[1].length;
+            int payloadLength = attributeTypeOrder[2] == null ? 0 : attributeTypeOrder[2].length;
+
+            int attributeCount = BinaryMessageConverterUtil.getUnsignedVarInt(byteBuffer);
+            if (attributeCount != metaLength + correlationLength + payloadLength) {
+                throw new MalformedEventException("Expected " + (metaLength + correlationLength + payloadLength) +
+                        " attributes for stream " + streamId + " but the event has " + attributeCount);
+            }
+            byte[] nullBitmap = new byte[(attributeCount + 7) / 8];
+            byteBuffer.get(nullBitmap);
+
+            event.setMetaData(this.toObjectArrayV2(byteBuffer, attributeTypeOrder[0], nullBitmap, 0));
+            event.setCorrelationData(this.toObjectArrayV2(byteBuffer, attributeTypeOrder[1], nullBitmap,
+                    metaLength));
+            event.setPayloadData(this.toObjectArrayV2(byteBuffer, attributeTypeOrder[2], nullBitmap,
+                    metaLength + correlationLength));
+
+            int arbitraryDataCount = BinaryMessageConverterUtil.getUnsignedVarInt(byteBuffer);
+            if (arbitraryDataCount != 0) {
+                Map<String, String> eventProps = new HashMap<String, String>();
+                for (int i = 0; i < arbitraryDataCount; i++) {
+                    String key = BinaryMessageConverterUtil.getVarString(byteBuffer);
+                    eventProps.put(key, BinaryMessageConverterUtil.getVarString(byteBuffer));
+                }
+                event.setArbitraryDataMap(eventProps);
+            }
+            return event;
+        } catch (IOException e) {
+            throw new MalformedEventException("Error while decoding the binary event, " + e.getMessage(), e);
+        } catch (BufferUnderflowException e) {
+            throw new MalformedEventException("Binary event is shorter than its content", e);
+        }
+    }
+
+    /**
+     * Reads an event in the version 1 encoding straight in to a new row of the batch of its stream.
+     */
+    private void addEvent(ByteBuffer byteBuffer, StreamTypeHolder streamTypeHolder,
+                          Map<String, EventBatch> eventBatches, int remainingEvents) {
+        long timeStamp = byteBuffer.getLong();
+        int streamIdSize = byteBuffer.getInt();
+        String streamId = BinaryMessageConverterUtil.getString(byteBuffer, streamIdSize);
+
+        EventBatch eventBatch = getEventBatch(streamId, streamTypeHolder, eventBatches, remainingEvents);
+        int row = eventBatch.addRow(timeStamp);
+        for (int i = 0; i < eventBatch.getAttributeCount(); i++) {
+            switch (eventBatch.getAttributeType(i)) {
+                case INT:
+                    eventBatch.setInt(row, i, byteBuffer.getInt());
+                    break;
+                case LONG:
+                    eventBatch.setLong(row, i, byteBuffer.getLong());
+                    break;
+                case STRING:
+                    int stringSize = byteBuffer.getInt();
+                    if (stringSize != 0) {
+                        eventBatch.setString(row, i, BinaryMessageConverterUtil.getString(byteBuffer, stringSize));
+                    }
+                    break;
+                case DOUBLE:
+                    eventBatch.setDouble(row, i, byteBuffer.getDouble());
+                    break;
+                case FLOAT:
+                    eventBatch.setFloat(row, i, byteBuffer.getFloat());
+                    break;
+                case BOOL:
+                    eventBatch.setBool(row, i, byteBuffer.get() == 1);
+                    break;
+            }
+        }
+        if (byteBuffer.remaining() > 0) {
+            eventBatch.setArbitraryDataMap(row, toStringMap(byteBuffer));
+        }
+    }
+
+    /**
+     * Reads an event in the version 2 encoding straight in to a new row of the batch of its stream.
+     */
+    private void addEventV2(ByteBuffer byteBuffer, long baseTimeStamp, StreamTypeHolder streamTypeHolder,
+                            Map<String, EventBatch> eventBatches, int remainingEvents) throws MalformedEventException {
+        try {
+            String streamId = BinaryMessageConverterUtil.getVarString(byteBuffer);
+            long timeStamp = baseTimeStamp + BinaryMessageConverterUtil.getVarLong(byteBuffer);
+
+            EventBatch eventBatch = getEventBatch(streamId, streamTypeHolder, eventBatches, remainingEvents);
+            int attributeCount = BinaryMessageConverterUtil.getUnsignedVarInt(byteBuffer);
+            if (attributeCount != eventBatch.getAttributeCount()) {
+                throw new MalformedEventException("Expected " + eventBatch.getAttributeCount() +
+                        " attributes for stream " + streamId + " but the event has " + attributeCount);
+            }
+            byte[] nullBitmap = new byte[(attributeCount + 7) / 8];
+            byteBuffer.get(nullBitmap);
+
+            int row = eventBatch.addRow(timeStamp);
+            for (int i = 0; i < attributeCount; i++) {
+                if ((nullBitmap[i >> 3] & (1 << (i & 7))) != 0) {
+                    eventBatch.setNull(row, i);
+                    continue;
+                }
+                switch (eventBatch.getAttributeType(i)) {
+                    case INT:
+                        eventBatch.setInt(row, i, BinaryMessageConverterUtil.getVarInt(byteBuffer));
+                        break;
+                    case LONG:
+                        eventBatch.setLong(row, i, BinaryMessageConverterUtil.getVarLong(byteBuffer));
+                        break;
+                    case STRING:
+                        eventBatch.setString(row, i, BinaryMessageConverterUtil.getVarString(byteBuffer));
+                        break;
+                    case DOUBLE:
+                        eventBatch.setDouble(row, i, byteBuffer.getDouble());
+                        break;
+                    case FLOAT:
+                        eventBatch.setFloat(row, i, byteBuffer.getFloat());
+                        break;
+                    case BOOL:
+                        eventBatch.setBool(row, i, byteBuffer.get() == 1);
+                        break;
+                }
+            }
+
+            int arbitraryDataCount = BinaryMessageConverterUtil.getUnsignedVarInt(byteBuffer);
+            if (arbitraryDataCount != 0) {
+                Map<String, String> eventProps = new HashMap<String, String>();
+                for (int i = 0; i < arbitraryDataCount; i++) {
+                    String key = BinaryMessageConverterUtil.getVarString(byteBuffer);
+                    eventProps.put(key, BinaryMessageConverterUtil.getVarString(byteBuffer));
+                }
+                eventBatch.setArbitraryDataMap(row, eventProps);
+            }
+        } catch (IOException e) {
+            throw new MalformedEventException("Error while decoding the binary event, " + e.getMessage(), e);
+        } catch (BufferUnderflowException e) {
+            throw new MalformedEventException("Binary event is shorter than its content", e);
+        }
+    }
+
+    /**
+     * Returns the batch of the stream, creating it with room for the rest of the events of the bundle
+     * when the stream appears for the first time.
+     */
+    private EventBatch getEventBatch(String streamId, StreamTypeHolder streamTypeHolder,
+                                     Map<String, EventBatch> eventBatches, int remainingEvents) {
+        EventBatch eventBatch = eventBatches.get(streamId);
+        if (eventBatch == null) {
+            eventBatch = new EventBatch(getAttributeComposite(streamId, streamTypeHolder).getStreamDefinition(),
+                    remainingEvents);
+            eventBatches.put(streamId, eventBatch);
+        }
+        return eventBatch;
+    }
+
+    private Object[] toObjectArrayV2(ByteBuffer byteBuffer, AttributeType[] attributeTypeOrder, byte[] nullBitmap,
+                                     int offset) throws IOException {
         if (attributeTypeOrder == null) {
+            return null;
+        }
+        Object[] objects = new Object[attributeTypeOrder.length];
+        for (int i = 0; i < attributeTypeOrder.length; i++) {
+            int index = offset + i;
+            if ((nullBitmap[index >> 3] & (1 << (index & 7))) != 0) {
+                continue;
+            }
+            switch (attributeTypeOrder[i]) {
+                case INT:
+                    objects[i] = BinaryMessageConverterUtil.getVarInt(byteBuffer);
+                    break;
+                case LONG:
+                    objects[i] = BinaryMessageConverterUtil.getVarLong(byteBuffer);
+                    break;
+                case STRING:
+                    objects[i] = BinaryMessageConverterUtil.getVarString(byteBuffer);
+                    break;
+                case DOUBLE:
+                    objects[i] = byteBuffer.getDouble();
+                    break;
+                case FLOAT:
+                    objects[i] = byteBuffer.getFloat();
+                    break;
+                case BOOL:
+                    objects[i] = byteBuffer.get() == 1;
+                    break;
+            }
+        }
+        return objects;
+    }
+
+    private AttributeType[][] getAttributeTypeOrder(String streamId, StreamTypeHolder streamTypeHolder) {
+        return getAttributeComposite(streamId, streamTypeHolder).getAttributeTypes();
+    }
+
+    private StreamAttributeComposite getAttributeComposite(String streamId, StreamTypeHolder streamTypeHolder) {
+        StreamAttributeComposite attributeComposite = streamTypeHolder.getAttributeComposite(streamId);
+        if (attributeComposite == null) {
             PrivilegedCarbonContext privilegedCarbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
             if (privilegedCarbonContext.getTenantDomain() == null) {
                 privilegedCarbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
                 privilegedCarbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
             }
             streamTypeHolder.reloadStreamTypeHolder();
-            attributeTypeOrder = streamTypeHolder.getDataType(event.getStreamId());
-            if (attributeTypeOrder == null) {
-                throw new EventConversionException("No StreamDefinition for streamId " + event.getStreamId()
+            attributeComposite = streamTypeHolder.getAttributeComposite(streamId);
+            if (attributeComposite == null) {
+                throw new EventConversionException("No StreamDefinition for streamId " + streamId
                         + " present in cache ");
             }
         }
-
-        event.setMetaData(this.toObjectArray(byteBuffer, attributeTypeOrder[0],
-                BinaryDataReceiverConstants.META_DATA_FIELD));
-        event.setCorrelationData(this.toObjectArray(byteBuffer, attributeTypeOrder[1],
-                BinaryDataReceiverConstants.CORRELATION_DATA_FIELD));
-        event.setPayloadData(this.toObjectArray(byteBuffer, attributeTypeOrder[2],
-                BinaryDataReceiverConstants.PAYLOAD_DATA_FIELD));
-        event.setArbitraryDataMap(this.toStringMap(byteBuffer));
-        return event;
+        return attributeComposite;
     }
 
     public Object[] toObjectArray(ByteBuffer byteBuffer,
@@ -160,4 +425,11 @@ public class BinaryEventConverter implements EventConverter {
         return instance;
     }
 
+    /**
+     * Returns the converter for the publish messages sent with the version 2 encoding.
+     */
+    public static BinaryEventConverter getConverterV2() {
+        return instanceV2;
+    }
+
 }
@@ -192,10 +192,15 @@ public class BinaryDataReceiver {
                 }
                 break;
             case 2: //Publish
+            case 3: //Publish with version 2 encoding
                 sessionIdLength = byteBuffer.getInt();
                 sessionId = new String(message, 4, sessionIdLength);
                 try {
-                    dataBridgeReceiverService.publish(message, sessionId, BinaryEventConverter.getConverter());
+                    if (messageType == BinaryMessageConstants.PUBLISH_MESSAGE_V2) {
+                        dataBridgeReceiverService.publish(message, sessionId, BinaryEventConverter.getConverterV2());
+                    } else {
+                        dataBridgeReceiverService.publish(message, sessionId, BinaryEventConverter.getConverter());
+                    }
 
                     outputStream.write((byte) 0);
                     outputStream.flush();
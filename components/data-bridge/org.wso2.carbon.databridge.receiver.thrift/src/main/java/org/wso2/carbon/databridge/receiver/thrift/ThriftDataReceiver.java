@@ -31,6 +31,7 @@ import org.wso2.carbon.databridge.commons.exception.TransportException;
 import org.wso2.carbon.databridge.commons.thrift.service.general.ThriftEventTransmissionService;
 import org.wso2.carbon.databridge.commons.thrift.service.secure.ThriftSecureEventTransmissionService;
 import org.wso2.carbon.databridge.commons.thrift.utils.CommonThriftConstants;
+import org.wso2.carbon.databridge.commons.thrift.utils.ThriftTransportUtils;
 import org.wso2.carbon.databridge.core.DataBridgeReceiverService;
 import org.wso2.carbon.databridge.core.exception.DataBridgeException;
 import org.wso2.carbon.databridge.core.internal.utils.DataBridgeConstants;
@@ -154,7 +155,11 @@ public class ThriftDataReceiver {
                 new ThriftSecureEventTransmissionService.Processor<ThriftSecureEventTransmissionServiceImpl>(
                         new ThriftSecureEventTransmissionServiceImpl(dataBridgeReceiverService));
         authenticationServer = new TThreadPoolServer(
-                new TThreadPoolServer.Args(serverTransport).processor(processor));
+                new TThreadPoolServer.Args(serverTransport).processor(processor)
+                        .protocolFactory(ThriftTransportUtils.getProtocolFactory(
+                                thriftDataReceiverConfiguration.getProtocolType()))
+                        .transportFactory(ThriftTransportUtils.getTransportFactory(
+                                thriftDataReceiverConfiguration.getTransportType())));
         Thread thread = new Thread(new ServerThread(authenticationServer));
         log.info("Thrift SSL port : " + port);
         thread.start();
@@ -170,9 +175,14 @@ public class ThriftDataReceiver {
                     new ThriftEventTransmissionService.Processor<ThriftEventTransmissionServiceImpl>(
                             new ThriftEventTransmissionServiceImpl(dataBridgeReceiverService));
             dataReceiverServer = new TThreadPoolServer(
-                    new TThreadPoolServer.Args(serverTransport).processor(processor));
+                    new TThreadPoolServer.Args(serverTransport).processor(processor)
+                            .protocolFactory(ThriftTransportUtils.getProtocolFactory(
+                                    thriftDataReceiverConfiguration.getProtocolType()))
+                            .transportFactory(ThriftTransportUtils.getTransportFactory(
+                                    thriftDataReceiverConfiguration.getTransportType())));
             Thread thread = new Thread(new ServerThread(dataReceiverServer));
-            log.info("Thrift port : " + port);
+            log.info("Thrift port : " + port + ", protocol : " + thriftDataReceiverConfiguration.getProtocolType()
+                    + ", transport : " + thriftDataReceiverConfiguration.getTransportType());
             thread.start();
         } catch (TTransportException e) {
             throw new DataBridgeException("Cannot start Thrift server on port " + port +
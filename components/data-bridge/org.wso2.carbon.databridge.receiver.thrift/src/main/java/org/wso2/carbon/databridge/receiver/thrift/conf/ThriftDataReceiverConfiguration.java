@@ -20,6 +20,7 @@
 package org.wso2.carbon.databridge.receiver.thrift.conf;
 
 import org.wso2.carbon.databridge.commons.thrift.utils.CommonThriftConstants;
+import org.wso2.carbon.databridge.commons.thrift.utils.ThriftTransportUtils;
 import org.wso2.carbon.databridge.core.conf.DataBridgeConfiguration;
 import org.wso2.carbon.databridge.core.conf.DataReceiver;
 import org.wso2.carbon.databridge.receiver.thrift.internal.utils.ThriftDataReceiverConstants;
@@ -32,6 +33,8 @@ public class ThriftDataReceiverConfiguration {
     private int secureDataReceiverPort;
     private int dataReceiverPort;
     private String receiverHostName;
+    private ThriftTransportUtils.ProtocolType protocolType = ThriftTransportUtils.ProtocolType.BINARY;
+    private ThriftTransportUtils.TransportType transportType = ThriftTransportUtils.TransportType.BUFFERED;
 
     public ThriftDataReceiverConfiguration(int defaultSslPort, int defaultPort) {
         secureDataReceiverPort = defaultSslPort;
@@ -48,6 +51,10 @@ public class ThriftDataReceiverConfiguration {
                 CommonThriftConstants.DEFAULT_RECEIVER_PORT).toString()) + portOffset;
         receiverHostName = dataReceiver.getConfiguration(ThriftDataReceiverConstants.RECEIVER_HOST_NAME,
                 ThriftDataReceiverConstants.DEFAULT_HOSTNAME).toString();
+        protocolType = ThriftTransportUtils.getProtocolType(dataReceiver.getConfiguration(
+                ThriftDataReceiverConstants.PROTOCOL_ELEMENT, ThriftTransportUtils.ProtocolType.BINARY).toString());
+        transportType = ThriftTransportUtils.getTransportType(dataReceiver.getConfiguration(
+                ThriftDataReceiverConstants.TRANSPORT_ELEMENT, ThriftTransportUtils.TransportType.BUFFERED).toString());
     }
 
     public ThriftDataReceiverConfiguration(int defaultSslPort, int defaultPort,
@@ -82,6 +89,22 @@ public class ThriftDataReceiverConfiguration {
         this.receiverHostName = receiverHostName;
     }
 
+    public ThriftTransportUtils.ProtocolType getProtocolType() {
+        return protocolType;
+    }
+
+    public void setProtocolType(ThriftTransportUtils.ProtocolType protocolType) {
+        this.protocolType = protocolType;
+    }
+
+    public ThriftTransportUtils.TransportType getTransportType() {
+        return transportType;
+    }
+
+    public void setTransportType(ThriftTransportUtils.TransportType transportType) {
+        this.transportType = transportType;
+    }
+
     public int getPortOffset() {
         return CarbonUtils.
                 getPortFromServerConfig(ThriftDataReceiverConstants.CARBON_CONFIG_PORT_OFFSET_NODE) + 1;
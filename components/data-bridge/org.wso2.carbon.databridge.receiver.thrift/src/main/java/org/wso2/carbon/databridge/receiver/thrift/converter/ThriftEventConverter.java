@@ -23,21 +23,25 @@ import com.google.gson.Gson;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.databridge.commons.AttributeType;
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.EventBatch;
 import org.wso2.carbon.databridge.commons.thrift.data.ThriftEventBundle;
 import org.wso2.carbon.databridge.commons.utils.EventDefinitionConverterUtils;
-import org.wso2.carbon.databridge.core.EventConverter;
+import org.wso2.carbon.databridge.core.EventBatchConverter;
+import org.wso2.carbon.databridge.core.StreamAttributeComposite;
 import org.wso2.carbon.databridge.core.StreamTypeHolder;
 import org.wso2.carbon.databridge.core.exception.EventConversionException;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * the util class that converts Events and its definitions in to various forms
  */
-public final class ThriftEventConverter implements EventConverter {
+public final class ThriftEventConverter implements EventBatchConverter {
     private static Gson gson = new Gson();
 
     public Object[] toObjectArray(ThriftEventBundle thriftEventBundle,
@@ -94,6 +98,15 @@ public final class ThriftEventConverter implements EventConverter {
 
     }
 
+    public Collection<EventBatch> toEventBatches(Object eventBundle,
+                                                 StreamTypeHolder streamTypeHolder) {
+        if (eventBundle instanceof ThriftEventBundle) {
+            return createEventBatches((ThriftEventBundle) eventBundle, streamTypeHolder);
+        } else {
+            throw new EventConversionException("Wrong type event relieved " + eventBundle.getClass());
+        }
+    }
+
     private List<Event> createEventList(ThriftEventBundle thriftEventBundle,
                                         StreamTypeHolder streamTypeHolder) {
 
@@ -109,19 +122,8 @@ public final class ThriftEventConverter implements EventConverter {
                 long timeStamp = thriftEventBundle.getLongAttributeList().get(indexCounter.getLongCount());
                 indexCounter.incrementLongCount();
                 event.setTimeStamp(timeStamp);
-                AttributeType[][] attributeTypeOrder = streamTypeHolder.getDataType(streamId);
-                if (attributeTypeOrder == null) {
-                    PrivilegedCarbonContext privilegedCarbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
-                    if (privilegedCarbonContext.getTenantDomain() == null) {
-                        privilegedCarbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-                        privilegedCarbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-                    }
-                    streamTypeHolder.reloadStreamTypeHolder();
-                    attributeTypeOrder = streamTypeHolder.getDataType(streamId);
-                    if (attributeTypeOrder == null) {
-                        throw new EventConversionException("No StreamDefinition for streamId " + streamId + " present in cache ");
-                    }
-                }
+                AttributeType[][] attributeTypeOrder = getAttributeComposite(streamId, streamTypeHolder)
+                        .getAttributeTypes();
                 event.setMetaData(this.toObjectArray(thriftEventBundle, attributeTypeOrder[0], indexCounter));
                 event.setCorrelationData(this.toObjectArray(thriftEventBundle, attributeTypeOrder[1], indexCounter));
                 event.setPayloadData(this.toObjectArray(thriftEventBundle, attributeTypeOrder[2], indexCounter));
@@ -139,4 +141,89 @@ public final class ThriftEventConverter implements EventConverter {
         return eventList;
     }
 
+    /**
+     * Reads the attributes of each event straight in to a new row of the batch of its stream.
+     */
+    private Collection<EventBatch> createEventBatches(ThriftEventBundle thriftEventBundle,
+                                                      StreamTypeHolder streamTypeHolder) {
+
+        IndexCounter indexCounter = new IndexCounter();
+        Map<String, EventBatch> eventBatches = new LinkedHashMap<String, EventBatch>();
+        String streamId = null;
+        try {
+            for (int i = 0; i < thriftEventBundle.getEventNum(); i++) {
+                streamId = thriftEventBundle.getStringAttributeList().get(indexCounter.getStringCount());
+                indexCounter.incrementStringCount();
+                long timeStamp = thriftEventBundle.getLongAttributeList().get(indexCounter.getLongCount());
+                indexCounter.incrementLongCount();
+                EventBatch eventBatch = eventBatches.get(streamId);
+                if (eventBatch == null) {
+                    eventBatch = new EventBatch(getAttributeComposite(streamId, streamTypeHolder).getStreamDefinition(),
+                            thriftEventBundle.getEventNum() - i);
+                    eventBatches.put(streamId, eventBatch);
+                }
+                int row = eventBatch.addRow(timeStamp);
+                for (int attribute = 0; attribute < eventBatch.getAttributeCount(); attribute++) {
+                    switch (eventBatch.getAttributeType(attribute)) {
+                        case INT:
+                            eventBatch.setInt(row, attribute,
+                                    thriftEventBundle.getIntAttributeList().get(indexCounter.getIntCount()));
+                            indexCounter.incrementIntCount();
+                            break;
+                        case LONG:
+                            eventBatch.setLong(row, attribute,
+                                    thriftEventBundle.getLongAttributeList().get(indexCounter.getLongCount()));
+                            indexCounter.incrementLongCount();
+                            break;
+                        case STRING:
+                            String stringValue = thriftEventBundle.getStringAttributeList().get(indexCounter.getStringCount());
+                            if (!stringValue.equals(EventDefinitionConverterUtils.nullString)) {
+                                eventBatch.setString(row, attribute, stringValue);
+                            }
+                            indexCounter.incrementStringCount();
+                            break;
+                        case DOUBLE:
+                            eventBatch.setDouble(row, attribute,
+                                    thriftEventBundle.getDoubleAttributeList().get(indexCounter.getDoubleCount()));
+                            indexCounter.incrementDoubleCount();
+                            break;
+                        case FLOAT:
+                            eventBatch.setFloat(row, attribute, thriftEventBundle.getDoubleAttributeList()
+                                    .get(indexCounter.getDoubleCount()).floatValue());
+                            indexCounter.incrementDoubleCount();
+                            break;
+                        case BOOL:
+                            eventBatch.setBool(row, attribute,
+                                    thriftEventBundle.getBoolAttributeList().get(indexCounter.getBoolCount()));
+                            indexCounter.incrementBoolCount();
+                            break;
+                    }
+                }
+                if (thriftEventBundle.isSetArbitraryDataMapMap()) {
+                    eventBatch.setArbitraryDataMap(row, thriftEventBundle.getArbitraryDataMapMap().get(i));
+                }
+            }
+        } catch (RuntimeException re) {
+            throw new EventConversionException("Error when converting " + streamId + " of event bundle with events " + thriftEventBundle.getEventNum(), re);
+        }
+        return eventBatches.values();
+    }
+
+    private StreamAttributeComposite getAttributeComposite(String streamId, StreamTypeHolder streamTypeHolder) {
+        StreamAttributeComposite attributeComposite = streamTypeHolder.getAttributeComposite(streamId);
+        if (attributeComposite == null) {
+            PrivilegedCarbonContext privilegedCarbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            if (privilegedCarbonContext.getTenantDomain() == null) {
+                privilegedCarbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+                privilegedCarbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+            }
+            streamTypeHolder.reloadStreamTypeHolder();
+            attributeComposite = streamTypeHolder.getAttributeComposite(streamId);
+            if (attributeComposite == null) {
+                throw new EventConversionException("No StreamDefinition for streamId " + streamId + " present in cache ");
+            }
+        }
+        return attributeComposite;
+    }
+
 }
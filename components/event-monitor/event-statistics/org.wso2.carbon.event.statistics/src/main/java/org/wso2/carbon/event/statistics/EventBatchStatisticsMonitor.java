@@ -0,0 +1,38 @@
+/*
+*  Copyright (c) 2005-2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.event.statistics;
+
+/**
+ * An event statistics monitor that can count several events at once, and count the events dropped by filters.
+ * Callers check for this interface and count the events one at a time through {@link EventStatisticsMonitor}
+ * when a monitor does not implement it.
+ */
+public interface EventBatchStatisticsMonitor extends EventStatisticsMonitor {
+
+    public void incrementRequest(int count);
+
+    public void incrementResponse(int count);
+
+    /**
+     * Counts the events that were dropped by a filter instead of being processed.
+     *
+     * @param count number of filtered events
+     */
+    public void incrementFiltered(int count);
+
+}
@@ -0,0 +1,136 @@
+/*
+*  Copyright (c) 2005-2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.event.statistics;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.event.statistics.internal.trace.TraceWriter;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the trace records of an event receiver or publisher to the event trace logger.
+ * <p/>
+ * Only a sample of the records are written when a sampling rate (1 in N records) or a budget of records per second
+ * is configured. In the asynchronous mode the records are handed to a bounded buffer and formatted and written by a
+ * background thread, dropping the records when the buffer is full. As the traced data may change once it is handed
+ * back to the caller, event data is copied and any other data is formatted before it is buffered. The mode is
+ * configured with the system properties defined in this class.
+ */
+public class EventTracer {
+
+    /**
+     * System property to write the trace records from a background thread.
+     */
+    public static final String ASYNC_TRACE_PROPERTY = "eventTrace.async";
+    /**
+     * System property to trace only 1 in N records.
+     */
+    public static final String SAMPLE_RATE_PROPERTY = "eventTrace.sampleRate";
+    /**
+     * System property to limit the number of records traced per second by each tracer.
+     */
+    public static final String MAX_RECORDS_PER_SECOND_PROPERTY = "eventTrace.maxRecordsPerSecond";
+    /**
+     * System property for the number of records the asynchronous trace buffer can hold.
+     */
+    public static final String BUFFER_SIZE_PROPERTY = "eventTrace.bufferSize";
+
+    private final Logger logger;
+    private final boolean async;
+    private final int sampleRate;
+    private final int maxRecordsPerSecond;
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicLong windowStartTime = new AtomicLong();
+    private final AtomicInteger windowRecordCount = new AtomicInteger();
+
+    public EventTracer(Logger logger) {
+        this(logger, Boolean.getBoolean(ASYNC_TRACE_PROPERTY), Integer.getInteger(SAMPLE_RATE_PROPERTY, 1),
+                Integer.getInteger(MAX_RECORDS_PER_SECOND_PROPERTY, 0));
+    }
+
+    /**
+     * @param logger              logger the records are written to
+     * @param async               whether the records are written from a background thread
+     * @param sampleRate          trace 1 in sampleRate records, where 1 or less traces all the records
+     * @param maxRecordsPerSecond maximum number of records traced per second, where 0 or less is unlimited
+     */
+    public EventTracer(Logger logger, boolean async, int sampleRate, int maxRecordsPerSecond) {
+        this.logger = logger;
+        this.async = async;
+        this.sampleRate = sampleRate;
+        this.maxRecordsPerSecond = maxRecordsPerSecond;
+    }
+
+    /**
+     * Traces the given data, if it is sampled.
+     *
+     * @param prefix prefix of the trace record
+     * @param data   the traced event, events or message, written as by {@link #format(String, Object)}
+     */
+    public void trace(String prefix, Object data) {
+        if (!isSampled()) {
+            return;
+        }
+        if (async) {
+            TraceWriter.getInstance().write(logger, prefix, snapshot(data));
+        } else {
+            logger.info(format(prefix, data));
+        }
+    }
+
+    private boolean isSampled() {
+        if (sampleRate > 1 && sampleCounter.getAndIncrement() % sampleRate != 0) {
+            return false;
+        }
+        if (maxRecordsPerSecond > 0) {
+            long currentTime = System.currentTimeMillis();
+            long windowStart = windowStartTime.get();
+            if (currentTime - windowStart >= 1000 && windowStartTime.compareAndSet(windowStart, currentTime)) {
+                windowRecordCount.set(0);
+            }
+            return windowRecordCount.incrementAndGet() <= maxRecordsPerSecond;
+        }
+        return true;
+    }
+
+    /**
+     * @return a copy of the given event data or events data, whose attribute values are immutable, or else the data
+     * formatted as a string
+     */
+    private static Object snapshot(Object data) {
+        if (data instanceof Object[]) {
+            Object[] copy = ((Object[]) data).clone();
+            for (int i = 0; i < copy.length; i++) {
+                if (copy[i] instanceof Object[]) {
+                    copy[i] = snapshot(copy[i]);
+                }
+            }
+            return copy;
+        }
+        return data == null || data instanceof String ? data : String.valueOf(data);
+    }
+
+    public static String format(String prefix, Object data) {
+        if (data instanceof Object[]) {
+            return prefix + Arrays.deepToString((Object[]) data);
+        }
+        return prefix + data;
+    }
+}
@@ -17,10 +17,10 @@
 */
 package org.wso2.carbon.event.statistics.internal;
 
-import org.wso2.carbon.event.statistics.EventStatisticsMonitor;
+import org.wso2.carbon.event.statistics.EventBatchStatisticsMonitor;
 import org.wso2.carbon.event.statistics.internal.counter.StatsCounter;
 
-public class EventStatisticsMonitorImpl implements EventStatisticsMonitor {
+public class EventStatisticsMonitorImpl implements EventBatchStatisticsMonitor {
 
     private StatsCounter tenantData;
     private StatsCounter categoryData;
@@ -44,6 +44,15 @@ public class EventStatisticsMonitorImpl implements EventStatisticsMonitor {
 
     }
 
+    public void incrementRequest(int count) {
+        this.tenantData.incrementRequest(count);
+        this.categoryData.incrementRequest(count);
+        this.deploymentData.incrementRequest(count);
+        if (elementData != null) {
+            this.elementData.incrementRequest(count);
+        }
+    }
+
     public void incrementResponse() {
         this.tenantData.incrementResponse();
         this.categoryData.incrementResponse();
@@ -53,4 +62,22 @@ public class EventStatisticsMonitorImpl implements EventStatisticsMonitor {
         }
     }
 
+    public void incrementResponse(int count) {
+        this.tenantData.incrementResponse(count);
+        this.categoryData.incrementResponse(count);
+        this.deploymentData.incrementResponse(count);
+        if (elementData != null) {
+            this.elementData.incrementResponse(count);
+        }
+    }
+
+    public void incrementFiltered(int count) {
+        this.tenantData.incrementFiltered(count);
+        this.categoryData.incrementFiltered(count);
+        this.deploymentData.incrementFiltered(count);
+        if (elementData != null) {
+            this.elementData.incrementFiltered(count);
+        }
+    }
+
 }
@@ -54,6 +54,8 @@ public class EventStatsHelper {
         statsDTO.setResponseLast6HourCount(statsCounter.getResponseStatCounter().getLast6HourCount());
         statsDTO.setResponseLastDayCount(statsCounter.getResponseStatCounter().getLastDayCount());
 
+        statsDTO.setFilteredTotalCount(statsCounter.getFilteredStatCounter().getTotalCount());
+
 
         if (statsCounter.getChildCounters().size() > 0) {
             String[] children = statsCounter.getChildCounters().keySet().toArray(new String[statsCounter.getChildCounters().keySet().size()]);
@@ -17,17 +17,29 @@
 */
 package org.wso2.carbon.event.statistics.internal;
 
-import org.wso2.carbon.event.statistics.EventStatisticsMonitor;
+import org.wso2.carbon.event.statistics.EventBatchStatisticsMonitor;
 
-public class GhostEventStatisticsMonitor implements EventStatisticsMonitor {
+public class GhostEventStatisticsMonitor implements EventBatchStatisticsMonitor {
 
 
     public void incrementRequest() {
 
     }
 
+    public void incrementRequest(int count) {
+
+    }
+
     public void incrementResponse() {
 
     }
 
+    public void incrementResponse(int count) {
+
+    }
+
+    public void incrementFiltered(int count) {
+
+    }
+
 }
@@ -94,9 +94,13 @@ public class BasicStatsCounter {
         return lastUpdatedTime;
     }
 
-    public synchronized void update() {
+    public void update() {
+        update(1);
+    }
+
+    public synchronized void update(long count) {
         lastUpdatedTime = System.currentTimeMillis();
-        totalCount++;
+        totalCount += count;
 
         if (currentSec < lastUpdatedTime / Constants.SEC_IN_MS) {
             currentSec = lastUpdatedTime / Constants.SEC_IN_MS;
@@ -134,12 +138,12 @@ public class BasicStatsCounter {
         }
 
 
-        currentSecCount++;
-        currentMinCount++;
-        current15MinCount++;
-        currentHourCount++;
-        current6HourCount++;
-        currentDayCount++;
+        currentSecCount += count;
+        currentMinCount += count;
+        current15MinCount += count;
+        currentHourCount += count;
+        current6HourCount += count;
+        currentDayCount += count;
 
         if (currentSecCount > maxCountPerSec) {
             maxCountPerSec = currentSecCount;
@@ -23,6 +23,7 @@ public class StatsCounter {
 
     private BasicStatsCounter requestStatCounter = new BasicStatsCounter();
     private BasicStatsCounter responseStatCounter = new BasicStatsCounter();
+    private BasicStatsCounter filteredStatCounter = new BasicStatsCounter();
 
     private ConcurrentHashMap<String, StatsCounter> childCounters = new ConcurrentHashMap<String, StatsCounter>();
     private String name;
@@ -50,13 +51,26 @@ public class StatsCounter {
         requestStatCounter.update();
     }
 
+    public void incrementRequest(int count) {
+        requestStatCounter.update(count);
+    }
+
     public void incrementResponse() {
         responseStatCounter.update();
     }
 
+    public void incrementResponse(int count) {
+        responseStatCounter.update(count);
+    }
+
+    public void incrementFiltered(int count) {
+        filteredStatCounter.update(count);
+    }
+
     public void reset() {
         requestStatCounter.reset();
         responseStatCounter.reset();
+        filteredStatCounter.reset();
         for (StatsCounter childStatsCounter : childCounters.values()) {
             childStatsCounter.reset();
         }
@@ -71,6 +85,10 @@ public class StatsCounter {
         return responseStatCounter;
     }
 
+    public BasicStatsCounter getFilteredStatCounter() {
+        return filteredStatCounter;
+    }
+
     public ConcurrentHashMap<String, StatsCounter> getChildCounters() {
         return childCounters;
     }
@@ -45,6 +45,8 @@ public class StatsDTO {
     private long responseLast6HourCount;
     private long responseLastDayCount;
 
+    private long filteredTotalCount;
+
     private String[] childStats;
 
     public String getName() {
@@ -215,6 +217,14 @@ public class StatsDTO {
         this.responseLastDayCount = responseLastDayCount;
     }
 
+    public long getFilteredTotalCount() {
+        return filteredTotalCount;
+    }
+
+    public void setFilteredTotalCount(long filteredTotalCount) {
+        this.filteredTotalCount = filteredTotalCount;
+    }
+
     public String[] getChildStats() {
         return childStats;
     }
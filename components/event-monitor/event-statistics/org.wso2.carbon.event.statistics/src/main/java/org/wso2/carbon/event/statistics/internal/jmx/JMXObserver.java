@@ -130,6 +130,8 @@ public class JMXObserver implements EventStatisticsObserver {
         view.setResponseLast6HourCount(statsDTO.getResponseLast6HourCount());
         view.setResponseLastDayCount(statsDTO.getResponseLastDayCount());
 
+        view.setFilteredTotalCount(statsDTO.getFilteredTotalCount());
+
     }
 
 }
@@ -46,6 +46,8 @@ public class StatisticsView implements StatisticsViewMBean {
     private long responseLast6HourCount;
     private long responseLastDayCount;
 
+    private long filteredTotalCount;
+
     public String getRequestLastUpdatedTime() {
         return requestLastUpdatedTime;
     }
@@ -206,6 +208,14 @@ public class StatisticsView implements StatisticsViewMBean {
         this.responseLastDayCount = responseLastDayCount;
     }
 
+    public long getFilteredTotalCount() {
+        return filteredTotalCount;
+    }
+
+    public void setFilteredTotalCount(long filteredTotalCount) {
+        this.filteredTotalCount = filteredTotalCount;
+    }
+
     public void resetCount() {
         requestCount = 0;
         responseCount = 0;
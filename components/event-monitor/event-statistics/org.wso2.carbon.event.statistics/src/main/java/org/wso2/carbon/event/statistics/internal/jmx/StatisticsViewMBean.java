@@ -66,5 +66,7 @@ public interface StatisticsViewMBean {
 
     public long getResponseCount();
 
+    public long getFilteredTotalCount();
+
     public void resetCount();
 }
@@ -0,0 +1,79 @@
+/*
+*  Copyright (c) 2005-2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.event.statistics.internal.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock free buffer of trace records, with any number of writers and a single reader.
+ * <p/>
+ * Writers claim a slot by advancing the head and then publish the record to it, while the reader takes the
+ * record at the tail once it is published and clears the slot before advancing the tail.
+ */
+class TraceRecordBuffer {
+
+    private final AtomicReferenceArray<TraceWriter.TraceRecord> slots;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+
+    TraceRecordBuffer(int size) {
+        int capacity = 1;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<TraceWriter.TraceRecord>(capacity);
+    }
+
+    /**
+     * @return false if the buffer is full
+     */
+    boolean offer(TraceWriter.TraceRecord record) {
+        while (true) {
+            long currentHead = head.get();
+            if (currentHead - tail >= capacity) {
+                return false;
+            }
+            if (head.compareAndSet(currentHead, currentHead + 1)) {
+                slots.set((int) (currentHead & mask), record);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Called only by the reader thread.
+     *
+     * @return the oldest record, or null if the buffer is empty or the oldest record is yet to be published
+     */
+    TraceWriter.TraceRecord poll() {
+        long currentTail = tail;
+        int index = (int) (currentTail & mask);
+        TraceWriter.TraceRecord record = slots.get(index);
+        if (record == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        tail = currentTail + 1;
+        return record;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+*  Copyright (c) 2005-2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.event.statistics.internal.trace;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.event.statistics.EventTracer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the records of the asynchronous event tracers from a single background thread, formatting the records
+ * only when they are written.
+ */
+public class TraceWriter implements Runnable {
+
+    private static Logger log = Logger.getLogger(TraceWriter.class);
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final long IDLE_WAIT_NANOS = 10 * 1000 * 1000;
+
+    private final TraceRecordBuffer buffer;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    TraceWriter(int bufferSize) {
+        this.buffer = new TraceRecordBuffer(bufferSize);
+    }
+
+    public static TraceWriter getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Adds a record to the buffer without blocking, dropping it if the buffer is full.
+     */
+    public void write(Logger logger, String prefix, Object data) {
+        if (!buffer.offer(new TraceRecord(logger, prefix, data))) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            TraceRecord record = buffer.poll();
+            if (record == null) {
+                long dropped = droppedCount.getAndSet(0);
+                if (dropped > 0) {
+                    log.warn("Dropped " + dropped + " event trace records as the trace buffer was full");
+                }
+                LockSupport.parkNanos(IDLE_WAIT_NANOS);
+                continue;
+            }
+            try {
+                record.logger.info(EventTracer.format(record.prefix, record.data));
+            } catch (RuntimeException e) {
+                log.error("Error in writing event trace record", e);
+            }
+        }
+    }
+
+    static final class TraceRecord {
+        private final Logger logger;
+        private final String prefix;
+        private final Object data;
+
+        TraceRecord(Logger logger, String prefix, Object data) {
+            this.logger = logger;
+            this.prefix = prefix;
+            this.data = data;
+        }
+    }
+
+    private static class Holder {
+        private static final TraceWriter INSTANCE = start();
+
+        private static TraceWriter start() {
+            TraceWriter traceWriter = new TraceWriter(Integer.getInteger(EventTracer.BUFFER_SIZE_PROPERTY,
+                    DEFAULT_BUFFER_SIZE));
+            Thread thread = new Thread(traceWriter, "event-trace-writer");
+            thread.setDaemon(true);
+            thread.start();
+            return traceWriter;
+        }
+    }
+}
@@ -41,4 +41,14 @@ public class CounterTest extends TestCase {
 
 
     }
+
+    public void testBatchUpdate() {
+
+        BasicStatsCounter basicStatsCounter = new BasicStatsCounter();
+
+        basicStatsCounter.update(5);
+        basicStatsCounter.update();
+
+        assertEquals(6, basicStatsCounter.getTotalCount());
+    }
 }
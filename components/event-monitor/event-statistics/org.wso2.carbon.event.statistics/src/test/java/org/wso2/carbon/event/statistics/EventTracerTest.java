@@ -0,0 +1,93 @@
+/*
+*  Copyright (c) 2005-2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.event.statistics;
+
+import junit.framework.TestCase;
+import org.apache.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class EventTracerTest extends TestCase {
+
+    public void testSampleRate() {
+        RecordingLogger logger = new RecordingLogger();
+        EventTracer eventTracer = new EventTracer(logger, false, 10, 0);
+        for (int i = 0; i < 100; i++) {
+            eventTracer.trace("event : ", new Object[]{i, "symbol"});
+        }
+        assertEquals(10, logger.records.size());
+        assertEquals("event : [0, symbol]", logger.records.get(0));
+        assertEquals("event : [10, symbol]", logger.records.get(1));
+    }
+
+    public void testRecordBudget() {
+        RecordingLogger logger = new RecordingLogger();
+        EventTracer eventTracer = new EventTracer(logger, false, 1, 5);
+        for (int i = 0; i < 100; i++) {
+            eventTracer.trace("event : ", i);
+        }
+        assertTrue(logger.records.size() >= 5 && logger.records.size() < 100);
+    }
+
+    public void testAsyncTrace() throws InterruptedException {
+        RecordingLogger logger = new RecordingLogger();
+        EventTracer eventTracer = new EventTracer(logger, true, 1, 0);
+        for (int i = 0; i < 100; i++) {
+            eventTracer.trace("event : ", new Object[]{i});
+        }
+        long endTime = System.currentTimeMillis() + 10000;
+        while (logger.records.size() < 100 && System.currentTimeMillis() < endTime) {
+            Thread.sleep(10);
+        }
+        assertEquals(100, logger.records.size());
+        assertEquals("event : [99]", logger.records.get(99));
+    }
+
+    public void testAsyncTraceNotAffectedByLaterChanges() throws InterruptedException {
+        RecordingLogger logger = new RecordingLogger();
+        EventTracer eventTracer = new EventTracer(logger, true, 1, 0);
+        Object[][] eventDataBatch = {{1, "IBM"}, {2, "WSO2"}};
+        StringBuilder message = new StringBuilder("<event>1</event>");
+        eventTracer.trace("events : ", eventDataBatch);
+        eventTracer.trace("message : ", message);
+        eventDataBatch[0][0] = 3;
+        eventDataBatch[1] = new Object[]{4, "ORCL"};
+        message.setLength(0);
+        long endTime = System.currentTimeMillis() + 10000;
+        while (logger.records.size() < 2 && System.currentTimeMillis() < endTime) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, logger.records.size());
+        assertEquals("events : [[1, IBM], [2, WSO2]]", logger.records.get(0));
+        assertEquals("message : <event>1</event>", logger.records.get(1));
+    }
+
+    private static class RecordingLogger extends Logger {
+        private final List<String> records = new CopyOnWriteArrayList<String>();
+
+        private RecordingLogger() {
+            super("EVENT_TRACE_LOGGER");
+        }
+
+        @Override
+        public void info(Object message) {
+            records.add(String.valueOf(message));
+        }
+    }
+}
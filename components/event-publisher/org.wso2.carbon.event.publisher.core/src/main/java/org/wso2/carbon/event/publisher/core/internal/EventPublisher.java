@@ -18,7 +18,6 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
-import org.wso2.carbon.databridge.commons.Attribute;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterService;
 import org.wso2.carbon.event.output.adapter.core.exception.OutputEventAdapterException;
@@ -28,12 +27,13 @@ import org.wso2.carbon.event.publisher.core.exception.EventPublisherConfiguratio
 import org.wso2.carbon.event.publisher.core.exception.EventPublisherStreamValidationException;
 import org.wso2.carbon.event.publisher.core.internal.ds.EventPublisherServiceValueHolder;
 import org.wso2.carbon.event.statistics.EventStatisticsMonitor;
-import org.wso2.carbon.event.stream.core.RawEventConsumer;
+import org.wso2.carbon.event.statistics.EventTracer;
+import org.wso2.carbon.event.stream.core.RawEventBatchConsumer;
 import org.wso2.carbon.event.stream.core.exception.EventStreamConfigurationException;
 
 import java.util.*;
 
-public class EventPublisher implements RawEventConsumer {
+public class EventPublisher implements RawEventBatchConsumer {
 
     private static final Log log = LogFactory.getLog(EventPublisher.class);
 
@@ -42,7 +42,8 @@ public class EventPublisher implements RawEventConsumer {
     private final boolean statisticsEnabled;
 
     List<String> dynamicMessagePropertyList = new ArrayList<String>();
-    private Logger trace = Logger.getLogger(EVENT_TRACE_LOGGER);
+    private EventTracer beforeTracer;
+    private EventTracer afterTracer;
     private EventPublisherConfiguration eventPublisherConfiguration = null;
     private int tenantId;
     private Map<String, Integer> propertyPositionMap = new TreeMap<String, Integer>();
@@ -105,6 +106,8 @@ public class EventPublisher implements RawEventConsumer {
         if (traceEnabled) {
             this.beforeTracerPrefix = "TenantId=" + tenantId + " : " + EventPublisherConstants.EVENT_PUBLISHER + " : " + eventPublisherConfiguration.getFromStreamName() + ", before processing " + System.getProperty("line.separator");
             this.afterTracerPrefix = "TenantId=" + tenantId + " : " + EventPublisherConstants.EVENT_PUBLISHER + " : " + eventPublisherConfiguration.getFromStreamName() + ", after processing " + System.getProperty("line.separator");
+            this.beforeTracer = new EventTracer(Logger.getLogger(EVENT_TRACE_LOGGER));
+            this.afterTracer = new EventTracer(Logger.getLogger(EVENT_TRACE_LOGGER));
         }
 
         OutputEventAdapterService eventAdapterService = EventPublisherServiceValueHolder.getOutputEventAdapterService();
@@ -124,12 +127,29 @@ public class EventPublisher implements RawEventConsumer {
         if ( EventPublisherServiceValueHolder.getCarbonEventPublisherManagementService().isDrop()) {
             return;
         }
+        sendEventData(eventData, EventPublisherServiceValueHolder.getOutputEventAdapterService());
+    }
+
+    public void sendEventDataBatch(Object[][] eventDataBatch) {
+        if ( EventPublisherServiceValueHolder.getCarbonEventPublisherManagementService().isDrop()) {
+            return;
+        }
+        OutputEventAdapterService eventAdapterService = EventPublisherServiceValueHolder.getOutputEventAdapterService();
+        for (Object[] eventData : eventDataBatch) {
+            try {
+                sendEventData(eventData, eventAdapterService);
+            } catch (RuntimeException e) {
+                log.error("Cannot send event:" + Arrays.deepToString(eventData) + " from " + eventPublisherConfiguration.getEventPublisherName(), e);
+            }
+        }
+    }
 
+    private void sendEventData(Object[] eventData, OutputEventAdapterService eventAdapterService) {
         Map<String, String> dynamicProperties = new HashMap<String, String>(eventPublisherConfiguration.getToAdapterDynamicProperties());
 
         Object outObject;
         if (traceEnabled) {
-            trace.info(beforeTracerPrefix + Arrays.deepToString(eventData));
+            beforeTracer.trace(beforeTracerPrefix, eventData);
         }
         if (statisticsEnabled) {
             statisticsMonitor.incrementResponse();
@@ -146,48 +166,19 @@ public class EventPublisher implements RawEventConsumer {
         }
 
         if (traceEnabled) {
-            if (outObject instanceof Object[]) {
-                trace.info(afterTracerPrefix + Arrays.deepToString((Object[]) outObject));
-            } else {
-                trace.info(afterTracerPrefix + outObject);
-            }
+            afterTracer.trace(afterTracerPrefix, outObject);
         }
 
         if (dynamicMessagePropertyEnabled) {
             changeDynamicEventAdapterMessageProperties(eventData, dynamicProperties);
         }
 
-        OutputEventAdapterService eventAdapterService = EventPublisherServiceValueHolder.getOutputEventAdapterService();
         eventAdapterService.publish(eventPublisherConfiguration.getEventPublisherName(), eventPublisherConfiguration.getToAdapterDynamicProperties(), outObject);
 
     }
 
     private void createPropertyPositionMap(StreamDefinition streamDefinition) {
-        List<Attribute> metaAttributeList = streamDefinition.getMetaData();
-        List<Attribute> correlationAttributeList = streamDefinition.getCorrelationData();
-        List<Attribute> payloadAttributeList = streamDefinition.getPayloadData();
-
-        int propertyCount = 0;
-        if (metaAttributeList != null) {
-            for (Attribute attribute : metaAttributeList) {
-                propertyPositionMap.put(EventPublisherConstants.PROPERTY_META_PREFIX + attribute.getName(), propertyCount);
-                propertyCount++;
-            }
-        }
-
-        if (correlationAttributeList != null) {
-            for (Attribute attribute : correlationAttributeList) {
-                propertyPositionMap.put(EventPublisherConstants.PROPERTY_CORRELATION_PREFIX + attribute.getName(), propertyCount);
-                propertyCount++;
-            }
-        }
-
-        if (payloadAttributeList != null) {
-            for (Attribute attribute : payloadAttributeList) {
-                propertyPositionMap.put(attribute.getName(), propertyCount);
-                propertyCount++;
-            }
-        }
+        propertyPositionMap.putAll(streamDefinition.getAttributeLayout().getAttributeIndexMap());
     }
 
     public String getStreamId() {
@@ -199,6 +190,11 @@ public class EventPublisher implements RawEventConsumer {
         sendEventData(eventData);
     }
 
+    @Override
+    public void consumeEventDataBatch(Object[][] eventDataBatch) {
+        sendEventDataBatch(eventDataBatch);
+    }
+
     private List<String> getDynamicOutputMessageProperties(String messagePropertyValue) {
 
         String text = messagePropertyValue;
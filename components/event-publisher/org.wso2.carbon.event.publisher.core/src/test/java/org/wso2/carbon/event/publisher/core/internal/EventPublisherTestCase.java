@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.publisher.core.internal;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterConfiguration;
+import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterService;
+import org.wso2.carbon.event.processor.manager.core.EventManagementService;
+import org.wso2.carbon.event.publisher.core.config.EventPublisherConfiguration;
+import org.wso2.carbon.event.publisher.core.config.OutputMapperFactory;
+import org.wso2.carbon.event.publisher.core.config.OutputMapping;
+import org.wso2.carbon.event.publisher.core.exception.EventPublisherConfigurationException;
+import org.wso2.carbon.event.publisher.core.internal.ds.EventPublisherServiceValueHolder;
+import org.wso2.carbon.event.stream.core.EventStreamService;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class EventPublisherTestCase {
+    private static final String MAPPING_TYPE = "failingTest";
+
+    private final List<Object> publishedMessages = Collections.synchronizedList(new ArrayList<Object>());
+    private StreamDefinition streamDefinition;
+
+    @Before
+    public void init() throws Exception {
+        streamDefinition = new StreamDefinition("stock", "1.0.0");
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+
+        EventPublisherServiceValueHolder.registerEventManagementService(
+                createService(EventManagementService.class, null));
+        EventPublisherServiceValueHolder.registerPublisherManagementService(new CarbonEventPublisherManagementService());
+        EventPublisherServiceValueHolder.registerEventStreamService(
+                createService(EventStreamService.class, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getStreamDefinition")) {
+                            return streamDefinition;
+                        }
+                        return null;
+                    }
+                }));
+        EventPublisherServiceValueHolder.registerEventAdapterService(
+                createService(OutputEventAdapterService.class, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("publish")) {
+                            publishedMessages.add(args[2]);
+                        }
+                        return null;
+                    }
+                }));
+        EventPublisherServiceValueHolder.getMappingFactoryMap().put(MAPPING_TYPE, new FailingOutputMapperFactory());
+    }
+
+    @After
+    public void cleanup() {
+        EventPublisherServiceValueHolder.getMappingFactoryMap().remove(MAPPING_TYPE);
+    }
+
+    @Test
+    public void testBatchContinuesAfterFailedEvent() throws EventPublisherConfigurationException {
+        EventPublisher eventPublisher = new EventPublisher(createConfiguration());
+        eventPublisher.consumeEventDataBatch(new Object[][]{
+                {"IBM", 10.5},
+                {"FAIL", 0.0},
+                {"WSO2", 20.5}
+        });
+        Assert.assertEquals(2, publishedMessages.size());
+        Assert.assertEquals("IBM", publishedMessages.get(0));
+        Assert.assertEquals("WSO2", publishedMessages.get(1));
+    }
+
+    private EventPublisherConfiguration createConfiguration() {
+        OutputEventAdapterConfiguration adapterConfiguration = new OutputEventAdapterConfiguration();
+        adapterConfiguration.setName("testPublisher");
+        EventPublisherConfiguration eventPublisherConfiguration = new EventPublisherConfiguration();
+        eventPublisherConfiguration.setEventPublisherName("testPublisher");
+        eventPublisherConfiguration.setFromStreamName(streamDefinition.getName());
+        eventPublisherConfiguration.setFromStreamVersion(streamDefinition.getVersion());
+        eventPublisherConfiguration.setToAdapterConfiguration(adapterConfiguration);
+        eventPublisherConfiguration.setToAdapterDynamicProperties(new HashMap<String, String>());
+        eventPublisherConfiguration.setOutputMapping(new OutputMapping() {
+            @Override
+            public String getMappingType() {
+                return MAPPING_TYPE;
+            }
+        });
+        return eventPublisherConfiguration;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T createService(Class<T> serviceClass, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(serviceClass.getClassLoader(), new Class[]{serviceClass},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getDeclaringClass() == Object.class) {
+                            return method.invoke(this, args);
+                        }
+                        return handler == null ? null : handler.invoke(proxy, method, args);
+                    }
+                });
+    }
+
+    private static class FailingOutputMapperFactory implements OutputMapperFactory {
+
+        @Override
+        public OutputMapping constructOutputMapping(OMElement omElement) {
+            return null;
+        }
+
+        @Override
+        public OMElement constructOMFromOutputMapping(OutputMapping outputMapping, OMFactory factory) {
+            return null;
+        }
+
+        @Override
+        public OutputMapper constructOutputMapper(EventPublisherConfiguration eventPublisherConfiguration,
+                                                  Map<String, Integer> propositionMap, int tenantId,
+                                                  StreamDefinition streamDefinition) {
+            return new OutputMapper() {
+                @Override
+                public Object convertToMappedInputEvent(Object[] eventData) {
+                    return convertToTypedInputEvent(eventData);
+                }
+
+                @Override
+                public Object convertToTypedInputEvent(Object[] eventData) {
+                    if ("FAIL".equals(eventData[0])) {
+                        throw new IllegalStateException("Cannot map " + eventData[0]);
+                    }
+                    return eventData[0];
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2005 - 2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core;
+
+/**
+ * An input mapper that maps a received {@link java.util.List} of events as a whole, returning an array of
+ * attribute arrays. Event receivers map each element of a received list separately when the mapper does not
+ * implement this interface.
+ */
+public interface EventListInputMapper extends InputMapper {
+
+}
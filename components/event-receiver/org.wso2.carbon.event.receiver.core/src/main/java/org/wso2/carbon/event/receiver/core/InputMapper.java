@@ -38,7 +38,9 @@ public interface InputMapper {
      *
      * @param obj the object to be converted
      * @return the converted object. This can be an object array or an array of object arrays
-     *         in the case of the mapper supporting processing of batched events
+     *         in the case of the mapper supporting processing of batched events, or a
+     *         {@link org.wso2.carbon.databridge.commons.Event} of the exported stream when the received
+     *         event can be passed through as it is
      * @throws EventReceiverConfigurationException
      *
      */
@@ -26,6 +26,10 @@ public class EventReceiverConfiguration {
     private boolean traceEnabled;
     private boolean statisticsEnabled;
     private boolean isEditable;
+    private int mappingThreads;
+    private int mappingQueueSize = EventReceiverConstants.DEFAULT_MAPPING_QUEUE_SIZE;
+    private boolean mappingOrderPreserved = true;
+    private String filter;
 
     public boolean isTraceEnabled() {
         return traceEnabled;
@@ -90,4 +94,51 @@ public class EventReceiverConfiguration {
     public void setFromAdapterConfiguration(InputEventAdapterConfiguration fromAdapterConfiguration) {
         this.fromAdapterConfiguration = fromAdapterConfiguration;
     }
+
+    /**
+     * @return number of worker threads that map the received messages, or 0 to map them on the thread of the
+     * input event adapter
+     */
+    public int getMappingThreads() {
+        return mappingThreads;
+    }
+
+    public void setMappingThreads(int mappingThreads) {
+        this.mappingThreads = mappingThreads;
+    }
+
+    /**
+     * @return maximum number of received messages that can be waiting to be mapped or delivered before the
+     * input event adapter thread is blocked
+     */
+    public int getMappingQueueSize() {
+        return mappingQueueSize;
+    }
+
+    public void setMappingQueueSize(int mappingQueueSize) {
+        this.mappingQueueSize = mappingQueueSize;
+    }
+
+    /**
+     * @return whether the events mapped by the worker threads are delivered in the order the messages were received
+     */
+    public boolean isMappingOrderPreserved() {
+        return mappingOrderPreserved;
+    }
+
+    public void setMappingOrderPreserved(boolean mappingOrderPreserved) {
+        this.mappingOrderPreserved = mappingOrderPreserved;
+    }
+
+    /**
+     * @return expression of the filter the mapped events should match to be sent to the stream, or null if all
+     * the mapped events are sent
+     */
+    public String getFilter() {
+        return filter;
+    }
+
+    public void setFilter(String filter) {
+        this.filter = filter;
+    }
 }
@@ -28,6 +28,7 @@ public final class EventReceiverConstants {
     public static final String ER_ELEMENT_ROOT_ELEMENT = "eventReceiver";
     public static final String ER_CONFIG_DIRECTORY = "eventreceivers";
     public static final String ER_ELEMENT_PROPERTY = "property";
+    public static final String ER_ELEMENT_FILTER = "filter";
     public static final String ER_ELEMENT_XPATH_DEFINITION = "xpathDefinition";
     public static final String ER_ELEMENT_FROM = "from";
     public static final String ER_ELEMENT_MAPPING = "mapping";
@@ -97,6 +98,13 @@ public final class EventReceiverConstants {
     public static final String ER_ATTR_TRACE_ENABLED = "trace";
     public static final String ER_ATTR_STATISTICS_ENABLED = "statistics";
     public static final String ER_ATTR_CUSTOM_MAPPING_ENABLED = "customMapping";
+    public static final String ER_ATTR_EVENT_PER_LINE = "eventPerLine";
+    public static final String ER_ATTR_MAPPING_THREADS = "mappingThreads";
+    public static final String ER_ATTR_MAPPING_QUEUE_SIZE = "mappingQueueSize";
+    public static final String ER_ATTR_MAPPING_ORDER = "mappingOrder";
+    public static final String PRESERVE_CONST = "preserve";
+    public static final String IGNORE_CONST = "ignore";
+    public static final int DEFAULT_MAPPING_QUEUE_SIZE = 1024;
     public static final String ENABLE_CONST = "enable";
     public static final String DISABLE_CONST = "disable";
     public static final String DEFAULT_STREAM_VERSION = "1.0.0";
@@ -123,6 +131,12 @@ public final class EventReceiverConstants {
 
     public static final String ER_ATTR_ENCRYPTED = "encrypted";
 
+    /**
+     * System property to map XML events in a single streaming pass, where the XPaths of the mapping allow it,
+     * instead of evaluating the XPaths on the object model of each event. Off by default.
+     */
+    public static final String XML_STREAMING_MAPPING_PROPERTY = "eventReceiver.xml.streamingMapping";
+
     private EventReceiverConstants() {
 
     }
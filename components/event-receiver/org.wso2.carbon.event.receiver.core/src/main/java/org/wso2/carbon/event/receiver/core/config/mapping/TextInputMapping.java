@@ -20,6 +20,20 @@ import org.wso2.carbon.event.receiver.core.config.EventReceiverConstants;
 
 public class TextInputMapping extends InputMapping {
 
+    private boolean eventPerLineEnabled;
+
+    /**
+     * @return whether each line of a message is read as an event of its own with the default mapping, where a
+     * message is otherwise read as a single event
+     */
+    public boolean isEventPerLineEnabled() {
+        return eventPerLineEnabled;
+    }
+
+    public void setEventPerLineEnabled(boolean eventPerLineEnabled) {
+        this.eventPerLineEnabled = eventPerLineEnabled;
+    }
+
     @Override
     public String getMappingType() {
         return EventReceiverConstants.ER_TEXT_MAPPING_TYPE;
@@ -84,13 +84,22 @@ public class CarbonEventReceiverManagementService extends EventReceiverManagemen
     @Override
     public void syncState(byte[] bytes) {
         Map<Integer, Map<String, EventReceiver>> tenantSpecificEventAdapters = EventReceiverServiceValueHolder.getCarbonEventReceiverService().getTenantSpecificEventReceiverMap();
-        Map<Integer, HashMap<String, byte[]>> data = new HashMap<Integer, HashMap<String, byte[]>>();
+        Map<Integer, HashMap<String, byte[]>> data = (Map<Integer, HashMap<String, byte[]>>) ByteSerializer.BToO(bytes);
+        if (data == null) {
+            return;
+        }
         for (Map.Entry<Integer, HashMap<String, byte[]>> pair : data.entrySet()) {
             Map<String, byte[]> map = pair.getValue();
             int tenantId = pair.getKey();
+            Map<String, EventReceiver> eventReceivers = tenantSpecificEventAdapters.get(tenantId);
+            if (eventReceivers == null) {
+                continue;
+            }
             for (Map.Entry<String, byte[]> receiverEntry : map.entrySet()) {
-                tenantSpecificEventAdapters.get(tenantId).get(receiverEntry.getKey())
-                        .getInputEventDispatcher().syncState(receiverEntry.getValue());
+                EventReceiver eventReceiver = eventReceivers.get(receiverEntry.getKey());
+                if (eventReceiver != null) {
+                    eventReceiver.getInputEventDispatcher().syncState(receiverEntry.getValue());
+                }
             }
         }
     }
@@ -175,6 +184,22 @@ public class CarbonEventReceiverManagementService extends EventReceiverManagemen
         }
     }
 
+    /**
+     * Sends the first count events of a batch to the other member, flushing once after the last event.
+     */
+    public void sendToOther(int tenantId, String eventReceiverName, Object[][] events, int count) {
+        if (tcpEventPublisher != null) {
+            String streamId = tenantId + "/" + eventReceiverName;
+            try {
+                for (int i = 0; i < count; i++) {
+                    tcpEventPublisher.sendEvent(streamId, events[i], i == count - 1);
+                }
+            } catch (Throwable e) {
+                log.error(e);
+            }
+        }
+    }
+
     @Override
     public void startServer(HostAndPort member) {
         if (tcpEventServer == null) {
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maps the messages received by an event receiver on a bounded pool of worker threads, so that the input event
+ * adapter thread only has to hand the raw messages over. The adapter thread is blocked once the configured number
+ * of messages are waiting to be mapped or delivered.
+ * <p/>
+ * When the order is preserved, the mapped events are delivered in the order the messages were submitted, by the
+ * worker that completes the oldest pending message; otherwise each worker delivers its events as soon as they are
+ * mapped.
+ */
+public class EventMappingWorkerPool {
+
+    private static final Log log = LogFactory.getLog(EventMappingWorkerPool.class);
+    private static final Object NO_EVENTS = new Object();
+
+    private final String eventReceiverName;
+    private final MessageHandler messageHandler;
+    private final boolean orderPreserved;
+    private final Semaphore permits;
+    private final ExecutorService executorService;
+
+    private final Object sequenceLock = new Object();
+    private final Map<Long, Object> mappedEvents = new HashMap<Long, Object>();
+    private long nextSequence;
+    private long nextDeliverySequence;
+    private boolean delivering;
+
+    public EventMappingWorkerPool(final String eventReceiverName, final int tenantId, int threads, int queueSize,
+                                  boolean orderPreserved, MessageHandler messageHandler) {
+        this.eventReceiverName = eventReceiverName;
+        this.messageHandler = messageHandler;
+        this.orderPreserved = orderPreserved;
+        this.permits = new Semaphore(queueSize);
+        this.executorService = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        PrivilegedCarbonContext.startTenantFlow();
+                        try {
+                            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId);
+                            runnable.run();
+                        } finally {
+                            PrivilegedCarbonContext.endTenantFlow();
+                        }
+                    }
+                }, "EventReceiverMappingWorker-" + eventReceiverName + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Hands a received message to the mapping workers, blocking while the pool is full.
+     *
+     * @param message the message as received from the input event adapter
+     */
+    public void submit(Object message) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Dropping event, interrupted while waiting to map the event received by event receiver : "
+                    + eventReceiverName, e);
+            return;
+        }
+        long sequence = -1;
+        if (orderPreserved) {
+            synchronized (sequenceLock) {
+                sequence = nextSequence++;
+            }
+        }
+        try {
+            executorService.execute(new MappingTask(message, sequence));
+        } catch (RejectedExecutionException e) {
+            log.error("Dropping event, mapping workers of event receiver : " + eventReceiverName + " are shut down");
+            complete(sequence, null);
+        }
+    }
+
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    private void complete(long sequence, Object events) {
+        if (!orderPreserved) {
+            deliver(events);
+            permits.release();
+            return;
+        }
+        synchronized (sequenceLock) {
+            mappedEvents.put(sequence, events == null ? NO_EVENTS : events);
+            if (delivering) {
+                return;
+            }
+            delivering = true;
+        }
+        while (true) {
+            Object nextEvents;
+            synchronized (sequenceLock) {
+                nextEvents = mappedEvents.remove(nextDeliverySequence);
+                if (nextEvents == null) {
+                    delivering = false;
+                    return;
+                }
+                nextDeliverySequence++;
+            }
+            if (nextEvents != NO_EVENTS) {
+                deliver(nextEvents);
+            }
+            permits.release();
+        }
+    }
+
+    private void deliver(Object events) {
+        if (events == null) {
+            return;
+        }
+        try {
+            messageHandler.deliver(events);
+        } catch (RuntimeException e) {
+            log.error("Error in delivering the events mapped by event receiver : " + eventReceiverName, e);
+        }
+    }
+
+    /**
+     * Maps the received messages and delivers the mapped events of an event receiver.
+     */
+    public interface MessageHandler {
+
+        /**
+         * @param message the message as received from the input event adapter
+         * @return the mapped event as an Object[], the mapped events as an Object[][], or null if nothing
+         * could be mapped
+         */
+        Object map(Object message);
+
+        /**
+         * @param events the mapped event or events as returned by {@link #map(Object)}
+         */
+        void deliver(Object events);
+    }
+
+    private class MappingTask implements Runnable {
+
+        private final Object message;
+        private final long sequence;
+
+        private MappingTask(Object message, long sequence) {
+            this.message = message;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            Object events = null;
+            try {
+                events = messageHandler.map(message);
+            } catch (RuntimeException e) {
+                log.error("Dropping event, Error processing event received by event receiver : "
+                        + eventReceiverName + ", " + e.getMessage(), e);
+            } finally {
+                complete(sequence, events);
+            }
+        }
+    }
+}
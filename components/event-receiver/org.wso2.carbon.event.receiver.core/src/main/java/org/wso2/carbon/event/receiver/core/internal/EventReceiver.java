@@ -19,6 +19,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.event.input.adapter.core.InputAdapterRuntime;
 import org.wso2.carbon.event.input.adapter.core.InputEventAdapterSubscription;
@@ -26,22 +27,26 @@ import org.wso2.carbon.event.input.adapter.core.exception.InputEventAdapterExcep
 import org.wso2.carbon.event.input.adapter.core.exception.InputEventAdapterRuntimeException;
 import org.wso2.carbon.event.processor.manager.core.config.ManagementModeInfo;
 import org.wso2.carbon.event.processor.manager.core.config.Mode;
+import org.wso2.carbon.event.receiver.core.EventListInputMapper;
 import org.wso2.carbon.event.receiver.core.InputMapper;
 import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
 import org.wso2.carbon.event.receiver.core.config.EventReceiverConstants;
 import org.wso2.carbon.event.receiver.core.exception.EventReceiverConfigurationException;
 import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
 import org.wso2.carbon.event.receiver.core.internal.ds.EventReceiverServiceValueHolder;
+import org.wso2.carbon.event.receiver.core.internal.filter.EventFilter;
 import org.wso2.carbon.event.receiver.core.internal.management.AbstractInputEventDispatcher;
 import org.wso2.carbon.event.receiver.core.internal.management.InputEventDispatcher;
 import org.wso2.carbon.event.receiver.core.internal.management.QueueInputEventDispatcher;
 import org.wso2.carbon.event.receiver.core.internal.util.EventReceiverUtil;
 import org.wso2.carbon.event.receiver.core.internal.util.helper.EventReceiverConfigurationHelper;
+import org.wso2.carbon.event.statistics.EventBatchStatisticsMonitor;
 import org.wso2.carbon.event.statistics.EventStatisticsMonitor;
+import org.wso2.carbon.event.statistics.EventTracer;
 import org.wso2.carbon.event.stream.core.EventProducer;
 import org.wso2.carbon.event.stream.core.EventProducerCallback;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.locks.Lock;
 
@@ -51,7 +56,8 @@ public class EventReceiver implements EventProducer {
     private boolean traceEnabled = false;
     private boolean statisticsEnabled = false;
     private boolean customMappingEnabled = false;
-    private Logger trace = Logger.getLogger(EventReceiverConstants.EVENT_TRACE_LOGGER);
+    private EventTracer beforeTracer;
+    private EventTracer afterTracer;
     private EventReceiverConfiguration eventReceiverConfiguration = null;
     private StreamDefinition exportedStreamDefinition;
     private InputMapper inputMapper = null;
@@ -60,6 +66,9 @@ public class EventReceiver implements EventProducer {
     private String afterTracerPrefix;
     private AbstractInputEventDispatcher inputEventDispatcher;
     private InputAdapterRuntime inputAdapterRuntime;
+    private EventMappingWorkerPool mappingWorkerPool;
+    private EventFilter eventFilter;
+    private boolean listMappingSupported;
 
 
     public EventReceiver(EventReceiverConfiguration eventReceiverConfiguration,
@@ -83,11 +92,16 @@ public class EventReceiver implements EventProducer {
                     EventReceiverConfigurationHelper.validateExportedStream(eventReceiverConfiguration, exportedStreamDefinition, this.inputMapper);
                 }
                 this.exportedStreamDefinition = exportedStreamDefinition;
+                this.listMappingSupported = this.inputMapper instanceof EventListInputMapper;
             } else {
                 throw new EventReceiverConfigurationException("Could not create input mapper for mapping type "
                         + mappingType + " for event receiver :" + eventReceiverConfiguration.getEventReceiverName());
             }
 
+            if (eventReceiverConfiguration.getFilter() != null) {
+                this.eventFilter = EventFilter.compile(eventReceiverConfiguration.getFilter(), exportedStreamDefinition);
+            }
+
             // Initialize tracer and statistics.
             if (statisticsEnabled) {
                 this.statisticsMonitor = EventReceiverServiceValueHolder.getEventStatisticsService().getEventStatisticMonitor(
@@ -99,6 +113,25 @@ public class EventReceiver implements EventProducer {
                 this.afterTracerPrefix = "TenantId=" + tenantId + " : " + EventReceiverConstants.EVENT_RECEIVER + " : "
                         + eventReceiverConfiguration.getEventReceiverName() + " : " + EventReceiverConstants.EVENT_STREAM + " : "
                         + EventReceiverUtil.getExportedStreamIdFrom(eventReceiverConfiguration) + " , after processing " + System.getProperty("line.separator");
+                this.beforeTracer = new EventTracer(Logger.getLogger(EventReceiverConstants.EVENT_TRACE_LOGGER));
+                this.afterTracer = new EventTracer(Logger.getLogger(EventReceiverConstants.EVENT_TRACE_LOGGER));
+            }
+
+            if (eventReceiverConfiguration.getMappingThreads() > 0) {
+                final boolean typed = !customMappingEnabled;
+                this.mappingWorkerPool = new EventMappingWorkerPool(eventReceiverConfiguration.getEventReceiverName(),
+                        tenantId, eventReceiverConfiguration.getMappingThreads(), eventReceiverConfiguration.getMappingQueueSize(),
+                        eventReceiverConfiguration.isMappingOrderPreserved(), new EventMappingWorkerPool.MessageHandler() {
+                    @Override
+                    public Object map(Object message) {
+                        return mapMessage(message, typed);
+                    }
+
+                    @Override
+                    public void deliver(Object events) {
+                        sendMappedEvents(events);
+                    }
+                });
             }
 
             String inputEventAdapterName = eventReceiverConfiguration.getFromAdapterConfiguration().getName();
@@ -168,69 +201,110 @@ public class EventReceiver implements EventProducer {
 
     protected void processMappedEvent(Object object) {
         if (traceEnabled) {
-            trace.info(beforeTracerPrefix + object.toString());
+            beforeTracer.trace(beforeTracerPrefix, object);
+        }
+        if (mappingWorkerPool != null) {
+            mappingWorkerPool.submit(object);
+        } else {
+            sendMappedEvents(mapMessage(object, false));
         }
+    }
 
+    protected void processTypedEvent(Object obj) {
+        if (traceEnabled) {
+            beforeTracer.trace(beforeTracerPrefix, obj);
+        }
+        if (mappingWorkerPool != null) {
+            mappingWorkerPool.submit(obj);
+        } else {
+            sendMappedEvents(mapMessage(obj, true));
+        }
+    }
+
+    /**
+     * Maps a received message, logging and dropping the events that cannot be mapped.
+     *
+     * @return the mapped event as an Object[], the mapped events as an Object[][], or null if nothing was mapped
+     */
+    private Object mapMessage(Object object, boolean typed) {
+        if (object instanceof List && !listMappingSupported) {
+            return mapEventList((List) object, typed);
+        }
         try {
-            if (object instanceof List) {
-                for (Object obj : (List) object) {
-                    processMappedEvent(obj);
-                }
-            } else {
-                Object convertedEvent = this.inputMapper.convertToMappedInputEvent(object);
-                if (convertedEvent != null) {
-                    if (convertedEvent instanceof Object[][]) {
-                        Object[][] arrayOfEvents = (Object[][]) convertedEvent;
-                        for (Object[] outObjArray : arrayOfEvents) {
-                            if(outObjArray != null){
-                                sendEvent(outObjArray);
-                            }
-                        }
-                    } else {
-                        sendEvent((Object[]) convertedEvent);
-                    }
-                } else {
-                    log.warn("Dropping the empty/null event, Event does not matched with mapping");
-                }
+            Object convertedEvent = typed ? this.inputMapper.convertToTypedInputEvent(object)
+                                          : this.inputMapper.convertToMappedInputEvent(object);
+            if (convertedEvent == null && !typed) {
+                log.warn("Dropping the empty/null event, Event does not matched with mapping");
             }
+            return convertedEvent;
         } catch (EventReceiverProcessingException e) {
             log.error("Dropping event, Error processing event : " + e.getMessage(), e);
+            return null;
         }
+    }
 
+    private void sendMappedEvents(Object convertedEvent) {
+        if (convertedEvent instanceof Object[][]) {
+            sendEvents((Object[][]) convertedEvent);
+        } else if (convertedEvent instanceof Event) {
+            sendEvent((Event) convertedEvent);
+        } else if (convertedEvent != null) {
+            sendEvent((Object[]) convertedEvent);
+        }
     }
 
-    protected void processTypedEvent(Object obj) {
-        if (traceEnabled) {
-            trace.info(beforeTracerPrefix + obj.toString());
+    /**
+     * Maps a list of received events so that all the mapped events are sent as one batch, dropping only the events
+     * that fail to map.
+     */
+    private Object[][] mapEventList(List objects, boolean typed) {
+        List<Object[]> events = new ArrayList<Object[]>(objects.size());
+        for (Object object : objects) {
+            mapEvent(object, typed, events);
+        }
+        if (events.isEmpty()) {
+            return null;
+        }
+        return events.toArray(new Object[events.size()][]);
+    }
+
+    private void mapEvent(Object object, boolean typed, List<Object[]> events) {
+        if (object instanceof List) {
+            for (Object obj : (List) object) {
+                mapEvent(obj, typed, events);
+            }
+            return;
         }
         try {
-            if (obj instanceof List) {
-                for (Object object : (List) obj) {
-                    processTypedEvent(object);
-                }
-            } else {
-                Object convertedEvent = this.inputMapper.convertToTypedInputEvent(obj);
-                if (convertedEvent != null) {
-                    if (convertedEvent instanceof Object[][]) {
-                        Object[][] arrayOfEvents = (Object[][]) convertedEvent;
-                        for (Object[] outObjArray : arrayOfEvents) {
-                            if (outObjArray != null) {
-                                sendEvent(outObjArray);
-                            }
-                        }
-                    } else {
-                        sendEvent((Object[]) convertedEvent);
+            Object convertedEvent = typed ? this.inputMapper.convertToTypedInputEvent(object)
+                                          : this.inputMapper.convertToMappedInputEvent(object);
+            if (convertedEvent instanceof Object[][]) {
+                for (Object[] outObjArray : (Object[][]) convertedEvent) {
+                    if (outObjArray != null) {
+                        events.add(outObjArray);
                     }
                 }
+            } else if (convertedEvent instanceof Event) {
+                events.add(EventReceiverUtil.getEventData((Event) convertedEvent));
+            } else if (convertedEvent != null) {
+                events.add((Object[]) convertedEvent);
+            } else if (!typed) {
+                log.warn("Dropping the empty/null event, Event does not matched with mapping");
             }
         } catch (EventReceiverProcessingException e) {
-            log.error("Dropping event, Error processing event: " + e.getMessage(), e);
+            log.error("Dropping event, Error processing event : " + e.getMessage(), e);
         }
     }
 
     protected void sendEvent(Object[] outObjArray) {
+        if (eventFilter != null && !eventFilter.matches(outObjArray)) {
+            if (statisticsEnabled) {
+                countFilteredEvents(1);
+            }
+            return;
+        }
         if (traceEnabled) {
-            trace.info(afterTracerPrefix + Arrays.toString(outObjArray));
+            afterTracer.trace(afterTracerPrefix, outObjArray);
         }
         if (statisticsEnabled) {
             statisticsMonitor.incrementRequest();
@@ -238,6 +312,92 @@ public class EventReceiver implements EventProducer {
         this.inputEventDispatcher.onEvent(outObjArray);
     }
 
+    /**
+     * Sends an event that the mapper passed through as it was received, as it already carries the attributes of
+     * the exported stream.
+     */
+    protected void sendEvent(Event event) {
+        if (eventFilter != null && !eventFilter.matches(EventReceiverUtil.getEventData(event))) {
+            if (statisticsEnabled) {
+                countFilteredEvents(1);
+            }
+            return;
+        }
+        if (traceEnabled) {
+            afterTracer.trace(afterTracerPrefix, event);
+        }
+        if (statisticsEnabled) {
+            statisticsMonitor.incrementRequest();
+        }
+        this.inputEventDispatcher.onEvent(event);
+    }
+
+    /**
+     * Sends a batch of mapped events to the dispatcher at once, skipping the events dropped by the mapper and the
+     * events that do not match the filter.
+     *
+     * @param events attribute arrays of the events, where the dropped events are null
+     */
+    protected void sendEvents(Object[][] events) {
+        int eventCount = 0;
+        int filteredCount = 0;
+        for (int i = 0; i < events.length; i++) {
+            if (events[i] != null) {
+                if (eventFilter != null && !eventFilter.matches(events[i])) {
+                    events[i] = null;
+                    filteredCount++;
+                } else {
+                    eventCount++;
+                }
+            }
+        }
+        if (filteredCount > 0 && statisticsEnabled) {
+            countFilteredEvents(filteredCount);
+        }
+        if (eventCount == 0) {
+            return;
+        }
+        if (eventCount < events.length) {
+            Object[][] mappedEvents = new Object[eventCount][];
+            int index = 0;
+            for (Object[] outObjArray : events) {
+                if (outObjArray != null) {
+                    mappedEvents[index++] = outObjArray;
+                }
+            }
+            events = mappedEvents;
+        }
+        if (traceEnabled) {
+            for (Object[] outObjArray : events) {
+                afterTracer.trace(afterTracerPrefix, outObjArray);
+            }
+        }
+        if (statisticsEnabled) {
+            countRequests(events.length);
+        }
+        this.inputEventDispatcher.onEvents(events);
+    }
+
+    private void countRequests(int count) {
+        if (statisticsMonitor instanceof EventBatchStatisticsMonitor) {
+            ((EventBatchStatisticsMonitor) statisticsMonitor).incrementRequest(count);
+        } else {
+            for (int i = 0; i < count; i++) {
+                statisticsMonitor.incrementRequest();
+            }
+        }
+    }
+
+    /**
+     * Counts the events dropped by the filter, which only monitors that implement
+     * {@link EventBatchStatisticsMonitor} keep track of.
+     */
+    private void countFilteredEvents(int count) {
+        if (statisticsMonitor instanceof EventBatchStatisticsMonitor) {
+            ((EventBatchStatisticsMonitor) statisticsMonitor).incrementFiltered(count);
+        }
+    }
+
     public AbstractInputEventDispatcher getInputEventDispatcher() {
         return inputEventDispatcher;
     }
@@ -250,6 +410,7 @@ public class EventReceiver implements EventProducer {
             StreamDefinition inputStreamDefinition = (StreamDefinition) definition;
             String mappingType = eventReceiverConfiguration.getInputMapping().getMappingType();
             this.inputMapper = EventReceiverServiceValueHolder.getMappingFactoryMap().get(mappingType).constructInputMapper(eventReceiverConfiguration, exportedStreamDefinition);
+            this.listMappingSupported = this.inputMapper instanceof EventListInputMapper;
         }
     }
 
@@ -277,6 +438,9 @@ public class EventReceiver implements EventProducer {
     public void destroy() {
         int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
         EventReceiverServiceValueHolder.getInputEventAdapterService().destroy(eventReceiverConfiguration.getFromAdapterConfiguration().getName());
+        if (mappingWorkerPool != null) {
+            mappingWorkerPool.shutdown();
+        }
 
     }
 
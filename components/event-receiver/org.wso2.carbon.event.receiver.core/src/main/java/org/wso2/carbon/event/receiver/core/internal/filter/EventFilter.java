@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.filter;
+
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverConfigurationException;
+
+import java.util.Set;
+
+/**
+ * Predicate on the attributes of the events mapped by an event receiver, evaluated before the events are sent to
+ * the stream. Filters are compiled once from expressions such as
+ * <pre>
+ *     meta_tenantId == 1 and (price &gt; 100.5 or symbol in ('IBM', 'WSO2')) and not isInternal
+ * </pre>
+ * where attributes are named as in the mapping (meta_&lt;name&gt;, correlation_&lt;name&gt; and &lt;name&gt;)
+ * and bound to their positions in the event, and literals are converted to the types of the attributes they are
+ * compared with. A comparison with a null attribute value is false.
+ */
+public abstract class EventFilter {
+
+    static final int EQUAL = 0;
+    static final int NOT_EQUAL = 1;
+    static final int LESS_THAN = 2;
+    static final int LESS_THAN_OR_EQUAL = 3;
+    static final int GREATER_THAN = 4;
+    static final int GREATER_THAN_OR_EQUAL = 5;
+
+    /**
+     * Compiles a filter expression against the attributes of a stream.
+     *
+     * @param expression       the filter expression
+     * @param streamDefinition definition of the stream the filtered events are sent to
+     * @return the compiled filter
+     * @throws EventReceiverConfigurationException if the expression is invalid for the stream
+     */
+    public static EventFilter compile(String expression, StreamDefinition streamDefinition)
+            throws EventReceiverConfigurationException {
+        return new EventFilterParser(expression, streamDefinition.getAttributeLayout()).parse();
+    }
+
+    /**
+     * @param event attribute values of a mapped event, in the stream attribute order
+     * @return true if the event should be sent to the stream
+     */
+    public abstract boolean matches(Object[] event);
+
+    static boolean evaluate(int operator, int comparison) {
+        switch (operator) {
+            case EQUAL:
+                return comparison == 0;
+            case NOT_EQUAL:
+                return comparison != 0;
+            case LESS_THAN:
+                return comparison < 0;
+            case LESS_THAN_OR_EQUAL:
+                return comparison <= 0;
+            case GREATER_THAN:
+                return comparison > 0;
+            default:
+                return comparison >= 0;
+        }
+    }
+
+    static class And extends EventFilter {
+        private final EventFilter[] filters;
+
+        And(EventFilter[] filters) {
+            this.filters = filters;
+        }
+
+        @Override
+        public boolean matches(Object[] event) {
+            for (EventFilter filter : filters) {
+                if (!filter.matches(event)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static class Or extends EventFilter {
+        private final EventFilter[] filters;
+
+        Or(EventFilter[] filters) {
+            this.filters = filters;
+        }
+
+        @Override
+        public boolean matches(Object[] event) {
+            for (EventFilter filter : filters) {
+                if (filter.matches(event)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static class Not extends EventFilter {
+        private final EventFilter filter;
+
+        Not(EventFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean matches(Object[] event) {
+            return !filter.matches(event);
+        }
+    }
+
+    /**
+     * Compares an int or long attribute with an integral literal.
+     */
+    static class LongComparison extends EventFilter {
+        private final int index;
+        private final int operator;
+        private final long value;
+
+        LongComparison(int index, int operator, long value) {
+            this.index = index;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        public boolean matches(Object[] event) {
+            Object attribute = event[index];
+            if (attribute == null) {
+                return false;
+            }
+            long attributeValue = ((Number) attribute).longValue();
+            return evaluate(operator, attributeValue < value ? -1 : (attributeValue == value ? 0 : 1));
+        }
+    }
+
+    /**
+     * Compares a numeric attribute with a literal as double values.
+     */
+    static class DoubleComparison extends EventFilter {
+        private final int index;
+        private final int operator;
+        private final double value;
+
+        DoubleComparison(int index, int operator, double value) {
+            this.index = index;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        public boolean matches(Object[] event) {
+            Object attribute = event[index];
+            if (attribute == null) {
+                return false;
+            }
+            return evaluate(operator, Double.compare(((Number) attribute).doubleValue(), value));
+        }
+    }
+
+    /**
+     * Compares a string or bool attribute with a literal of the same type.
+     */
+    static class ObjectComparison extends EventFilter {
+        private final int index;
+        private final int operator;
+        private final Comparable<Object> value;
+
+        @SuppressWarnings("unchecked")
+        ObjectComparison(int index, int operator, Comparable value) {
+            this.index = index;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        public boolean matches(Object[] event) {
+            Object attribute = event[index];
+            if (attribute == null) {
+                return false;
+            }
+            return evaluate(operator, -value.compareTo(attribute));
+        }
+    }
+
+    static class NullCheck extends EventFilter {
+        private final int index;
+        private final boolean isNull;
+
+        NullCheck(int index, boolean isNull) {
+            this.index = index;
+            this.isNull = isNull;
+        }
+
+        @Override
+        public boolean matches(Object[] event) {
+            return (event[index] == null) == isNull;
+        }
+    }
+
+    static class In extends EventFilter {
+        private final int index;
+        private final Set<Object> values;
+
+        In(int index, Set<Object> values) {
+            this.index = index;
+            this.values = values;
+        }
+
+        @Override
+        public boolean matches(Object[] event) {
+            Object attribute = event[index];
+            return attribute != null && values.contains(attribute);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.filter;
+
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamAttributeLayout;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverConfigurationException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Recursive descent parser of event filter expressions, with the grammar
+ * <pre>
+ *     or         := and ('or' and)*
+ *     and        := unary ('and' unary)*
+ *     unary      := 'not' unary | '(' or ')' | predicate
+ *     predicate  := attribute ('==' | '=' | '!=' | '&lt;&gt;' | '&lt;' | '&lt;=' | '&gt;' | '&gt;=') literal
+ *                 | attribute 'not'? 'in' '(' literal (',' literal)* ')'
+ *                 | attribute
+ *     literal    := number | 'string' | "string" | true | false | null
+ * </pre>
+ * where a lone attribute must be a bool attribute that is true, and quotes are escaped within strings by doubling
+ * them.
+ */
+class EventFilterParser {
+
+    private final String expression;
+    private final StreamAttributeLayout attributeLayout;
+    private int position;
+
+    EventFilterParser(String expression, StreamAttributeLayout attributeLayout) {
+        this.expression = expression;
+        this.attributeLayout = attributeLayout;
+    }
+
+    EventFilter parse() throws EventReceiverConfigurationException {
+        EventFilter filter = parseOr();
+        skipWhitespace();
+        if (position < expression.length()) {
+            throw error("Unexpected input");
+        }
+        return filter;
+    }
+
+    private EventFilter parseOr() throws EventReceiverConfigurationException {
+        List<EventFilter> filters = new ArrayList<EventFilter>();
+        filters.add(parseAnd());
+        while (consumeKeyword("or")) {
+            filters.add(parseAnd());
+        }
+        return filters.size() == 1 ? filters.get(0) : new EventFilter.Or(filters.toArray(new EventFilter[filters.size()]));
+    }
+
+    private EventFilter parseAnd() throws EventReceiverConfigurationException {
+        List<EventFilter> filters = new ArrayList<EventFilter>();
+        filters.add(parseUnary());
+        while (consumeKeyword("and")) {
+            filters.add(parseUnary());
+        }
+        return filters.size() == 1 ? filters.get(0) : new EventFilter.And(filters.toArray(new EventFilter[filters.size()]));
+    }
+
+    private EventFilter parseUnary() throws EventReceiverConfigurationException {
+        if (consumeKeyword("not")) {
+            return new EventFilter.Not(parseUnary());
+        }
+        if (consume('(')) {
+            EventFilter filter = parseOr();
+            expect(')');
+            return filter;
+        }
+        return parsePredicate();
+    }
+
+    private EventFilter parsePredicate() throws EventReceiverConfigurationException {
+        int attributeStart = skipWhitespace();
+        String attributeName = readIdentifier();
+        if (attributeName == null) {
+            throw error("Expected an attribute name");
+        }
+        int index = attributeLayout.getAttributeIndex(attributeName);
+        if (index < 0) {
+            position = attributeStart;
+            throw error("Unknown attribute " + attributeName);
+        }
+        AttributeType type = attributeLayout.getAttributeTypes()[index];
+
+        boolean negated = consumeKeyword("not");
+        if (consumeKeyword("in")) {
+            expect('(');
+            Set<Object> values = new HashSet<Object>();
+            do {
+                Object literal = readLiteral();
+                if (literal == null) {
+                    throw error("Null cannot be used in an 'in' list");
+                }
+                values.add(convert(literal, type, attributeName));
+            } while (consume(','));
+            expect(')');
+            EventFilter filter = new EventFilter.In(index, values);
+            return negated ? new EventFilter.Not(filter) : filter;
+        } else if (negated) {
+            throw error("Expected 'in'");
+        }
+
+        int operator = readOperator();
+        if (operator < 0) {
+            if (type != AttributeType.BOOL) {
+                throw error("Expected a comparison for attribute " + attributeName + " of type " + type);
+            }
+            return new EventFilter.ObjectComparison(index, EventFilter.EQUAL, Boolean.TRUE);
+        }
+        Object literal = readLiteral();
+        if (literal == null) {
+            if (operator != EventFilter.EQUAL && operator != EventFilter.NOT_EQUAL) {
+                throw error("Null can only be compared for equality");
+            }
+            return new EventFilter.NullCheck(index, operator == EventFilter.EQUAL);
+        }
+        switch (type) {
+            case INT:
+            case LONG:
+                if (literal instanceof Long) {
+                    return new EventFilter.LongComparison(index, operator, (Long) literal);
+                }
+                return new EventFilter.DoubleComparison(index, operator, toNumber(literal, attributeName).doubleValue());
+            case FLOAT:
+                // compare against the float nearest to the literal, as held by the events
+                return new EventFilter.DoubleComparison(index, operator, toNumber(literal, attributeName).floatValue());
+            case DOUBLE:
+                return new EventFilter.DoubleComparison(index, operator, toNumber(literal, attributeName).doubleValue());
+            case BOOL:
+                if (operator != EventFilter.EQUAL && operator != EventFilter.NOT_EQUAL) {
+                    throw error("Bool attribute " + attributeName + " can only be compared for equality");
+                }
+                return new EventFilter.ObjectComparison(index, operator, (Comparable) convert(literal, type, attributeName));
+            default:
+                return new EventFilter.ObjectComparison(index, operator, (Comparable) convert(literal, type, attributeName));
+        }
+    }
+
+    /**
+     * Converts a literal to the value of an attribute of the given type, as the mapped events hold it.
+     */
+    private Object convert(Object literal, AttributeType type, String attributeName)
+            throws EventReceiverConfigurationException {
+        switch (type) {
+            case INT:
+                if (literal instanceof Long && (Long) literal == ((Long) literal).intValue()) {
+                    return ((Long) literal).intValue();
+                }
+                throw error("Expected an int value for attribute " + attributeName);
+            case LONG:
+                if (literal instanceof Long) {
+                    return literal;
+                }
+                throw error("Expected a long value for attribute " + attributeName);
+            case FLOAT:
+                return toNumber(literal, attributeName).floatValue();
+            case DOUBLE:
+                return toNumber(literal, attributeName).doubleValue();
+            case BOOL:
+                if (literal instanceof Boolean) {
+                    return literal;
+                }
+                throw error("Expected true or false for attribute " + attributeName);
+            default:
+                if (literal instanceof String) {
+                    return literal;
+                }
+                throw error("Expected a quoted string for attribute " + attributeName);
+        }
+    }
+
+    private Number toNumber(Object literal, String attributeName) throws EventReceiverConfigurationException {
+        if (literal instanceof Number) {
+            return (Number) literal;
+        }
+        throw error("Expected a numeric value for attribute " + attributeName);
+    }
+
+    private int readOperator() {
+        skipWhitespace();
+        if (position >= expression.length()) {
+            return -1;
+        }
+        char c = expression.charAt(position);
+        char next = position + 1 < expression.length() ? expression.charAt(position + 1) : 0;
+        switch (c) {
+            case '=':
+                position += next == '=' ? 2 : 1;
+                return EventFilter.EQUAL;
+            case '!':
+                if (next == '=') {
+                    position += 2;
+                    return EventFilter.NOT_EQUAL;
+                }
+                return -1;
+            case '<':
+                if (next == '=') {
+                    position += 2;
+                    return EventFilter.LESS_THAN_OR_EQUAL;
+                } else if (next == '>') {
+                    position += 2;
+                    return EventFilter.NOT_EQUAL;
+                }
+                position++;
+                return EventFilter.LESS_THAN;
+            case '>':
+                if (next == '=') {
+                    position += 2;
+                    return EventFilter.GREATER_THAN_OR_EQUAL;
+                }
+                position++;
+                return EventFilter.GREATER_THAN;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * @return a String, Long, Double or Boolean literal, or null for the null literal
+     */
+    private Object readLiteral() throws EventReceiverConfigurationException {
+        skipWhitespace();
+        if (position >= expression.length()) {
+            throw error("Expected a value");
+        }
+        char c = expression.charAt(position);
+        if (c == '\'' || c == '"') {
+            return readString(c);
+        }
+        if (c == '-' || c == '+' || c == '.' || Character.isDigit(c)) {
+            return readNumber();
+        }
+        String word = readIdentifier();
+        if ("true".equalsIgnoreCase(word)) {
+            return Boolean.TRUE;
+        } else if ("false".equalsIgnoreCase(word)) {
+            return Boolean.FALSE;
+        } else if ("null".equalsIgnoreCase(word)) {
+            return null;
+        }
+        throw error("Expected a value");
+    }
+
+    private String readString(char quote) throws EventReceiverConfigurationException {
+        StringBuilder value = new StringBuilder();
+        position++;
+        while (position < expression.length()) {
+            char c = expression.charAt(position++);
+            if (c == quote) {
+                if (position < expression.length() && expression.charAt(position) == quote) {
+                    value.append(quote);
+                    position++;
+                } else {
+                    return value.toString();
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private Object readNumber() throws EventReceiverConfigurationException {
+        int start = position;
+        boolean integral = true;
+        if (expression.charAt(position) == '-' || expression.charAt(position) == '+') {
+            position++;
+        }
+        while (position < expression.length()) {
+            char c = expression.charAt(position);
+            if (Character.isDigit(c)) {
+                position++;
+            } else if (c == '.' || c == 'e' || c == 'E') {
+                integral = false;
+                position++;
+                if ((c == 'e' || c == 'E') && position < expression.length()
+                        && (expression.charAt(position) == '-' || expression.charAt(position) == '+')) {
+                    position++;
+                }
+            } else {
+                break;
+            }
+        }
+        String number = expression.substring(start, position);
+        try {
+            if (integral) {
+                return Long.parseLong(number.startsWith("+") ? number.substring(1) : number);
+            }
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("Invalid number " + number);
+        }
+    }
+
+    private String readIdentifier() {
+        skipWhitespace();
+        int start = position;
+        while (position < expression.length()) {
+            char c = expression.charAt(position);
+            if (Character.isLetterOrDigit(c) || c == '_' || (c == '.' && position > start)) {
+                position++;
+            } else {
+                break;
+            }
+        }
+        if (position == start || Character.isDigit(expression.charAt(start))) {
+            position = start;
+            return null;
+        }
+        return expression.substring(start, position);
+    }
+
+    private boolean consumeKeyword(String keyword) {
+        int start = skipWhitespace();
+        String word = readIdentifier();
+        if (word != null && word.equalsIgnoreCase(keyword)) {
+            return true;
+        }
+        position = start;
+        return false;
+    }
+
+    private boolean consume(char c) {
+        skipWhitespace();
+        if (position < expression.length() && expression.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) throws EventReceiverConfigurationException {
+        if (!consume(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private int skipWhitespace() {
+        while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private EventReceiverConfigurationException error(String message) {
+        return new EventReceiverConfigurationException(message + " at position " + position + " of filter '"
+                + expression + "'");
+    }
+}
@@ -18,6 +18,9 @@
 
 package org.wso2.carbon.event.receiver.core.internal.management;
 
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.event.receiver.core.internal.util.EventReceiverUtil;
+import org.wso2.carbon.event.stream.core.EventBatchProducerCallback;
 import org.wso2.carbon.event.stream.core.EventProducerCallback;
 
 public abstract class AbstractInputEventDispatcher {
@@ -29,6 +32,43 @@ public abstract class AbstractInputEventDispatcher {
 
     public abstract void onEvent(Object[] object);
 
+    /**
+     * Dispatches a batch of events. Dispatches the events one by one unless the dispatcher can hand over the
+     * batch as a whole.
+     *
+     * @param events attribute arrays of the events
+     */
+    public void onEvents(Object[][] events) {
+        for (Object[] event : events) {
+            onEvent(event);
+        }
+    }
+
+    /**
+     * Dispatches an event that already carries the attributes of the exported stream. Dispatches it as event data
+     * unless the dispatcher can hand over the event as it is.
+     *
+     * @param event the event
+     */
+    public void onEvent(Event event) {
+        onEvent(EventReceiverUtil.getEventData(event));
+    }
+
+    /**
+     * Sends a batch of events to the callback as a whole, or one by one if the callback does not accept batches.
+     *
+     * @param events attribute arrays of the events
+     */
+    protected void sendEventDataBatch(Object[][] events) {
+        if (callBack instanceof EventBatchProducerCallback) {
+            ((EventBatchProducerCallback) callBack).sendEventDataBatch(events);
+        } else {
+            for (Object[] event : events) {
+                callBack.sendEventData(event);
+            }
+        }
+    }
+
     public abstract void shutdown();
 
     public abstract byte[] getState();
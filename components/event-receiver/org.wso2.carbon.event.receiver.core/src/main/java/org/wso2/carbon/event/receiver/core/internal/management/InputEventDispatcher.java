@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.event.receiver.core.internal.management;
 
+import org.wso2.carbon.databridge.commons.Event;
+
 public class InputEventDispatcher extends AbstractInputEventDispatcher {
 
     @Override
@@ -27,6 +29,20 @@ public class InputEventDispatcher extends AbstractInputEventDispatcher {
         }
     }
 
+    @Override
+    public void onEvent(Event event) {
+        if (!isDrop()) {
+            callBack.sendEvent(event);
+        }
+    }
+
+    @Override
+    public void onEvents(Object[][] events) {
+        if (!isDrop()) {
+            sendEventDataBatch(events);
+        }
+    }
+
     @Override
     public void shutdown() {
 
@@ -21,78 +21,320 @@ package org.wso2.carbon.event.receiver.core.internal.management;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.event.receiver.core.internal.ds.EventReceiverServiceValueHolder;
-import org.wso2.siddhi.core.util.snapshot.ByteSerializer;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.Arrays;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Dispatcher used in HA mode, which buffers the received events in a bounded ring and dispatches them in batches
+ * on a single worker thread, holding the management read lock once per batch so that the members can be paused
+ * between batches. Producers block while the ring is full.
+ * <p/>
+ * Every buffered event is identified by its position in the ring, which is a monotonically increasing sequence
+ * number. The state of the dispatcher is the sequence number and the data of the last dispatched event, and a
+ * member syncing with that state drops its buffered events up to and including the same event, which were already
+ * processed by the member the state was taken from. The sequence numbers are local to each member, as each member
+ * receives the events from its own input event adapter, so the event is found by comparing its data: when several
+ * buffered events carry the same data as the last dispatched event, the events are dropped up to the oldest of
+ * them, and nothing is dropped when none of them does.
+ * <p/>
+ * The capacity of the ring and the maximum batch size can be set with the eventReceiver.dispatcher.queueSize and
+ * eventReceiver.dispatcher.batchSize system properties.
+ */
 public class QueueInputEventDispatcher extends AbstractInputEventDispatcher {
 
+    public static final String QUEUE_SIZE_PROPERTY = "eventReceiver.dispatcher.queueSize";
+    public static final String BATCH_SIZE_PROPERTY = "eventReceiver.dispatcher.batchSize";
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final int STATE_FORMAT_VERSION = 1;
+    private static final byte NULL_TYPE = 0;
+    private static final byte STRING_TYPE = 1;
+    private static final byte INT_TYPE = 2;
+    private static final byte LONG_TYPE = 3;
+    private static final byte FLOAT_TYPE = 4;
+    private static final byte DOUBLE_TYPE = 5;
+    private static final byte BOOL_TYPE = 6;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
     private Logger log = Logger.getLogger(AbstractInputEventDispatcher.class);
-    private final BlockingQueue<Object[]> eventQueue = new LinkedBlockingQueue<Object[]>();
+    private final Object[][] ring;
+    private final int batchSize;
+    private final ReentrantLock ringLock = new ReentrantLock();
+    private final Condition notEmpty = ringLock.newCondition();
+    private final Condition notFull = ringLock.newCondition();
+    // Sequence numbers of the oldest buffered event and of the next event to be buffered, guarded by ringLock
+    private long head = 0;
+    private long tail = 0;
+    private volatile long lastDispatchedSequence = -1;
+    private volatile Object[] lastDispatchedEvent;
+    private volatile boolean shutdown = false;
     private Lock readLock;
     private ExecutorService executorService = Executors.newSingleThreadExecutor();
     private String eventReceiverName;
     private int tenantId;
 
     public QueueInputEventDispatcher(int tenantId, String eventReceiverName, Lock readLock) {
+        this(tenantId, eventReceiverName, readLock, Integer.getInteger(QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE),
+                Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE));
+    }
+
+    public QueueInputEventDispatcher(int tenantId, String eventReceiverName, Lock readLock, int queueSize,
+                                     int batchSize) {
         this.readLock = readLock;
         this.tenantId = tenantId;
         this.eventReceiverName = eventReceiverName;
+        this.ring = new Object[Math.max(queueSize, 1)][];
+        this.batchSize = Math.max(Math.min(batchSize, ring.length), 1);
         executorService.submit(new QueueInputEventDispatcherWorker());
     }
 
-    public BlockingQueue<Object[]> getEventQueue() {
-        return eventQueue;
-    }
-
     @Override
     public void onEvent(Object[] event) {
+        ringLock.lock();
         try {
-            eventQueue.put(event);
+            while (tail - head == ring.length && !shutdown) {
+                notFull.await();
+            }
+            if (shutdown) {
+                return;
+            }
+            ring[(int) (tail % ring.length)] = event;
+            tail++;
+            notEmpty.signal();
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             log.error("Interrupted while waiting to put the event to queue.", e);
+        } finally {
+            ringLock.unlock();
+        }
+    }
+
+    @Override
+    public void onEvents(Object[][] events) {
+        int index = 0;
+        ringLock.lock();
+        try {
+            while (index < events.length) {
+                while (tail - head == ring.length && !shutdown) {
+                    notFull.await();
+                }
+                if (shutdown) {
+                    return;
+                }
+                while (index < events.length && tail - head < ring.length) {
+                    ring[(int) (tail % ring.length)] = events[index++];
+                    tail++;
+                }
+                notEmpty.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting to put " + (events.length - index) + " events to queue.", e);
+        } finally {
+            ringLock.unlock();
+        }
+    }
+
+    /**
+     * @return sequence number of the last dispatched event, or -1 if no event was dispatched
+     */
+    public long getLastDispatchedSequence() {
+        return lastDispatchedSequence;
+    }
+
+    /**
+     * @return number of events waiting to be dispatched
+     */
+    public int getQueuedEventCount() {
+        ringLock.lock();
+        try {
+            return (int) (tail - head);
+        } finally {
+            ringLock.unlock();
         }
     }
 
     @Override
     public void shutdown() {
-        executorService.shutdown();
+        ringLock.lock();
+        try {
+            shutdown = true;
+            notFull.signalAll();
+        } finally {
+            ringLock.unlock();
+        }
+        executorService.shutdownNow();
     }
 
+    /**
+     * @return the sequence number and the data of the last dispatched event, or null if the state cannot be written
+     */
     @Override
     public byte[] getState() {
-        return ByteSerializer.OToB(eventQueue);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(byteArrayOutputStream);
+        try {
+            Object[] event = lastDispatchedEvent;
+            out.writeInt(STATE_FORMAT_VERSION);
+            out.writeLong(lastDispatchedSequence);
+            out.writeBoolean(event != null);
+            if (event != null) {
+                writeEvent(out, event);
+            }
+            out.flush();
+        } catch (IOException e) {
+            log.error("Error while writing the state of event receiver " + eventReceiverName, e);
+            return null;
+        }
+        return byteArrayOutputStream.toByteArray();
     }
 
     @Override
     public void syncState(byte[] bytes) {
-        Object[] events = (Object[]) ByteSerializer.BToO(bytes);
-        for(Object object: events) {
-            if(Arrays.deepEquals((Object[]) object, eventQueue.peek())) {
-                eventQueue.poll();
+        if (bytes == null) {
+            return;
+        }
+        Object[] event;
+        long sequence;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            int version = in.readInt();
+            if (version != STATE_FORMAT_VERSION) {
+                log.error("Cannot sync event receiver " + eventReceiverName + ", unsupported state format " + version);
+                return;
+            }
+            sequence = in.readLong();
+            if (!in.readBoolean()) {
+                return;
+            }
+            event = readEvent(in);
+            if (log.isDebugEnabled()) {
+                log.debug("Syncing event receiver " + eventReceiverName + " up to the event dispatched with sequence "
+                        + sequence + " by the other member");
+            }
+        } catch (IOException e) {
+            log.error("Error while reading the state of event receiver " + eventReceiverName, e);
+            return;
+        }
+        if (!dropUpTo(event)) {
+            log.warn("Cannot sync event receiver " + eventReceiverName + ", the event dispatched with sequence "
+                    + sequence + " by the other member is not buffered, hence keeping all the buffered events");
+        }
+    }
+
+    /**
+     * Drops the buffered events up to and including the oldest buffered event with the given data.
+     *
+     * @return false if no buffered event has the given data
+     */
+    private boolean dropUpTo(Object[] event) {
+        ringLock.lock();
+        try {
+            for (long sequence = head; sequence < tail; sequence++) {
+                if (Arrays.deepEquals(event, ring[(int) (sequence % ring.length)])) {
+                    dropUpToSequence(sequence);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            ringLock.unlock();
+        }
+    }
+
+    private void dropUpToSequence(long sequence) {
+        for (long i = head; i <= sequence; i++) {
+            ring[(int) (i % ring.length)] = null;
+        }
+        head = sequence + 1;
+        notFull.signalAll();
+    }
+
+    private static void writeEvent(DataOutputStream out, Object[] event) throws IOException {
+        out.writeInt(event.length);
+        for (Object value : event) {
+            if (value == null) {
+                out.writeByte(NULL_TYPE);
+            } else if (value instanceof Integer) {
+                out.writeByte(INT_TYPE);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(LONG_TYPE);
+                out.writeLong((Long) value);
+            } else if (value instanceof Float) {
+                out.writeByte(FLOAT_TYPE);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE_TYPE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(BOOL_TYPE);
+                out.writeBoolean((Boolean) value);
             } else {
-                break;
+                out.writeByte(STRING_TYPE);
+                byte[] bytes = value.toString().getBytes(UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
             }
         }
     }
 
+    private static Object[] readEvent(DataInputStream in) throws IOException {
+        Object[] event = new Object[in.readInt()];
+        for (int i = 0; i < event.length; i++) {
+            byte type = in.readByte();
+            switch (type) {
+                case NULL_TYPE:
+                    break;
+                case INT_TYPE:
+                    event[i] = in.readInt();
+                    break;
+                case LONG_TYPE:
+                    event[i] = in.readLong();
+                    break;
+                case FLOAT_TYPE:
+                    event[i] = in.readFloat();
+                    break;
+                case DOUBLE_TYPE:
+                    event[i] = in.readDouble();
+                    break;
+                case BOOL_TYPE:
+                    event[i] = in.readBoolean();
+                    break;
+                case STRING_TYPE:
+                    int length = in.readInt();
+                    if (length < 0) {
+                        throw new IOException("Invalid string length " + length);
+                    }
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    event[i] = new String(bytes, UTF_8);
+                    break;
+                default:
+                    throw new IOException("Unknown attribute type " + type);
+            }
+        }
+        return event;
+    }
+
     class QueueInputEventDispatcherWorker implements Runnable {
 
         /**
-         * When an object implementing interface <code>Runnable</code> is used
-         * to create a thread, starting the thread causes the object's
-         * <code>run</code> method to be called in that separately executing
-         * thread.
-         * <p/>
-         * The general contract of the method <code>run</code> is that it may
-         * take any action whatsoever.
-         *
-         * @see Thread#run()
+         * Waits for events without holding the read lock, and then takes the read lock and dispatches the
+         * buffered events in batches, so that a member paused for a state transfer never holds events that are
+         * taken out of the ring but not yet dispatched.
          */
         @Override
         public void run() {
@@ -100,28 +342,80 @@ public class QueueInputEventDispatcher extends AbstractInputEventDispatcher {
                 PrivilegedCarbonContext.startTenantFlow();
                 PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId);
                 PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain(true);
-                while (true) {
+                Object[][] batch = new Object[batchSize][];
+                while (!Thread.currentThread().isInterrupted()) {
                     try {
+                        awaitEvents();
                         readLock.lock();
-                        readLock.unlock();
-                        Object[] event = eventQueue.take();
-                        readLock.lock();
-                        readLock.unlock();
-                        if (!isDrop()) {
-                            callBack.sendEventData(event);
-                        }
-                        if (isSendToOther()) {
-                            EventReceiverServiceValueHolder.getCarbonEventReceiverManagementService().sendToOther(tenantId, eventReceiverName, event);
+                        try {
+                            dispatch(batch);
+                        } finally {
+                            readLock.unlock();
                         }
                     } catch (InterruptedException e) {
-                        log.error("Interrupted while waiting to get an event from queue.", e);
+                        break;
+                    } catch (RuntimeException e) {
+                        log.error("Error in dispatching events.", e);
                     }
                 }
-            } catch (Exception e){
-                log.error("Error in dispatching events.");
+            } catch (Exception e) {
+                log.error("Error in dispatching events.", e);
             } finally {
                 PrivilegedCarbonContext.endTenantFlow();
             }
         }
+
+        private void awaitEvents() throws InterruptedException {
+            ringLock.lockInterruptibly();
+            try {
+                while (head == tail) {
+                    notEmpty.await();
+                }
+            } finally {
+                ringLock.unlock();
+            }
+        }
+
+        private void dispatch(Object[][] batch) {
+            int count;
+            long sequence;
+            ringLock.lock();
+            try {
+                count = (int) Math.min(tail - head, batch.length);
+                sequence = head;
+                for (int i = 0; i < count; i++) {
+                    int index = (int) ((sequence + i) % ring.length);
+                    batch[i] = ring[index];
+                    ring[index] = null;
+                }
+                head += count;
+                if (count > 0) {
+                    notFull.signalAll();
+                }
+            } finally {
+                ringLock.unlock();
+            }
+            if (count == 0) {
+                return;
+            }
+            Object[] lastEvent = batch[count - 1];
+            try {
+                if (!isDrop()) {
+                    if (count == 1) {
+                        callBack.sendEventData(lastEvent);
+                    } else {
+                        sendEventDataBatch(Arrays.copyOf(batch, count));
+                    }
+                }
+                if (isSendToOther()) {
+                    EventReceiverServiceValueHolder.getCarbonEventReceiverManagementService().sendToOther(tenantId,
+                            eventReceiverName, batch, count);
+                }
+            } finally {
+                Arrays.fill(batch, 0, count, null);
+                lastDispatchedEvent = lastEvent;
+                lastDispatchedSequence = sequence + count - 1;
+            }
+        }
     }
 }
@@ -14,12 +14,13 @@
  */
 package org.wso2.carbon.event.receiver.core.internal.type.json;
 
+import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.spi.JsonProvider;
+import com.jayway.jsonpath.spi.JsonProviderFactory;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.json.JSONArray;
-import org.json.JSONException;
 import org.wso2.carbon.databridge.commons.Attribute;
 import org.wso2.carbon.databridge.commons.AttributeType;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
@@ -42,25 +43,29 @@ public class JSONInputMapper implements InputMapper {
     private static final Log log = LogFactory.getLog(JSONInputMapper.class);
     private EventReceiverConfiguration eventReceiverConfiguration = null;
     private List<JsonPathData> attributeJsonPathDataList = new ArrayList<JsonPathData>();
-    private int noMetaData;
-    private int noCorrelationData;
-    private int noPayloadData;
-    private StreamDefinition streamDefinition;
+    private TypedJSONEventReader typedEventReader;
+
+    /*
+    JSON provider of each thread mapping messages, created once instead of per message, as the provider holds a
+    parser which is not to be shared across threads.
+     */
+    private final ThreadLocal<JsonProvider> jsonProviders = new ThreadLocal<JsonProvider>() {
+        @Override
+        protected JsonProvider initialValue() {
+            return createJsonProvider();
+        }
+    };
 
     public JSONInputMapper(EventReceiverConfiguration eventReceiverConfiguration,
                            StreamDefinition streamDefinition)
             throws EventReceiverConfigurationException {
         this.eventReceiverConfiguration = eventReceiverConfiguration;
-        this.streamDefinition = streamDefinition;
+        this.typedEventReader = new TypedJSONEventReader(streamDefinition);
 
         if (eventReceiverConfiguration != null && eventReceiverConfiguration.getInputMapping() instanceof JSONInputMapping) {
             JSONInputMapping jsonInputMapping = (JSONInputMapping) eventReceiverConfiguration.getInputMapping();
             if (jsonInputMapping.isCustomMappingEnabled()) {
                 createAttributeJsonPathList(streamDefinition, jsonInputMapping.getInputMappingAttributes());
-            } else {
-                this.noMetaData = streamDefinition.getMetaData() != null ? streamDefinition.getMetaData().size() : 0;
-                this.noCorrelationData += streamDefinition.getCorrelationData() != null ? streamDefinition.getCorrelationData().size() : 0;
-                this.noPayloadData += streamDefinition.getPayloadData() != null ? streamDefinition.getPayloadData().size() : 0;
             }
         }
     }
@@ -69,11 +74,11 @@ public class JSONInputMapper implements InputMapper {
     public Object convertToMappedInputEvent(Object obj) throws EventReceiverProcessingException {
         Object outObject = null;
         if (obj instanceof String) {
-            String jsonString = (String) obj;
-            if (jsonString.startsWith(EventReceiverConstants.JSON_ARRAY_START_CHAR)) {
-                outObject = processMultipleEvents(obj);
+            Object jsonObject = parseJson((String) obj);
+            if (jsonObject instanceof List) {
+                outObject = processMultipleEvents((List) jsonObject);
             } else {
-                outObject = processSingleEvent(obj);
+                outObject = processSingleEvent(jsonObject);
             }
         }
         return outObject;
@@ -84,12 +89,7 @@ public class JSONInputMapper implements InputMapper {
 
         Object outObject = null;
         if (obj instanceof String) {
-            String jsonString = (String) obj;
-            if (jsonString.startsWith(EventReceiverConstants.JSON_ARRAY_START_CHAR)) {
-                outObject = processTypedMultipleEvents(obj);
-            } else {
-                outObject = processTypedSingleEvent(obj);
-            }
+            outObject = typedEventReader.read((String) obj);
         }
         return outObject;
 
@@ -102,34 +102,54 @@ public class JSONInputMapper implements InputMapper {
         return EventReceiverConfigurationHelper.getAttributes(inputMappingAttributes);
     }
 
-    private Object[][] processMultipleEvents(Object obj) throws EventReceiverProcessingException {
-        Object[][] objArray = null;
-        if (obj instanceof String) {
-            String events = (String) obj;
-            JSONArray jsonArray;
-            try {
-                jsonArray = new JSONArray(events);
-                objArray = new Object[jsonArray.length()][];
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    objArray[i] = processSingleEvent(jsonArray.getJSONObject(i).toString());
-                }
-            } catch (JSONException e) {
-                throw new EventReceiverProcessingException("Error in parsing JSON: ", e);
-            }
+    /**
+     * Parses the message once into maps and lists, against which all the compiled paths are evaluated, instead of
+     * each path parsing the message again.
+     */
+    private Object parseJson(String jsonString) throws EventReceiverProcessingException {
+        Object jsonObject;
+        try {
+            jsonObject = jsonProviders.get().parse(jsonString);
+        } catch (InvalidJsonException e) {
+            throw new EventReceiverProcessingException("Error in parsing JSON: ", e);
+        }
+        if (!(jsonObject instanceof Map) && !(jsonObject instanceof List)) {
+            throw new EventReceiverProcessingException("Error in parsing JSON: expected a JSON object or an array " +
+                                                       "of JSON objects, but found " + jsonString);
+        }
+        return jsonObject;
+    }
+
+    JsonProvider createJsonProvider() {
+        return JsonProviderFactory.createProvider();
+    }
+
+    private Object getJsonEvent(List jsonArray, int index) throws EventReceiverProcessingException {
+        Object jsonEvent = jsonArray.get(index);
+        if (!(jsonEvent instanceof Map)) {
+            throw new EventReceiverProcessingException("Error in parsing JSON: element " + index +
+                                                       " of the event array is not a JSON object");
+        }
+        return jsonEvent;
+    }
+
+    private Object[][] processMultipleEvents(List jsonArray) throws EventReceiverProcessingException {
+        Object[][] objArray = new Object[jsonArray.size()][];
+        for (int i = 0; i < objArray.length; i++) {
+            objArray[i] = processSingleEvent(getJsonEvent(jsonArray, i));
         }
         return objArray;
     }
 
     private Object[] processSingleEvent(Object obj) throws EventReceiverProcessingException {
         Object[] outObjArray = null;
-        if (obj instanceof String) {
-            String jsonString = (String) obj;
+        if (obj instanceof Map || obj instanceof List) {
             List<Object> objList = new ArrayList<Object>();
             for (JsonPathData jsonPathData : attributeJsonPathDataList) {
                 JsonPath jsonPath = jsonPathData.getJsonPath();
                 AttributeType type = jsonPathData.getType();
                 try {
-                    Object resultObject = jsonPath.read(jsonString);
+                    Object resultObject = jsonPath.read(obj);
                     Object returnedObj = null;
 
                     if (resultObject == null) {
@@ -167,106 +187,6 @@ public class JSONInputMapper implements InputMapper {
         return outObjArray;
     }
 
-    private Object[][] processTypedMultipleEvents(Object obj)
-            throws EventReceiverProcessingException {
-        Object[][] objArray = null;
-        String events = (String) obj;
-        JSONArray jsonArray;
-        try {
-            jsonArray = new JSONArray(events);
-            objArray = new Object[jsonArray.length()][];
-            for (int i = 0; i < jsonArray.length(); i++) {
-                objArray[i] = processTypedSingleEvent(jsonArray.getJSONObject(i).toString());
-            }
-        } catch (JSONException e) {
-            throw new EventReceiverProcessingException("Error in parsing JSON: ", e);
-        }
-        return objArray;
-    }
-
-    private Object[] processTypedSingleEvent(Object obj)
-            throws EventReceiverProcessingException {
-
-        Object attributeArray[] = new Object[noMetaData + noCorrelationData + noPayloadData];
-        int attributeCount = 0;
-
-        try {
-            if (obj instanceof String) {
-                String jsonString = (String) obj;
-
-                if (noMetaData > 0) {
-                    JsonPath jsonPath = JsonPath.compile("$." + EventReceiverConstants.EVENT_PARENT_TAG + "." + EventReceiverConstants.EVENT_META_TAG);
-                    Map<Object, Object> eventMap = jsonPath.read(jsonString);
-                    if (eventMap == null) {
-                        throw new EventReceiverProcessingException("Missing event MetaData attributes, Event does not match with the stream : " + this.eventReceiverConfiguration.getToStreamName() + ":" + eventReceiverConfiguration.getToStreamVersion());
-                    } else {
-                        for (Attribute metaData : streamDefinition.getMetaData()) {
-                            if (eventMap.containsKey(metaData.getName())) {
-                                attributeArray[attributeCount++] = getPropertyValue(eventMap.get(metaData.getName()), metaData.getType());
-                            } else {
-                                if (AttributeType.STRING.equals(metaData.getType())) {
-                                    attributeArray[attributeCount++] = getPropertyValue(null, metaData.getType());
-                                } else {
-                                    throw new InvalidPropertyValueException("Attribute " + metaData.getName() + " tag not found in the event hence Dropping event " + obj.toString());
-                                }
-                            }
-                        }
-                    }
-                }
-
-                if (noCorrelationData > 0) {
-                    JsonPath jsonPath = JsonPath.compile("$." + EventReceiverConstants.EVENT_PARENT_TAG + "." + EventReceiverConstants.EVENT_CORRELATION_TAG);
-                    Map<Object, Object> eventMap = jsonPath.read(jsonString);
-                    if (eventMap == null) {
-                        throw new EventReceiverProcessingException("Missing CorrelationData attributes, Event does not match with the stream : " + this.eventReceiverConfiguration.getToStreamName() + ":" + eventReceiverConfiguration.getToStreamVersion());
-                    } else {
-                        for (Attribute correlationData : streamDefinition.getCorrelationData()) {
-                            if (eventMap.containsKey(correlationData.getName())) {
-                                attributeArray[attributeCount++] = getPropertyValue(eventMap.get(correlationData.getName()), correlationData.getType());
-                            } else {
-                                if (AttributeType.STRING.equals(correlationData.getType())) {
-                                    attributeArray[attributeCount++] = getPropertyValue(null, correlationData.getType());
-                                } else {
-                                    throw new InvalidPropertyValueException("Attribute " + correlationData.getName() + " tag not found in the event hence Dropping event " + obj.toString());
-                                }
-                            }
-                        }
-                    }
-                }
-                if (noPayloadData > 0) {
-                    JsonPath jsonPath = JsonPath.compile("$." + EventReceiverConstants.EVENT_PARENT_TAG + "." + EventReceiverConstants.EVENT_PAYLOAD_TAG);
-                    Map<Object, Object> eventMap = jsonPath.read(jsonString);
-                    if (eventMap == null) {
-                        throw new EventReceiverProcessingException("Missing PayloadData attributes, Event does not match with the stream : " + this.eventReceiverConfiguration.getToStreamName() + ":" + eventReceiverConfiguration.getToStreamVersion());
-                    } else {
-                        for (Attribute payloadData : streamDefinition.getPayloadData()) {
-                            if (eventMap.containsKey(payloadData.getName())) {
-                                attributeArray[attributeCount++] = getPropertyValue(eventMap.get(payloadData.getName()), payloadData.getType());
-                            } else {
-                                if (AttributeType.STRING.equals(payloadData.getType())) {
-                                    attributeArray[attributeCount++] = getPropertyValue(null, payloadData.getType());
-                                } else {
-                                    throw new InvalidPropertyValueException("Attribute " + payloadData.getName() + " tag not found in the event hence Dropping event " + obj.toString());
-                                }
-                            }
-                        }
-                    }
-                }
-                if (noMetaData + noCorrelationData + noPayloadData != attributeCount) {
-                    throw new EventReceiverProcessingException("Event attributes are not matching with the stream : " + this.eventReceiverConfiguration.getToStreamName() + ":" + eventReceiverConfiguration.getToStreamVersion());
-                }
-            }
-            return attributeArray;
-        } catch (InvalidPropertyValueException e) {
-            log.error(e.getMessage() + "Dropping Event : " + obj.toString());
-            return null;
-        } catch (NumberFormatException e) {
-            log.error("Unable to cast the input data to required type " + " ,hence dropping the event " + obj.toString(), e);
-            return null;
-        }
-    }
-
-
     private Object getPropertyValue(Object propertyValue, AttributeType attributeType) throws InvalidPropertyValueException {
 
         if ((!AttributeType.STRING.equals(attributeType)) && propertyValue == null) {
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2005 - 2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.databridge.commons.Attribute;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.receiver.core.config.EventReceiverConstants;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
+import org.wso2.carbon.event.receiver.core.exception.InvalidPropertyValueException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads events of the default JSON format, {"event":{"metaData":{..},"correlationData":{..},"payloadData":{..}}}
+ * or an array of them, in a single streaming pass straight into attribute arrays typed as per the stream definition.
+ * The position and the type of each attribute are resolved once when the reader is created.
+ */
+class TypedJSONEventReader {
+
+    private static final Log log = LogFactory.getLog(TypedJSONEventReader.class);
+
+    private static final String[] SECTION_TAGS = {EventReceiverConstants.EVENT_META_TAG,
+            EventReceiverConstants.EVENT_CORRELATION_TAG, EventReceiverConstants.EVENT_PAYLOAD_TAG};
+    private static final String[] SECTION_NAMES = {"MetaData", "CorrelationData", "PayloadData"};
+
+    private final String streamId;
+    private final List<Map<String, Integer>> sectionAttributeIndexes = new ArrayList<Map<String, Integer>>(3);
+    private final String[] attributeNames;
+    private final AttributeType[] attributeTypes;
+
+    TypedJSONEventReader(StreamDefinition streamDefinition) {
+        this.streamId = streamDefinition.getStreamId();
+        this.attributeTypes = streamDefinition.getAttributeLayout().getAttributeTypes();
+        this.attributeNames = new String[attributeTypes.length];
+        int index = addSection(streamDefinition.getMetaData(), 0);
+        index = addSection(streamDefinition.getCorrelationData(), index);
+        addSection(streamDefinition.getPayloadData(), index);
+    }
+
+    private int addSection(List<Attribute> attributes, int index) {
+        Map<String, Integer> attributeIndexes = new HashMap<String, Integer>();
+        if (attributes != null) {
+            for (Attribute attribute : attributes) {
+                attributeNames[index] = attribute.getName();
+                attributeIndexes.put(attribute.getName(), index++);
+            }
+        }
+        sectionAttributeIndexes.add(attributeIndexes);
+        return index;
+    }
+
+    /**
+     * @param jsonString a JSON event, or an array of JSON events
+     * @return the attribute array of the event, or an array of attribute arrays for an array of events, where the
+     * events having invalid attribute values are dropped and returned as null
+     * @throws EventReceiverProcessingException if the message is not valid JSON, has content after the event or the
+     *                                          array of events, or does not have an attribute section of the stream
+     */
+    Object read(String jsonString) throws EventReceiverProcessingException {
+        JsonReader reader = new JsonReader(new StringReader(jsonString));
+        try {
+            Object events;
+            if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                List<Object[]> eventList = new ArrayList<Object[]>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    eventList.add(readEvent(reader, jsonString));
+                }
+                reader.endArray();
+                events = eventList.toArray(new Object[eventList.size()][]);
+            } else {
+                events = readEvent(reader, jsonString);
+            }
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new EventReceiverProcessingException("Error in parsing JSON: unexpected content after the " +
+                                                           "event in " + jsonString);
+            }
+            return events;
+        } catch (IOException e) {
+            throw new EventReceiverProcessingException("Error in parsing JSON: ", e);
+        } catch (IllegalStateException e) {
+            throw new EventReceiverProcessingException("Error in parsing JSON: ", e);
+        }
+    }
+
+    private Object[] readEvent(JsonReader reader, String jsonString)
+            throws IOException, EventReceiverProcessingException {
+        Object[] attributeArray = new Object[attributeTypes.length];
+        boolean[] attributesFound = new boolean[attributeTypes.length];
+        boolean[] sectionsFound = new boolean[SECTION_TAGS.length];
+        String error = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!EventReceiverConstants.EVENT_PARENT_TAG.equals(reader.nextName())
+                || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                int section = getSection(reader.nextName());
+                if (section < 0 || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                sectionsFound[section] = true;
+                Map<String, Integer> attributeIndexes = sectionAttributeIndexes.get(section);
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    Integer index = attributeIndexes.get(reader.nextName());
+                    if (index == null) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    try {
+                        attributeArray[index] = readValue(reader, attributeTypes[index]);
+                    } catch (NumberFormatException e) {
+                        if (error == null) {
+                            error = "Unable to cast the input data of attribute " + attributeNames[index] +
+                                    " to required type " + attributeTypes[index];
+                        }
+                    } catch (InvalidPropertyValueException e) {
+                        if (error == null) {
+                            error = e.getMessage() + attributeNames[index];
+                        }
+                    }
+                    attributesFound[index] = true;
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+
+        for (int i = 0; i < SECTION_TAGS.length; i++) {
+            if (!sectionsFound[i] && !sectionAttributeIndexes.get(i).isEmpty()) {
+                throw new EventReceiverProcessingException("Missing " + SECTION_NAMES[i] + " attributes, " +
+                                                           "Event does not match with the stream : " + streamId);
+            }
+        }
+        if (error == null) {
+            for (int i = 0; i < attributesFound.length; i++) {
+                if (!attributesFound[i] && !AttributeType.STRING.equals(attributeTypes[i])) {
+                    error = "Attribute " + attributeNames[i] + " tag not found in the event";
+                    break;
+                }
+            }
+        }
+        if (error != null) {
+            log.error(error + ", hence dropping the event " + jsonString);
+            return null;
+        }
+        return attributeArray;
+    }
+
+    private static int getSection(String tag) {
+        for (int i = 0; i < SECTION_TAGS.length; i++) {
+            if (SECTION_TAGS[i].equals(tag)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Object readValue(JsonReader reader, AttributeType attributeType)
+            throws IOException, InvalidPropertyValueException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            if (!AttributeType.STRING.equals(attributeType)) {
+                throw new InvalidPropertyValueException("Found Invalid property value null for attribute ");
+            }
+            return null;
+        }
+        if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+            String value = readStructure(reader);
+            if (!AttributeType.STRING.equals(attributeType)) {
+                throw new NumberFormatException("Found a JSON structure instead of a value: " + value);
+            }
+            return value;
+        }
+        switch (attributeType) {
+            case BOOL:
+                return token == JsonToken.BOOLEAN ? reader.nextBoolean() : Boolean.parseBoolean(reader.nextString());
+            case INT:
+                return Integer.parseInt(readScalar(reader, token));
+            case LONG:
+                return Long.parseLong(readScalar(reader, token));
+            case FLOAT:
+                return Float.parseFloat(readScalar(reader, token));
+            case DOUBLE:
+                return Double.parseDouble(readScalar(reader, token));
+            default:
+                return readScalar(reader, token);
+        }
+    }
+
+    /**
+     * @return the JSON object or array at the position of the reader, read as strictly as the rest of the message
+     */
+    private static String readStructure(JsonReader reader) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        copyValue(reader, new JsonWriter(stringWriter));
+        return stringWriter.toString();
+    }
+
+    private static void copyValue(JsonReader reader, JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copyValue(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copyValue(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                writer.value(new BigDecimal(reader.nextString()));
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            default:
+                reader.nextNull();
+                writer.nullValue();
+        }
+    }
+
+    private static String readScalar(JsonReader reader, JsonToken token) throws IOException {
+        if (token == JsonToken.BOOLEAN) {
+            return String.valueOf(reader.nextBoolean());
+        }
+        return reader.nextString();
+    }
+}
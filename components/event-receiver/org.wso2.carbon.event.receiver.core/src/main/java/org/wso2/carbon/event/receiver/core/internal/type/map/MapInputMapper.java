@@ -14,29 +14,41 @@
  */
 package org.wso2.carbon.event.receiver.core.internal.type.map;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.databridge.commons.Attribute;
+import org.wso2.carbon.databridge.commons.AttributeType;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
 import org.wso2.carbon.event.receiver.core.config.EventReceiverConstants;
-import org.wso2.carbon.event.receiver.core.InputMapper;
+import org.wso2.carbon.event.receiver.core.EventListInputMapper;
 import org.wso2.carbon.event.receiver.core.config.InputMappingAttribute;
 import org.wso2.carbon.event.receiver.core.config.mapping.MapInputMapping;
 import org.wso2.carbon.event.receiver.core.exception.EventReceiverConfigurationException;
 import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
 import org.wso2.carbon.event.receiver.core.exception.EventReceiverStreamValidationException;
+import org.wso2.carbon.event.receiver.core.internal.util.EventReceiverUtil;
 import org.wso2.carbon.event.receiver.core.internal.util.helper.EventReceiverConfigurationHelper;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
 
-public class MapInputMapper implements InputMapper {
-    private int noMetaData;
-    private int noCorrelationData;
-    private int noPayloadData;
+/**
+ * Maps received {@link Map} events, or lists of them, to attribute arrays. The keys to look up, the attribute types
+ * and the converted default values are resolved once when the mapper is created, so that mapping an event is a
+ * lookup per attribute, with a conversion only when the received value is not already of the attribute type.
+ */
+public class MapInputMapper implements EventListInputMapper {
+    private static final Log log = LogFactory.getLog(MapInputMapper.class);
+
     private StreamDefinition streamDefinition;
     private Object[] attributePositionKeyMap = null;
+    private AttributeType[] attributeTypes = null;
+    private Object[] defaultValues = null;
+    private Object[] typedAttributeKeys = null;
+    private AttributeType[] typedAttributeTypes = null;
     private EventReceiverConfiguration eventReceiverConfiguration = null;
 
     public MapInputMapper(EventReceiverConfiguration eventReceiverConfiguration,
@@ -48,100 +60,251 @@ public class MapInputMapper implements InputMapper {
         if (eventReceiverConfiguration != null && eventReceiverConfiguration.getInputMapping() instanceof MapInputMapping) {
             MapInputMapping mapInputMapping = (MapInputMapping) eventReceiverConfiguration.getInputMapping();
             if (mapInputMapping.isCustomMappingEnabled()) {
-
-                Map<Integer, Object> positionKeyMap = new HashMap<Integer, Object>();
-                for (InputMappingAttribute inputMappingAttribute : mapInputMapping.getInputMappingAttributes()) {
-                    positionKeyMap.put(inputMappingAttribute.getToStreamPosition(), inputMappingAttribute.getFromElementKey());
-                    if (positionKeyMap.get(inputMappingAttribute.getToStreamPosition()) == null) {
-                        this.attributePositionKeyMap = null;
+                List<InputMappingAttribute> inputMappingAttributes = mapInputMapping.getInputMappingAttributes();
+                Object[] positionKeys = new Object[inputMappingAttributes.size()];
+                AttributeType[] positionTypes = new AttributeType[positionKeys.length];
+                Object[] positionDefaults = new Object[positionKeys.length];
+                for (InputMappingAttribute inputMappingAttribute : inputMappingAttributes) {
+                    Integer position = inputMappingAttribute.getToStreamPosition();
+                    if (position == null || position < 0 || position >= positionKeys.length
+                        || inputMappingAttribute.getFromElementKey() == null) {
                         throw new EventReceiverStreamValidationException("Error creating map mapping. '"+inputMappingAttribute.getToElementKey()+"' position not found.",streamDefinition.getStreamId());
                     }
+                    positionKeys[position] = inputMappingAttribute.getFromElementKey();
+                    positionTypes[position] = inputMappingAttribute.getToElementType();
+                    String defaultValue = inputMappingAttribute.getDefaultValue();
+                    if (defaultValue != null && !defaultValue.isEmpty()) {
+                        try {
+                            positionDefaults[position] = EventReceiverUtil.getConvertedAttributeObject(defaultValue, inputMappingAttribute.getToElementType());
+                        } catch (NumberFormatException e) {
+                            throw new EventReceiverConfigurationException("Invalid default value '" + defaultValue + "' for the attribute '"
+                                                                          + inputMappingAttribute.getToElementKey() + "' of type " + inputMappingAttribute.getToElementType(), e);
+                        }
+                    }
                 }
-                this.attributePositionKeyMap = new Object[positionKeyMap.size()];
-                for (int i = 0; i < attributePositionKeyMap.length; i++) {
-                    attributePositionKeyMap[i] = positionKeyMap.get(i);
+                for (int i = 0; i < positionKeys.length; i++) {
+                    if (positionKeys[i] == null) {
+                        throw new EventReceiverStreamValidationException("Error creating map mapping. Position " + i + " is not mapped.", streamDefinition.getStreamId());
+                    }
                 }
+                this.attributePositionKeyMap = positionKeys;
+                this.attributeTypes = positionTypes;
+                this.defaultValues = positionDefaults;
             } else {
-                this.noMetaData = streamDefinition.getMetaData() != null ? streamDefinition.getMetaData().size() : 0;
-                this.noCorrelationData += streamDefinition.getCorrelationData() != null ? streamDefinition.getCorrelationData().size() : 0;
-                this.noPayloadData += streamDefinition.getPayloadData() != null ? streamDefinition.getPayloadData().size() : 0;
+                int noMetaData = streamDefinition.getMetaData() != null ? streamDefinition.getMetaData().size() : 0;
+                int noCorrelationData = streamDefinition.getCorrelationData() != null ? streamDefinition.getCorrelationData().size() : 0;
+                int noPayloadData = streamDefinition.getPayloadData() != null ? streamDefinition.getPayloadData().size() : 0;
+                this.typedAttributeKeys = new Object[noMetaData + noCorrelationData + noPayloadData];
+                this.typedAttributeTypes = new AttributeType[typedAttributeKeys.length];
+                int index = addTypedAttributes(EventReceiverConstants.META_DATA_PREFIX, streamDefinition.getMetaData(), 0);
+                index = addTypedAttributes(EventReceiverConstants.CORRELATION_DATA_PREFIX, streamDefinition.getCorrelationData(), index);
+                addTypedAttributes("", streamDefinition.getPayloadData(), index);
             }
 
         }
     }
 
+    private int addTypedAttributes(String prefix, List<Attribute> attributes, int index) {
+        if (attributes != null) {
+            for (Attribute attribute : attributes) {
+                typedAttributeKeys[index] = prefix + attribute.getName();
+                typedAttributeTypes[index] = attribute.getType();
+                index++;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param obj a {@link Map} event, or a {@link List} of them
+     * @return the attribute array of a map event, or the attribute arrays of a list of map events, where the events
+     * that are not maps are null
+     */
     @Override
     public Object convertToMappedInputEvent(Object obj) throws EventReceiverProcessingException {
         if (attributePositionKeyMap == null) {
             throw new EventReceiverProcessingException("Input mapping is not available for the current input stream definition:");
         }
-        Object[] outObjArray;
         if (obj instanceof Map) {
-            Map eventMap = (Map) obj;
-            List<Object> outObjList = new ArrayList<Object>();
-            for (int i = 0; i < this.attributePositionKeyMap.length; i++) {
-                outObjList.add(eventMap.get(this.attributePositionKeyMap[i]));
+            return mapEvent((Map) obj);
+        } else if (obj instanceof List) {
+            List eventList = (List) obj;
+            Object[][] outObjArrays = new Object[eventList.size()][];
+            int index = 0;
+            for (Object event : eventList) {
+                if (event instanceof Map) {
+                    outObjArrays[index] = mapEvent((Map) event);
+                } else {
+                    log.error("Dropping event, received event object is not of type map." + this.getClass() + " cannot convert this event.");
+                }
+                index++;
             }
-            outObjArray = outObjList.toArray();
+            return outObjArrays;
         } else {
             throw new EventReceiverProcessingException("Received event object is not of type map." + this.getClass() + " cannot convert this event.");
         }
+    }
 
+    private Object[] mapEvent(Map eventMap) {
+        Object[] outObjArray = new Object[attributePositionKeyMap.length];
+        for (int i = 0; i < outObjArray.length; i++) {
+            Object value = eventMap.get(attributePositionKeyMap[i]);
+            if (value == null) {
+                outObjArray[i] = defaultValues[i];
+            } else {
+                try {
+                    outObjArray[i] = convertValue(value, attributeTypes[i]);
+                } catch (NumberFormatException e) {
+                    log.warn("Cannot convert " + value + " to type " + attributeTypes[i] + ": " + e.getMessage() + "; Sending the default value.");
+                    outObjArray[i] = defaultValues[i];
+                }
+            }
+        }
         return outObjArray;
     }
 
+    /**
+     * @param obj a {@link Map} event keyed by the stream attribute names, or a {@link List} of them
+     * @return the attribute array of a map event, or the attribute arrays of a list of map events, where the events
+     * that do not match the stream are null
+     */
     @Override
     public Object convertToTypedInputEvent(Object obj) throws EventReceiverProcessingException {
-
-        Object attributeArray[] = new Object[noMetaData + noCorrelationData + noPayloadData];
-        int attributeCount = 0;
         if (obj instanceof Map) {
-            Map<Object, Object> eventMap = (Map<Object, Object>) obj;
-
-            for (Map.Entry<Object, Object> eventAttribute : eventMap.entrySet()) {
-                boolean setFlag = false;
-
-                if (noMetaData > 0) {
-                    for (Attribute metaData : streamDefinition.getMetaData()) {
-                        if (eventAttribute.getKey().equals(EventReceiverConstants.META_DATA_PREFIX + metaData.getName())) {
-                            attributeArray[attributeCount++] = eventAttribute.getValue();
-                            setFlag = true;
-                            break;
-                        }
+            return mapTypedEvent((Map) obj);
+        } else if (obj instanceof List) {
+            List eventList = (List) obj;
+            Object[][] attributeArrays = new Object[eventList.size()][];
+            int index = 0;
+            for (Object event : eventList) {
+                if (event instanceof Map) {
+                    try {
+                        attributeArrays[index] = mapTypedEvent((Map) event);
+                    } catch (EventReceiverProcessingException e) {
+                        log.error("Dropping event, Error processing event : " + e.getMessage());
                     }
+                } else {
+                    log.error("Dropping event, received event object is not of type map." + this.getClass() + " cannot convert this event.");
                 }
+                index++;
+            }
+            return attributeArrays;
+        } else {
+            throw new EventReceiverProcessingException("Received event object is not of type map." + this.getClass() + " cannot convert this event.");
+        }
+    }
 
-                if (noCorrelationData > 0 && !setFlag) {
-                    for (Attribute correlationData : streamDefinition.getCorrelationData()) {
-                        if (eventAttribute.getKey().equals(EventReceiverConstants.CORRELATION_DATA_PREFIX + correlationData.getName())) {
-                            attributeArray[attributeCount++] = eventAttribute.getValue();
-                            setFlag = true;
-                            break;
-                        }
-                    }
+    private Object[] mapTypedEvent(Map eventMap) throws EventReceiverProcessingException {
+        Object[] attributeArray = new Object[typedAttributeKeys.length];
+        for (int i = 0; i < attributeArray.length; i++) {
+            Object value = eventMap.get(typedAttributeKeys[i]);
+            if (value == null) {
+                if (!eventMap.containsKey(typedAttributeKeys[i])) {
+                    throw new EventReceiverProcessingException("Event attributes are not matching with the stream : " + this.eventReceiverConfiguration.getToStreamName() + ":" + eventReceiverConfiguration.getToStreamVersion());
+                }
+            } else {
+                try {
+                    attributeArray[i] = convertValue(value, typedAttributeTypes[i]);
+                } catch (NumberFormatException e) {
+                    throw new EventReceiverProcessingException("Cannot convert " + value + " of the attribute '" + typedAttributeKeys[i]
+                                                               + "' to type " + typedAttributeTypes[i] + ": " + e.getMessage(), e);
                 }
+            }
+        }
+        return attributeArray;
+    }
 
-                if (noPayloadData > 0 && !setFlag) {
-                    for (Attribute payloadData : streamDefinition.getPayloadData()) {
-                        if (eventAttribute.getKey().equals(payloadData.getName())) {
-                            attributeArray[attributeCount++] = eventAttribute.getValue();
-                            break;
-                        }
+    /**
+     * Converts a received value to the boxed type of the attribute. Values that are already of that type are returned
+     * as they are, numbers are narrowed or widened, and strings are parsed. Other values are returned as they are.
+     *
+     * @throws NumberFormatException if a string value cannot be parsed to the attribute type, or a number cannot be
+     *                               narrowed to it without losing its integer part or its magnitude
+     */
+    static Object convertValue(Object value, AttributeType type) {
+        if (type == null) {
+            return value;
+        }
+        switch (type) {
+            case INT:
+                if (value instanceof Integer) {
+                    return value;
+                } else if (value instanceof Number) {
+                    long longValue = toLong((Number) value);
+                    if (longValue != (int) longValue) {
+                        throw new NumberFormatException("Value out of int range");
+                    }
+                    return (int) longValue;
+                } else if (value instanceof String) {
+                    return Integer.valueOf((String) value);
+                }
+                return value;
+            case LONG:
+                if (value instanceof Long) {
+                    return value;
+                } else if (value instanceof Number) {
+                    return toLong((Number) value);
+                } else if (value instanceof String) {
+                    return Long.valueOf((String) value);
+                }
+                return value;
+            case DOUBLE:
+                if (value instanceof Double) {
+                    return value;
+                } else if (value instanceof Number) {
+                    return ((Number) value).doubleValue();
+                } else if (value instanceof String) {
+                    return Double.valueOf((String) value);
+                }
+                return value;
+            case FLOAT:
+                if (value instanceof Float) {
+                    return value;
+                } else if (value instanceof Number) {
+                    float floatValue = ((Number) value).floatValue();
+                    if (Float.isInfinite(floatValue) && !Double.isInfinite(((Number) value).doubleValue())) {
+                        throw new NumberFormatException("Value out of float range");
                     }
+                    return floatValue;
+                } else if (value instanceof String) {
+                    return Float.valueOf((String) value);
                 }
+                return value;
+            case BOOL:
+                if (value instanceof String) {
+                    return Boolean.valueOf((String) value);
+                }
+                return value;
+            case STRING:
+                return value instanceof String ? value : value.toString();
+            default:
+                return value;
+        }
+    }
 
+    private static long toLong(Number value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return value.longValue();
+        }
+        if (value instanceof BigInteger) {
+            if (((BigInteger) value).bitLength() >= Long.SIZE) {
+                throw new NumberFormatException("Value out of long range");
             }
-
-            if (noMetaData + noCorrelationData + noPayloadData != attributeCount) {
-                throw new EventReceiverProcessingException("Event attributes are not matching with the stream : " + this.eventReceiverConfiguration.getToStreamName() + ":" + eventReceiverConfiguration.getToStreamVersion());
+            return value.longValue();
+        }
+        if (value instanceof BigDecimal) {
+            try {
+                return ((BigDecimal) value).longValueExact();
+            } catch (ArithmeticException e) {
+                throw new NumberFormatException("Value is fractional or out of long range");
             }
-
-        } else {
-            throw new EventReceiverProcessingException("Received event object is not of type map." + this.getClass() + " cannot convert this event.");
         }
-
-        return attributeArray;
-
+        double doubleValue = value.doubleValue();
+        // NaN fails the first check, and the infinities the range check against -2^63 and 2^63
+        if (doubleValue != Math.rint(doubleValue) || doubleValue < -0x1p63 || doubleValue >= 0x1p63) {
+            throw new NumberFormatException("Value is fractional or out of long range");
+        }
+        return (long) doubleValue;
     }
 
     @Override
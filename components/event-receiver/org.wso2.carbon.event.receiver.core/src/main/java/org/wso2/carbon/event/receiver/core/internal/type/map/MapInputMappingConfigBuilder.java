@@ -94,6 +94,9 @@ public class MapInputMappingConfigBuilder {
         toElement.declareDefaultNamespace(EventReceiverConstants.ER_CONF_NS);
         toElement.addAttribute(EventReceiverConstants.ER_ATTR_NAME, inputMappingAttribute.getToElementKey(), null);
         toElement.addAttribute(EventReceiverConstants.ER_ATTR_TYPE, EventReceiverConfigurationBuilder.getAttributeType(inputMappingAttribute.getToElementType()), null);
+        if (inputMappingAttribute.getDefaultValue() != null && !inputMappingAttribute.getDefaultValue().isEmpty()) {
+            toElement.addAttribute(EventReceiverConstants.ER_ATTR_DEFAULT_VALUE, inputMappingAttribute.getDefaultValue(), null);
+        }
 
         propertyOMElement.addChild(fromElement);
         propertyOMElement.addChild(toElement);
@@ -159,12 +162,15 @@ public class MapInputMappingConfigBuilder {
         String valueOf = propertyToElement.getAttributeValue(new QName(EventReceiverConstants.ER_ATTR_NAME));
         String attributeType = propertyToElement.getAttributeValue(new QName(EventReceiverConstants.ER_ATTR_TYPE));
         AttributeType type = EventReceiverConstants.STRING_ATTRIBUTE_TYPE_MAP.get(attributeType.toLowerCase());
+        String defaultValue = propertyToElement.getAttributeValue(new QName(EventReceiverConstants.ER_ATTR_DEFAULT_VALUE));
 
         if (valueOf == null) {
             valueOf = name;
         }
 
-        return new InputMappingAttribute(name, valueOf, type);
+        InputMappingAttribute inputMappingAttribute = new InputMappingAttribute(name, valueOf, type);
+        inputMappingAttribute.setDefaultValue(defaultValue);
+        return inputMappingAttribute;
     }
 
 
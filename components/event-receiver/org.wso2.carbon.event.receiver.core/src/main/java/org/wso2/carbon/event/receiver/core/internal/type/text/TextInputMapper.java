@@ -20,7 +20,6 @@ import org.wso2.carbon.databridge.commons.Attribute;
 import org.wso2.carbon.databridge.commons.AttributeType;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
-import org.wso2.carbon.event.receiver.core.config.EventReceiverConstants;
 import org.wso2.carbon.event.receiver.core.InputMapper;
 import org.wso2.carbon.event.receiver.core.config.InputMappingAttribute;
 import org.wso2.carbon.event.receiver.core.config.mapping.TextInputMapping;
@@ -30,9 +29,8 @@ import org.wso2.carbon.event.receiver.core.internal.type.text.config.RegexData;
 import org.wso2.carbon.event.receiver.core.internal.util.EventReceiverUtil;
 import org.wso2.carbon.event.receiver.core.internal.util.helper.EventReceiverConfigurationHelper;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.*;
+import java.util.regex.Matcher;
 import java.util.regex.PatternSyntaxException;
 
 public class TextInputMapper implements InputMapper {
@@ -40,10 +38,7 @@ public class TextInputMapper implements InputMapper {
     private EventReceiverConfiguration eventReceiverConfiguration = null;
     private int[] attributePositions;
     private static final Log log = LogFactory.getLog(TextInputMapper.class);
-    private int noMetaData;
-    private int noCorrelationData;
-    private int noPayloadData;
-    private Map<String, AttributeType> attributeDescriptionMap = new LinkedHashMap<>();
+    private TypedTextEventReader typedEventReader;
 
     public TextInputMapper(EventReceiverConfiguration eventReceiverConfiguration,
                            StreamDefinition streamDefinition)
@@ -80,35 +75,15 @@ public class TextInputMapper implements InputMapper {
                     } else {
                         attribPositionList.add(attributeCount++);
                     }
-                    String type = EventReceiverConstants.ATTRIBUTE_TYPE_CLASS_TYPE_MAP.get(inputMappingAttribute.getToElementType());
-                    String defaultValue = inputMappingAttribute.getDefaultValue();
-                    regexData.addMapping(type, defaultValue);
+                    regexData.addMapping(inputMappingAttribute.getToElementType());
                 }
                 for (int i = 0; i < attribPositionList.size(); i++) {
                     attributePositions[attribPositionList.get(i)] = i;
                 }
             } else {
-                this.noMetaData = streamDefinition.getMetaData() != null ? streamDefinition.getMetaData().size() : 0;
-                this.noCorrelationData += streamDefinition.getCorrelationData() != null ? streamDefinition.getCorrelationData().size() : 0;
-                this.noPayloadData += streamDefinition.getPayloadData() != null ? streamDefinition.getPayloadData().size() : 0;
-
-                if (noMetaData > 0) {
-                    for (Attribute metaData : streamDefinition.getMetaData()) {
-                        attributeDescriptionMap.put(EventReceiverConstants.META_DATA_PREFIX + metaData.getName(), metaData.getType());
-                    }
-                }
-
-                if (noCorrelationData > 0) {
-                    for (Attribute correlationData : streamDefinition.getCorrelationData()) {
-                        attributeDescriptionMap.put(EventReceiverConstants.CORRELATION_DATA_PREFIX + correlationData.getName(), correlationData.getType());
-                    }
-                }
-
-                if (noPayloadData > 0) {
-                    for (Attribute payloadData : streamDefinition.getPayloadData()) {
-                        attributeDescriptionMap.put(payloadData.getName(), payloadData.getType());
-                    }
-                }
+                TextInputMapping textInputMapping = (TextInputMapping) eventReceiverConfiguration.getInputMapping();
+                this.typedEventReader = new TypedTextEventReader(streamDefinition,
+                        textInputMapping.isEventPerLineEnabled());
             }
 
 
@@ -120,30 +95,19 @@ public class TextInputMapper implements InputMapper {
     public Object convertToMappedInputEvent(Object obj) throws EventReceiverProcessingException {
         Object attributeArray[] = new Object[attributePositions.length];
         if (obj instanceof String) {
-            String inputString = (String) obj;
+            String inputString = removeCarriageReturns((String) obj);
             int attributeCount = 0;
             for (RegexData regexData : attributeRegexList) {
-                String formattedInputString = inputString.replaceAll("\\r", "");
-                regexData.matchInput(formattedInputString);
-                while (regexData.hasNext()) {
+                Matcher matcher = regexData.matchInput(inputString);
+                for (int i = 0; i < regexData.getGroupCount(); i++) {
                     Object returnedAttribute = null;
-                    String value = regexData.next();
+                    String value = matcher.group(i + 1);
                     if (value != null) {
-                        String type = regexData.getType();
+                        AttributeType type = regexData.getType(i);
                         try {
-                            Class<?> beanClass = Class.forName(type);
-                            if (!beanClass.equals(String.class)) {
-                                Class<?> stringClass = String.class;
-                                Method valueOfMethod = beanClass.getMethod("valueOf", stringClass);
-                                returnedAttribute = valueOfMethod.invoke(null, value);
-                            } else {
-                                returnedAttribute = value;
-                            }
-                        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
-                            throw new EventReceiverProcessingException("Cannot convert " + value + " to type " + type, e);
-                        } catch (InvocationTargetException e) {
+                            returnedAttribute = convertValue(value, type);
+                        } catch (NumberFormatException e) {
                             log.warn("Cannot convert " + value + " to type " + type + ": " + e.getMessage() + "; Sending null value.");
-                            returnedAttribute = null;
                         }
                     }
                     attributeArray[attributePositions[attributeCount++]] = returnedAttribute;
@@ -153,45 +117,47 @@ public class TextInputMapper implements InputMapper {
         return attributeArray;
     }
 
+    private static String removeCarriageReturns(String inputString) {
+        int index = inputString.indexOf('\r');
+        if (index < 0) {
+            return inputString;
+        }
+        StringBuilder formattedInputString = new StringBuilder(inputString.length());
+        formattedInputString.append(inputString, 0, index);
+        for (int i = index + 1; i < inputString.length(); i++) {
+            char c = inputString.charAt(i);
+            if (c != '\r') {
+                formattedInputString.append(c);
+            }
+        }
+        return formattedInputString.toString();
+    }
+
+    private static Object convertValue(String value, AttributeType type) {
+        switch (type) {
+            case BOOL:
+                return Boolean.valueOf(value);
+            case INT:
+                return Integer.valueOf(value);
+            case LONG:
+                return Long.valueOf(value);
+            case FLOAT:
+                return Float.valueOf(value);
+            case DOUBLE:
+                return Double.valueOf(value);
+            default:
+                return value;
+        }
+    }
+
     @Override
     public Object convertToTypedInputEvent(Object obj) throws EventReceiverProcessingException {
 
-        Object attributeArray[] = new Object[noMetaData + noCorrelationData + noPayloadData];
+        Object outObject = null;
         if (obj instanceof String) {
-            String inputString = ((String) obj).trim();
-            int attributeCount = 0;
-
-            String[] eventAttributes = inputString.trim().split(",");
-
-            for (String eventAttribute : eventAttributes) {
-                String[] textEvent = eventAttribute.split(EventReceiverConstants.EVENT_ATTRIBUTE_SEPARATOR);
-
-                try {
-                    if (textEvent != null && textEvent.length == 2) {
-                        AttributeType attributeType = attributeDescriptionMap.get(textEvent[0].trim());
-                        attributeArray[attributeCount++] = getPropertyValue(textEvent[1], attributeType);
-                    } else if (textEvent == null || textEvent.length == 0) {
-                        throw new EventReceiverProcessingException("Invalid attribute value found for event ,hence dropping the event " + eventAttribute);
-                    } else if(textEvent.length == 1){
-                        AttributeType attributeType = attributeDescriptionMap.get(textEvent[0].trim());
-                        if(AttributeType.STRING.equals(attributeType)){
-                            attributeArray[attributeCount++] = "";
-                        } else {
-                            throw new EventReceiverProcessingException("Attribute value not found in the event hence Dropping event "+eventAttribute);
-                        }
-                    }
-
-                } catch (NumberFormatException e) {
-                    throw new NumberFormatException("Unable to cast the input data to required type ,hence dropping the event " + eventAttribute);
-                }
-
-            }
-
-            if (noMetaData + noCorrelationData + noPayloadData != attributeCount) {
-                throw new EventReceiverProcessingException("Event attributes are not matching with the stream : " + this.eventReceiverConfiguration.getToStreamName() + ":" + eventReceiverConfiguration.getToStreamVersion());
-            }
+            outObject = typedEventReader.read((String) obj);
         }
-        return attributeArray;
+        return outObject;
     }
 
     @Override
@@ -202,20 +168,4 @@ public class TextInputMapper implements InputMapper {
 
     }
 
-    private Object getPropertyValue(String propertyValue, AttributeType attributeType) {
-        if (AttributeType.BOOL.equals(attributeType)) {
-            return Boolean.parseBoolean(propertyValue);
-        } else if (AttributeType.DOUBLE.equals(attributeType)) {
-            return Double.parseDouble(propertyValue);
-        } else if (AttributeType.FLOAT.equals(attributeType)) {
-            return Float.parseFloat(propertyValue);
-        } else if (AttributeType.INT.equals(attributeType)) {
-            return Integer.parseInt(propertyValue);
-        } else if (AttributeType.LONG.equals(attributeType)) {
-            return Long.parseLong(propertyValue);
-        } else {
-            return propertyValue;
-        }
-    }
-
 }
\ No newline at end of file
@@ -104,6 +104,8 @@ public class TextInputMapperConfigurationBuilder {
             }
         }else{
             textInputMapping.setCustomMappingEnabled(false);
+            String eventPerLineAttribute = mappingElement.getAttributeValue(new QName(EventReceiverConstants.ER_ATTR_EVENT_PER_LINE));
+            textInputMapping.setEventPerLineEnabled(EventReceiverConstants.ENABLE_CONST.equalsIgnoreCase(eventPerLineAttribute));
         }
 
         return textInputMapping;
@@ -122,6 +124,9 @@ public class TextInputMapperConfigurationBuilder {
             mappingOMElement.addAttribute(EventReceiverConstants.ER_ATTR_CUSTOM_MAPPING_ENABLED, EventReceiverConstants.ENABLE_CONST, null);
         } else {
             mappingOMElement.addAttribute(EventReceiverConstants.ER_ATTR_CUSTOM_MAPPING_ENABLED, EventReceiverConstants.DISABLE_CONST, null);
+            if (textInputMapping.isEventPerLineEnabled()) {
+                mappingOMElement.addAttribute(EventReceiverConstants.ER_ATTR_EVENT_PER_LINE, EventReceiverConstants.ENABLE_CONST, null);
+            }
         }
         List<InputMappingAttribute> inputMappingAttributes = textInputMapping.getInputMappingAttributes();
         InputMappingAttribute prevInputMappingAttribute = null;
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2005 - 2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.text;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamAttributeLayout;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.receiver.core.config.EventReceiverConstants;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads events of the default text format, meta_&lt;name&gt;:&lt;value&gt;,correlation_&lt;name&gt;:&lt;value&gt;,
+ * &lt;name&gt;:&lt;value&gt;, in a single pass straight into attribute arrays typed as per the stream definition.
+ * Attributes are placed by name, so they can be given in any order, and values can be double quoted to carry the
+ * delimiters or line breaks, with "" standing for a quote within a quoted value. A message is read as a single
+ * event, in which line breaks are part of the values, unless the reader is set to read one event per line.
+ */
+class TypedTextEventReader {
+
+    private static final Log log = LogFactory.getLog(TypedTextEventReader.class);
+
+    private static final char ATTRIBUTE_DELIMITER = ',';
+    private static final char VALUE_SEPARATOR = EventReceiverConstants.EVENT_ATTRIBUTE_SEPARATOR.charAt(0);
+    private static final char LINE_SEPARATOR = '\n';
+    private static final char QUOTE = '"';
+
+    private final String streamId;
+    private final Map<String, Integer> attributeIndexes;
+    private final String[] attributeNames;
+    private final AttributeType[] attributeTypes;
+    private final boolean eventPerLine;
+
+    /**
+     * @param streamDefinition definition of the stream of the events
+     * @param eventPerLine     whether each line of a message is an event of its own
+     */
+    TypedTextEventReader(StreamDefinition streamDefinition, boolean eventPerLine) {
+        this.eventPerLine = eventPerLine;
+        StreamAttributeLayout attributeLayout = streamDefinition.getAttributeLayout();
+        this.streamId = streamDefinition.getStreamId();
+        this.attributeTypes = attributeLayout.getAttributeTypes();
+        this.attributeIndexes = attributeLayout.getAttributeIndexMap();
+        this.attributeNames = new String[attributeTypes.length];
+        for (Map.Entry<String, Integer> entry : attributeIndexes.entrySet()) {
+            attributeNames[entry.getValue()] = entry.getKey();
+        }
+    }
+
+    /**
+     * @param text one event, or several events separated by line breaks when reading one event per line
+     * @return the attribute array of the event, or an array of attribute arrays when the text has several events,
+     * where the events that do not match the stream are dropped and returned as null
+     * @throws EventReceiverProcessingException if the text has a single event that does not match the stream
+     */
+    Object read(String text) throws EventReceiverProcessingException {
+        Cursor cursor = new Cursor(text, eventPerLine);
+        List<Object[]> events = null;
+        Object[] event = null;
+        String error = null;
+        int lineCount = 0;
+        while (cursor.nextLine()) {
+            int lineStart = cursor.position;
+            Object[] attributeArray = new Object[attributeTypes.length];
+            String lineError = readEvent(cursor, attributeArray);
+            if (lineError != null) {
+                lineError = lineError + ", hence dropping the event " + text.substring(lineStart, cursor.position);
+                attributeArray = null;
+            }
+            if (++lineCount == 1) {
+                event = attributeArray;
+                error = lineError;
+                continue;
+            }
+            if (lineCount == 2) {
+                events = new ArrayList<Object[]>();
+                events.add(event);
+                if (error != null) {
+                    log.error(error);
+                }
+            }
+            if (lineError != null) {
+                log.error(lineError);
+            }
+            events.add(attributeArray);
+        }
+        if (lineCount == 0) {
+            throw new EventReceiverProcessingException("No attributes found in the event, hence dropping the event");
+        }
+        if (events != null) {
+            return events.toArray(new Object[events.size()][]);
+        }
+        if (error != null) {
+            throw new EventReceiverProcessingException(error);
+        }
+        return event;
+    }
+
+    private String readEvent(Cursor cursor, Object[] attributeArray) {
+        String text = cursor.text;
+        boolean[] attributesFound = new boolean[attributeArray.length];
+        int attributeCount = 0;
+        do {
+            int nameStart = cursor.position;
+            cursor.skipName();
+            int index = getAttributeIndex(text, nameStart, cursor.position, attributeCount++);
+            if (index < 0) {
+                cursor.skipLine();
+                return "Attribute " + text.substring(nameStart, cursor.position).trim() + " not found in the stream";
+            }
+            String value = null;
+            int valueStart = cursor.position;
+            int valueEnd = cursor.position;
+            if (cursor.skip(VALUE_SEPARATOR)) {
+                if (cursor.isQuoted()) {
+                    value = cursor.readQuoted();
+                    if (value == null) {
+                        cursor.skipLine();
+                        return "Unterminated quoted value of attribute " + attributeNames[index];
+                    }
+                    valueStart = 0;
+                    valueEnd = value.length();
+                } else {
+                    valueStart = cursor.position;
+                    valueEnd = cursor.skipValue();
+                }
+            }
+            try {
+                attributeArray[index] = value == null ? toValue(text, valueStart, valueEnd, attributeTypes[index])
+                                                      : toValue(value, valueStart, valueEnd, attributeTypes[index]);
+            } catch (NumberFormatException e) {
+                cursor.skipLine();
+                return "Unable to cast the input data of attribute " + attributeNames[index] + " to required type " +
+                       attributeTypes[index];
+            }
+            attributesFound[index] = true;
+        } while (cursor.skip(ATTRIBUTE_DELIMITER) && !cursor.isLineEnd());
+
+        if (!cursor.isLineEnd()) {
+            cursor.skipLine();
+            return "Unexpected content after a quoted value";
+        }
+        for (int i = 0; i < attributesFound.length; i++) {
+            if (!attributesFound[i]) {
+                return "Event attributes are not matching with the stream : " + streamId + ", attribute " +
+                       attributeNames[i] + " not found";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves the attribute of the name between the given positions, expecting the attributes to be given in the
+     * stream order so that the name can be matched in place without creating a string for it.
+     */
+    private int getAttributeIndex(String text, int start, int end, int expectedIndex) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (expectedIndex < attributeNames.length) {
+            String expectedName = attributeNames[expectedIndex];
+            if (expectedName.length() == end - start && text.regionMatches(start, expectedName, 0, end - start)) {
+                return expectedIndex;
+            }
+        }
+        Integer index = attributeIndexes.get(text.substring(start, end));
+        return index == null ? -1 : index;
+    }
+
+    private static Object toValue(String text, int start, int end, AttributeType attributeType) {
+        if (attributeType == AttributeType.STRING) {
+            return text.substring(start, end);
+        }
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            throw new NumberFormatException("Attribute value not found");
+        }
+        switch (attributeType) {
+            case BOOL:
+                return end - start == 4 && text.regionMatches(true, start, "true", 0, 4);
+            case INT:
+                return (int) parseLong(text, start, end, Integer.MAX_VALUE);
+            case LONG:
+                return parseLong(text, start, end, Long.MAX_VALUE);
+            case FLOAT:
+                return Float.parseFloat(text.substring(start, end));
+            case DOUBLE:
+                return Double.parseDouble(text.substring(start, end));
+            default:
+                return text.substring(start, end);
+        }
+    }
+
+    /**
+     * Parses a decimal integer within the given positions the same way as {@link Long#parseLong(String)}, without
+     * creating a string for it.
+     */
+    private static long parseLong(String text, int start, int end, long maxValue) {
+        int position = start;
+        boolean negative = false;
+        char first = text.charAt(position);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            position++;
+        }
+        if (position == end) {
+            throw new NumberFormatException("For input string: \"" + text.substring(start, end) + "\"");
+        }
+        long limit = negative ? -maxValue - 1 : -maxValue;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; position < end; position++) {
+            int digit = text.charAt(position) - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                throw new NumberFormatException("For input string: \"" + text.substring(start, end) + "\"");
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException("For input string: \"" + text.substring(start, end) + "\"");
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Position of the reader within a message. Unless reading one event per line, the whole message is a single
+     * line.
+     */
+    private static final class Cursor {
+        private final String text;
+        private final int length;
+        private final boolean eventPerLine;
+        private int position;
+
+        private Cursor(String text, boolean eventPerLine) {
+            this.text = text;
+            this.length = text.length();
+            this.eventPerLine = eventPerLine;
+        }
+
+        private boolean isLineSeparator(char c) {
+            return eventPerLine && c == LINE_SEPARATOR;
+        }
+
+        /**
+         * Moves to the start of the next non blank line.
+         *
+         * @return false if there are no more lines
+         */
+        private boolean nextLine() {
+            while (position < length && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            return position < length;
+        }
+
+        private boolean isLineEnd() {
+            return position == length || isLineSeparator(text.charAt(position));
+        }
+
+        private boolean skip(char c) {
+            if (position < length && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipName() {
+            while (position < length) {
+                char c = text.charAt(position);
+                if (c == VALUE_SEPARATOR || c == ATTRIBUTE_DELIMITER || isLineSeparator(c)) {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        /**
+         * Moves to the end of an unquoted value.
+         *
+         * @return end of the value, excluding the trailing white spaces when the value ends the line
+         */
+        private int skipValue() {
+            while (position < length) {
+                char c = text.charAt(position);
+                if (c == ATTRIBUTE_DELIMITER || isLineSeparator(c)) {
+                    break;
+                }
+                position++;
+            }
+            int end = position;
+            if (isLineEnd()) {
+                while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+                    end--;
+                }
+            }
+            return end;
+        }
+
+        private boolean isQuoted() {
+            int start = position;
+            while (start < length && text.charAt(start) == ' ') {
+                start++;
+            }
+            if (start < length && text.charAt(start) == QUOTE) {
+                position = start;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Reads a quoted value starting at the current position and skips the white spaces following it.
+         *
+         * @return the unquoted value, or null if the closing quote is missing
+         */
+        private String readQuoted() {
+            int start = ++position;
+            StringBuilder value = null;
+            while (position < length) {
+                char c = text.charAt(position++);
+                if (c != QUOTE) {
+                    continue;
+                }
+                if (position < length && text.charAt(position) == QUOTE) {
+                    if (value == null) {
+                        value = new StringBuilder();
+                    }
+                    value.append(text, start, position);
+                    start = ++position;
+                    continue;
+                }
+                String quotedValue;
+                if (value == null) {
+                    quotedValue = text.substring(start, position - 1);
+                } else {
+                    quotedValue = value.append(text, start, position - 1).toString();
+                }
+                while (position < length && !isLineSeparator(text.charAt(position))
+                       && Character.isWhitespace(text.charAt(position))) {
+                    position++;
+                }
+                return quotedValue;
+            }
+            return null;
+        }
+
+        /**
+         * Moves to the end of the current line, skipping the line breaks within quoted values.
+         */
+        private void skipLine() {
+            boolean quoted = false;
+            while (position < length) {
+                char c = text.charAt(position);
+                if (c == QUOTE) {
+                    quoted = !quoted;
+                } else if (isLineSeparator(c) && !quoted) {
+                    return;
+                }
+                position++;
+            }
+        }
+    }
+}
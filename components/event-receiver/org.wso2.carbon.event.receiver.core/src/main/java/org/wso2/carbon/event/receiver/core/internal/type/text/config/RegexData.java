@@ -14,64 +14,66 @@
  */
 package org.wso2.carbon.event.receiver.core.internal.type.text.config;
 
+import org.wso2.carbon.databridge.commons.AttributeType;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * A compiled regular expression of a text mapping, along with the types of the attributes mapped from its match
+ * groups in order. Matchers are kept per thread and reset for each input, so a mapping
+ * can be shared by receiving threads without compiling or allocating a matcher per message.
+ */
 public class RegexData {
-    private Pattern pattern;
-    private Matcher matcher;
-    private int matchGroupIndex;
-    private List<String> types;
-    private List<String> defaultValues;
-    private String regex;
+    private final Pattern pattern;
+    private final ThreadLocal<Matcher> matcher;
+    private final int groupCount;
+    private final List<AttributeType> types;
+    private final String regex;
 
     public RegexData(String regex) {
         this.regex = regex;
         this.pattern = Pattern.compile(regex);
-        this.matchGroupIndex = 0;
-        types = new ArrayList<String>();
-        defaultValues = new ArrayList<String>();
-    }
-
-    public void addMapping(String type, String defaultValue) {
-        this.types.add(matchGroupIndex, type);
-        this.defaultValues.add(matchGroupIndex, defaultValue);
-        matchGroupIndex++;
-    }
-
-    public String getDefaultValue() {
-        return defaultValues.get(matchGroupIndex);
+        this.matcher = new ThreadLocal<Matcher>() {
+            @Override
+            protected Matcher initialValue() {
+                return pattern.matcher("");
+            }
+        };
+        this.groupCount = pattern.matcher("").groupCount();
+        types = new ArrayList<AttributeType>();
     }
 
-    public String getType() {
-        return types.get(matchGroupIndex);
+    public void addMapping(AttributeType type) {
+        this.types.add(type);
     }
 
-    public String next() {
-        matchGroupIndex++;
-        String matchResult;
-        if (matchGroupIndex < matcher.groupCount()) {
-            matchResult = matcher.group(matchGroupIndex + 1);
-        } else {
-            matchResult = defaultValues.get(matchGroupIndex);
-        }
-        return matchResult;
+    public AttributeType getType(int groupIndex) {
+        return types.get(groupIndex);
     }
 
-    public boolean hasNext() {
-        return matcher.groupCount() > matchGroupIndex + 1;
+    public int getGroupCount() {
+        return groupCount;
     }
 
-    public void matchInput(String input) {
-        this.matcher = pattern.matcher(input);
-        this.matcher.find();
-        this.matchGroupIndex = -1;
+    /**
+     * Matches the input with the matcher of the calling thread, which stays valid until the thread matches the
+     * next input.
+     *
+     * @param input text to be matched
+     * @return the matcher positioned at the first match of the input
+     */
+    public Matcher matchInput(String input) {
+        Matcher inputMatcher = matcher.get();
+        inputMatcher.reset(input);
+        inputMatcher.find();
+        return inputMatcher;
     }
 
     public String getRegex() {
         return regex;
     }
 
-}
\ No newline at end of file
+}
@@ -14,10 +14,10 @@
  */
 package org.wso2.carbon.event.receiver.core.internal.type.wso2event;
 
-import com.google.common.collect.ObjectArrays;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.databridge.commons.Attribute;
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamAttributeLayout;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
 import org.wso2.carbon.event.receiver.core.config.EventReceiverConstants;
@@ -39,7 +39,19 @@ public class WSO2EventInputMapper implements InputMapper {
     private EventReceiverConfiguration eventReceiverConfiguration = null;
     private StreamDefinition exportedStreamDefinition = null;
     private StreamDefinition importedStreamDefinition = null;
-    private Map<InputDataType, int[]> inputDataTypeSpecificPositionMap = null;
+    private static final int META_DATA = 0;
+    private static final int CORRELATION_DATA = 1;
+    private static final int PAYLOAD_DATA = 2;
+
+    private int[] sourceSections = null;
+    private int[] sourceIndexes = null;
+    private boolean passThrough = false;
+    private boolean metaDataExpected;
+    private boolean correlationDataExpected;
+    private boolean payloadDataExpected;
+    private int metaDataCount;
+    private int correlationDataCount;
+    private int payloadDataCount;
 
     public WSO2EventInputMapper(EventReceiverConfiguration eventReceiverConfiguration,
                                 StreamDefinition exportedStreamDefinition)
@@ -69,76 +81,58 @@ public class WSO2EventInputMapper implements InputMapper {
         if (importedStreamDefinition != null && eventReceiverConfiguration.getInputMapping().isCustomMappingEnabled()) {
             this.exportedStreamDefinition = exportedStreamDefinition;
 
-            this.inputDataTypeSpecificPositionMap = new HashMap<InputDataType, int[]>();
-            Map<Integer, Integer> payloadDataMap = new TreeMap<Integer, Integer>();
-            Map<Integer, Integer> metaDataMap = new TreeMap<Integer, Integer>();
-            Map<Integer, Integer> correlationDataMap = new TreeMap<Integer, Integer>();
+            // Input attributes are looked up by name in the meta, correlation and payload order, taking the first match
+            Map<String, Integer> inputAttributePositions = new HashMap<String, Integer>();
+            StreamAttributeLayout importedLayout = importedStreamDefinition.getAttributeLayout();
+            addAttributePositions(inputAttributePositions, importedStreamDefinition.getMetaData(), 0);
+            addAttributePositions(inputAttributePositions, importedStreamDefinition.getCorrelationData(), importedLayout.getCorrelationDataOffset());
+            addAttributePositions(inputAttributePositions, importedStreamDefinition.getPayloadData(), importedLayout.getPayloadDataOffset());
 
-            List<Attribute> allAttributes = new ArrayList<Attribute>();
-            if (importedStreamDefinition.getMetaData() != null && !importedStreamDefinition.getMetaData().isEmpty()) {
-                allAttributes.addAll(importedStreamDefinition.getMetaData());
-            }
-            if (importedStreamDefinition.getCorrelationData() != null && !importedStreamDefinition.getCorrelationData().isEmpty()) {
-                allAttributes.addAll(importedStreamDefinition.getCorrelationData());
-            }
-            if (importedStreamDefinition.getPayloadData() != null && !importedStreamDefinition.getPayloadData().isEmpty()) {
-                allAttributes.addAll(importedStreamDefinition.getPayloadData());
-            }
-            int metaCount = 0, correlationCount = 0, payloadCount = 0;
+            List<Integer> metaPositions = new ArrayList<Integer>();
+            List<Integer> correlationPositions = new ArrayList<Integer>();
+            List<Integer> payloadPositions = new ArrayList<Integer>();
             for (InputMappingAttribute inputMappingAttribute : wso2EventInputMapping.getInputMappingAttributes()) {
+                Integer position = inputAttributePositions.get(inputMappingAttribute.getFromElementKey());
                 if (inputMappingAttribute.getToElementKey().startsWith(EventReceiverConstants.META_DATA_PREFIX)) {
-                    for (int i = 0; i < allAttributes.size(); i++) {
-                        if (allAttributes.get(i).getName().equals(inputMappingAttribute.getFromElementKey())) {
-                            metaDataMap.put(metaCount, i);
-                            break;
-                        }
-                    }
-                    if (metaDataMap.get(metaCount++) == null) {
-                        this.inputDataTypeSpecificPositionMap = null;
+                    if (position == null) {
                         throw new EventReceiverStreamValidationException("Cannot find a corresponding meta data input attribute '"
                                 + inputMappingAttribute.getFromElementKey() + "' in stream with id " + importedStreamDefinition.getStreamId(), importedStreamDefinition.getStreamId());
                     }
+                    metaPositions.add(position);
                 } else if (inputMappingAttribute.getToElementKey().startsWith(EventReceiverConstants.CORRELATION_DATA_PREFIX)) {
-                    for (int i = 0; i < allAttributes.size(); i++) {
-                        if (allAttributes.get(i).getName().equals(inputMappingAttribute.getFromElementKey())) {
-                            correlationDataMap.put(correlationCount, i);
-                            break;
-                        }
-                    }
-                    if (correlationDataMap.get(correlationCount++) == null) {
-                        this.inputDataTypeSpecificPositionMap = null;
+                    if (position == null) {
                         throw new EventReceiverStreamValidationException("Cannot find a corresponding correlation data input attribute '"
                                 + inputMappingAttribute.getFromElementKey() + "' in stream with id " + importedStreamDefinition.getStreamId(), importedStreamDefinition.getStreamId());
                     }
+                    correlationPositions.add(position);
                 } else {
-                    for (int i = 0; i < allAttributes.size(); i++) {
-                        if (allAttributes.get(i).getName().equals(inputMappingAttribute.getFromElementKey())) {
-                            payloadDataMap.put(payloadCount, i);
-                            break;
-                        }
-                    }
-                    if (payloadDataMap.get(payloadCount++) == null) {
-                        this.inputDataTypeSpecificPositionMap = null;
+                    if (position == null) {
                         throw new EventReceiverStreamValidationException("Cannot find a corresponding payload data input attribute '"
                                 + inputMappingAttribute.getFromElementKey() + "' in stream with id : " + importedStreamDefinition.getStreamId(), importedStreamDefinition.getStreamId());
                     }
+                    payloadPositions.add(position);
                 }
             }
-            int[] metaPositions = new int[metaDataMap.size()];
-            for (int i = 0; i < metaPositions.length; i++) {
-                metaPositions[i] = metaDataMap.get(i);
-            }
-            inputDataTypeSpecificPositionMap.put(InputDataType.META_DATA, metaPositions);
-            int[] correlationPositions = new int[correlationDataMap.size()];
-            for (int i = 0; i < correlationPositions.length; i++) {
-                correlationPositions[i] = correlationDataMap.get(i);
-            }
-            inputDataTypeSpecificPositionMap.put(InputDataType.CORRELATION_DATA, correlationPositions);
-            int[] payloadPositions = new int[payloadDataMap.size()];
-            for (int i = 0; i < payloadPositions.length; i++) {
-                payloadPositions[i] = payloadDataMap.get(i);
+
+            // Copy plan of the mapped event, holding the input section and the index within it for each output position
+            List<Integer> outputPositions = new ArrayList<Integer>(metaPositions);
+            outputPositions.addAll(correlationPositions);
+            outputPositions.addAll(payloadPositions);
+            this.sourceSections = new int[outputPositions.size()];
+            this.sourceIndexes = new int[outputPositions.size()];
+            for (int i = 0; i < sourceSections.length; i++) {
+                int position = outputPositions.get(i);
+                if (position >= importedLayout.getPayloadDataOffset()) {
+                    sourceSections[i] = PAYLOAD_DATA;
+                    sourceIndexes[i] = position - importedLayout.getPayloadDataOffset();
+                } else if (position >= importedLayout.getCorrelationDataOffset()) {
+                    sourceSections[i] = CORRELATION_DATA;
+                    sourceIndexes[i] = position - importedLayout.getCorrelationDataOffset();
+                } else {
+                    sourceSections[i] = META_DATA;
+                    sourceIndexes[i] = position;
+                }
             }
-            inputDataTypeSpecificPositionMap.put(InputDataType.PAYLOAD_DATA, payloadPositions);
 
         } else if (importedStreamDefinition != null && (!eventReceiverConfiguration.getInputMapping().isCustomMappingEnabled())) {
             if (importedStreamDefinition.getCorrelationData() != null ? !importedStreamDefinition.getCorrelationData().equals(exportedStreamDefinition.getCorrelationData()) : exportedStreamDefinition.getCorrelationData() != null) {
@@ -150,6 +144,27 @@ public class WSO2EventInputMapper implements InputMapper {
             if (importedStreamDefinition.getPayloadData() != null ? !importedStreamDefinition.getPayloadData().equals(exportedStreamDefinition.getPayloadData()) : exportedStreamDefinition.getPayloadData() != null) {
                 throw new EventReceiverStreamValidationException("Input stream definition : " + importedStreamDefinition + " not matching with output stream definition : " + exportedStreamDefinition + " to create pass-through link ", importedStreamDefinition.getStreamId());
             }
+            this.exportedStreamDefinition = exportedStreamDefinition;
+            StreamAttributeLayout exportedLayout = exportedStreamDefinition.getAttributeLayout();
+            this.metaDataExpected = exportedLayout.getMetaDataTypes() != null;
+            this.correlationDataExpected = exportedLayout.getCorrelationDataTypes() != null;
+            this.payloadDataExpected = exportedLayout.getPayloadDataTypes() != null;
+            this.metaDataCount = exportedLayout.getMetaDataCount();
+            this.correlationDataCount = exportedLayout.getCorrelationDataCount();
+            this.payloadDataCount = exportedLayout.getPayloadDataCount();
+            this.passThrough = true;
+        }
+    }
+
+    private static void addAttributePositions(Map<String, Integer> attributePositions, List<Attribute> attributes,
+                                              int offset) {
+        if (attributes != null) {
+            for (int i = 0; i < attributes.size(); i++) {
+                String name = attributes.get(i).getName();
+                if (!attributePositions.containsKey(name)) {
+                    attributePositions.put(name, offset + i);
+                }
+            }
         }
     }
 
@@ -187,7 +202,6 @@ public class WSO2EventInputMapper implements InputMapper {
         return attributeNamesList;
     }
 
-    //TODO Profile performance of this method
     @Override
     public Object convertToMappedInputEvent(Object obj) throws EventReceiverProcessingException {
         Object[] outObjArray = null;
@@ -196,52 +210,46 @@ public class WSO2EventInputMapper implements InputMapper {
             Map<String, String> arbitraryMap = event.getArbitraryDataMap();
             if (arbitraryMap != null && !arbitraryMap.isEmpty()) {
                 outObjArray = processArbitraryMap(event);
-            } else if (inputDataTypeSpecificPositionMap != null) {
-                List<Object> outObjList = new ArrayList<Object>();
-                Object[] inEventArray = new Object[0];
-                if (event.getMetaData() != null) {
-                    inEventArray = ObjectArrays.concat(inEventArray, event.getMetaData(), Object.class);
+            } else if (sourceSections != null) {
+                Object[][] inputSections = {event.getMetaData(), event.getCorrelationData(), event.getPayloadData()};
+                outObjArray = new Object[sourceSections.length];
+                for (int i = 0; i < outObjArray.length; i++) {
+                    outObjArray[i] = inputSections[sourceSections[i]][sourceIndexes[i]];
                 }
-                if (event.getCorrelationData() != null) {
-                    inEventArray = ObjectArrays.concat(inEventArray, event.getCorrelationData(), Object.class);
-                }
-                if (event.getPayloadData() != null) {
-                    inEventArray = ObjectArrays.concat(inEventArray, event.getPayloadData(), Object.class);
-                }
-                int[] metaPositions = inputDataTypeSpecificPositionMap.get(InputDataType.META_DATA);
-                for (int metaPosition : metaPositions) {
-                    outObjList.add(inEventArray[metaPosition]);
-                }
-                int[] correlationPositions = inputDataTypeSpecificPositionMap.get(InputDataType.CORRELATION_DATA);
-                for (int correlationPosition : correlationPositions) {
-                    outObjList.add(inEventArray[correlationPosition]);
-                }
-                int[] payloadPositions = inputDataTypeSpecificPositionMap.get(InputDataType.PAYLOAD_DATA);
-                for (int payloadPosition : payloadPositions) {
-                    outObjList.add(inEventArray[payloadPosition]);
-                }
-                outObjArray = outObjList.toArray();
-
-            }else{
+            } else {
                 return null;
             }
-
         }
         return outObjArray;
     }
 
+    /**
+     * Returns the received event itself, or the event with the exported stream id, when it carries the attributes
+     * of the exported stream as they are, so that it reaches the stream without being flattened. Otherwise returns
+     * the meta, correlation and payload data of the event as one array.
+     */
     @Override
     public Object convertToTypedInputEvent(Object obj) throws EventReceiverProcessingException {
-        Object[] outObjArray = null;
-        if (obj instanceof Event) {
-            Event inputEvent = (Event) obj;
-            Object[] metaCorrArray = ObjectArrays.concat(inputEvent.getMetaData() != null ? inputEvent.getMetaData() : new Object[0]
-                    , inputEvent.getCorrelationData() != null ? inputEvent.getCorrelationData() : new Object[0], Object.class);
-            outObjArray = ObjectArrays.concat
-                    (metaCorrArray, inputEvent.getPayloadData() != null ? inputEvent.getPayloadData() : new Object[0], Object.class);
-
+        if (!(obj instanceof Event)) {
+            return null;
         }
-        return outObjArray;
+        Event inputEvent = (Event) obj;
+        if (passThrough && isSectionComplete(inputEvent.getMetaData(), metaDataExpected, metaDataCount)
+                && isSectionComplete(inputEvent.getCorrelationData(), correlationDataExpected, correlationDataCount)
+                && isSectionComplete(inputEvent.getPayloadData(), payloadDataExpected, payloadDataCount)) {
+            if (exportedStreamDefinition.getStreamId().equals(inputEvent.getStreamId())) {
+                return inputEvent;
+            }
+            Event event = new Event(exportedStreamDefinition.getStreamId(), inputEvent.getTimeStamp(),
+                    inputEvent.getMetaData(), inputEvent.getCorrelationData(), inputEvent.getPayloadData());
+            event.setArbitraryDataMap(inputEvent.getArbitraryDataMap());
+            return event;
+        }
+        return EventReceiverUtil.getEventData(inputEvent);
+    }
+
+    private static boolean isSectionComplete(Object[] data, boolean expected, int count) {
+        return !expected || (data != null && data.length == count);
     }
 
     @Override
@@ -301,8 +309,4 @@ public class WSO2EventInputMapper implements InputMapper {
         return outObjArray;
     }
 
-    private enum InputDataType {
-        META_DATA, CORRELATION_DATA, PAYLOAD_DATA
-    }
-
 }
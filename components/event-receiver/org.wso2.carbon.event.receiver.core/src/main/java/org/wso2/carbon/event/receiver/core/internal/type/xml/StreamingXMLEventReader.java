@@ -0,0 +1,474 @@
+/*
+ * Copyright (c) 2005 - 2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.xml;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps XML events in a single StAX pass without building an object model, for mappings whose XPaths are all of
+ * the subset supported by {@link StreamingXPath}. Each attribute takes the first element or attribute selected by
+ * its XPath in document order. In the multiple events mode each child of the element selected by the parent
+ * selector is an event, and its attributes are looked up within the child.
+ * <p/>
+ * Element values are the text directly within the selected element, converted as per the XML schema lexical
+ * forms of the attribute type. Messages where the object model may select or read a value differently are left
+ * to it, when all the XPaths select elements (the object model does not map attributes or text nodes): a selected
+ * element holding other elements, and in the multiple events mode an element selected outside the event, before
+ * the parent element or by an absolute or '//' XPath not matching within the event.
+ */
+final class StreamingXMLEventReader {
+
+    private static final Log log = LogFactory.getLog(StreamingXMLEventReader.class);
+
+    private static final XMLInputFactory xmlInputFactory = createInputFactory();
+
+    private final StreamingXPath parentSelector;
+    private final StreamingXPath[] attributePaths;
+    private final AttributeType[] attributeTypes;
+    private final Object[] defaultValues;
+    private final boolean objectModelFallback;
+
+    private StreamingXMLEventReader(StreamingXPath parentSelector, StreamingXPath[] attributePaths,
+                                    AttributeType[] attributeTypes, Object[] defaultValues) {
+        this.parentSelector = parentSelector;
+        this.attributePaths = attributePaths;
+        this.attributeTypes = attributeTypes;
+        this.defaultValues = defaultValues;
+        boolean elementPathsOnly = true;
+        for (StreamingXPath attributePath : attributePaths) {
+            if (attributePath.isAttribute() || attributePath.isText()) {
+                elementPathsOnly = false;
+            }
+        }
+        this.objectModelFallback = elementPathsOnly;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return inputFactory;
+    }
+
+    /**
+     * @param parentSelectorExpression XPath selecting the parent of the events, or null to read a single event
+     * @param expressions              XPaths of the attributes in the stream attribute order
+     * @param attributeTypes           types of the attributes
+     * @param defaultValues            default values of the attributes, where null means no default value
+     * @param namespaces               namespace URIs by prefix
+     * @return the reader, or null if any of the expressions cannot be evaluated while streaming, or a default
+     * value cannot be converted to its type
+     */
+    static StreamingXMLEventReader compile(String parentSelectorExpression, String[] expressions,
+                                           AttributeType[] attributeTypes, String[] defaultValues,
+                                           Map<String, String> namespaces) {
+        StreamingXPath parentSelector = null;
+        if (parentSelectorExpression != null) {
+            parentSelector = StreamingXPath.compile(parentSelectorExpression, namespaces);
+            if (parentSelector == null || parentSelector.isAttribute() || parentSelector.isText()) {
+                logFallback(parentSelectorExpression);
+                return null;
+            }
+        }
+        StreamingXPath[] attributePaths = new StreamingXPath[expressions.length];
+        Object[] typedDefaultValues = new Object[expressions.length];
+        for (int i = 0; i < expressions.length; i++) {
+            if (expressions[i] == null || attributeTypes[i] == null) {
+                return null;
+            }
+            attributePaths[i] = StreamingXPath.compile(expressions[i], namespaces);
+            if (attributePaths[i] == null) {
+                logFallback(expressions[i]);
+                return null;
+            }
+            if (defaultValues[i] != null) {
+                try {
+                    typedDefaultValues[i] = toDefaultValue(defaultValues[i], attributeTypes[i]);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return new StreamingXMLEventReader(parentSelector, attributePaths, attributeTypes, typedDefaultValues);
+    }
+
+    private static void logFallback(String expression) {
+        if (log.isDebugEnabled()) {
+            log.debug("XPath " + expression + " cannot be evaluated while streaming, hence mapping events with " +
+                      "the object model");
+        }
+    }
+
+    /**
+     * @param xml an XML event, or XML events under the parent selected by the parent selector
+     * @return the attribute array of the event, or an array of attribute arrays in the multiple events mode, or null
+     * if the message is to be mapped with the object model instead
+     * @throws EventReceiverProcessingException if the XML is malformed, the parent of the events is not found, or an
+     *                                          attribute without a default value cannot be found
+     */
+    Object read(String xml) throws EventReceiverProcessingException {
+        XMLStreamReader reader = null;
+        try {
+            reader = xmlInputFactory.createXMLStreamReader(new StringReader(xml));
+            if (parentSelector == null) {
+                return readEvent(reader, xml);
+            }
+            return readEvents(reader, xml);
+        } catch (XMLStreamException e) {
+            throw new EventReceiverProcessingException("Error parsing incoming XML event : " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    log.warn("Error closing XML stream reader : " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private Object[] readEvent(XMLStreamReader reader, String xml)
+            throws XMLStreamException, EventReceiverProcessingException {
+        ElementStack elements = new ElementStack();
+        EventState event = new EventState(null);
+        while (reader.hasNext() && !event.isComplete()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (objectModelFallback && event.isCapturing()) {
+                        return null;
+                    }
+                    elements.push(reader);
+                    event.startElement(reader, elements, 1);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    event.endElement(elements.depth);
+                    elements.pop();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    event.characters(reader, elements.depth);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return event.toAttributeArray(xml);
+    }
+
+    private Object[][] readEvents(XMLStreamReader reader, String xml)
+            throws XMLStreamException, EventReceiverProcessingException {
+        ElementStack elements = new ElementStack();
+        EventState documentState = new EventState(null);
+        EventState event = null;
+        List<Object[]> events = new ArrayList<Object[]>();
+        int parentDepth = -1;
+        while (reader.hasNext()) {
+            int eventType = reader.next();
+            if (eventType == XMLStreamConstants.START_ELEMENT) {
+                if (objectModelFallback && (documentState.isCapturing() || event != null && event.isCapturing())) {
+                    return null;
+                }
+                elements.push(reader);
+                if (parentDepth < 0) {
+                    if (parentSelector.matches(elements.namespaceURIs, elements.localNames, elements.depth, 1)) {
+                        if (objectModelFallback && documentState.foundCount > 0) {
+                            return null;
+                        }
+                        parentDepth = elements.depth;
+                    } else {
+                        documentState.startElement(reader, elements, -1);
+                    }
+                } else if (elements.depth == parentDepth + 1) {
+                    event = new EventState(documentState);
+                    event.startElement(reader, elements, elements.depth);
+                } else if (event != null) {
+                    event.startElement(reader, elements, parentDepth + 1);
+                }
+            } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                if (parentDepth < 0) {
+                    documentState.endElement(elements.depth);
+                } else if (elements.depth == parentDepth) {
+                    break;
+                } else if (event != null) {
+                    event.endElement(elements.depth);
+                    if (elements.depth == parentDepth + 1) {
+                        if (objectModelFallback && event.isMissingOutsidePath()) {
+                            return null;
+                        }
+                        events.add(event.toAttributeArray(xml));
+                        event = null;
+                    }
+                }
+                elements.pop();
+            } else if (eventType == XMLStreamConstants.CHARACTERS || eventType == XMLStreamConstants.CDATA
+                       || eventType == XMLStreamConstants.SPACE) {
+                if (parentDepth < 0) {
+                    documentState.characters(reader, elements.depth);
+                } else if (event != null) {
+                    event.characters(reader, elements.depth);
+                }
+            }
+        }
+        if (parentDepth < 0) {
+            throw new EventReceiverProcessingException("Parent Selector XPath \"" + parentSelector +
+                                                       "\" cannot be processed on event:" + xml);
+        }
+        return events.toArray(new Object[events.size()][]);
+    }
+
+    private static Object toDefaultValue(String value, AttributeType attributeType) {
+        switch (attributeType) {
+            case BOOL:
+                return Boolean.valueOf(value);
+            case INT:
+                return Integer.valueOf(value);
+            case LONG:
+                return Long.valueOf(value);
+            case FLOAT:
+                return Float.valueOf(value);
+            case DOUBLE:
+                return Double.valueOf(value);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * @return the value converted to the attribute type, or null if it is not a valid value of the type
+     */
+    private static Object toValue(String value, AttributeType attributeType) {
+        if (attributeType == AttributeType.STRING) {
+            return value;
+        }
+        String trimmedValue = value.trim();
+        try {
+            switch (attributeType) {
+                case BOOL:
+                    if ("true".equals(trimmedValue) || "1".equals(trimmedValue)) {
+                        return Boolean.TRUE;
+                    } else if ("false".equals(trimmedValue) || "0".equals(trimmedValue)) {
+                        return Boolean.FALSE;
+                    }
+                    return null;
+                case INT:
+                    return Integer.valueOf(trimmedValue.startsWith("+") ? trimmedValue.substring(1) : trimmedValue);
+                case LONG:
+                    return Long.valueOf(trimmedValue.startsWith("+") ? trimmedValue.substring(1) : trimmedValue);
+                case FLOAT:
+                    return toFloat(trimmedValue);
+                case DOUBLE:
+                    return toDouble(trimmedValue);
+                default:
+                    return value;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static float toFloat(String value) {
+        if ("INF".equals(value)) {
+            return Float.POSITIVE_INFINITY;
+        } else if ("-INF".equals(value)) {
+            return Float.NEGATIVE_INFINITY;
+        }
+        return Float.parseFloat(value);
+    }
+
+    private static double toDouble(String value) {
+        if ("INF".equals(value)) {
+            return Double.POSITIVE_INFINITY;
+        } else if ("-INF".equals(value)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return Double.parseDouble(value);
+    }
+
+    /**
+     * Names of the open elements, from the document element to the current element.
+     */
+    private static final class ElementStack {
+        private String[] namespaceURIs = new String[16];
+        private String[] localNames = new String[16];
+        private int depth;
+
+        private void push(XMLStreamReader reader) {
+            if (depth == localNames.length) {
+                namespaceURIs = Arrays.copyOf(namespaceURIs, depth * 2);
+                localNames = Arrays.copyOf(localNames, depth * 2);
+            }
+            String namespaceURI = reader.getNamespaceURI();
+            namespaceURIs[depth] = namespaceURI == null ? "" : namespaceURI;
+            localNames[depth] = reader.getLocalName();
+            depth++;
+        }
+
+        private void pop() {
+            depth--;
+        }
+    }
+
+    /**
+     * Values of the attributes of an event found so far, along with the text being collected for the elements
+     * selected but not yet ended.
+     */
+    private final class EventState {
+        private final String[] values;
+        private final boolean[] found;
+        private final int[] captureDepths;
+        private final StringBuilder[] captures;
+        private int foundCount;
+        private int captureCount;
+
+        private EventState(EventState documentState) {
+            int attributeCount = attributePaths.length;
+            if (documentState != null) {
+                values = documentState.values.clone();
+                found = documentState.found.clone();
+                foundCount = documentState.foundCount;
+            } else {
+                values = new String[attributeCount];
+                found = new boolean[attributeCount];
+            }
+            captureDepths = new int[attributeCount];
+            captures = new StringBuilder[attributeCount];
+        }
+
+        private boolean isComplete() {
+            return foundCount == found.length && captureCount == 0;
+        }
+
+        private boolean isCapturing() {
+            return captureCount > 0;
+        }
+
+        /**
+         * @return true if an attribute whose XPath is not relative to the event is not found within the event
+         */
+        private boolean isMissingOutsidePath() {
+            for (int i = 0; i < found.length; i++) {
+                if (!found[i] && !attributePaths[i].isRelative()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void startElement(XMLStreamReader reader, ElementStack elements, int contextDepth) {
+            for (int i = 0; i < attributePaths.length; i++) {
+                StreamingXPath path = attributePaths[i];
+                if (found[i] || captureDepths[i] > 0
+                    || !path.matches(elements.namespaceURIs, elements.localNames, elements.depth, contextDepth)) {
+                    continue;
+                }
+                if (path.isAttribute()) {
+                    String value = getAttributeValue(reader, path);
+                    if (value != null) {
+                        setValue(i, value);
+                    }
+                } else {
+                    if (captures[i] == null) {
+                        captures[i] = new StringBuilder();
+                    } else {
+                        captures[i].setLength(0);
+                    }
+                    captureDepths[i] = elements.depth;
+                    captureCount++;
+                }
+            }
+        }
+
+        private void characters(XMLStreamReader reader, int depth) {
+            if (captureCount == 0) {
+                return;
+            }
+            for (int i = 0; i < captureDepths.length; i++) {
+                if (captureDepths[i] == depth) {
+                    captures[i].append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+            }
+        }
+
+        private void endElement(int depth) {
+            if (captureCount == 0) {
+                return;
+            }
+            for (int i = 0; i < captureDepths.length; i++) {
+                if (captureDepths[i] == depth) {
+                    captureDepths[i] = 0;
+                    captureCount--;
+                    if (!attributePaths[i].isText() || captures[i].length() > 0) {
+                        setValue(i, captures[i].toString());
+                    }
+                }
+            }
+        }
+
+        private void setValue(int index, String value) {
+            values[index] = value;
+            found[index] = true;
+            foundCount++;
+        }
+
+        private Object[] toAttributeArray(String xml) throws EventReceiverProcessingException {
+            Object[] attributeArray = new Object[values.length];
+            for (int i = 0; i < values.length; i++) {
+                Object value = found[i] ? toValue(values[i], attributeTypes[i]) : null;
+                if (value == null) {
+                    if (defaultValues[i] != null) {
+                        value = defaultValues[i];
+                    } else if (attributeTypes[i] != AttributeType.STRING) {
+                        if (!found[i]) {
+                            throw new EventReceiverProcessingException("Unable to parse XPath " + attributePaths[i] +
+                                                                       " to retrieve required attribute, hence " +
+                                                                       "dropping the event " + xml);
+                        } else {
+                            throw new EventReceiverProcessingException("Valid attribute value not found for " +
+                                                                       attributePaths[i] + " ,hence dropping the " +
+                                                                       "event " + xml);
+                        }
+                    }
+                }
+                attributeArray[i] = value;
+            }
+            return attributeArray;
+        }
+    }
+
+    private static String getAttributeValue(XMLStreamReader reader, StreamingXPath path) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String namespaceURI = reader.getAttributeNamespace(i);
+            if (path.getAttributeLocalName().equals(reader.getAttributeLocalName(i))
+                && path.getAttributeNamespaceURI().equals(namespaceURI == null ? "" : namespaceURI)) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+}
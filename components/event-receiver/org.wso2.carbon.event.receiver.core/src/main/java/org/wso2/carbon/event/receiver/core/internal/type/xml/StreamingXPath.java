@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2005 - 2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.xml;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An XPath of the subset that can be evaluated while streaming through a document, that is a location path of
+ * element names or wildcards which is either absolute (/a/b), from anywhere in the document (//a/b) or relative to
+ * the context element (a/b), and optionally ends with an attribute (@c) or a text() step.
+ */
+final class StreamingXPath {
+
+    private static final Pattern NAME_PATTERN =
+            Pattern.compile("(?:([A-Za-z_][\\w.\\-]*):)?([A-Za-z_][\\w.\\-]*)");
+    private static final String WILDCARD_STEP = "*";
+    private static final String TEXT_STEP = "text()";
+    private static final char ATTRIBUTE_STEP_PREFIX = '@';
+
+    private enum Anchor {
+        ABSOLUTE, DESCENDANT, RELATIVE
+    }
+
+    private final String expression;
+    private final Anchor anchor;
+    private final String[] stepNamespaceURIs;
+    private final String[] stepLocalNames;
+    private final String attributeNamespaceURI;
+    private final String attributeLocalName;
+    private final boolean text;
+
+    private StreamingXPath(String expression, Anchor anchor, String[] stepNamespaceURIs, String[] stepLocalNames,
+                           String attributeNamespaceURI, String attributeLocalName, boolean text) {
+        this.expression = expression;
+        this.anchor = anchor;
+        this.stepNamespaceURIs = stepNamespaceURIs;
+        this.stepLocalNames = stepLocalNames;
+        this.attributeNamespaceURI = attributeNamespaceURI;
+        this.attributeLocalName = attributeLocalName;
+        this.text = text;
+    }
+
+    /**
+     * @param expression XPath expression
+     * @param namespaces namespace URIs by prefix
+     * @return the compiled XPath, or null if the expression is not of the supported subset or uses an unknown prefix
+     */
+    static StreamingXPath compile(String expression, Map<String, String> namespaces) {
+        String path = expression.trim();
+        Anchor anchor;
+        if (path.startsWith("//")) {
+            anchor = Anchor.DESCENDANT;
+            path = path.substring(2);
+        } else if (path.startsWith("/")) {
+            anchor = Anchor.ABSOLUTE;
+            path = path.substring(1);
+        } else {
+            anchor = Anchor.RELATIVE;
+        }
+        String[] steps = path.split("/", -1);
+        int elementStepCount = steps.length;
+        String attributeNamespaceURI = null;
+        String attributeLocalName = null;
+        boolean text = false;
+        String lastStep = steps[steps.length - 1];
+        if (TEXT_STEP.equals(lastStep)) {
+            text = true;
+            elementStepCount--;
+        } else if (!lastStep.isEmpty() && lastStep.charAt(0) == ATTRIBUTE_STEP_PREFIX) {
+            String[] attributeName = resolveName(lastStep.substring(1), namespaces);
+            if (attributeName == null) {
+                return null;
+            }
+            attributeNamespaceURI = attributeName[0];
+            attributeLocalName = attributeName[1];
+            elementStepCount--;
+        }
+        if (elementStepCount == 0) {
+            return null;
+        }
+
+        String[] stepNamespaceURIs = new String[elementStepCount];
+        String[] stepLocalNames = new String[elementStepCount];
+        for (int i = 0; i < elementStepCount; i++) {
+            if (WILDCARD_STEP.equals(steps[i])) {
+                continue;
+            }
+            String[] stepName = resolveName(steps[i], namespaces);
+            if (stepName == null) {
+                return null;
+            }
+            stepNamespaceURIs[i] = stepName[0];
+            stepLocalNames[i] = stepName[1];
+        }
+        return new StreamingXPath(expression, anchor, stepNamespaceURIs, stepLocalNames, attributeNamespaceURI,
+                attributeLocalName, text);
+    }
+
+    private static String[] resolveName(String name, Map<String, String> namespaces) {
+        Matcher matcher = NAME_PATTERN.matcher(name);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String prefix = matcher.group(1);
+        String namespaceURI = prefix == null ? "" : namespaces.get(prefix);
+        if (namespaceURI == null) {
+            return null;
+        }
+        return new String[]{namespaceURI, matcher.group(2)};
+    }
+
+    /**
+     * @param namespaceURIs namespace URIs of the open elements from the document element, with "" for no namespace
+     * @param localNames    local names of the open elements from the document element
+     * @param depth         number of open elements
+     * @param contextDepth  depth of the context element, or -1 if relative paths cannot match
+     * @return true if the innermost open element is selected by the element steps of this path
+     */
+    boolean matches(String[] namespaceURIs, String[] localNames, int depth, int contextDepth) {
+        int stepCount = stepLocalNames.length;
+        int start;
+        switch (anchor) {
+            case ABSOLUTE:
+                start = 0;
+                break;
+            case RELATIVE:
+                if (contextDepth < 0) {
+                    return false;
+                }
+                start = contextDepth;
+                break;
+            default:
+                start = depth - stepCount;
+                break;
+        }
+        if (start < 0 || start + stepCount != depth) {
+            return false;
+        }
+        for (int i = stepCount - 1; i >= 0; i--) {
+            String localName = stepLocalNames[i];
+            if (localName != null && !(localName.equals(localNames[start + i])
+                                       && stepNamespaceURIs[i].equals(namespaceURIs[start + i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the path is relative to the context element
+     */
+    boolean isRelative() {
+        return anchor == Anchor.RELATIVE;
+    }
+
+    /**
+     * @return true if the path selects an attribute of the matched element rather than its text
+     */
+    boolean isAttribute() {
+        return attributeLocalName != null;
+    }
+
+    /**
+     * @return true if the path ends with a text() step, and hence does not select elements without text
+     */
+    boolean isText() {
+        return text;
+    }
+
+    String getAttributeNamespaceURI() {
+        return attributeNamespaceURI;
+    }
+
+    String getAttributeLocalName() {
+        return attributeLocalName;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jaxen.JaxenException;
 import org.wso2.carbon.databridge.commons.Attribute;
+import org.wso2.carbon.databridge.commons.AttributeType;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
 import org.wso2.carbon.event.receiver.core.config.EventReceiverConstants;
@@ -44,8 +45,10 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class XMLInputMapper implements InputMapper {
 
@@ -55,6 +58,7 @@ public class XMLInputMapper implements InputMapper {
     private List<XPathDefinition> xPathDefinitions = null;
     private ReflectionBasedObjectSupplier reflectionBasedObjectSupplier = new ReflectionBasedObjectSupplier();
     private AXIOMXPath parentSelectorXpath = null;
+    private StreamingXMLEventReader streamingEventReader = null;
 
     public XMLInputMapper(EventReceiverConfiguration eventReceiverConfiguration,
                           StreamDefinition exportedStreamDefinition)
@@ -68,6 +72,9 @@ public class XMLInputMapper implements InputMapper {
 
                     List<XPathDefinition> xPathDefinitions = xmlInputMapping.getXPathDefinitions();
                     XPathData[] xpathDataArray = new XPathData[xmlInputMapping.getInputMappingAttributes().size()];
+                    String[] xpathExpressions = new String[xpathDataArray.length];
+                    AttributeType[] attributeTypes = new AttributeType[xpathDataArray.length];
+                    String[] defaultValues = new String[xpathDataArray.length];
                     for (InputMappingAttribute inputMappingAttribute : xmlInputMapping.getInputMappingAttributes()) {
                         String xpathExpr = inputMappingAttribute.getFromElementKey();
 
@@ -85,9 +92,14 @@ public class XMLInputMapper implements InputMapper {
                                     + exportedStreamDefinition.getStreamId(), exportedStreamDefinition.getStreamId());
                         }
                         xpathDataArray[position] = new XPathData(xpath, type, inputMappingAttribute.getDefaultValue());
+                        xpathExpressions[position] = xpathExpr;
+                        attributeTypes[position] = inputMappingAttribute.getToElementType();
+                        defaultValues[position] = inputMappingAttribute.getDefaultValue();
                     }
                     attributeXpathList = Arrays.asList(xpathDataArray);
+                    String parentSelectorExpr = null;
                     if (xmlInputMapping.getParentSelectorXpath() != null && !xmlInputMapping.getParentSelectorXpath().isEmpty()) {
+                        parentSelectorExpr = xmlInputMapping.getParentSelectorXpath();
                         this.parentSelectorXpath = new AXIOMXPath(xmlInputMapping.getParentSelectorXpath());
                         for (XPathDefinition xPathDefinition : xPathDefinitions) {
                             if (xPathDefinition != null && !xPathDefinition.isEmpty()) {
@@ -95,43 +107,68 @@ public class XMLInputMapper implements InputMapper {
                             }
                         }
                     }
+                    if (isStreamingMappingEnabled()) {
+                        Map<String, String> namespaces = new HashMap<String, String>();
+                        for (XPathDefinition xPathDefinition : xPathDefinitions) {
+                            if (xPathDefinition != null && !xPathDefinition.isEmpty()) {
+                                namespaces.put(xPathDefinition.getPrefix(), xPathDefinition.getNamespaceUri());
+                            }
+                        }
+                        this.streamingEventReader = StreamingXMLEventReader.compile(parentSelectorExpr,
+                                xpathExpressions, attributeTypes, defaultValues, namespaces);
+                    }
                 } catch (JaxenException e) {
                     throw new EventReceiverConfigurationException("Error parsing XPath expression: " + e.getMessage(), e);
                 }
             } else {
 
                 try {
-                    this.parentSelectorXpath = new AXIOMXPath("//" + EventReceiverConstants.MULTIPLE_EVENTS_PARENT_TAG);
+                    String parentSelectorExpr = "//" + EventReceiverConstants.MULTIPLE_EVENTS_PARENT_TAG;
+                    this.parentSelectorXpath = new AXIOMXPath(parentSelectorExpr);
                     attributeXpathList = new ArrayList<XPathData>();
+                    List<String> xpathExpressions = new ArrayList<String>();
+                    List<AttributeType> attributeTypes = new ArrayList<AttributeType>();
                     if (exportedStreamDefinition.getMetaData() != null) {
                         for (Attribute attribute : exportedStreamDefinition.getMetaData()) {
-                            String xpathExpr = "//" + EventReceiverConstants.EVENT_META_TAG;
-                            AXIOMXPath xpath = new AXIOMXPath(xpathExpr + "/" + attribute.getName());
+                            String xpathExpr = "//" + EventReceiverConstants.EVENT_META_TAG + "/" + attribute.getName();
+                            AXIOMXPath xpath = new AXIOMXPath(xpathExpr);
                             String type = EventReceiverConstants.ATTRIBUTE_TYPE_CLASS_TYPE_MAP.get(attribute.getType());
                             attributeXpathList.add(new XPathData(xpath, type, null));
+                            xpathExpressions.add(xpathExpr);
+                            attributeTypes.add(attribute.getType());
 
                         }
                     }
 
                     if (exportedStreamDefinition.getCorrelationData() != null) {
                         for (Attribute attribute : exportedStreamDefinition.getCorrelationData()) {
-                            String xpathExpr = "//" + EventReceiverConstants.EVENT_CORRELATION_TAG;
-                            AXIOMXPath xpath = new AXIOMXPath(xpathExpr + "/" + attribute.getName());
+                            String xpathExpr = "//" + EventReceiverConstants.EVENT_CORRELATION_TAG + "/" + attribute.getName();
+                            AXIOMXPath xpath = new AXIOMXPath(xpathExpr);
                             String type = EventReceiverConstants.ATTRIBUTE_TYPE_CLASS_TYPE_MAP.get(attribute.getType());
                             attributeXpathList.add(new XPathData(xpath, type, null));
+                            xpathExpressions.add(xpathExpr);
+                            attributeTypes.add(attribute.getType());
 
                         }
                     }
 
                     if (exportedStreamDefinition.getPayloadData() != null) {
                         for (Attribute attribute : exportedStreamDefinition.getPayloadData()) {
-                            String xpathExpr = "//" + EventReceiverConstants.EVENT_PAYLOAD_TAG;
-                            AXIOMXPath xpath = new AXIOMXPath(xpathExpr + "/" + attribute.getName());
+                            String xpathExpr = "//" + EventReceiverConstants.EVENT_PAYLOAD_TAG + "/" + attribute.getName();
+                            AXIOMXPath xpath = new AXIOMXPath(xpathExpr);
                             String type = EventReceiverConstants.ATTRIBUTE_TYPE_CLASS_TYPE_MAP.get(attribute.getType());
                             attributeXpathList.add(new XPathData(xpath, type, null));
+                            xpathExpressions.add(xpathExpr);
+                            attributeTypes.add(attribute.getType());
 
                         }
                     }
+                    if (isStreamingMappingEnabled()) {
+                        this.streamingEventReader = StreamingXMLEventReader.compile(parentSelectorExpr,
+                                xpathExpressions.toArray(new String[xpathExpressions.size()]),
+                                attributeTypes.toArray(new AttributeType[attributeTypes.size()]),
+                                new String[xpathExpressions.size()], new HashMap<String, String>());
+                    }
                 } catch (JaxenException e) {
                     throw new EventReceiverConfigurationException("Error parsing XPath expression: " + e.getMessage(), e);
                 }
@@ -140,8 +177,18 @@ public class XMLInputMapper implements InputMapper {
 
     }
 
+    private static boolean isStreamingMappingEnabled() {
+        return Boolean.parseBoolean(System.getProperty(EventReceiverConstants.XML_STREAMING_MAPPING_PROPERTY, "false"));
+    }
+
     @Override
     public Object convertToMappedInputEvent(Object obj) throws EventReceiverProcessingException {
+        if (this.streamingEventReader != null && obj instanceof String) {
+            Object event = streamingEventReader.read((String) obj);
+            if (event != null) {
+                return event;
+            }
+        }
         if (this.parentSelectorXpath != null) {
             return processMultipleEvents(obj);
         } else {
@@ -151,6 +198,12 @@ public class XMLInputMapper implements InputMapper {
 
     @Override
     public Object convertToTypedInputEvent(Object obj) throws EventReceiverProcessingException {
+        if (this.streamingEventReader != null && obj instanceof String) {
+            Object event = streamingEventReader.read((String) obj);
+            if (event != null) {
+                return event;
+            }
+        }
         if (this.parentSelectorXpath != null) {
             return processMultipleEvents(obj);
         } else {
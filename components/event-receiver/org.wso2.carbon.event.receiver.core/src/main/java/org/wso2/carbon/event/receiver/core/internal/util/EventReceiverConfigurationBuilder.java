@@ -66,6 +66,15 @@ public class EventReceiverConfigurationBuilder {
         } else {
             eventReceiverConfigElement.addAttribute(EventReceiverConstants.ER_ATTR_STATISTICS_ENABLED, EventReceiverConstants.DISABLE_CONST, null);
         }
+        if (eventReceiverConfiguration.getMappingThreads() > 0) {
+            eventReceiverConfigElement.addAttribute(EventReceiverConstants.ER_ATTR_MAPPING_THREADS, String.valueOf(eventReceiverConfiguration.getMappingThreads()), null);
+            eventReceiverConfigElement.addAttribute(EventReceiverConstants.ER_ATTR_MAPPING_QUEUE_SIZE, String.valueOf(eventReceiverConfiguration.getMappingQueueSize()), null);
+            if (eventReceiverConfiguration.isMappingOrderPreserved()) {
+                eventReceiverConfigElement.addAttribute(EventReceiverConstants.ER_ATTR_MAPPING_ORDER, EventReceiverConstants.PRESERVE_CONST, null);
+            } else {
+                eventReceiverConfigElement.addAttribute(EventReceiverConstants.ER_ATTR_MAPPING_ORDER, EventReceiverConstants.IGNORE_CONST, null);
+            }
+        }
 
         //From properties
         OMElement fromOMElement = factory.createOMElement(new QName(
@@ -97,6 +106,13 @@ public class EventReceiverConfigurationBuilder {
         toOMElement.addAttribute(EventReceiverConstants.ER_ATTR_VERSION, eventReceiverConfiguration.getToStreamVersion(), null);
 
         eventReceiverConfigElement.addChild(toOMElement);
+
+        if (eventReceiverConfiguration.getFilter() != null) {
+            OMElement filterOMElement = factory.createOMElement(new QName(EventReceiverConstants.ER_ELEMENT_FILTER));
+            filterOMElement.declareDefaultNamespace(EventReceiverConstants.ER_CONF_NS);
+            filterOMElement.setText(eventReceiverConfiguration.getFilter());
+            eventReceiverConfigElement.addChild(filterOMElement);
+        }
         try {
             String formattedXml = XmlFormatter.format(eventReceiverConfigElement.toString());
             eventReceiverConfigElement = AXIOMUtil.stringToOM(formattedXml);
@@ -126,12 +142,24 @@ public class EventReceiverConfigurationBuilder {
         if (statisticsEnabledAttribute != null && statisticsEnabledAttribute.equalsIgnoreCase(EventReceiverConstants.ENABLE_CONST)) {
             statisticsEnabled = true;
         }
+        int mappingThreads = getIntAttribute(eventReceiverConfigOMElement, EventReceiverConstants.ER_ATTR_MAPPING_THREADS, 0);
+        int mappingQueueSize = getIntAttribute(eventReceiverConfigOMElement, EventReceiverConstants.ER_ATTR_MAPPING_QUEUE_SIZE, EventReceiverConstants.DEFAULT_MAPPING_QUEUE_SIZE);
+        if (mappingThreads < 0 || mappingQueueSize <= 0) {
+            throw new EventReceiverConfigurationException("Invalid mapping worker configuration in event receiver " + eventReceiverName
+                    + ", " + EventReceiverConstants.ER_ATTR_MAPPING_THREADS + " cannot be negative and " + EventReceiverConstants.ER_ATTR_MAPPING_QUEUE_SIZE + " should be positive");
+        }
+        boolean mappingOrderPreserved = true;
+        String mappingOrderAttribute = eventReceiverConfigOMElement.getAttributeValue(new QName(EventReceiverConstants.ER_ATTR_MAPPING_ORDER));
+        if (mappingOrderAttribute != null && mappingOrderAttribute.equalsIgnoreCase(EventReceiverConstants.IGNORE_CONST)) {
+            mappingOrderPreserved = false;
+        }
 
         EventReceiverConfiguration eventReceiverConfiguration = new EventReceiverConfiguration();
 
         OMElement fromElement = eventReceiverConfigOMElement.getFirstChildWithName(new QName(EventReceiverConstants.ER_CONF_NS, EventReceiverConstants.ER_ELEMENT_FROM));
         OMElement mappingElement = eventReceiverConfigOMElement.getFirstChildWithName(new QName(EventReceiverConstants.ER_CONF_NS, EventReceiverConstants.ER_ELEMENT_MAPPING));
         OMElement toElement = eventReceiverConfigOMElement.getFirstChildWithName(new QName(EventReceiverConstants.ER_CONF_NS, EventReceiverConstants.ER_ELEMENT_TO));
+        OMElement filterElement = eventReceiverConfigOMElement.getFirstChildWithName(new QName(EventReceiverConstants.ER_CONF_NS, EventReceiverConstants.ER_ELEMENT_FILTER));
 
         String fromEventAdapterType = fromElement.getAttributeValue(new QName(EventReceiverConstants.ER_ATTR_TA_TYPE));
 
@@ -236,6 +264,12 @@ public class EventReceiverConfigurationBuilder {
         eventReceiverConfiguration.setEventReceiverName(eventReceiverName);
         eventReceiverConfiguration.setTraceEnabled(traceEnabled);
         eventReceiverConfiguration.setStatisticsEnabled(statisticsEnabled);
+        eventReceiverConfiguration.setMappingThreads(mappingThreads);
+        eventReceiverConfiguration.setMappingQueueSize(mappingQueueSize);
+        eventReceiverConfiguration.setMappingOrderPreserved(mappingOrderPreserved);
+        if (filterElement != null && filterElement.getText() != null && !filterElement.getText().trim().isEmpty()) {
+            eventReceiverConfiguration.setFilter(filterElement.getText().trim());
+        }
         eventReceiverConfiguration.setToStreamName(toStreamName);
         eventReceiverConfiguration.setToStreamVersion(toStreamVersion);
         InputMapperFactory mapperFactory = EventReceiverServiceValueHolder.getMappingFactoryMap().get(mappingType);
@@ -263,6 +297,19 @@ public class EventReceiverConfigurationBuilder {
         return inputEventAdapterConfiguration;
     }
 
+    private static int getIntAttribute(OMElement omElement, String attributeName, int defaultValue)
+            throws EventReceiverConfigurationException {
+        String attributeValue = omElement.getAttributeValue(new QName(attributeName));
+        if (attributeValue == null || attributeValue.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(attributeValue.trim());
+        } catch (NumberFormatException e) {
+            throw new EventReceiverConfigurationException("Invalid value " + attributeValue + " for attribute " + attributeName + ", expected an integer", e);
+        }
+    }
+
     public static String getMappingTypeFactoryClass(OMElement omElement) {
         return omElement.getAttributeValue(new QName(EventReceiverConstants.ER_ATTR_FACTORY_CLASS));
     }
@@ -16,6 +16,7 @@ package org.wso2.carbon.event.receiver.core.internal.util;
 
 import org.wso2.carbon.databridge.commons.Attribute;
 import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
 import org.wso2.carbon.event.receiver.core.config.EventReceiverConstants;
@@ -47,6 +48,29 @@ public class EventReceiverUtil {
         }
     }
 
+    /**
+     * @return the meta, correlation and payload data of the event in one array, skipping the sections that are null
+     */
+    public static Object[] getEventData(Event event) {
+        Object[] metaData = event.getMetaData();
+        Object[] correlationData = event.getCorrelationData();
+        Object[] payloadData = event.getPayloadData();
+        int metaDataLength = metaData != null ? metaData.length : 0;
+        int correlationDataLength = correlationData != null ? correlationData.length : 0;
+        int payloadDataLength = payloadData != null ? payloadData.length : 0;
+        Object[] eventData = new Object[metaDataLength + correlationDataLength + payloadDataLength];
+        if (metaDataLength > 0) {
+            System.arraycopy(metaData, 0, eventData, 0, metaDataLength);
+        }
+        if (correlationDataLength > 0) {
+            System.arraycopy(correlationData, 0, eventData, metaDataLength, correlationDataLength);
+        }
+        if (payloadDataLength > 0) {
+            System.arraycopy(payloadData, 0, eventData, metaDataLength + correlationDataLength, payloadDataLength);
+        }
+        return eventData;
+    }
+
     public static String getExportedStreamIdFrom(
             EventReceiverConfiguration eventReceiverConfiguration) {
         String streamId = null;
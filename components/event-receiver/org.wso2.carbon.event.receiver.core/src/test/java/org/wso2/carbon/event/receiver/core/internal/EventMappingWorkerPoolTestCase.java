@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventMappingWorkerPoolTestCase {
+    private static final int EVENT_COUNT = 2000;
+
+    @Test
+    public void testOrderPreserved() throws InterruptedException {
+        RecordingMessageHandler messageHandler = new RecordingMessageHandler(EVENT_COUNT, -1);
+        EventMappingWorkerPool workerPool = new EventMappingWorkerPool("testReceiver", -1234, 4, 16, true, messageHandler);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            workerPool.submit(i);
+        }
+        Assert.assertTrue(messageHandler.await());
+        workerPool.shutdown();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            Assert.assertEquals(i, messageHandler.getDelivered().get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testOrderIgnored() throws InterruptedException {
+        RecordingMessageHandler messageHandler = new RecordingMessageHandler(EVENT_COUNT, -1);
+        EventMappingWorkerPool workerPool = new EventMappingWorkerPool("testReceiver", -1234, 4, 16, false, messageHandler);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            workerPool.submit(i);
+        }
+        Assert.assertTrue(messageHandler.await());
+        workerPool.shutdown();
+        List<Integer> delivered = new ArrayList<Integer>(messageHandler.getDelivered());
+        Collections.sort(delivered);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            Assert.assertEquals(i, delivered.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testDroppedMessagesDoNotBlockOrderedDelivery() throws InterruptedException {
+        RecordingMessageHandler messageHandler = new RecordingMessageHandler(EVENT_COUNT - EVENT_COUNT / 10, 10);
+        EventMappingWorkerPool workerPool = new EventMappingWorkerPool("testReceiver", -1234, 4, 16, true, messageHandler);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            workerPool.submit(i);
+        }
+        Assert.assertTrue(messageHandler.await());
+        workerPool.shutdown();
+        int index = 0;
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            if (i % 10 != 0) {
+                Assert.assertEquals(i, messageHandler.getDelivered().get(index++).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testOrderPreservedWhenWorkersFinishOutOfOrder() throws InterruptedException {
+        HeldMessageHandler messageHandler = new HeldMessageHandler(4, 0, false);
+        EventMappingWorkerPool workerPool = new EventMappingWorkerPool("testReceiver", -1234, 2, 16, true, messageHandler);
+        for (int i = 0; i < 4; i++) {
+            workerPool.submit(i);
+        }
+        Assert.assertTrue(messageHandler.awaitMapped(3));
+        Thread.sleep(100);
+        Assert.assertTrue("Events mapped after a pending message must wait for it",
+                messageHandler.getDelivered().isEmpty());
+
+        messageHandler.release();
+        Assert.assertTrue(messageHandler.await());
+        workerPool.shutdown();
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), messageHandler.getDelivered());
+    }
+
+    @Test
+    public void testMappingFailureDoesNotStallOrderedDelivery() throws InterruptedException {
+        HeldMessageHandler messageHandler = new HeldMessageHandler(3, 0, true);
+        EventMappingWorkerPool workerPool = new EventMappingWorkerPool("testReceiver", -1234, 2, 4, true, messageHandler);
+        for (int i = 0; i < 4; i++) {
+            workerPool.submit(i);
+        }
+        Assert.assertTrue(messageHandler.awaitMapped(3));
+        messageHandler.release();
+        Assert.assertTrue(messageHandler.await());
+        Assert.assertEquals(Arrays.asList(1, 2, 3), messageHandler.getDelivered());
+
+        // the permit of the failed message is released, so the pool can take a full queue again
+        for (int i = 4; i < 8; i++) {
+            workerPool.submit(i);
+        }
+        workerPool.shutdown();
+    }
+
+    @Test
+    public void testSubmitBlocksAtQueueSize() throws InterruptedException {
+        HeldMessageHandler messageHandler = new HeldMessageHandler(3, 0, false);
+        final EventMappingWorkerPool workerPool =
+                new EventMappingWorkerPool("testReceiver", -1234, 1, 2, true, messageHandler);
+        workerPool.submit(0);
+        workerPool.submit(1);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                workerPool.submit(2);
+            }
+        });
+        producer.start();
+        producer.join(300);
+        Assert.assertTrue("Producer should block while the mapping queue is full", producer.isAlive());
+
+        messageHandler.release();
+        producer.join(10000);
+        Assert.assertFalse(producer.isAlive());
+        Assert.assertTrue(messageHandler.await());
+        workerPool.shutdown();
+        Assert.assertEquals(Arrays.asList(0, 1, 2), messageHandler.getDelivered());
+    }
+
+    @Test
+    public void testRejectedMessagesReleaseQueue() {
+        RecordingMessageHandler messageHandler = new RecordingMessageHandler(0, -1);
+        EventMappingWorkerPool workerPool = new EventMappingWorkerPool("testReceiver", -1234, 1, 1, true, messageHandler);
+        workerPool.shutdown();
+        for (int i = 0; i < 4; i++) {
+            workerPool.submit(i);
+        }
+        Assert.assertTrue(messageHandler.getDelivered().isEmpty());
+    }
+
+    /**
+     * Maps each message after a random pause, failing the messages that are multiples of the drop interval.
+     */
+    private static class RecordingMessageHandler implements EventMappingWorkerPool.MessageHandler {
+        private final List<Integer> delivered = Collections.synchronizedList(new ArrayList<Integer>());
+        private final CountDownLatch latch;
+        private final int dropInterval;
+        private final Random random = new Random(7);
+
+        private RecordingMessageHandler(int expectedCount, int dropInterval) {
+            this.latch = new CountDownLatch(expectedCount);
+            this.dropInterval = dropInterval;
+        }
+
+        @Override
+        public Object map(Object message) {
+            int value = (Integer) message;
+            if (random.nextInt(50) == 0) {
+                Thread.yield();
+            }
+            if (dropInterval > 0 && value % dropInterval == 0) {
+                if (value % (dropInterval * 2) == 0) {
+                    throw new IllegalStateException("Cannot map " + value);
+                }
+                return null;
+            }
+            return new Object[]{value};
+        }
+
+        @Override
+        public void deliver(Object events) {
+            delivered.add((Integer) ((Object[]) events)[0]);
+            latch.countDown();
+        }
+
+        private boolean await() throws InterruptedException {
+            return latch.await(30, TimeUnit.SECONDS);
+        }
+
+        private List<Integer> getDelivered() {
+            return delivered;
+        }
+    }
+
+    /**
+     * Holds the mapping of one message until released, so that the messages after it are mapped first, and
+     * optionally fails that message once released.
+     */
+    private static class HeldMessageHandler implements EventMappingWorkerPool.MessageHandler {
+        private final List<Integer> delivered = Collections.synchronizedList(new ArrayList<Integer>());
+        private final CountDownLatch deliveredLatch;
+        private final CountDownLatch releaseLatch = new CountDownLatch(1);
+        private final AtomicInteger mappedCount = new AtomicInteger();
+        private final int heldMessage;
+        private final boolean failHeldMessage;
+
+        private HeldMessageHandler(int expectedCount, int heldMessage, boolean failHeldMessage) {
+            this.deliveredLatch = new CountDownLatch(expectedCount);
+            this.heldMessage = heldMessage;
+            this.failHeldMessage = failHeldMessage;
+        }
+
+        @Override
+        public Object map(Object message) {
+            int value = (Integer) message;
+            if (value == heldMessage) {
+                try {
+                    releaseLatch.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failHeldMessage) {
+                    throw new IllegalStateException("Cannot map " + value);
+                }
+            } else {
+                mappedCount.incrementAndGet();
+            }
+            return new Object[]{value};
+        }
+
+        @Override
+        public void deliver(Object events) {
+            delivered.add((Integer) ((Object[]) events)[0]);
+            deliveredLatch.countDown();
+        }
+
+        private void release() {
+            releaseLatch.countDown();
+        }
+
+        private boolean awaitMapped(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (mappedCount.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return mappedCount.get() >= count;
+        }
+
+        private boolean await() throws InterruptedException {
+            return deliveredLatch.await(30, TimeUnit.SECONDS);
+        }
+
+        private List<Integer> getDelivered() {
+            return delivered;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.filter;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverConfigurationException;
+
+public class EventFilterTestCase {
+    private StreamDefinition streamDefinition;
+
+    @Before
+    public void init() throws MalformedStreamDefinitionException {
+        streamDefinition = new StreamDefinition("stock", "1.0.0");
+        streamDefinition.addMetaData("tenantId", AttributeType.INT);
+        streamDefinition.addCorrelationData("requestId", AttributeType.LONG);
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+        streamDefinition.addPayloadData("volume", AttributeType.FLOAT);
+        streamDefinition.addPayloadData("isInternal", AttributeType.BOOL);
+    }
+
+    private Object[] event(Integer tenantId, Long requestId, String symbol, Double price, Float volume,
+                           Boolean isInternal) {
+        return new Object[]{tenantId, requestId, symbol, price, volume, isInternal};
+    }
+
+    @Test
+    public void testComparisons() throws EventReceiverConfigurationException {
+        EventFilter filter = EventFilter.compile("meta_tenantId == 1 and price > 100.5 and correlation_requestId <= 20",
+                streamDefinition);
+        Assert.assertTrue(filter.matches(event(1, 20L, "IBM", 101.0, 2.5f, false)));
+        Assert.assertFalse(filter.matches(event(2, 20L, "IBM", 101.0, 2.5f, false)));
+        Assert.assertFalse(filter.matches(event(1, 21L, "IBM", 101.0, 2.5f, false)));
+        Assert.assertFalse(filter.matches(event(1, 20L, "IBM", 100.5, 2.5f, false)));
+        Assert.assertFalse(filter.matches(event(1, 20L, "IBM", null, 2.5f, false)));
+
+        filter = EventFilter.compile("symbol != 'IBM' and symbol >= 'B' and volume < 3", streamDefinition);
+        Assert.assertTrue(filter.matches(event(1, 1L, "WSO2", 1.0, 2.5f, false)));
+        Assert.assertFalse(filter.matches(event(1, 1L, "IBM", 1.0, 2.5f, false)));
+        Assert.assertFalse(filter.matches(event(1, 1L, "ABC", 1.0, 2.5f, false)));
+        Assert.assertFalse(filter.matches(event(1, 1L, "WSO2", 1.0, 3f, false)));
+    }
+
+    @Test
+    public void testInAndLogicalOperators() throws EventReceiverConfigurationException {
+        EventFilter filter = EventFilter.compile("(symbol in ('IBM', 'WSO2') or meta_tenantId in (5, 6)) and not isInternal",
+                streamDefinition);
+        Assert.assertTrue(filter.matches(event(1, 1L, "WSO2", 1.0, 1f, false)));
+        Assert.assertTrue(filter.matches(event(6, 1L, "ORCL", 1.0, 1f, false)));
+        Assert.assertFalse(filter.matches(event(1, 1L, "ORCL", 1.0, 1f, false)));
+        Assert.assertFalse(filter.matches(event(1, 1L, "IBM", 1.0, 1f, true)));
+
+        filter = EventFilter.compile("price not in (1, 2.5) AND isInternal OR symbol == null", streamDefinition);
+        Assert.assertTrue(filter.matches(event(1, 1L, "IBM", 3.0, 1f, true)));
+        Assert.assertFalse(filter.matches(event(1, 1L, "IBM", 2.5, 1f, true)));
+        Assert.assertTrue(filter.matches(event(1, 1L, null, 2.5, 1f, true)));
+
+        filter = EventFilter.compile("symbol = 'it''s'", streamDefinition);
+        Assert.assertTrue(filter.matches(event(1, 1L, "it's", 1.0, 1f, false)));
+    }
+
+    @Test
+    public void testFloatComparedAsFloat() throws EventReceiverConfigurationException {
+        Object[] event = event(1, 1L, "IBM", 1.0, 2.1f, false);
+        Assert.assertTrue(EventFilter.compile("volume == 2.1", streamDefinition).matches(event));
+        Assert.assertTrue(EventFilter.compile("volume >= 2.1", streamDefinition).matches(event));
+        Assert.assertFalse(EventFilter.compile("volume < 2.1", streamDefinition).matches(event));
+        Assert.assertTrue(EventFilter.compile("volume in (2.1)", streamDefinition).matches(event));
+        Assert.assertFalse(EventFilter.compile("price == 2.1", streamDefinition).matches(
+                event(1, 1L, "IBM", (double) 2.1f, 2.1f, false)));
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        String[] expressions = {"unknown == 1", "meta_tenantId == 'one'", "meta_tenantId in (1.5)", "price >",
+                "symbol", "isInternal > true", "price > 1 and", "(price > 1", "symbol == 'IBM", "price > 1 price"};
+        for (String expression : expressions) {
+            try {
+                EventFilter.compile(expression, streamDefinition);
+                Assert.fail("Filter " + expression + " should not compile");
+            } catch (EventReceiverConfigurationException e) {
+                Assert.assertTrue(e.getMessage().contains(expression));
+            }
+        }
+    }
+}
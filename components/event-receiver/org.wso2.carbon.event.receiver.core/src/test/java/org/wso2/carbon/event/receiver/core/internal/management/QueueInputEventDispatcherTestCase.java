@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.management;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.event.stream.core.EventBatchProducerCallback;
+import org.wso2.carbon.event.stream.core.EventProducerCallback;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class QueueInputEventDispatcherTestCase {
+    private static final int EVENT_COUNT = 1000;
+
+    private static Object[] createEvent(int i) {
+        return new Object[]{"host" + i, (long) i, i * 1.5, i % 2 == 0, null};
+    }
+
+    @Test
+    public void testBoundedDispatchInOrder() throws InterruptedException {
+        ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+        final QueueInputEventDispatcher dispatcher = new QueueInputEventDispatcher(-1234, "testReceiver",
+                readWriteLock.readLock(), 8, 4);
+        RecordingCallback callBack = new BatchRecordingCallback(EVENT_COUNT);
+        dispatcher.setCallBack(callBack);
+
+        readWriteLock.writeLock().lock();
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < EVENT_COUNT; i += 10) {
+                    Object[][] events = new Object[10][];
+                    for (int j = 0; j < 10; j++) {
+                        events[j] = createEvent(i + j);
+                    }
+                    dispatcher.onEvents(events);
+                }
+            }
+        });
+        producer.start();
+        producer.join(500);
+        Assert.assertTrue("Producer should block while the queue is full", producer.isAlive());
+        Assert.assertEquals(8, dispatcher.getQueuedEventCount());
+        readWriteLock.writeLock().unlock();
+
+        Assert.assertTrue(callBack.await());
+        producer.join();
+        dispatcher.shutdown();
+        Assert.assertEquals(EVENT_COUNT - 1, dispatcher.getLastDispatchedSequence());
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            Assert.assertArrayEquals(createEvent(i), callBack.getEvents().get(i));
+        }
+        Assert.assertTrue(callBack.getMaxBatchSize() <= 4);
+    }
+
+    @Test
+    public void testSyncState() throws InterruptedException {
+        ReentrantReadWriteLock activeLock = new ReentrantReadWriteLock();
+        QueueInputEventDispatcher activeDispatcher = new QueueInputEventDispatcher(-1234, "testReceiver",
+                activeLock.readLock(), 16, 4);
+        RecordingCallback activeCallBack = new BatchRecordingCallback(6);
+        activeDispatcher.setCallBack(activeCallBack);
+        for (int i = 0; i < 6; i++) {
+            activeDispatcher.onEvent(createEvent(i));
+        }
+        Assert.assertTrue(activeCallBack.await());
+        activeLock.writeLock().lock();
+        byte[] state = activeDispatcher.getState();
+        activeLock.writeLock().unlock();
+        activeDispatcher.shutdown();
+
+        ReentrantReadWriteLock passiveLock = new ReentrantReadWriteLock();
+        QueueInputEventDispatcher passiveDispatcher = new QueueInputEventDispatcher(-1234, "testReceiver",
+                passiveLock.readLock(), 16, 4);
+        RecordingCallback passiveCallBack = new BatchRecordingCallback(4);
+        passiveDispatcher.setCallBack(passiveCallBack);
+        passiveLock.writeLock().lock();
+        for (int i = 3; i < 10; i++) {
+            passiveDispatcher.onEvent(createEvent(i));
+        }
+        passiveDispatcher.syncState(state);
+        Assert.assertEquals(4, passiveDispatcher.getQueuedEventCount());
+        passiveLock.writeLock().unlock();
+
+        Assert.assertTrue(passiveCallBack.await());
+        passiveDispatcher.shutdown();
+        for (int i = 0; i < 4; i++) {
+            Assert.assertArrayEquals(createEvent(6 + i), passiveCallBack.getEvents().get(i));
+        }
+    }
+
+    @Test
+    public void testSyncWithEmptyState() throws InterruptedException {
+        ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+        QueueInputEventDispatcher dispatcher = new QueueInputEventDispatcher(-1234, "testReceiver",
+                readWriteLock.readLock(), 16, 4);
+        byte[] state = dispatcher.getState();
+        readWriteLock.writeLock().lock();
+        dispatcher.onEvent(createEvent(1));
+        dispatcher.syncState(state);
+        Assert.assertEquals(1, dispatcher.getQueuedEventCount());
+        readWriteLock.writeLock().unlock();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testSyncStateWithLongString() throws InterruptedException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 70000; i++) {
+            builder.append((char) ('\u00e0' + i % 16));
+        }
+        Object[] longEvent = new Object[]{builder.toString(), 1L, 1.5, true, null};
+
+        ReentrantReadWriteLock activeLock = new ReentrantReadWriteLock();
+        QueueInputEventDispatcher activeDispatcher = new QueueInputEventDispatcher(-1234, "testReceiver",
+                activeLock.readLock(), 16, 4);
+        RecordingCallback activeCallBack = new BatchRecordingCallback(1);
+        activeDispatcher.setCallBack(activeCallBack);
+        activeDispatcher.onEvent(longEvent);
+        Assert.assertTrue(activeCallBack.await());
+        activeLock.writeLock().lock();
+        byte[] state = activeDispatcher.getState();
+        activeLock.writeLock().unlock();
+        activeDispatcher.shutdown();
+        Assert.assertNotNull(state);
+
+        ReentrantReadWriteLock passiveLock = new ReentrantReadWriteLock();
+        QueueInputEventDispatcher passiveDispatcher = new QueueInputEventDispatcher(-1234, "testReceiver",
+                passiveLock.readLock(), 16, 4);
+        RecordingCallback passiveCallBack = new BatchRecordingCallback(1);
+        passiveDispatcher.setCallBack(passiveCallBack);
+        passiveLock.writeLock().lock();
+        passiveDispatcher.onEvent(longEvent.clone());
+        passiveDispatcher.onEvent(createEvent(1));
+        passiveDispatcher.syncState(state);
+        Assert.assertEquals(1, passiveDispatcher.getQueuedEventCount());
+        passiveLock.writeLock().unlock();
+
+        Assert.assertTrue(passiveCallBack.await());
+        passiveDispatcher.shutdown();
+        Assert.assertArrayEquals(createEvent(1), passiveCallBack.getEvents().get(0));
+    }
+
+    @Test
+    public void testSyncWithUnknownEventKeepsBufferedEvents() throws InterruptedException {
+        ReentrantReadWriteLock activeLock = new ReentrantReadWriteLock();
+        QueueInputEventDispatcher activeDispatcher = new QueueInputEventDispatcher(-1234, "testReceiver",
+                activeLock.readLock(), 16, 4);
+        RecordingCallback activeCallBack = new BatchRecordingCallback(1);
+        activeDispatcher.setCallBack(activeCallBack);
+        activeDispatcher.onEvent(createEvent(20));
+        Assert.assertTrue(activeCallBack.await());
+        byte[] state = activeDispatcher.getState();
+        activeDispatcher.shutdown();
+
+        ReentrantReadWriteLock passiveLock = new ReentrantReadWriteLock();
+        QueueInputEventDispatcher passiveDispatcher = new QueueInputEventDispatcher(-1234, "testReceiver",
+                passiveLock.readLock(), 16, 4);
+        RecordingCallback passiveCallBack = new BatchRecordingCallback(3);
+        passiveDispatcher.setCallBack(passiveCallBack);
+        passiveLock.writeLock().lock();
+        for (int i = 0; i < 3; i++) {
+            passiveDispatcher.onEvent(createEvent(i));
+        }
+        passiveDispatcher.syncState(state);
+        Assert.assertEquals(3, passiveDispatcher.getQueuedEventCount());
+        passiveLock.writeLock().unlock();
+
+        Assert.assertTrue(passiveCallBack.await());
+        passiveDispatcher.shutdown();
+    }
+
+    @Test
+    public void testBatchSentPerEventWithoutBatchCallback() throws InterruptedException {
+        ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+        QueueInputEventDispatcher dispatcher = new QueueInputEventDispatcher(-1234, "testReceiver",
+                readWriteLock.readLock(), 16, 4);
+        RecordingCallback callBack = new RecordingCallback(3);
+        dispatcher.setCallBack(callBack);
+        dispatcher.onEvents(new Object[][]{createEvent(0), createEvent(1), createEvent(2)});
+
+        Assert.assertTrue(callBack.await());
+        dispatcher.shutdown();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertArrayEquals(createEvent(i), callBack.getEvents().get(i));
+        }
+        Assert.assertEquals(1, callBack.getMaxBatchSize());
+    }
+
+    private static class RecordingCallback implements EventProducerCallback {
+        private final List<Object[]> events = Collections.synchronizedList(new ArrayList<Object[]>());
+        private final CountDownLatch latch;
+        protected volatile int maxBatchSize = 0;
+
+        RecordingCallback(int expectedEvents) {
+            this.latch = new CountDownLatch(expectedEvents);
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(10, TimeUnit.SECONDS);
+        }
+
+        List<Object[]> getEvents() {
+            return events;
+        }
+
+        int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        @Override
+        public void sendEventData(Object[] data) {
+            maxBatchSize = Math.max(maxBatchSize, 1);
+            record(data);
+        }
+
+        void record(Object[] data) {
+            events.add(data);
+            latch.countDown();
+        }
+
+        @Override
+        public void sendEvent(Event event) {
+        }
+
+        @Override
+        public void sendEvents(List<Event> events) {
+        }
+
+        @Override
+        public void sendEvents(org.wso2.siddhi.core.event.Event[] events) {
+        }
+    }
+
+    private static class BatchRecordingCallback extends RecordingCallback implements EventBatchProducerCallback {
+
+        BatchRecordingCallback(int expectedEvents) {
+            super(expectedEvents);
+        }
+
+        @Override
+        public void sendEventDataBatch(Object[][] eventDataBatch) {
+            maxBatchSize = Math.max(maxBatchSize, eventDataBatch.length);
+            for (Object[] data : eventDataBatch) {
+                record(data);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.json;
+
+import com.jayway.jsonpath.spi.JsonProvider;
+import com.jayway.jsonpath.spi.JsonProviderFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
+import org.wso2.carbon.event.receiver.core.config.InputMappingAttribute;
+import org.wso2.carbon.event.receiver.core.config.mapping.JSONInputMapping;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverConfigurationException;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JSONInputMapperTestCase {
+    private StreamDefinition streamDefinition;
+
+    @Before
+    public void init() throws MalformedStreamDefinitionException {
+        streamDefinition = new StreamDefinition("stock", "1.0.0");
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+        streamDefinition.addPayloadData("volume", AttributeType.INT);
+    }
+
+    private EventReceiverConfiguration createConfiguration() {
+        JSONInputMapping inputMapping = new JSONInputMapping();
+        inputMapping.setCustomMappingEnabled(true);
+        String[] names = {"symbol", "price", "volume"};
+        AttributeType[] types = {AttributeType.STRING, AttributeType.DOUBLE, AttributeType.INT};
+        for (int i = 0; i < names.length; i++) {
+            InputMappingAttribute inputMappingAttribute = new InputMappingAttribute("$.stock." + names[i], names[i],
+                    types[i]);
+            inputMappingAttribute.setToStreamPosition(i);
+            inputMapping.addInputMappingAttribute(inputMappingAttribute);
+        }
+        EventReceiverConfiguration eventReceiverConfiguration = new EventReceiverConfiguration();
+        eventReceiverConfiguration.setEventReceiverName("jsonReceiver");
+        eventReceiverConfiguration.setToStreamName(streamDefinition.getName());
+        eventReceiverConfiguration.setToStreamVersion(streamDefinition.getVersion());
+        eventReceiverConfiguration.setInputMapping(inputMapping);
+        return eventReceiverConfiguration;
+    }
+
+    @Test
+    public void testMessageParsedOnce() throws EventReceiverConfigurationException,
+                                               EventReceiverProcessingException {
+        final AtomicInteger providerCount = new AtomicInteger();
+        final AtomicInteger parseCount = new AtomicInteger();
+        JSONInputMapper inputMapper = new JSONInputMapper(createConfiguration(), streamDefinition) {
+            @Override
+            JsonProvider createJsonProvider() {
+                providerCount.incrementAndGet();
+                return countParses(JsonProviderFactory.createProvider(), parseCount);
+            }
+        };
+
+        Object[] event = (Object[]) inputMapper.convertToMappedInputEvent(
+                "{\"stock\":{\"symbol\":\"IBM\",\"price\":10.5,\"volume\":100}}");
+        Assert.assertArrayEquals(new Object[]{"IBM", 10.5, 100}, event);
+        Assert.assertEquals(1, parseCount.get());
+
+        Object[][] events = (Object[][]) inputMapper.convertToMappedInputEvent(
+                "[{\"stock\":{\"symbol\":\"IBM\",\"price\":10.5,\"volume\":100}}," +
+                "{\"stock\":{\"symbol\":\"WSO2\",\"price\":20.5,\"volume\":200}}]");
+        Assert.assertEquals(2, events.length);
+        Assert.assertArrayEquals(new Object[]{"IBM", 10.5, 100}, events[0]);
+        Assert.assertArrayEquals(new Object[]{"WSO2", 20.5, 200}, events[1]);
+        Assert.assertEquals(2, parseCount.get());
+        Assert.assertEquals(1, providerCount.get());
+    }
+
+    private static JsonProvider countParses(final JsonProvider jsonProvider, final AtomicInteger parseCount) {
+        return (JsonProvider) Proxy.newProxyInstance(JsonProvider.class.getClassLoader(),
+                new Class[]{JsonProvider.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("parse")) {
+                            parseCount.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(jsonProvider, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.json;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
+
+public class TypedJSONEventReaderTestCase {
+    private static final String EVENT =
+            "{\"event\":{\"metaData\":{\"host\":\"node1\"},\"payloadData\":{\"symbol\":\"IBM\",\"price\":10.5}}}";
+
+    private TypedJSONEventReader reader;
+
+    @Before
+    public void init() throws MalformedStreamDefinitionException {
+        StreamDefinition streamDefinition = new StreamDefinition("stock", "1.0.0");
+        streamDefinition.addMetaData("host", AttributeType.STRING);
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+        reader = new TypedJSONEventReader(streamDefinition);
+    }
+
+    private void assertRejected(String jsonString) {
+        try {
+            reader.read(jsonString);
+            Assert.fail("Expected the message to be rejected: " + jsonString);
+        } catch (EventReceiverProcessingException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReadEvent() throws EventReceiverProcessingException {
+        Assert.assertArrayEquals(new Object[]{"node1", "IBM", 10.5}, (Object[]) reader.read(EVENT));
+        Assert.assertArrayEquals(new Object[]{"node1", "IBM", 10.5}, (Object[]) reader.read(" " + EVENT + "\n"));
+    }
+
+    @Test
+    public void testReadEventArray() throws EventReceiverProcessingException {
+        Object[][] events = (Object[][]) reader.read("[" + EVENT + "," + EVENT.replace("IBM", "WSO2") + "]");
+        Assert.assertEquals(2, events.length);
+        Assert.assertArrayEquals(new Object[]{"node1", "IBM", 10.5}, events[0]);
+        Assert.assertArrayEquals(new Object[]{"node1", "WSO2", 10.5}, events[1]);
+    }
+
+    @Test
+    public void testStructureReadAsString() throws EventReceiverProcessingException {
+        Object[] event = (Object[]) reader.read("{\"event\":{\"metaData\":{\"host\":{\"name\":\"node1\"," +
+                "\"ports\":[9443,1.5,true,null,\"x\"]}},\"payloadData\":{\"symbol\":\"IBM\",\"price\":10.5}}}");
+        Assert.assertEquals("{\"name\":\"node1\",\"ports\":[9443,1.5,true,null,\"x\"]}", event[0]);
+    }
+
+    @Test
+    public void testTrailingContentRejected() {
+        assertRejected(EVENT + EVENT);
+        assertRejected(EVENT + " garbage");
+        assertRejected("[" + EVENT + "]]");
+    }
+
+    @Test
+    public void testMalformedJsonRejected() {
+        assertRejected("{event:{\"metaData\":{\"host\":\"node1\"},\"payloadData\":{\"symbol\":\"IBM\",\"price\":10.5}}}");
+        assertRejected(EVENT.replace("\"IBM\"", "'IBM'"));
+        assertRejected(EVENT.replace("\"price\":10.5", "\"price\":10.5 /* comment */"));
+        assertRejected(EVENT.replace("\"node1\"", "{'name':'node1'}"));
+        assertRejected("[" + EVENT + ",]");
+        assertRejected("\"" + EVENT + "\"");
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
+import org.wso2.carbon.event.receiver.core.config.InputMappingAttribute;
+import org.wso2.carbon.event.receiver.core.config.mapping.MapInputMapping;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverConfigurationException;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MapInputMapperTestCase {
+    private StreamDefinition streamDefinition;
+
+    @Before
+    public void init() throws MalformedStreamDefinitionException {
+        streamDefinition = new StreamDefinition("stock", "1.0.0");
+        streamDefinition.addMetaData("host", AttributeType.STRING);
+        streamDefinition.addCorrelationData("id", AttributeType.LONG);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+        streamDefinition.addPayloadData("volume", AttributeType.INT);
+    }
+
+    private EventReceiverConfiguration createConfiguration(boolean customMappingEnabled, String defaultVolume) {
+        MapInputMapping inputMapping = new MapInputMapping();
+        inputMapping.setCustomMappingEnabled(customMappingEnabled);
+        if (customMappingEnabled) {
+            String[] keys = {"host", "id", "price", "volume"};
+            String[] names = {"meta_host", "correlation_id", "price", "volume"};
+            AttributeType[] types = {AttributeType.STRING, AttributeType.LONG, AttributeType.DOUBLE, AttributeType.INT};
+            for (int i = 0; i < keys.length; i++) {
+                InputMappingAttribute inputMappingAttribute = new InputMappingAttribute(keys[i], names[i], types[i]);
+                inputMappingAttribute.setToStreamPosition(i);
+                if (i == 3) {
+                    inputMappingAttribute.setDefaultValue(defaultVolume);
+                }
+                inputMapping.addInputMappingAttribute(inputMappingAttribute);
+            }
+        }
+        EventReceiverConfiguration eventReceiverConfiguration = new EventReceiverConfiguration();
+        eventReceiverConfiguration.setEventReceiverName("mapReceiver");
+        eventReceiverConfiguration.setToStreamName(streamDefinition.getName());
+        eventReceiverConfiguration.setToStreamVersion(streamDefinition.getVersion());
+        eventReceiverConfiguration.setInputMapping(inputMapping);
+        return eventReceiverConfiguration;
+    }
+
+    private static Map<Object, Object> createEvent(Object host, Object id, Object price, Object volume) {
+        Map<Object, Object> event = new HashMap<Object, Object>();
+        event.put("host", host);
+        event.put("id", id);
+        event.put("price", price);
+        if (volume != null) {
+            event.put("volume", volume);
+        }
+        return event;
+    }
+
+    @Test
+    public void testMappedEventConversion() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        MapInputMapper inputMapper = new MapInputMapper(createConfiguration(true, null), streamDefinition);
+        Object[] event = (Object[]) inputMapper.convertToMappedInputEvent(createEvent("host1", 5, "10.5", 100L));
+        Assert.assertArrayEquals(new Object[]{"host1", 5L, 10.5, 100}, event);
+
+        event = (Object[]) inputMapper.convertToMappedInputEvent(createEvent(7, 5L, 10.5, "bad"));
+        Assert.assertArrayEquals(new Object[]{"7", 5L, 10.5, null}, event);
+    }
+
+    @Test
+    public void testDefaultValue() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        MapInputMapper inputMapper = new MapInputMapper(createConfiguration(true, "20"), streamDefinition);
+        Assert.assertArrayEquals(new Object[]{"host1", 5L, 10.5, 20},
+                (Object[]) inputMapper.convertToMappedInputEvent(createEvent("host1", 5L, 10.5, null)));
+        Assert.assertArrayEquals(new Object[]{"host1", 5L, 10.5, 20},
+                (Object[]) inputMapper.convertToMappedInputEvent(createEvent("host1", 5L, 10.5, "bad")));
+    }
+
+    @Test
+    public void testLossyNarrowingFallsBackToDefault()
+            throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        MapInputMapper inputMapper = new MapInputMapper(createConfiguration(true, "20"), streamDefinition);
+        Assert.assertArrayEquals(new Object[]{"host1", 5L, 10.5, 20},
+                (Object[]) inputMapper.convertToMappedInputEvent(createEvent("host1", 5L, 10.5, 5000000000L)));
+        Assert.assertArrayEquals(new Object[]{"host1", 5L, 10.5, 20},
+                (Object[]) inputMapper.convertToMappedInputEvent(createEvent("host1", 5L, 10.5, 3.7)));
+        Assert.assertArrayEquals(new Object[]{"host1", 5L, 10.5, 3},
+                (Object[]) inputMapper.convertToMappedInputEvent(createEvent("host1", 5L, 10.5, 3.0)));
+    }
+
+    @Test
+    public void testNumberNarrowing() {
+        Assert.assertEquals(-3, MapInputMapper.convertValue(new BigDecimal("-3.00"), AttributeType.INT));
+        Assert.assertEquals(Long.MAX_VALUE, MapInputMapper.convertValue(BigInteger.valueOf(Long.MAX_VALUE),
+                AttributeType.LONG));
+        Assert.assertEquals(1.5f, MapInputMapper.convertValue(1.5, AttributeType.FLOAT));
+        Object[][] lossyValues = {{new BigDecimal("2.5"), AttributeType.LONG},
+                {BigInteger.ONE.shiftLeft(63), AttributeType.LONG}, {9.3e18, AttributeType.LONG},
+                {Double.NaN, AttributeType.INT}, {Double.POSITIVE_INFINITY, AttributeType.LONG},
+                {2.5f, AttributeType.INT}, {1e300, AttributeType.FLOAT}};
+        for (Object[] lossyValue : lossyValues) {
+            try {
+                MapInputMapper.convertValue(lossyValue[0], (AttributeType) lossyValue[1]);
+                Assert.fail(lossyValue[0] + " should not be converted to " + lossyValue[1]);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = EventReceiverConfigurationException.class)
+    public void testInvalidDefaultValue() throws EventReceiverConfigurationException {
+        new MapInputMapper(createConfiguration(true, "twenty"), streamDefinition);
+    }
+
+    @Test
+    public void testMappedEventList() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        MapInputMapper inputMapper = new MapInputMapper(createConfiguration(true, null), streamDefinition);
+        List<Object> events = new ArrayList<Object>();
+        events.add(createEvent("host1", 1L, 1.5, 10));
+        events.add("not a map");
+        events.add(createEvent("host2", 2L, 2.5, 20));
+        Object[][] mappedEvents = (Object[][]) inputMapper.convertToMappedInputEvent(events);
+        Assert.assertEquals(3, mappedEvents.length);
+        Assert.assertArrayEquals(new Object[]{"host1", 1L, 1.5, 10}, mappedEvents[0]);
+        Assert.assertNull(mappedEvents[1]);
+        Assert.assertArrayEquals(new Object[]{"host2", 2L, 2.5, 20}, mappedEvents[2]);
+    }
+
+    @Test
+    public void testTypedEventConversion() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        MapInputMapper inputMapper = new MapInputMapper(createConfiguration(false, null), streamDefinition);
+        Map<Object, Object> event = new HashMap<Object, Object>();
+        event.put("volume", 100);
+        event.put("price", 10.5f);
+        event.put("correlation_id", 5);
+        event.put("meta_host", "host1");
+        Assert.assertArrayEquals(new Object[]{"host1", 5L, 10.5, 100},
+                (Object[]) inputMapper.convertToTypedInputEvent(event));
+
+        event.remove("volume");
+        List<Object> events = new ArrayList<Object>();
+        events.add(event);
+        Object[][] typedEvents = (Object[][]) inputMapper.convertToTypedInputEvent(events);
+        Assert.assertEquals(1, typedEvents.length);
+        Assert.assertNull(typedEvents[0]);
+    }
+
+    @Test(expected = EventReceiverProcessingException.class)
+    public void testTypedEventWithMissingAttribute() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        MapInputMapper inputMapper = new MapInputMapper(createConfiguration(false, null), streamDefinition);
+        Map<Object, Object> event = new HashMap<Object, Object>();
+        event.put("meta_host", "host1");
+        inputMapper.convertToTypedInputEvent(event);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2005 - 2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.text;
+
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
+import org.wso2.carbon.event.receiver.core.config.InputMappingAttribute;
+import org.wso2.carbon.event.receiver.core.config.mapping.TextInputMapping;
+
+/**
+ * Measures the throughput of mapping access log lines with regular expressions through {@link TextInputMapper}.
+ * <p/>
+ * Not a test case, hence not run by the build. Run it from the test classpath with the number of measured
+ * iterations and of lines per iteration as optional arguments, e.g.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=org.wso2.carbon.event.receiver.core.internal.type.text.TextInputMapperBenchmark
+ *     -Dexec.args="10 200000"
+ * </pre>
+ */
+public class TextInputMapperBenchmark {
+
+    private static final String ACCESS_LOG_REGEX =
+            "^\\S+ \\S+ \\S+ \\[([^\\]]+)\\] \"(\\S+) (\\S+) \\S+\" (\\d{3}) (\\S+)";
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+    private static final String[] PATHS = {"/store/apis/list", "/publisher/apis/create", "/store/site/login",
+            "/api/am/store/v0.9/applications?limit=25&offset=0"};
+    private static final int[] STATUSES = {200, 201, 304, 404, 500};
+    private static final int WARM_UP_ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int lineCount = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+        TextInputMapper textInputMapper = new TextInputMapper(createConfiguration(), createStreamDefinition());
+        String[] lines = createAccessLogLines(lineCount);
+        long bytes = 0;
+        for (String line : lines) {
+            bytes += line.length();
+        }
+
+        long checksum = 0;
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            checksum += mapLines(textInputMapper, lines);
+        }
+        long bestNanos = Long.MAX_VALUE;
+        long totalNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long startTime = System.nanoTime();
+            checksum += mapLines(textInputMapper, lines);
+            long elapsedNanos = System.nanoTime() - startTime;
+            bestNanos = Math.min(bestNanos, elapsedNanos);
+            totalNanos += elapsedNanos;
+            System.out.println(String.format("Iteration %d: %.0f lines/s", i + 1,
+                    lineCount * 1e9 / elapsedNanos));
+        }
+        double averageNanos = (double) totalNanos / iterations;
+        System.out.println(String.format("Average: %.0f lines/s, %.1f MB/s, %.2f us/line (best %.0f lines/s)",
+                lineCount * 1e9 / averageNanos, bytes * 1e9 / averageNanos / (1024 * 1024),
+                averageNanos / lineCount / 1000,
+                lineCount * 1e9 / bestNanos));
+        // printed so that the mapping cannot be optimised away
+        System.out.println("Checksum: " + checksum);
+    }
+
+    private static long mapLines(TextInputMapper textInputMapper, String[] lines) throws Exception {
+        long checksum = 0;
+        for (String line : lines) {
+            Object[] attributes = (Object[]) textInputMapper.convertToMappedInputEvent(line);
+            checksum += (Integer) attributes[4];
+        }
+        return checksum;
+    }
+
+    private static String[] createAccessLogLines(int lineCount) {
+        String[] lines = new String[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            lines[i] = "10.100." + (i / 256 % 256) + "." + (i % 256) + " - - [10/Oct/2015:13:" +
+                       String.format("%02d:%02d", i / 60 % 60, i % 60) + " +0530] \"" + METHODS[i % METHODS.length] +
+                       " " + PATHS[i % PATHS.length] + " HTTP/1.1\" " + STATUSES[i % STATUSES.length] + " " +
+                       (i % 10000) + "\r\n";
+        }
+        return lines;
+    }
+
+    private static StreamDefinition createStreamDefinition() throws Exception {
+        StreamDefinition streamDefinition = new StreamDefinition("accessLog", "1.0.0");
+        streamDefinition.addMetaData("host", AttributeType.STRING);
+        streamDefinition.addPayloadData("time", AttributeType.STRING);
+        streamDefinition.addPayloadData("method", AttributeType.STRING);
+        streamDefinition.addPayloadData("path", AttributeType.STRING);
+        streamDefinition.addPayloadData("status", AttributeType.INT);
+        streamDefinition.addPayloadData("size", AttributeType.LONG);
+        return streamDefinition;
+    }
+
+    private static EventReceiverConfiguration createConfiguration() {
+        EventReceiverConfiguration eventReceiverConfiguration = new EventReceiverConfiguration();
+        eventReceiverConfiguration.setToStreamName("accessLog");
+        eventReceiverConfiguration.setToStreamVersion("1.0.0");
+        TextInputMapping textInputMapping = new TextInputMapping();
+        textInputMapping.setCustomMappingEnabled(true);
+        for (String attribute : new String[]{"time", "method", "path"}) {
+            textInputMapping.addInputMappingAttribute(
+                    new InputMappingAttribute(ACCESS_LOG_REGEX, attribute, AttributeType.STRING));
+        }
+        textInputMapping.addInputMappingAttribute(
+                new InputMappingAttribute(ACCESS_LOG_REGEX, "status", AttributeType.INT));
+        textInputMapping.addInputMappingAttribute(
+                new InputMappingAttribute(ACCESS_LOG_REGEX, "size", AttributeType.LONG));
+        textInputMapping.addInputMappingAttribute(
+                new InputMappingAttribute("^(\\S+)", "meta_host", AttributeType.STRING));
+        eventReceiverConfiguration.setInputMapping(textInputMapping);
+        return eventReceiverConfiguration;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2005 - 2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.text;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
+import org.wso2.carbon.event.receiver.core.config.InputMappingAttribute;
+import org.wso2.carbon.event.receiver.core.config.mapping.TextInputMapping;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverConfigurationException;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
+
+public class TextInputMapperTestCase {
+    private static final String ACCESS_LOG_REGEX =
+            "^\\S+ \\S+ \\S+ \\[([^\\]]+)\\] \"(\\S+) (\\S+) \\S+\" (\\d{3}) (\\S+)";
+    private static final String ACCESS_LOG_LINE =
+            "10.100.5.12 - - [10/Oct/2015:13:55:36 +0530] \"GET /store/apis/list HTTP/1.1\" 200 2326";
+
+    private EventReceiverConfiguration textEventReceiverConfig;
+    private StreamDefinition streamDefinition;
+
+    @Before
+    public void init() throws MalformedStreamDefinitionException {
+        streamDefinition = new StreamDefinition("accessLog", "1.0.0");
+        streamDefinition.addMetaData("host", AttributeType.STRING);
+        streamDefinition.addPayloadData("time", AttributeType.STRING);
+        streamDefinition.addPayloadData("method", AttributeType.STRING);
+        streamDefinition.addPayloadData("path", AttributeType.STRING);
+        streamDefinition.addPayloadData("status", AttributeType.INT);
+        streamDefinition.addPayloadData("size", AttributeType.LONG);
+
+        textEventReceiverConfig = new EventReceiverConfiguration();
+        textEventReceiverConfig.setToStreamName("accessLog");
+        textEventReceiverConfig.setToStreamVersion("1.0.0");
+        TextInputMapping textInputMapping = new TextInputMapping();
+        textInputMapping.setCustomMappingEnabled(true);
+        textInputMapping.addInputMappingAttribute(new InputMappingAttribute(ACCESS_LOG_REGEX, "time", AttributeType.STRING));
+        textInputMapping.addInputMappingAttribute(new InputMappingAttribute(ACCESS_LOG_REGEX, "method", AttributeType.STRING));
+        textInputMapping.addInputMappingAttribute(new InputMappingAttribute(ACCESS_LOG_REGEX, "path", AttributeType.STRING));
+        textInputMapping.addInputMappingAttribute(new InputMappingAttribute(ACCESS_LOG_REGEX, "status", AttributeType.INT));
+        textInputMapping.addInputMappingAttribute(new InputMappingAttribute(ACCESS_LOG_REGEX, "size", AttributeType.LONG));
+        textInputMapping.addInputMappingAttribute(new InputMappingAttribute("^(\\S+)", "meta_host", AttributeType.STRING));
+        textEventReceiverConfig.setInputMapping(textInputMapping);
+    }
+
+    @Test
+    public void testAccessLogMapping() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        TextInputMapper textInputMapper = new TextInputMapper(textEventReceiverConfig, streamDefinition);
+        Object[] attributes = (Object[]) textInputMapper.convertToMappedInputEvent(ACCESS_LOG_LINE + "\r\n");
+        Assert.assertArrayEquals(new Object[]{"10.100.5.12", "10/Oct/2015:13:55:36 +0530", "GET", "/store/apis/list",
+                200, 2326L}, attributes);
+    }
+
+    @Test
+    public void testInvalidValueMapping() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        TextInputMapper textInputMapper = new TextInputMapper(textEventReceiverConfig, streamDefinition);
+        Object[] attributes = (Object[]) textInputMapper.convertToMappedInputEvent(ACCESS_LOG_LINE.replace("2326", "-"));
+        Assert.assertEquals(200, attributes[4]);
+        Assert.assertNull("Size is not a number, and hence expected to be sent as null", attributes[5]);
+    }
+
+    @Test
+    public void testTypedEventMapping() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        TextInputMapper textInputMapper = new TextInputMapper(createTypedConfiguration(), streamDefinition);
+        Object[] attributes = (Object[]) textInputMapper.convertToTypedInputEvent(
+                "meta_host:10.100.5.12,time:\"10/Oct/2015:13:55:36 +0530\",method:GET,path:\"/a,\"\"b\"\"\"," +
+                "status:-200,size:2326\r\n");
+        Assert.assertArrayEquals(new Object[]{"10.100.5.12", "10/Oct/2015:13:55:36 +0530", "GET", "/a,\"b\"",
+                -200, 2326L}, attributes);
+
+        attributes = (Object[]) textInputMapper.convertToTypedInputEvent(
+                "size: 10 ,status:404,path:,method:POST,time:now,meta_host:localhost");
+        Assert.assertArrayEquals(new Object[]{"localhost", "now", "POST", "", 404, 10L}, attributes);
+    }
+
+    @Test
+    public void testEventPerLineTypedEventMapping()
+            throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        TextInputMapper textInputMapper = new TextInputMapper(createTypedConfiguration(true), streamDefinition);
+        Object[][] events = (Object[][]) textInputMapper.convertToTypedInputEvent(
+                "meta_host:h1,time:t1,method:GET,path:\"/x\ny\",status:200,size:1\n\n" +
+                "meta_host:h2,time:t2,method:GET,path:/y,status:OK,size:2\r\n" +
+                "meta_host:h3,time:t3,method:PUT,path:/z,status:201,size:3");
+        Assert.assertEquals(3, events.length);
+        Assert.assertArrayEquals(new Object[]{"h1", "t1", "GET", "/x\ny", 200, 1L}, events[0]);
+        Assert.assertNull("Status is not a number, and hence expected to be dropped", events[1]);
+        Assert.assertArrayEquals(new Object[]{"h3", "t3", "PUT", "/z", 201, 3L}, events[2]);
+    }
+
+    @Test
+    public void testMultiLineTypedEventMapping()
+            throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        TextInputMapper textInputMapper = new TextInputMapper(createTypedConfiguration(), streamDefinition);
+        Object[] attributes = (Object[]) textInputMapper.convertToTypedInputEvent(
+                "meta_host:h1,time:t1,method:GET,\npath:/x\ny,status:200,size:1\n");
+        Assert.assertArrayEquals(new Object[]{"h1", "t1", "GET", "/x\ny", 200, 1L}, attributes);
+    }
+
+    @Test(expected = EventReceiverProcessingException.class)
+    public void testTypedEventWithMissingAttribute()
+            throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        TextInputMapper textInputMapper = new TextInputMapper(createTypedConfiguration(), streamDefinition);
+        textInputMapper.convertToTypedInputEvent("meta_host:h1,time:t1,method:GET,path:/x,status:200");
+    }
+
+    private EventReceiverConfiguration createTypedConfiguration() {
+        return createTypedConfiguration(false);
+    }
+
+    private EventReceiverConfiguration createTypedConfiguration(boolean eventPerLineEnabled) {
+        EventReceiverConfiguration eventReceiverConfiguration = new EventReceiverConfiguration();
+        eventReceiverConfiguration.setToStreamName("accessLog");
+        eventReceiverConfiguration.setToStreamVersion("1.0.0");
+        TextInputMapping textInputMapping = new TextInputMapping();
+        textInputMapping.setCustomMappingEnabled(false);
+        textInputMapping.setEventPerLineEnabled(eventPerLineEnabled);
+        eventReceiverConfiguration.setInputMapping(textInputMapping);
+        return eventReceiverConfiguration;
+    }
+
+}
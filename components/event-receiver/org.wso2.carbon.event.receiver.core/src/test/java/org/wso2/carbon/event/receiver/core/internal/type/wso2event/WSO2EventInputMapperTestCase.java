@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.wso2event;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
+import org.wso2.carbon.event.receiver.core.config.InputMappingAttribute;
+import org.wso2.carbon.event.receiver.core.config.mapping.WSO2EventInputMapping;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverConfigurationException;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
+
+import java.util.Collections;
+
+public class WSO2EventInputMapperTestCase {
+    private StreamDefinition streamDefinition;
+
+    @Before
+    public void init() throws MalformedStreamDefinitionException {
+        streamDefinition = new StreamDefinition("stock", "1.0.0");
+        streamDefinition.addMetaData("host", AttributeType.STRING);
+        streamDefinition.addCorrelationData("id", AttributeType.LONG);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+    }
+
+    private EventReceiverConfiguration createConfiguration(boolean customMappingEnabled) {
+        WSO2EventInputMapping inputMapping = new WSO2EventInputMapping();
+        inputMapping.setCustomMappingEnabled(customMappingEnabled);
+        if (customMappingEnabled) {
+            inputMapping.addInputMappingAttribute(new InputMappingAttribute("host", "meta_host", AttributeType.STRING));
+            inputMapping.addInputMappingAttribute(new InputMappingAttribute("id", "correlation_id", AttributeType.LONG));
+            inputMapping.addInputMappingAttribute(new InputMappingAttribute("symbol", "symbol", AttributeType.STRING));
+            inputMapping.addInputMappingAttribute(new InputMappingAttribute("price", "price", AttributeType.DOUBLE));
+        }
+        EventReceiverConfiguration eventReceiverConfiguration = new EventReceiverConfiguration();
+        eventReceiverConfiguration.setEventReceiverName("wso2EventReceiver");
+        eventReceiverConfiguration.setToStreamName(streamDefinition.getName());
+        eventReceiverConfiguration.setToStreamVersion(streamDefinition.getVersion());
+        eventReceiverConfiguration.setInputMapping(inputMapping);
+        return eventReceiverConfiguration;
+    }
+
+    @Test
+    public void testMappedEvent() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        WSO2EventInputMapper inputMapper = new WSO2EventInputMapper(createConfiguration(true), streamDefinition);
+        Event event = new Event(streamDefinition.getStreamId(), 1000, new Object[]{"host1"}, new Object[]{5L},
+                new Object[]{10.5, "IBM"});
+        Assert.assertArrayEquals(new Object[]{"host1", 5L, "IBM", 10.5},
+                (Object[]) inputMapper.convertToMappedInputEvent(event));
+    }
+
+    @Test
+    public void testPassThrough() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        WSO2EventInputMapper inputMapper = new WSO2EventInputMapper(createConfiguration(false), streamDefinition);
+        Event event = new Event(streamDefinition.getStreamId(), 1000, new Object[]{"host1"}, new Object[]{5L},
+                new Object[]{10.5, "IBM"});
+        Assert.assertSame(event, inputMapper.convertToTypedInputEvent(event));
+
+        event = new Event("other:1.0.0", 1000, new Object[]{"host1"}, new Object[]{5L}, new Object[]{10.5, "IBM"});
+        event.setArbitraryDataMap(Collections.singletonMap("key", "value"));
+        Event passedEvent = (Event) inputMapper.convertToTypedInputEvent(event);
+        Assert.assertEquals(streamDefinition.getStreamId(), passedEvent.getStreamId());
+        Assert.assertEquals(1000, passedEvent.getTimeStamp());
+        Assert.assertSame(event.getPayloadData(), passedEvent.getPayloadData());
+        Assert.assertEquals(event.getArbitraryDataMap(), passedEvent.getArbitraryDataMap());
+    }
+
+    @Test
+    public void testIncompleteEventIsFlattened() throws EventReceiverConfigurationException,
+            EventReceiverProcessingException {
+        WSO2EventInputMapper inputMapper = new WSO2EventInputMapper(createConfiguration(false), streamDefinition);
+        Event event = new Event(streamDefinition.getStreamId(), 1000, null, new Object[]{5L},
+                new Object[]{10.5, "IBM"});
+        Assert.assertArrayEquals(new Object[]{5L, 10.5, "IBM"}, (Object[]) inputMapper.convertToTypedInputEvent(event));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2005 - 2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.xml;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
+import org.wso2.carbon.event.receiver.core.config.EventReceiverConstants;
+import org.wso2.carbon.event.receiver.core.config.InputMappingAttribute;
+import org.wso2.carbon.event.receiver.core.config.mapping.XMLInputMapping;
+import org.wso2.carbon.event.receiver.core.config.mapping.XPathDefinition;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverConfigurationException;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class StreamingXMLEventReaderTestCase {
+    private static final String XPATH_NS = "http://ws.cdyne.com/";
+    private static final String XPATH_PREFIX = "quotedata";
+    private static final String STOCK_QUOTE_EVENT = "<quotedata:StockQuoteEvent xmlns:quotedata=\"" + XPATH_NS + "\"" +
+                                                    " exchange=\"NYSE\">" +
+                                                    "<quotedata:StockSymbol>IBM</quotedata:StockSymbol>" +
+                                                    "<quotedata:LastTradeAmount> 101.5 </quotedata:LastTradeAmount>" +
+                                                    "</quotedata:StockQuoteEvent>";
+    private StreamDefinition streamDefinition;
+    private XMLInputMapping xmlInputMapping;
+
+    @Before
+    public void init() throws MalformedStreamDefinitionException {
+        System.setProperty(EventReceiverConstants.XML_STREAMING_MAPPING_PROPERTY, "true");
+        streamDefinition = new StreamDefinition("stockQuotes", "1.0.0");
+        streamDefinition.addMetaData("exchange", AttributeType.STRING);
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+
+        xmlInputMapping = new XMLInputMapping();
+        List<XPathDefinition> xPathDefinitions = new ArrayList<XPathDefinition>();
+        xPathDefinitions.add(new XPathDefinition(XPATH_PREFIX, XPATH_NS));
+        xmlInputMapping.setXPathDefinitions(xPathDefinitions);
+        xmlInputMapping.addInputMappingAttribute(new InputMappingAttribute("//quotedata:StockQuoteEvent/@exchange",
+                "meta_exchange", AttributeType.STRING));
+        xmlInputMapping.addInputMappingAttribute(new InputMappingAttribute(
+                "//quotedata:StockQuoteEvent/quotedata:StockSymbol/text()", "symbol", AttributeType.STRING));
+        xmlInputMapping.addInputMappingAttribute(new InputMappingAttribute("quotedata:LastTradeAmount", "price",
+                AttributeType.DOUBLE));
+    }
+
+    @After
+    public void cleanup() {
+        System.clearProperty(EventReceiverConstants.XML_STREAMING_MAPPING_PROPERTY);
+    }
+
+    private XMLInputMapper createMapper(XMLInputMapping inputMapping) throws EventReceiverConfigurationException {
+        EventReceiverConfiguration eventReceiverConfiguration = new EventReceiverConfiguration();
+        eventReceiverConfiguration.setToStreamName("stockQuotes");
+        eventReceiverConfiguration.setToStreamVersion("1.0.0");
+        eventReceiverConfiguration.setInputMapping(inputMapping);
+        return new XMLInputMapper(eventReceiverConfiguration, streamDefinition);
+    }
+
+    @Test
+    public void testSingleEventMapping() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        Object[] attributes = (Object[]) createMapper(xmlInputMapping).convertToMappedInputEvent(STOCK_QUOTE_EVENT);
+        Assert.assertArrayEquals(new Object[]{"NYSE", "IBM", 101.5}, attributes);
+    }
+
+    @Test
+    public void testMultipleEventMapping() throws EventReceiverConfigurationException,
+            EventReceiverProcessingException {
+        xmlInputMapping.setParentSelectorXpath("//quotes");
+        Object[][] events = (Object[][]) createMapper(xmlInputMapping).convertToMappedInputEvent(
+                "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"><soapenv:Body>" +
+                "<quotes>" + STOCK_QUOTE_EVENT + STOCK_QUOTE_EVENT.replace("IBM", "WSO2").replace("101.5", "INF") +
+                "</quotes></soapenv:Body></soapenv:Envelope>");
+        Assert.assertEquals(2, events.length);
+        Assert.assertArrayEquals(new Object[]{"NYSE", "IBM", 101.5}, events[0]);
+        Assert.assertArrayEquals(new Object[]{"NYSE", "WSO2", Double.POSITIVE_INFINITY}, events[1]);
+    }
+
+    @Test
+    public void testDefaultFormatMapping() throws EventReceiverConfigurationException,
+            EventReceiverProcessingException {
+        XMLInputMapping defaultInputMapping = new XMLInputMapping();
+        defaultInputMapping.setCustomMappingEnabled(false);
+        Object[][] events = (Object[][]) createMapper(defaultInputMapping).convertToTypedInputEvent(
+                "<events><event><metaData><exchange>NYSE</exchange></metaData><payloadData><symbol>IBM</symbol>" +
+                "<price>10</price></payloadData></event><event><metaData><exchange/></metaData><payloadData>" +
+                "<price>+20.5</price><symbol><![CDATA[A&B]]></symbol></payloadData></event></events>");
+        Assert.assertEquals(2, events.length);
+        Assert.assertArrayEquals(new Object[]{"NYSE", "IBM", 10.0}, events[0]);
+        Assert.assertArrayEquals(new Object[]{"", "A&B", 20.5}, events[1]);
+    }
+
+    @Test(expected = EventReceiverProcessingException.class)
+    public void testMissingAttribute() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        createMapper(xmlInputMapping).convertToMappedInputEvent(STOCK_QUOTE_EVENT.replace("LastTradeAmount", "Amount"));
+    }
+
+    @Test
+    public void testObjectModelFallback() throws EventReceiverProcessingException {
+        HashMap<String, String> namespaces = new HashMap<String, String>();
+        String[] expressions = {"//quote/symbol", "price"};
+        AttributeType[] attributeTypes = {AttributeType.STRING, AttributeType.DOUBLE};
+        StreamingXMLEventReader singleEventReader = StreamingXMLEventReader.compile(null,
+                new String[]{"//quote/symbol", "price"}, attributeTypes, new String[2], namespaces);
+        Assert.assertArrayEquals(new Object[]{"IBM", 10.0}, (Object[]) singleEventReader.read(
+                "<quote><symbol>IBM</symbol><price>10</price></quote>"));
+        // nested and mixed content
+        Assert.assertNull(singleEventReader.read("<quote><symbol><name>IBM</name></symbol><price>10</price></quote>"));
+        Assert.assertNull(singleEventReader.read("<quote><symbol>I<b>B</b>M</symbol><price>10</price></quote>"));
+
+        StreamingXMLEventReader eventsReader = StreamingXMLEventReader.compile("//quotes", expressions,
+                attributeTypes, new String[2], namespaces);
+        Assert.assertEquals(2, ((Object[][]) eventsReader.read("<m><quotes><quote><symbol>IBM</symbol>" +
+                "<price>10</price></quote><quote><symbol>WSO2</symbol><price>20</price></quote></quotes></m>")).length);
+        // selected before the parent of the events
+        Assert.assertNull(eventsReader.read("<m><quote><symbol>ALL</symbol></quote><quotes><quote>" +
+                "<symbol>IBM</symbol><price>10</price></quote></quotes></m>"));
+        // not within the event, hence looked up in the rest of the message by the object model
+        Assert.assertNull(eventsReader.read("<m><quotes><quote><price>10</price></quote><quote>" +
+                "<symbol>WSO2</symbol><price>20</price></quote></quotes></m>"));
+
+        // attributes and text nodes are not mapped by the object model, hence always mapped while streaming
+        StreamingXMLEventReader textReader = StreamingXMLEventReader.compile(null,
+                new String[]{"//quote/symbol/text()", "price"}, attributeTypes, new String[2], namespaces);
+        Assert.assertArrayEquals(new Object[]{"IM", 10.0}, (Object[]) textReader.read(
+                "<quote><symbol>I<b>B</b>M</symbol><price>10</price></quote>"));
+    }
+
+    @Test
+    public void testUnsupportedXPath() {
+        HashMap<String, String> namespaces = new HashMap<String, String>();
+        namespaces.put(XPATH_PREFIX, XPATH_NS);
+        String[] defaultValues = new String[1];
+        AttributeType[] attributeTypes = {AttributeType.STRING};
+        Assert.assertNotNull(StreamingXMLEventReader.compile(null, new String[]{"/quotedata:a/*/@b"},
+                attributeTypes, defaultValues, namespaces));
+        Assert.assertNull(StreamingXMLEventReader.compile(null, new String[]{"//quotedata:a[1]"},
+                attributeTypes, defaultValues, namespaces));
+        Assert.assertNull(StreamingXMLEventReader.compile(null, new String[]{"//unknown:a"},
+                attributeTypes, defaultValues, namespaces));
+        Assert.assertNull(StreamingXMLEventReader.compile(null, new String[]{"//a/../b"},
+                attributeTypes, defaultValues, namespaces));
+    }
+
+}
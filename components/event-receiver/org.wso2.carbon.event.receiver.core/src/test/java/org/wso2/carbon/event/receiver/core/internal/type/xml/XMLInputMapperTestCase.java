@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2005 - 2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.receiver.core.internal.type.xml;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+import org.wso2.carbon.event.receiver.core.config.EventReceiverConfiguration;
+import org.wso2.carbon.event.receiver.core.config.EventReceiverConstants;
+import org.wso2.carbon.event.receiver.core.config.InputMappingAttribute;
+import org.wso2.carbon.event.receiver.core.config.mapping.XMLInputMapping;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverConfigurationException;
+import org.wso2.carbon.event.receiver.core.exception.EventReceiverProcessingException;
+
+import java.util.Arrays;
+
+/**
+ * Maps the same messages with the object model and in a single streaming pass, expecting the same outcome.
+ */
+public class XMLInputMapperTestCase {
+    private static final String NOT_MAPPED = "not mapped";
+    private static final String QUOTE = "<quote><symbol>IBM</symbol><price>10.5</price><volume>100</volume></quote>";
+    private static final String[] SINGLE_EVENTS = {
+            QUOTE,
+            "<quote><volume>100</volume><price> 10.5 </price><symbol>IBM</symbol></quote>",
+            "<quote><symbol><![CDATA[A&B]]> </symbol><price>10.5</price><volume>100</volume></quote>",
+            "<quote><symbol/><price>10.5</price><volume>100</volume></quote>",
+            // nested and mixed content
+            "<quote><symbol><name>IBM</name></symbol><price>10.5</price><volume>100</volume></quote>",
+            "<quote><symbol>I<b>B</b>M</symbol><price>10.5</price><volume>100</volume></quote>",
+            "<quote><symbol>IBM</symbol><price>1<b>0</b></price><volume>100</volume></quote>",
+            "<message><quote><symbol>IBM</symbol><price>10.5</price></quote><volume>100</volume></message>",
+            // missing and invalid values
+            "<quote><symbol>IBM</symbol><volume>100</volume></quote>",
+            "<quote><symbol>IBM</symbol><price>ten</price><volume>100</volume></quote>"
+    };
+    private static final String[] MULTIPLE_EVENTS = {
+            "<message><quotes>" + QUOTE + QUOTE.replace("IBM", "WSO2") + "</quotes></message>",
+            "<quotes>" + QUOTE + "<quote><symbol>WSO2</symbol><price>20</price><volume>5</volume></quote></quotes>",
+            // selected before the parent of the events
+            "<message><header>" + QUOTE.replace("IBM", "ALL") + "</header><quotes>" + QUOTE + "</quotes></message>",
+            // nested and mixed content
+            "<quotes><quote><symbol><name>IBM</name></symbol><price>10.5</price><volume>100</volume></quote>" +
+            QUOTE + "</quotes>",
+            "<quotes><quote><symbol>I<b>B</b>M</symbol><price>10.5</price><volume>100</volume></quote></quotes>",
+            // an event without a value, found elsewhere in the message by the object model
+            "<quotes><quote><price>10.5</price><volume>100</volume></quote>" + QUOTE.replace("IBM", "WSO2") +
+            "</quotes>",
+            "<quotes><quote><symbol>IBM</symbol><volume>100</volume></quote>" + QUOTE + "</quotes>",
+            "<message><header/></message>"
+    };
+
+    private StreamDefinition streamDefinition;
+    private XMLInputMapping xmlInputMapping;
+
+    @Before
+    public void init() throws MalformedStreamDefinitionException {
+        streamDefinition = new StreamDefinition("stockQuotes", "1.0.0");
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+        streamDefinition.addPayloadData("volume", AttributeType.LONG);
+
+        xmlInputMapping = new XMLInputMapping();
+        xmlInputMapping.addInputMappingAttribute(new InputMappingAttribute("//quote/symbol", "symbol",
+                AttributeType.STRING));
+        xmlInputMapping.addInputMappingAttribute(new InputMappingAttribute("//price", "price", AttributeType.DOUBLE));
+        xmlInputMapping.addInputMappingAttribute(new InputMappingAttribute("volume", "volume", AttributeType.LONG));
+    }
+
+    private XMLInputMapper createMapper(boolean streaming) throws EventReceiverConfigurationException {
+        EventReceiverConfiguration eventReceiverConfiguration = new EventReceiverConfiguration();
+        eventReceiverConfiguration.setToStreamName("stockQuotes");
+        eventReceiverConfiguration.setToStreamVersion("1.0.0");
+        eventReceiverConfiguration.setInputMapping(xmlInputMapping);
+        System.setProperty(EventReceiverConstants.XML_STREAMING_MAPPING_PROPERTY, Boolean.toString(streaming));
+        try {
+            return new XMLInputMapper(eventReceiverConfiguration, streamDefinition);
+        } finally {
+            System.clearProperty(EventReceiverConstants.XML_STREAMING_MAPPING_PROPERTY);
+        }
+    }
+
+    /**
+     * @return the mapped event or events, or a marker when the message cannot be mapped
+     */
+    private static Object map(XMLInputMapper xmlInputMapper, String xml) {
+        try {
+            return xmlInputMapper.convertToMappedInputEvent(xml);
+        } catch (EventReceiverProcessingException e) {
+            return NOT_MAPPED;
+        } catch (RuntimeException e) {
+            return NOT_MAPPED;
+        }
+    }
+
+    private void assertSameMapping(String[] messages) throws EventReceiverConfigurationException {
+        XMLInputMapper objectModelMapper = createMapper(false);
+        XMLInputMapper streamingMapper = createMapper(true);
+        for (String message : messages) {
+            Object[] objectModelOutcome = {map(objectModelMapper, message)};
+            Object[] streamingOutcome = {map(streamingMapper, message)};
+            Assert.assertTrue("Mapped " + message + " to " + Arrays.deepToString(streamingOutcome) +
+                              " while streaming, instead of " + Arrays.deepToString(objectModelOutcome),
+                    Arrays.deepEquals(objectModelOutcome, streamingOutcome));
+        }
+    }
+
+    @Test
+    public void testSingleEventMapping() throws EventReceiverConfigurationException, EventReceiverProcessingException {
+        Assert.assertArrayEquals(new Object[]{"IBM", 10.5, 100L},
+                (Object[]) createMapper(true).convertToMappedInputEvent(QUOTE));
+        assertSameMapping(SINGLE_EVENTS);
+    }
+
+    @Test
+    public void testMultipleEventMapping() throws EventReceiverConfigurationException,
+            EventReceiverProcessingException {
+        xmlInputMapping.setParentSelectorXpath("//quotes");
+        Object[][] events = (Object[][]) createMapper(true).convertToMappedInputEvent(MULTIPLE_EVENTS[0]);
+        Assert.assertEquals(2, events.length);
+        Assert.assertArrayEquals(new Object[]{"WSO2", 10.5, 100L}, events[1]);
+        assertSameMapping(MULTIPLE_EVENTS);
+    }
+}
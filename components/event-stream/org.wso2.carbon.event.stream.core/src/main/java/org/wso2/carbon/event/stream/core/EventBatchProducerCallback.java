@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core;
+
+/**
+ * An event producer callback that also accepts events in batches. Producers check for this interface and send the
+ * events of a batch one at a time through {@link EventProducerCallback} when a callback does not implement it.
+ */
+public interface EventBatchProducerCallback extends EventProducerCallback {
+
+    /**
+     * Sends a batch of events in the flattened meta, correlation and payload attribute form, which reaches the
+     * consumers as one batch.
+     *
+     * @param eventDataBatch attribute arrays of the events
+     */
+    public void sendEventDataBatch(Object[][] eventDataBatch);
+
+}
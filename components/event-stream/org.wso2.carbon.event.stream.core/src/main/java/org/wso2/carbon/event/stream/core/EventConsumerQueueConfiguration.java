@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core;
+
+/**
+ * Configuration of the bounded queue through which the event junction hands events over to a consumer,
+ * when the consumer is isolated from the thread of the producer.
+ */
+public class EventConsumerQueueConfiguration {
+
+    /**
+     * What the junction does when the queue of a consumer is full.
+     */
+    public enum FullQueuePolicy {
+        /**
+         * wait until the consumer frees space, hence slowing down the producer
+         */
+        BLOCK,
+        /**
+         * drop the incoming events
+         */
+        DROP,
+        /**
+         * drop the oldest queued events to make space for the incoming events
+         */
+        DROP_OLDEST
+    }
+
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private FullQueuePolicy fullQueuePolicy = FullQueuePolicy.BLOCK;
+
+    public EventConsumerQueueConfiguration() {
+    }
+
+    public EventConsumerQueueConfiguration(int queueSize, FullQueuePolicy fullQueuePolicy) {
+        this.queueSize = queueSize;
+        this.fullQueuePolicy = fullQueuePolicy;
+    }
+
+    /**
+     * @return number of events the queue holds, where a batch counts as many events as it carries
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public FullQueuePolicy getFullQueuePolicy() {
+        return fullQueuePolicy;
+    }
+
+    public void setFullQueuePolicy(FullQueuePolicy fullQueuePolicy) {
+        this.fullQueuePolicy = fullQueuePolicy;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core;
+
+/**
+ * Configuration of a local load run, in which sample events of a stream are generated and published to the stream
+ * to benchmark the deployed pipeline consuming it (see {@link EventStreamService#generateLoad}).
+ * <p/>
+ * The run stops once the configured number of events are published or the configured duration elapses, whichever
+ * comes first.
+ */
+public class EventLoadConfiguration {
+
+    /**
+     * How the values of the numeric and string attributes of the generated events are distributed.
+     */
+    public enum ValueDistribution {
+        /**
+         * values picked from the fixed sample values used for the sample events
+         */
+        SAMPLE,
+        /**
+         * values picked uniformly at random between the minimum and the maximum value
+         */
+        UNIFORM,
+        /**
+         * values increasing from the minimum value, wrapping around at the maximum value
+         */
+        SEQUENTIAL
+    }
+
+    public static final int DEFAULT_EVENT_COUNT = 100000;
+    public static final int DEFAULT_PREBUILT_EVENT_COUNT = 1024;
+
+    private long eventCount = DEFAULT_EVENT_COUNT;
+    private long durationMillis = 0;
+    private int eventsPerSecond = 0;
+    private int publisherCount = 1;
+    private int prebuiltEventCount = DEFAULT_PREBUILT_EVENT_COUNT;
+    private ValueDistribution valueDistribution = ValueDistribution.UNIFORM;
+    private long minValue = 0;
+    private long maxValue = 1000;
+    private int stringCardinality = 100;
+
+    public EventLoadConfiguration() {
+    }
+
+    public EventLoadConfiguration(long eventCount, int eventsPerSecond) {
+        this.eventCount = eventCount;
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @param eventCount number of events to publish, or 0 to publish until the duration elapses
+     */
+    public void setEventCount(long eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @param durationMillis maximum duration of the run in milliseconds, or 0 to run until the events are published
+     */
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public int getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    /**
+     * @param eventsPerSecond target rate across all the publishers, or 0 to publish as fast as possible
+     */
+    public void setEventsPerSecond(int eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    public int getPublisherCount() {
+        return publisherCount;
+    }
+
+    /**
+     * @param publisherCount number of threads publishing concurrently
+     */
+    public void setPublisherCount(int publisherCount) {
+        this.publisherCount = publisherCount;
+    }
+
+    public int getPrebuiltEventCount() {
+        return prebuiltEventCount;
+    }
+
+    /**
+     * @param prebuiltEventCount number of distinct events generated before the run, which are published in turns
+     *                           so that generating values does not add to the measured cost
+     */
+    public void setPrebuiltEventCount(int prebuiltEventCount) {
+        this.prebuiltEventCount = prebuiltEventCount;
+    }
+
+    public ValueDistribution getValueDistribution() {
+        return valueDistribution;
+    }
+
+    public void setValueDistribution(ValueDistribution valueDistribution) {
+        this.valueDistribution = valueDistribution;
+    }
+
+    public long getMinValue() {
+        return minValue;
+    }
+
+    public void setMinValue(long minValue) {
+        this.minValue = minValue;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    public void setMaxValue(long maxValue) {
+        this.maxValue = maxValue;
+    }
+
+    public int getStringCardinality() {
+        return stringCardinality;
+    }
+
+    /**
+     * @param stringCardinality number of distinct values generated for each string attribute
+     */
+    public void setStringCardinality(int stringCardinality) {
+        this.stringCardinality = stringCardinality;
+    }
+}
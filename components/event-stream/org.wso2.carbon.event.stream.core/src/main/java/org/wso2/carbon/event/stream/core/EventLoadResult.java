@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core;
+
+/**
+ * Outcome of a local load run (see {@link EventStreamService#generateLoad}). Latencies are the time from which each
+ * event was due to be sent, at the target rate, until the junction accepted it, which includes delivering it to the
+ * consumers running on the thread of the publisher, but not the processing done after the event is handed over to
+ * a consumer queue.
+ */
+public class EventLoadResult {
+
+    private final String streamId;
+    private final long publishedEventCount;
+    private final long failedEventCount;
+    private final long elapsedMillis;
+    private final double averageLatencyMicros;
+    private final long medianLatencyMicros;
+    private final long p99LatencyMicros;
+    private final long maxLatencyMicros;
+
+    public EventLoadResult(String streamId, long publishedEventCount, long failedEventCount, long elapsedMillis,
+                           double averageLatencyMicros, long medianLatencyMicros, long p99LatencyMicros,
+                           long maxLatencyMicros) {
+        this.streamId = streamId;
+        this.publishedEventCount = publishedEventCount;
+        this.failedEventCount = failedEventCount;
+        this.elapsedMillis = elapsedMillis;
+        this.averageLatencyMicros = averageLatencyMicros;
+        this.medianLatencyMicros = medianLatencyMicros;
+        this.p99LatencyMicros = p99LatencyMicros;
+        this.maxLatencyMicros = maxLatencyMicros;
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public long getPublishedEventCount() {
+        return publishedEventCount;
+    }
+
+    public long getFailedEventCount() {
+        return failedEventCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return events published per second over the run
+     */
+    public double getThroughput() {
+        return publishedEventCount * 1000.0 / Math.max(elapsedMillis, 1);
+    }
+
+    public double getAverageLatencyMicros() {
+        return averageLatencyMicros;
+    }
+
+    public long getMedianLatencyMicros() {
+        return medianLatencyMicros;
+    }
+
+    public long getP99LatencyMicros() {
+        return p99LatencyMicros;
+    }
+
+    public long getMaxLatencyMicros() {
+        return maxLatencyMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "EventLoadResult{" +
+               "streamId='" + streamId + '\'' +
+               ", publishedEventCount=" + publishedEventCount +
+               ", failedEventCount=" + failedEventCount +
+               ", elapsedMillis=" + elapsedMillis +
+               ", throughput=" + String.format("%.1f", getThroughput()) +
+               ", averageLatencyMicros=" + String.format("%.1f", averageLatencyMicros) +
+               ", medianLatencyMicros=" + medianLatencyMicros +
+               ", p99LatencyMicros=" + p99LatencyMicros +
+               ", maxLatencyMicros=" + maxLatencyMicros +
+               '}';
+    }
+}
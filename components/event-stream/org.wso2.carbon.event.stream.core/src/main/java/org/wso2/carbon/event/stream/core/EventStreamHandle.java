@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core;
+
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.List;
+
+/**
+ * A stream of a tenant resolved once through {@link EventStreamService#getEventStreamHandle(String)}, which
+ * producers can keep and publish to without resolving the tenant and the stream for each event.
+ * <p/>
+ * The handle is invalidated when the stream is removed, after which events published to it are dropped and a
+ * new handle needs to be obtained.
+ */
+public interface EventStreamHandle {
+
+    public String getStreamId();
+
+    public int getTenantId();
+
+    public boolean isValid();
+
+    public void publish(Event event);
+
+    public void publish(List<Event> events);
+
+}
@@ -19,6 +19,7 @@ import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.event.stream.core.exception.EventStreamConfigurationException;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 public interface EventStreamService {
 
@@ -75,6 +76,19 @@ public interface EventStreamService {
     public String generateSampleEvent(String streamId, String eventType)
             throws EventStreamConfigurationException;
 
+    /**
+     * Starts publishing sample events of the stream locally as configured, to benchmark the deployed pipeline
+     * consuming the stream. The events are published from threads of their own, so this returns at once.
+     *
+     * @param streamId      id of a stream of the tenant of the caller
+     * @param configuration number, rate and value distribution of the events to publish
+     * @return the achieved throughput and the time taken to publish the events once the run completes, where
+     * cancelling the future stops the run
+     * @throws EventStreamConfigurationException if the stream is not configured for the tenant
+     */
+    public Future<EventLoadResult> generateLoad(String streamId, EventLoadConfiguration configuration)
+            throws EventStreamConfigurationException;
+
     public void subscribe(SiddhiEventConsumer siddhiEventConsumer) throws EventStreamConfigurationException;
 
     public void subscribe(RawEventConsumer rawEventConsumer) throws EventStreamConfigurationException;
@@ -85,6 +99,25 @@ public interface EventStreamService {
 
     public void subscribe(WSO2EventListConsumer wso2EventListConsumer) throws EventStreamConfigurationException;
 
+    /**
+     * Subscribes the consumer after replaying to it the events of the stream retained since the given time, so that
+     * the consumer receives each event once and in order, from the replayed events on to the live ones. Events are
+     * only retained for the streams having a replay retention size configured.
+     *
+     * @param siddhiEventConsumer consumer to be subscribed
+     * @param fromTime            time in milliseconds from which to replay
+     * @throws EventStreamConfigurationException if the stream is not configured for the tenant
+     */
+    public void subscribe(SiddhiEventConsumer siddhiEventConsumer, long fromTime)
+            throws EventStreamConfigurationException;
+
+    public void subscribe(RawEventConsumer rawEventConsumer, long fromTime) throws EventStreamConfigurationException;
+
+    public void subscribe(WSO2EventConsumer wso2EventConsumer, long fromTime) throws EventStreamConfigurationException;
+
+    public void subscribe(WSO2EventListConsumer wso2EventListConsumer, long fromTime)
+            throws EventStreamConfigurationException;
+
     public void unsubscribe(SiddhiEventConsumer siddhiEventConsumer);
 
     public void unsubscribe(RawEventConsumer rawEventConsumer);
@@ -97,4 +130,11 @@ public interface EventStreamService {
 
     public void publish(Event event);
 
+    /**
+     * @param streamId id of a stream of the tenant of the caller
+     * @return handle of the stream, which can be kept and published to directly until the stream is removed
+     * @throws EventStreamConfigurationException if the stream is not configured for the tenant
+     */
+    public EventStreamHandle getEventStreamHandle(String streamId) throws EventStreamConfigurationException;
+
 }
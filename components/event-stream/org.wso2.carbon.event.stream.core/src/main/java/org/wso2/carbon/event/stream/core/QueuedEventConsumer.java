@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core;
+
+/**
+ * Event consumers (Siddhi, raw, WSO2Event or WSO2Event list consumers) which also implement this interface are
+ * not called on the thread of the producer. The junction hands the events over to a bounded queue of the consumer,
+ * which is drained by a worker of its own, so that a slow consumer does not hold back the other consumers.
+ */
+public interface QueuedEventConsumer {
+
+    /**
+     * @return the queue configuration of the consumer, or null to use the configuration of the stream, where
+     * the consumer is called on the thread of the producer if the stream does not configure consumer queues
+     */
+    public EventConsumerQueueConfiguration getQueueConfiguration();
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core;
+
+
+/**
+ * Represents event sinks that can fetch events from the junction as batches. The junction hands over the
+ * events it receives together as a single batch, instead of calling consumeEventData once per event.
+ */
+public interface RawEventBatchConsumer extends RawEventConsumer {
+
+    /**
+     * This method will be triggered whenever the junction receives a batch of events
+     *
+     * @param eventDataBatch the event data of the events in the batch, in the order they were received
+     */
+    public void consumeEventDataBatch(Object[][] eventDataBatch);
+
+}
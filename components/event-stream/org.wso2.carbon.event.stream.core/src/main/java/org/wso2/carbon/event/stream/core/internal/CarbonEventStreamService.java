@@ -27,6 +27,7 @@ import org.wso2.carbon.event.stream.core.*;
 import org.wso2.carbon.event.stream.core.exception.EventStreamConfigurationException;
 import org.wso2.carbon.event.stream.core.exception.StreamDefinitionAlreadyDefinedException;
 import org.wso2.carbon.event.stream.core.internal.ds.EventStreamServiceValueHolder;
+import org.wso2.carbon.event.stream.core.internal.load.EventLoadGenerator;
 import org.wso2.carbon.event.stream.core.internal.util.EventStreamConstants;
 import org.wso2.carbon.event.stream.core.internal.util.SampleEventGenerator;
 import org.wso2.carbon.event.stream.core.internal.util.helper.EventStreamConfigurationFileSystemInvoker;
@@ -34,6 +35,7 @@ import org.wso2.carbon.event.stream.core.internal.util.helper.EventStreamConfigu
 import java.io.File;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 public class CarbonEventStreamService implements EventStreamService {
 
@@ -248,6 +250,17 @@ public class CarbonEventStreamService implements EventStreamService {
         return null;
     }
 
+    @Override
+    public Future<EventLoadResult> generateLoad(String streamId, EventLoadConfiguration configuration)
+            throws EventStreamConfigurationException {
+        StreamDefinition streamDefinition = getStreamDefinition(streamId);
+        if (streamDefinition == null) {
+            throw new EventStreamConfigurationException("No event stream exists with id " + streamId);
+        }
+        EventStreamHandle eventStreamHandle = getEventStreamHandle(streamId);
+        return new EventLoadGenerator(eventStreamHandle, streamDefinition, configuration).start();
+    }
+
     @Override
     public void subscribe(SiddhiEventConsumer siddhiEventConsumer) throws EventStreamConfigurationException {
         EventStreamServiceValueHolder.getEventStreamRuntime().subscribe(siddhiEventConsumer);
@@ -273,6 +286,28 @@ public class CarbonEventStreamService implements EventStreamService {
         EventStreamServiceValueHolder.getEventStreamRuntime().subscribe(wso2EventListConsumer);
     }
 
+    @Override
+    public void subscribe(SiddhiEventConsumer siddhiEventConsumer, long fromTime)
+            throws EventStreamConfigurationException {
+        EventStreamServiceValueHolder.getEventStreamRuntime().subscribe(siddhiEventConsumer, fromTime);
+    }
+
+    @Override
+    public void subscribe(RawEventConsumer rawEventConsumer, long fromTime) throws EventStreamConfigurationException {
+        EventStreamServiceValueHolder.getEventStreamRuntime().subscribe(rawEventConsumer, fromTime);
+    }
+
+    @Override
+    public void subscribe(WSO2EventConsumer wso2EventConsumer, long fromTime) throws EventStreamConfigurationException {
+        EventStreamServiceValueHolder.getEventStreamRuntime().subscribe(wso2EventConsumer, fromTime);
+    }
+
+    @Override
+    public void subscribe(WSO2EventListConsumer wso2EventListConsumer, long fromTime)
+            throws EventStreamConfigurationException {
+        EventStreamServiceValueHolder.getEventStreamRuntime().subscribe(wso2EventListConsumer, fromTime);
+    }
+
     @Override
     public void unsubscribe(SiddhiEventConsumer siddhiEventConsumer) {
         EventStreamServiceValueHolder.getEventStreamRuntime().unsubscribe(siddhiEventConsumer);
@@ -303,6 +338,11 @@ public class CarbonEventStreamService implements EventStreamService {
         EventStreamServiceValueHolder.getEventStreamRuntime().publish(event.getStreamId(), event);
     }
 
+    @Override
+    public EventStreamHandle getEventStreamHandle(String streamId) throws EventStreamConfigurationException {
+        return EventStreamServiceValueHolder.getEventStreamRuntime().getEventStreamHandle(streamId);
+    }
+
 
     public boolean isEventStreamExist(String eventStreamFileName) {
         int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
@@ -19,16 +19,31 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.event.stream.core.*;
+import org.wso2.carbon.event.stream.core.internal.queue.AbstractQueuedEventConsumer;
+import org.wso2.carbon.event.stream.core.internal.queue.EventConsumerQueue;
+import org.wso2.carbon.event.stream.core.internal.queue.QueuedRawEventConsumer;
+import org.wso2.carbon.event.stream.core.internal.queue.QueuedSiddhiEventConsumer;
+import org.wso2.carbon.event.stream.core.internal.queue.QueuedWSO2EventConsumer;
+import org.wso2.carbon.event.stream.core.internal.queue.QueuedWSO2EventListConsumer;
+import org.wso2.carbon.event.stream.core.internal.replay.EventReplayRing;
+import org.wso2.carbon.event.stream.core.internal.statistics.EventStreamStatistics;
 import org.wso2.carbon.event.stream.core.internal.util.EventConverter;
+import org.wso2.carbon.event.stream.core.internal.util.EventStreamConstants;
+import org.wso2.carbon.event.stream.core.internal.util.FanOutExecutor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Acts as the pass through point for a given stream. Does not distinguish between input and output streams.
  */
-public class EventJunction implements EventProducerCallback {
+public class EventJunction implements EventBatchProducerCallback {
 
     private static final Log log = LogFactory.getLog(EventJunction.class);
 
@@ -37,12 +52,6 @@ public class EventJunction implements EventProducerCallback {
       */
     private StreamDefinition streamDefinition;
 
-    private boolean metaFlag = false;
-    private boolean correlationFlag = false;
-    private boolean payloadFlag = false;
-    private int attributesCount;
-
-
     /*
      holding the producers this junction is subscribed to.
      incoming events can be from both event builders and siddhi runtimes
@@ -58,6 +67,48 @@ public class EventJunction implements EventProducerCallback {
     private CopyOnWriteArrayList<WSO2EventConsumer> wso2EventConsumers;
     private CopyOnWriteArrayList<WSO2EventListConsumer> wso2EventListConsumers;
 
+    /*
+    consumers isolated through queues, mapped to the queued consumers added to the above lists in their place.
+     */
+    private ConcurrentHashMap<Object, AbstractQueuedEventConsumer> queuedConsumers;
+    private EventConsumerQueueConfiguration queueConfiguration;
+
+    /*
+    maximum number of consumers an event is delivered to in parallel, where 1 delivers to them one after the other.
+     */
+    private volatile int fanOutParallelism;
+
+    /*
+    statistics of the events flowing through the junction, null when statistics are disabled for the stream.
+     */
+    private volatile EventStreamStatistics statistics;
+
+    /*
+    latest events of the stream retained off-heap for consumers to re-read, null when replay is disabled.
+     */
+    private volatile EventReplayRing replayRing;
+
+    /*
+    held by the producers while retaining and dispatching events, and exclusively while attaching a consumer
+    after replaying the retained events to it, so that it misses no event and receives none twice.
+     */
+    private final ReentrantReadWriteLock replayFence = new ReentrantReadWriteLock();
+
+    /*
+    number of events dispatched without being retained for replay, as they could not be recorded.
+     */
+    private final AtomicLong unretainedEventCount = new AtomicLong();
+
+    /*
+    deliveries of the fan-out in progress on each producer thread, reused from one event to the next.
+     */
+    private final ThreadLocal<JunctionFanOut> fanOuts = new ThreadLocal<JunctionFanOut>() {
+        @Override
+        protected JunctionFanOut initialValue() {
+            return new JunctionFanOut();
+        }
+    };
+
     public EventJunction(StreamDefinition streamDefinition) {
         this.streamDefinition = streamDefinition;
         this.producers = new CopyOnWriteArrayList<EventProducer>();
@@ -65,67 +116,449 @@ public class EventJunction implements EventProducerCallback {
         this.siddhiEventConsumers = new CopyOnWriteArrayList<SiddhiEventConsumer>();
         this.wso2EventConsumers = new CopyOnWriteArrayList<WSO2EventConsumer>();
         this.wso2EventListConsumers = new CopyOnWriteArrayList<WSO2EventListConsumer>();
-        populateEventTemplate(streamDefinition);
+        this.queuedConsumers = new ConcurrentHashMap<Object, AbstractQueuedEventConsumer>();
+        this.queueConfiguration = getStreamQueueConfiguration(streamDefinition.getStreamId());
+        this.fanOutParallelism = getStreamFanOutParallelism(streamDefinition.getStreamId());
+        setReplayRetentionSize(getStreamReplayRetentionSize(streamDefinition.getStreamId()));
+    }
+
+    /**
+     * Sets the queue configuration used for the consumers added hereafter, which do not provide a queue
+     * configuration of their own. When null, such consumers are called on the thread of the producer.
+     *
+     * @param queueConfiguration consumer queue configuration of the stream
+     */
+    public void setQueueConfiguration(EventConsumerQueueConfiguration queueConfiguration) {
+        this.queueConfiguration = queueConfiguration;
+    }
+
+    public EventConsumerQueueConfiguration getQueueConfiguration() {
+        return queueConfiguration;
+    }
+
+    /**
+     * Sets the maximum number of consumers an event or a batch is delivered to in parallel on the fan-out pool
+     * shared by all the streams. The producer still returns only after all the consumers are done with it, so
+     * each consumer sees the events in the order they were sent.
+     *
+     * @param fanOutParallelism concurrency cap of the delivery, where 1 or less delivers on the producer thread
+     */
+    public void setFanOutParallelism(int fanOutParallelism) {
+        this.fanOutParallelism = fanOutParallelism;
+    }
+
+    public int getFanOutParallelism() {
+        return fanOutParallelism;
+    }
+
+    /**
+     * @param statistics statistics to be updated with the events flowing through the junction,
+     *                   or null to stop collecting them
+     */
+    public void setStatistics(EventStreamStatistics statistics) {
+        this.statistics = statistics;
+        for (AbstractQueuedEventConsumer queuedConsumer : queuedConsumers.values()) {
+            queuedConsumer.setStatistics(statistics);
+        }
+    }
+
+    public EventStreamStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Sets the size of the off-heap ring retaining the latest events of the stream for replay, discarding the
+     * events retained so far.
+     *
+     * @param retentionSize size of the ring in bytes, where 0 disables replay
+     */
+    public void setReplayRetentionSize(int retentionSize) {
+        this.replayRing = retentionSize > 0 ?
+                new EventReplayRing(streamDefinition.getAttributeLayout(), retentionSize) : null;
+    }
+
+    public EventReplayRing getReplayRing() {
+        return replayRing;
+    }
+
+    /**
+     * @return number of events that could not be recorded for replay, such as those having attribute values that
+     * do not match the stream definition, which are nevertheless dispatched to the consumers
+     */
+    public long getUnretainedEventCount() {
+        return unretainedEventCount.get();
+    }
+
+    /**
+     * @param fromTime time in milliseconds from which to replay
+     * @return a cursor at the oldest retained event at or after the given time, or null if replay is disabled
+     */
+    public EventReplayRing.Cursor openReplayCursor(long fromTime) {
+        EventReplayRing replayRing = this.replayRing;
+        return replayRing == null ? null : replayRing.openCursorAtTime(fromTime);
+    }
+
+    /**
+     * @return the queues of the consumers isolated from the producers, giving the lag of each consumer
+     */
+    public List<EventConsumerQueue> getConsumerQueues() {
+        List<EventConsumerQueue> consumerQueues = new ArrayList<EventConsumerQueue>(queuedConsumers.size());
+        for (AbstractQueuedEventConsumer queuedConsumer : queuedConsumers.values()) {
+            consumerQueues.add(queuedConsumer.getConsumerQueue());
+        }
+        return consumerQueues;
     }
 
     public void addConsumer(SiddhiEventConsumer consumer) {
-        if (!siddhiEventConsumers.contains(consumer)) {
+        addConsumer(consumer, null);
+    }
+
+    /**
+     * Adds the consumer after replaying the retained events from the given cursor to it. The retained events are
+     * replayed first while the producers keep sending, and the events retained meanwhile are replayed with the
+     * producers held back until the consumer is attached. Hence the consumer receives each event once and in order,
+     * from the replayed events on to the live ones. Must not be called by a consumer of this junction.
+     *
+     * @param consumer consumer to be added
+     * @param cursor   cursor to replay from, or null to only receive the events arriving from now on
+     */
+    public void addConsumer(SiddhiEventConsumer consumer, EventReplayRing.Cursor cursor) {
+        if (!siddhiEventConsumers.contains(consumer) && !queuedConsumers.containsKey(consumer)) {
             log.info("Consumer added to the junction. Stream:" + getStreamDefinition().getStreamId());
-            siddhiEventConsumers.add(consumer);
+            replay(consumer, cursor);
+            SiddhiEventConsumer junctionConsumer = consumer;
+            EventConsumerQueue consumerQueue = createConsumerQueue(consumer);
+            if (consumerQueue != null) {
+                QueuedSiddhiEventConsumer queuedConsumer = new QueuedSiddhiEventConsumer(consumer, consumerQueue);
+                queuedConsumer.setStatistics(statistics);
+                queuedConsumers.put(consumer, queuedConsumer);
+                junctionConsumer = queuedConsumer;
+            }
+            Lock producerFence = holdProducers(cursor);
+            try {
+                replay(consumer, cursor);
+                siddhiEventConsumers.add(junctionConsumer);
+            } finally {
+                release(producerFence);
+            }
         } else {
             log.error("Consumer already exist in the junction: " + streamDefinition.getStreamId());
         }
     }
 
     public boolean removeConsumer(SiddhiEventConsumer consumer) {
-        return siddhiEventConsumers.remove(consumer);
+        AbstractQueuedEventConsumer queuedConsumer = queuedConsumers.get(consumer);
+        boolean isRemoved = siddhiEventConsumers.remove(queuedConsumer != null ? queuedConsumer : consumer);
+        releaseConsumer(consumer);
+        return isRemoved;
     }
 
     public void addConsumer(RawEventConsumer consumer) {
-        if (!rawEventConsumers.contains(consumer)) {
+        addConsumer(consumer, null);
+    }
+
+    /**
+     * @see #addConsumer(SiddhiEventConsumer, EventReplayRing.Cursor)
+     */
+    public void addConsumer(RawEventConsumer consumer, EventReplayRing.Cursor cursor) {
+        if (!rawEventConsumers.contains(consumer) && !queuedConsumers.containsKey(consumer)) {
             log.info("Consumer added to the junction. Stream:" + getStreamDefinition().getStreamId());
-            rawEventConsumers.add(consumer);
+            replay(consumer, cursor);
+            RawEventConsumer junctionConsumer = consumer;
+            EventConsumerQueue consumerQueue = createConsumerQueue(consumer);
+            if (consumerQueue != null) {
+                QueuedRawEventConsumer queuedConsumer = new QueuedRawEventConsumer(consumer, consumerQueue);
+                queuedConsumer.setStatistics(statistics);
+                queuedConsumers.put(consumer, queuedConsumer);
+                junctionConsumer = queuedConsumer;
+            }
+            Lock producerFence = holdProducers(cursor);
+            try {
+                replay(consumer, cursor);
+                rawEventConsumers.add(junctionConsumer);
+            } finally {
+                release(producerFence);
+            }
         } else {
             log.error("Consumer already exist in the junction: " + streamDefinition.getStreamId());
         }
     }
 
     public boolean removeConsumer(RawEventConsumer consumer) {
-        return rawEventConsumers.remove(consumer);
+        AbstractQueuedEventConsumer queuedConsumer = queuedConsumers.get(consumer);
+        boolean isRemoved = rawEventConsumers.remove(queuedConsumer != null ? queuedConsumer : consumer);
+        releaseConsumer(consumer);
+        return isRemoved;
     }
 
     public void addConsumer(WSO2EventConsumer consumer) {
-        if (!wso2EventConsumers.contains(consumer)) {
+        addConsumer(consumer, null);
+    }
+
+    /**
+     * @see #addConsumer(SiddhiEventConsumer, EventReplayRing.Cursor)
+     */
+    public void addConsumer(WSO2EventConsumer consumer, EventReplayRing.Cursor cursor) {
+        if (!wso2EventConsumers.contains(consumer) && !queuedConsumers.containsKey(consumer)) {
             log.info("WSO2EventConsumer added to the junction. Stream:" + getStreamDefinition().getStreamId());
             consumer.onAddDefinition(streamDefinition);
-            wso2EventConsumers.add(consumer);
+            replay(consumer, cursor);
+            WSO2EventConsumer junctionConsumer = consumer;
+            EventConsumerQueue consumerQueue = createConsumerQueue(consumer);
+            if (consumerQueue != null) {
+                QueuedWSO2EventConsumer queuedConsumer = new QueuedWSO2EventConsumer(consumer, consumerQueue);
+                queuedConsumer.setStatistics(statistics);
+                queuedConsumers.put(consumer, queuedConsumer);
+                junctionConsumer = queuedConsumer;
+            }
+            Lock producerFence = holdProducers(cursor);
+            try {
+                replay(consumer, cursor);
+                wso2EventConsumers.add(junctionConsumer);
+            } finally {
+                release(producerFence);
+            }
         } else {
             log.error("WSO2EventConsumer already exist in the junction: " + streamDefinition.getStreamId());
         }
     }
 
     public void addConsumer(WSO2EventListConsumer consumer) {
-        if (!wso2EventListConsumers.contains(consumer)) {
+        addConsumer(consumer, null);
+    }
+
+    /**
+     * @see #addConsumer(SiddhiEventConsumer, EventReplayRing.Cursor)
+     */
+    public void addConsumer(WSO2EventListConsumer consumer, EventReplayRing.Cursor cursor) {
+        if (!wso2EventListConsumers.contains(consumer) && !queuedConsumers.containsKey(consumer)) {
             log.info("WSO2EventConsumer added to the junction. Stream:" + getStreamDefinition().getStreamId());
             consumer.onAddDefinition(streamDefinition);
-            wso2EventListConsumers.add(consumer);
+            replay(consumer, cursor);
+            WSO2EventListConsumer junctionConsumer = consumer;
+            EventConsumerQueue consumerQueue = createConsumerQueue(consumer);
+            if (consumerQueue != null) {
+                QueuedWSO2EventListConsumer queuedConsumer = new QueuedWSO2EventListConsumer(consumer, consumerQueue);
+                queuedConsumer.setStatistics(statistics);
+                queuedConsumers.put(consumer, queuedConsumer);
+                junctionConsumer = queuedConsumer;
+            }
+            Lock producerFence = holdProducers(cursor);
+            try {
+                replay(consumer, cursor);
+                wso2EventListConsumers.add(junctionConsumer);
+            } finally {
+                release(producerFence);
+            }
         } else {
             log.error("WSO2EventConsumer already exist in the junction: " + streamDefinition.getStreamId());
         }
     }
 
     public boolean removeConsumer(WSO2EventConsumer consumer) {
-        boolean isRemoved = wso2EventConsumers.remove(consumer);
+        AbstractQueuedEventConsumer queuedConsumer = queuedConsumers.get(consumer);
+        boolean isRemoved = wso2EventConsumers.remove(queuedConsumer != null ? queuedConsumer : consumer);
+        // the queued events are delivered before the consumer learns that the definition is gone
+        releaseConsumer(consumer);
         consumer.onRemoveDefinition(streamDefinition);
         return isRemoved;
     }
 
     public boolean removeConsumer(WSO2EventListConsumer consumer) {
-        boolean isRemoved = wso2EventListConsumers.remove(consumer);
+        AbstractQueuedEventConsumer queuedConsumer = queuedConsumers.get(consumer);
+        boolean isRemoved = wso2EventListConsumers.remove(queuedConsumer != null ? queuedConsumer : consumer);
+        // the queued events are delivered before the consumer learns that the definition is gone
+        releaseConsumer(consumer);
         consumer.onRemoveDefinition(streamDefinition);
         return isRemoved;
     }
 
+    private void replay(SiddhiEventConsumer consumer, EventReplayRing.Cursor cursor) {
+        if (cursor != null) {
+            Object[] eventData;
+            while ((eventData = cursor.next()) != null) {
+                try {
+                    consumer.consumeEventData(eventData);
+                } catch (Exception e) {
+                    log.error("Error while replaying event to consumer of stream " + streamDefinition.getStreamId()
+                              + ": " + e.getMessage(), e);
+                }
+            }
+            logSkippedEvents(cursor);
+        }
+    }
+
+    private void replay(RawEventConsumer consumer, EventReplayRing.Cursor cursor) {
+        if (cursor != null) {
+            Object[] eventData;
+            while ((eventData = cursor.next()) != null) {
+                try {
+                    consumer.consumeEventData(eventData);
+                } catch (Exception e) {
+                    log.error("Error while replaying event to consumer of stream " + streamDefinition.getStreamId()
+                              + ": " + e.getMessage(), e);
+                }
+            }
+            logSkippedEvents(cursor);
+        }
+    }
+
+    private void replay(WSO2EventConsumer consumer, EventReplayRing.Cursor cursor) {
+        if (cursor != null) {
+            Object[] eventData;
+            while ((eventData = cursor.next()) != null) {
+                try {
+                    Event event = EventConverter.convertToWso2Event(eventData, streamDefinition);
+                    event.setTimeStamp(cursor.getTimestamp());
+                    consumer.onEvent(event);
+                } catch (Exception e) {
+                    log.error("Error while replaying event to consumer of stream " + streamDefinition.getStreamId()
+                              + ": " + e.getMessage(), e);
+                }
+            }
+            logSkippedEvents(cursor);
+        }
+    }
+
+    /**
+     * Holds back the producers while the last of the replayed events are handed over and the consumer is attached.
+     *
+     * @return the lock to be released once the consumer is attached, or null if there is nothing to replay
+     */
+    private Lock holdProducers(EventReplayRing.Cursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        Lock lock = replayFence.writeLock();
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Keeps the consumers from being attached between retaining the events for replay and dispatching them.
+     *
+     * @return the lock to be released once the events are dispatched, or null if replay is disabled
+     */
+    private Lock holdConsumers(EventReplayRing replayRing) {
+        if (replayRing == null) {
+            return null;
+        }
+        Lock lock = replayFence.readLock();
+        lock.lock();
+        return lock;
+    }
+
+    private static void release(Lock lock) {
+        if (lock != null) {
+            lock.unlock();
+        }
+    }
+
+    private void logSkippedEvents(EventReplayRing.Cursor cursor) {
+        if (cursor.getSkippedCount() > 0) {
+            log.warn(cursor.getSkippedCount() + " events of stream " + streamDefinition.getStreamId()
+                     + " were overwritten before they could be replayed.");
+        }
+    }
+
+    private EventConsumerQueue createConsumerQueue(Object consumer) {
+        EventConsumerQueueConfiguration consumerQueueConfiguration = null;
+        if (consumer instanceof QueuedEventConsumer) {
+            consumerQueueConfiguration = ((QueuedEventConsumer) consumer).getQueueConfiguration();
+        }
+        if (consumerQueueConfiguration == null) {
+            consumerQueueConfiguration = queueConfiguration;
+        }
+        if (consumerQueueConfiguration == null) {
+            return null;
+        }
+        return new EventConsumerQueue(streamDefinition.getStreamId(), consumer.getClass().getSimpleName(),
+                consumerQueueConfiguration);
+    }
+
+    /**
+     * Releases the queue and the statistics of a consumer that is being removed, once it no longer receives
+     * events from the junction. Waits for the events already queued for the consumer to be delivered.
+     */
+    private void releaseConsumer(Object consumer) {
+        EventStreamStatistics statistics = this.statistics;
+        AbstractQueuedEventConsumer queuedConsumer = queuedConsumers.remove(consumer);
+        if (queuedConsumer != null) {
+            queuedConsumer.shutdownQueue();
+        }
+        if (statistics != null) {
+            statistics.removeConsumer(queuedConsumer != null ? queuedConsumer : consumer);
+        }
+    }
+
+    private static EventConsumerQueueConfiguration getStreamQueueConfiguration(String streamId) {
+        String queueSize = System.getProperty(EventStreamConstants.CONSUMER_QUEUE_SIZE_PROPERTY + "." + streamId,
+                System.getProperty(EventStreamConstants.CONSUMER_QUEUE_SIZE_PROPERTY));
+        if (queueSize == null) {
+            return null;
+        }
+        String policy = System.getProperty(EventStreamConstants.CONSUMER_QUEUE_POLICY_PROPERTY + "." + streamId,
+                System.getProperty(EventStreamConstants.CONSUMER_QUEUE_POLICY_PROPERTY));
+        try {
+            EventConsumerQueueConfiguration.FullQueuePolicy fullQueuePolicy = policy == null ?
+                    EventConsumerQueueConfiguration.FullQueuePolicy.BLOCK :
+                    EventConsumerQueueConfiguration.FullQueuePolicy.valueOf(policy.trim().toUpperCase());
+            return new EventConsumerQueueConfiguration(Integer.parseInt(queueSize.trim()), fullQueuePolicy);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid consumer queue configuration, size: " + queueSize + ", policy: " + policy +
+                      " for stream " + streamId + ", hence consumers are called on the producer thread.");
+            return null;
+        }
+    }
+
+    private static int getStreamFanOutParallelism(String streamId) {
+        String parallelism = System.getProperty(EventStreamConstants.FAN_OUT_PARALLELISM_PROPERTY + "." + streamId,
+                System.getProperty(EventStreamConstants.FAN_OUT_PARALLELISM_PROPERTY));
+        if (parallelism == null) {
+            return 1;
+        }
+        try {
+            return Integer.parseInt(parallelism.trim());
+        } catch (NumberFormatException e) {
+            log.error("Invalid fan-out parallelism: " + parallelism + " for stream " + streamId +
+                      ", hence consumers are called one after the other.");
+            return 1;
+        }
+    }
+
+    private static int getStreamReplayRetentionSize(String streamId) {
+        String retentionSize = System.getProperty(EventStreamConstants.REPLAY_RETENTION_SIZE_PROPERTY + "." + streamId,
+                System.getProperty(EventStreamConstants.REPLAY_RETENTION_SIZE_PROPERTY));
+        if (retentionSize == null) {
+            return 0;
+        }
+        String size = retentionSize.trim().toLowerCase();
+        int multiplier = 1;
+        if (size.endsWith("k")) {
+            multiplier = 1024;
+        } else if (size.endsWith("m")) {
+            multiplier = 1024 * 1024;
+        } else if (size.endsWith("g")) {
+            multiplier = 1024 * 1024 * 1024;
+        }
+        try {
+            if (multiplier != 1) {
+                size = size.substring(0, size.length() - 1).trim();
+            }
+            long bytes = Long.parseLong(size) * multiplier;
+            if (bytes > Integer.MAX_VALUE) {
+                log.error("Replay retention size " + retentionSize + " of stream " + streamId +
+                          " exceeds " + Integer.MAX_VALUE + " bytes, hence replay is disabled.");
+                return 0;
+            }
+            return (int) bytes;
+        } catch (NumberFormatException e) {
+            log.error("Invalid replay retention size: " + retentionSize + " for stream " + streamId +
+                      ", hence replay is disabled.");
+            return 0;
+        }
+    }
+
     public void addProducer(EventProducer listener) {
         if (!producers.contains(listener)) {
             log.info("Producer added to the junction. Stream:" + getStreamDefinition().getStreamId());
@@ -151,223 +584,455 @@ public class EventJunction implements EventProducerCallback {
 
     @Override
     public void sendEventData(Object[] data) {
-        if (!siddhiEventConsumers.isEmpty()) {
-            for (SiddhiEventConsumer consumer : siddhiEventConsumers) {
-                try {
-                    consumer.consumeEventData(data);
-                } catch (Exception e) {
-                    log.error("Error while dispatching events: " + e.getMessage(), e);
-                }
+        EventStreamStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.onEventsReceived(1);
+        }
+        EventReplayRing replayRing = this.replayRing;
+        Lock consumerFence = holdConsumers(replayRing);
+        try {
+            if (replayRing != null) {
+                retain(replayRing, System.currentTimeMillis(), data);
             }
+            dispatchEvent(new JunctionEvent(streamDefinition, data));
+        } finally {
+            release(consumerFence);
         }
+        if (statistics != null) {
+            statistics.onEventsDispatched(1);
+        }
+    }
 
-        if (!rawEventConsumers.isEmpty()) {
-            for (RawEventConsumer consumer : rawEventConsumers) {
-                try {
-                    consumer.consumeEventData(data);
-                } catch (Exception e) {
-                    log.error("Error while dispatching events: " + e.getMessage(), e);
+    @Override
+    public void sendEventDataBatch(Object[][] eventDataBatch) {
+        EventStreamStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.onEventsReceived(eventDataBatch.length);
+        }
+        EventReplayRing replayRing = this.replayRing;
+        Lock consumerFence = holdConsumers(replayRing);
+        try {
+            if (replayRing != null) {
+                long timestamp = System.currentTimeMillis();
+                for (Object[] eventData : eventDataBatch) {
+                    retain(replayRing, timestamp, eventData);
                 }
             }
+            dispatchEvents(new JunctionEventBatch(streamDefinition, eventDataBatch));
+        } finally {
+            release(consumerFence);
+        }
+        if (statistics != null) {
+            statistics.onEventsDispatched(eventDataBatch.length);
         }
+    }
 
-        if (!wso2EventConsumers.isEmpty() || !wso2EventListConsumers.isEmpty()) {
-            Event event = EventConverter.convertToWso2Event(data, streamDefinition);
+    @Override
+    public void sendEvent(Event event) {
+        EventStreamStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.onEventsReceived(1);
+        }
+        EventReplayRing replayRing = this.replayRing;
+        Lock consumerFence = holdConsumers(replayRing);
+        try {
+            if (replayRing != null) {
+                retain(replayRing, event);
+            }
+            dispatchEvent(new JunctionEvent(streamDefinition, event));
+        } finally {
+            release(consumerFence);
+        }
+        if (statistics != null) {
+            statistics.onEventsDispatched(1);
+        }
+    }
 
-            if (!wso2EventConsumers.isEmpty()) {
-                for (WSO2EventConsumer consumer : wso2EventConsumers) {
-                    try {
-                        consumer.onEvent(event);
-                    } catch (Exception e) {
-                        log.error("Error while dispatching events: " + e.getMessage(), e);
-                    }
+    @Override
+    public void sendEvents(List<Event> events) {
+        EventStreamStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.onEventsReceived(events.size());
+        }
+        EventReplayRing replayRing = this.replayRing;
+        Lock consumerFence = holdConsumers(replayRing);
+        try {
+            if (replayRing != null) {
+                for (Event event : events) {
+                    retain(replayRing, event);
                 }
             }
+            dispatchEvents(new JunctionEventBatch(streamDefinition, events));
+        } finally {
+            release(consumerFence);
+        }
+        if (statistics != null) {
+            statistics.onEventsDispatched(events.size());
+        }
+    }
 
-            if (!wso2EventListConsumers.isEmpty()) {
-                for (WSO2EventListConsumer consumer : wso2EventListConsumers) {
-                    try {
-                        consumer.onEvent(event);
-                    } catch (Exception e) {
-                        log.error("Error while dispatching events: " + e.getMessage(), e);
-                    }
+    @Override
+    public void sendEvents(org.wso2.siddhi.core.event.Event[] events) {
+        EventStreamStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.onEventsReceived(events.length);
+        }
+        EventReplayRing replayRing = this.replayRing;
+        Lock consumerFence = holdConsumers(replayRing);
+        try {
+            if (replayRing != null) {
+                for (org.wso2.siddhi.core.event.Event event : events) {
+                    retain(replayRing, event.getTimestamp(), event.getData());
                 }
             }
+            dispatchEvents(new JunctionEventBatch(streamDefinition, events));
+        } finally {
+            release(consumerFence);
+        }
+        if (statistics != null) {
+            statistics.onEventsDispatched(events.length);
         }
+    }
 
+    private void retain(EventReplayRing replayRing, long timestamp, Object[] eventData) {
+        try {
+            replayRing.write(timestamp, eventData);
+        } catch (RuntimeException e) {
+            onRetentionFailure(e);
+        }
     }
 
-    @Override
-    public void sendEvent(Event event) {
+    private void retain(EventReplayRing replayRing, Event event) {
+        try {
+            replayRing.write(event.getTimeStamp(), event.getMetaData(), event.getCorrelationData(),
+                    event.getPayloadData());
+        } catch (RuntimeException e) {
+            onRetentionFailure(e);
+        }
+    }
 
-        if (!siddhiEventConsumers.isEmpty() || !rawEventConsumers.isEmpty()) {
-            Object[] eventData = EventConverter.convertToEventData(event, metaFlag, correlationFlag, payloadFlag, attributesCount);
+    /**
+     * The event is still dispatched, hence only the first failure is logged above debug level.
+     */
+    private void onRetentionFailure(RuntimeException e) {
+        if (unretainedEventCount.incrementAndGet() == 1) {
+            log.warn("Cannot retain event of stream " + streamDefinition.getStreamId() + " for replay: "
+                     + e.getMessage() + ". Such events are dispatched without being retained.");
+        } else if (log.isDebugEnabled()) {
+            log.debug("Cannot retain event of stream " + streamDefinition.getStreamId() + " for replay", e);
+        }
+    }
 
-            if (!siddhiEventConsumers.isEmpty()) {
-                for (SiddhiEventConsumer consumer : siddhiEventConsumers) {
-                    try {
-                        consumer.consumeEventData(eventData);
-                    } catch (Exception e) {
-                        log.error("Error while dispatching events: " + e.getMessage(), e);
-                    }
-                }
-            }
-            if (!rawEventConsumers.isEmpty()) {
-                for (RawEventConsumer consumer : rawEventConsumers) {
-                    try {
-                        consumer.consumeEventData(eventData);
-                    } catch (Exception e) {
-                        log.error("Error while dispatching events: " + e.getMessage(), e);
-                    }
-                }
-            }
+    /**
+     * Hands over the event to all the consumers. The event is converted to the form a consumer needs only
+     * when the first such consumer asks for it, and queued consumers do so on their own worker.
+     */
+    private void dispatchEvent(JunctionEvent junctionEvent) {
+        int parallelism = fanOutParallelism;
+        if (parallelism > 1) {
+            fanOut(junctionEvent, null, parallelism);
+            return;
         }
+        for (SiddhiEventConsumer consumer : siddhiEventConsumers) {
+            deliver(consumer, junctionEvent);
+        }
+        for (RawEventConsumer consumer : rawEventConsumers) {
+            deliver(consumer, junctionEvent);
+        }
+        for (WSO2EventConsumer consumer : wso2EventConsumers) {
+            deliver(consumer, junctionEvent);
+        }
+        for (WSO2EventListConsumer consumer : wso2EventListConsumers) {
+            deliver(consumer, junctionEvent);
+        }
+    }
 
+    /**
+     * Hands over the batch to the consumers, iterating each consumer once. Raw event consumers get the batch
+     * as a whole when they are {@link RawEventBatchConsumer}s and event by event otherwise.
+     */
+    private void dispatchEvents(JunctionEventBatch eventBatch) {
+        int parallelism = fanOutParallelism;
+        if (parallelism > 1) {
+            fanOut(null, eventBatch, parallelism);
+            return;
+        }
+        for (SiddhiEventConsumer consumer : siddhiEventConsumers) {
+            deliver(consumer, eventBatch);
+        }
+        for (RawEventConsumer consumer : rawEventConsumers) {
+            deliver(consumer, eventBatch);
+        }
+        for (WSO2EventConsumer consumer : wso2EventConsumers) {
+            deliver(consumer, eventBatch);
+        }
+        for (WSO2EventListConsumer consumer : wso2EventListConsumers) {
+            deliver(consumer, eventBatch);
+        }
+    }
 
-        if (!wso2EventConsumers.isEmpty()) {
+    /**
+     * Delivers the event or the batch to the consumers in parallel on the shared fan-out pool, and returns once
+     * all of them are done. Queued consumers only take the events into their queues, hence are handed over on
+     * this thread.
+     */
+    private void fanOut(JunctionEvent junctionEvent, JunctionEventBatch eventBatch, int parallelism) {
+        JunctionFanOut fanOut = fanOuts.get();
+        if (fanOut.inUse) {
+            // a consumer called on this thread sent events back into this junction
+            fanOut = new JunctionFanOut();
+        }
+        fanOut.open(junctionEvent, eventBatch);
+        try {
+            for (SiddhiEventConsumer consumer : siddhiEventConsumers) {
+                fanOut.add(JunctionFanOut.SIDDHI_EVENT_CONSUMER, consumer);
+            }
+            for (RawEventConsumer consumer : rawEventConsumers) {
+                fanOut.add(JunctionFanOut.RAW_EVENT_CONSUMER, consumer);
+            }
             for (WSO2EventConsumer consumer : wso2EventConsumers) {
-                try {
-                    consumer.onEvent(event);
-                } catch (Exception e) {
-                    log.error("Error while dispatching events: " + e.getMessage(), e);
-                }
+                fanOut.add(JunctionFanOut.WSO2_EVENT_CONSUMER, consumer);
             }
+            for (WSO2EventListConsumer consumer : wso2EventListConsumers) {
+                fanOut.add(JunctionFanOut.WSO2_EVENT_LIST_CONSUMER, consumer);
+            }
+            FanOutExecutor.getInstance().execute(fanOut, parallelism);
+        } finally {
+            fanOut.close();
         }
+    }
 
-        if (!wso2EventListConsumers.isEmpty()) {
-            for (WSO2EventListConsumer consumer : wso2EventListConsumers) {
-                try {
-                    consumer.onEvent(event);
-                } catch (Exception e) {
-                    log.error("Error while dispatching events: " + e.getMessage(), e);
-                }
+    /**
+     * Deliveries of one event or batch to the consumers that are not queued, reused by the producer thread
+     * for its next fan-out through the junction.
+     */
+    private final class JunctionFanOut implements FanOutExecutor.FanOut {
+
+        private static final byte SIDDHI_EVENT_CONSUMER = 0;
+        private static final byte RAW_EVENT_CONSUMER = 1;
+        private static final byte WSO2_EVENT_CONSUMER = 2;
+        private static final byte WSO2_EVENT_LIST_CONSUMER = 3;
+
+        private Object[] consumers = new Object[8];
+        private byte[] consumerTypes = new byte[8];
+        private int size;
+        private JunctionEvent junctionEvent;
+        private JunctionEventBatch eventBatch;
+        private boolean inUse;
+
+        private void open(JunctionEvent junctionEvent, JunctionEventBatch eventBatch) {
+            this.junctionEvent = junctionEvent;
+            this.eventBatch = eventBatch;
+            this.inUse = true;
+        }
+
+        private void add(byte consumerType, Object consumer) {
+            if (consumer instanceof AbstractQueuedEventConsumer) {
+                deliverTo(consumerType, consumer);
+                return;
+            }
+            if (size == consumers.length) {
+                consumers = Arrays.copyOf(consumers, size * 2);
+                consumerTypes = Arrays.copyOf(consumerTypes, size * 2);
             }
+            consumers[size] = consumer;
+            consumerTypes[size] = consumerType;
+            size++;
         }
 
-    }
+        private void close() {
+            Arrays.fill(consumers, 0, size, null);
+            size = 0;
+            junctionEvent = null;
+            eventBatch = null;
+            inUse = false;
+        }
 
-    @Override
-    public void sendEvents(List<Event> events) {
-        for (Event event : events) {
-            if (!siddhiEventConsumers.isEmpty() || !rawEventConsumers.isEmpty()) {
-
-                Object[] eventData = EventConverter.convertToEventData(event, metaFlag, correlationFlag, payloadFlag, attributesCount);
-
-                if (!siddhiEventConsumers.isEmpty()) {
-                    for (SiddhiEventConsumer consumer : siddhiEventConsumers) {
-                        try {
-                            consumer.consumeEventData(eventData);
-                        } catch (Exception e) {
-                            log.error("Error while dispatching events: " + e.getMessage(), e);
-                        }
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void deliver(int index) {
+            deliverTo(consumerTypes[index], consumers[index]);
+        }
+
+        private void deliverTo(byte consumerType, Object consumer) {
+            switch (consumerType) {
+                case SIDDHI_EVENT_CONSUMER:
+                    if (junctionEvent != null) {
+                        EventJunction.this.deliver((SiddhiEventConsumer) consumer, junctionEvent);
+                    } else {
+                        EventJunction.this.deliver((SiddhiEventConsumer) consumer, eventBatch);
                     }
-                }
-                if (!rawEventConsumers.isEmpty()) {
-                    for (RawEventConsumer consumer : rawEventConsumers) {
-                        try {
-                            consumer.consumeEventData(eventData);
-                        } catch (Exception e) {
-                            log.error("Error while dispatching events: " + e.getMessage(), e);
-                        }
+                    break;
+                case RAW_EVENT_CONSUMER:
+                    if (junctionEvent != null) {
+                        EventJunction.this.deliver((RawEventConsumer) consumer, junctionEvent);
+                    } else {
+                        EventJunction.this.deliver((RawEventConsumer) consumer, eventBatch);
+                    }
+                    break;
+                case WSO2_EVENT_CONSUMER:
+                    if (junctionEvent != null) {
+                        EventJunction.this.deliver((WSO2EventConsumer) consumer, junctionEvent);
+                    } else {
+                        EventJunction.this.deliver((WSO2EventConsumer) consumer, eventBatch);
+                    }
+                    break;
+                default:
+                    if (junctionEvent != null) {
+                        EventJunction.this.deliver((WSO2EventConsumer) consumer, junctionEvent);
+                    } else {
+                        EventJunction.this.deliver((WSO2EventListConsumer) consumer, eventBatch);
                     }
-                }
             }
+        }
+    }
 
+    /**
+     * @return the statistics to record the delivery to the consumer in, or null for queued consumers,
+     * which are timed by the worker of their queue as the delivery only queues the events
+     */
+    private EventStreamStatistics getDeliveryStatistics(Object consumer) {
+        return consumer instanceof AbstractQueuedEventConsumer ? null : this.statistics;
+    }
 
-            if (!wso2EventConsumers.isEmpty()) {
-                for (WSO2EventConsumer consumer : wso2EventConsumers) {
-                    try {
-                        consumer.onEvent(event);
-                    } catch (Exception e) {
-                        log.error("Error while dispatching events: " + e.getMessage(), e);
-                    }
-                }
+    private void deliver(SiddhiEventConsumer consumer, JunctionEvent junctionEvent) {
+        EventStreamStatistics statistics = getDeliveryStatistics(consumer);
+        long startTime = statistics == null ? 0 : System.nanoTime();
+        try {
+            if (consumer instanceof AbstractQueuedEventConsumer) {
+                ((AbstractQueuedEventConsumer) consumer).dispatch(junctionEvent);
+            } else {
+                consumer.consumeEventData(junctionEvent.getEventData());
             }
+        } catch (Exception e) {
+            log.error("Error while dispatching events: " + e.getMessage(), e);
         }
+        if (statistics != null) {
+            statistics.onEventsConsumed(consumer, 1, System.nanoTime() - startTime);
+        }
+    }
 
-
-        if (!wso2EventListConsumers.isEmpty()) {
-            for (WSO2EventListConsumer eventListConsumer : wso2EventListConsumers) {
-                try {
-                    eventListConsumer.onEventList(events);
-                } catch (Exception e) {
-                    log.error("Error while dispatching events: " + e.getMessage(), e);
-                }
+    private void deliver(RawEventConsumer consumer, JunctionEvent junctionEvent) {
+        EventStreamStatistics statistics = getDeliveryStatistics(consumer);
+        long startTime = statistics == null ? 0 : System.nanoTime();
+        try {
+            if (consumer instanceof AbstractQueuedEventConsumer) {
+                ((AbstractQueuedEventConsumer) consumer).dispatch(junctionEvent);
+            } else {
+                consumer.consumeEventData(junctionEvent.getEventData());
             }
+        } catch (Exception e) {
+            log.error("Error while dispatching events: " + e.getMessage(), e);
+        }
+        if (statistics != null) {
+            statistics.onEventsConsumed(consumer, 1, System.nanoTime() - startTime);
         }
     }
 
-    @Override
-    public void sendEvents(org.wso2.siddhi.core.event.Event[] events) {
+    private void deliver(WSO2EventConsumer consumer, JunctionEvent junctionEvent) {
+        EventStreamStatistics statistics = getDeliveryStatistics(consumer);
+        long startTime = statistics == null ? 0 : System.nanoTime();
+        try {
+            if (consumer instanceof AbstractQueuedEventConsumer) {
+                ((AbstractQueuedEventConsumer) consumer).dispatch(junctionEvent);
+            } else {
+                consumer.onEvent(junctionEvent.getEvent());
+            }
+        } catch (Exception e) {
+            log.error("Error while dispatching events: " + e.getMessage(), e);
+        }
+        if (statistics != null) {
+            statistics.onEventsConsumed(consumer, 1, System.nanoTime() - startTime);
+        }
+    }
 
-        if (!siddhiEventConsumers.isEmpty()) {
-            for (SiddhiEventConsumer consumer : siddhiEventConsumers) {
+    private void deliver(SiddhiEventConsumer consumer, JunctionEventBatch eventBatch) {
+        EventStreamStatistics statistics = getDeliveryStatistics(consumer);
+        long startTime = statistics == null ? 0 : System.nanoTime();
+        if (consumer instanceof AbstractQueuedEventConsumer) {
+            ((AbstractQueuedEventConsumer) consumer).dispatch(eventBatch);
+        } else if (eventBatch.getSiddhiEvents() != null) {
+            try {
+                consumer.consumeEvents(eventBatch.getSiddhiEvents());
+            } catch (Exception e) {
+                log.error("Error while dispatching events: " + e.getMessage(), e);
+            }
+        } else {
+            for (Object[] eventData : eventBatch.getEventDataBatch()) {
                 try {
-                    consumer.consumeEvents(events);
+                    consumer.consumeEventData(eventData);
                 } catch (Exception e) {
                     log.error("Error while dispatching events: " + e.getMessage(), e);
                 }
             }
         }
+        if (statistics != null) {
+            statistics.onEventsConsumed(consumer, eventBatch.size(), System.nanoTime() - startTime);
+        }
+    }
 
-        List<Event> wso2EventList = new ArrayList<Event>();
-
-        for (org.wso2.siddhi.core.event.Event event : events) {
-
-            if (!rawEventConsumers.isEmpty()) {
-                for (RawEventConsumer consumer : rawEventConsumers) {
-                    try {
-                        consumer.consumeEventData(event.getData());
-                    } catch (Exception e) {
-                        log.error("Error while dispatching events: " + e.getMessage(), e);
-                    }
-                }
+    private void deliver(RawEventConsumer consumer, JunctionEventBatch eventBatch) {
+        EventStreamStatistics statistics = getDeliveryStatistics(consumer);
+        long startTime = statistics == null ? 0 : System.nanoTime();
+        if (consumer instanceof AbstractQueuedEventConsumer) {
+            ((AbstractQueuedEventConsumer) consumer).dispatch(eventBatch);
+        } else if (consumer instanceof RawEventBatchConsumer) {
+            try {
+                ((RawEventBatchConsumer) consumer).consumeEventDataBatch(eventBatch.getEventDataBatch());
+            } catch (Exception e) {
+                log.error("Error while dispatching events: " + e.getMessage(), e);
             }
-
-            if (!wso2EventConsumers.isEmpty() || !wso2EventListConsumers.isEmpty()) {
-                Event outEvent = EventConverter.convertToWso2Event(event.getData(), streamDefinition);
-
-                for (WSO2EventConsumer consumer : wso2EventConsumers) {
-                    try {
-                        consumer.onEvent(outEvent);
-                    } catch (Exception e) {
-                        log.error("Error while dispatching events: " + e.getMessage(), e);
-                    }
-                }
-
-                if (!wso2EventListConsumers.isEmpty()) {
-                    wso2EventList.add(outEvent);
+        } else {
+            for (Object[] eventData : eventBatch.getEventDataBatch()) {
+                try {
+                    consumer.consumeEventData(eventData);
+                } catch (Exception e) {
+                    log.error("Error while dispatching events: " + e.getMessage(), e);
                 }
             }
         }
+        if (statistics != null) {
+            statistics.onEventsConsumed(consumer, eventBatch.size(), System.nanoTime() - startTime);
+        }
+    }
 
-        if (!wso2EventListConsumers.isEmpty()) {
-            for (WSO2EventListConsumer consumer : wso2EventListConsumers) {
+    private void deliver(WSO2EventConsumer consumer, JunctionEventBatch eventBatch) {
+        EventStreamStatistics statistics = getDeliveryStatistics(consumer);
+        long startTime = statistics == null ? 0 : System.nanoTime();
+        if (consumer instanceof AbstractQueuedEventConsumer) {
+            ((AbstractQueuedEventConsumer) consumer).dispatch(eventBatch);
+        } else {
+            for (Event event : eventBatch.getEvents()) {
                 try {
-                    consumer.onEventList(wso2EventList);
+                    consumer.onEvent(event);
                 } catch (Exception e) {
                     log.error("Error while dispatching events: " + e.getMessage(), e);
                 }
             }
         }
+        if (statistics != null) {
+            statistics.onEventsConsumed(consumer, eventBatch.size(), System.nanoTime() - startTime);
+        }
     }
 
-    private void populateEventTemplate(StreamDefinition definition) {
-        int attributesCount = 0;
-        if (definition.getMetaData() != null) {
-            attributesCount += definition.getMetaData().size();
-            metaFlag = true;
-        }
-        if (definition.getCorrelationData() != null) {
-            attributesCount += definition.getCorrelationData().size();
-            correlationFlag = true;
+    private void deliver(WSO2EventListConsumer consumer, JunctionEventBatch eventBatch) {
+        EventStreamStatistics statistics = getDeliveryStatistics(consumer);
+        long startTime = statistics == null ? 0 : System.nanoTime();
+        try {
+            if (consumer instanceof AbstractQueuedEventConsumer) {
+                ((AbstractQueuedEventConsumer) consumer).dispatch(eventBatch);
+            } else {
+                consumer.onEventList(eventBatch.getEvents());
+            }
+        } catch (Exception e) {
+            log.error("Error while dispatching events: " + e.getMessage(), e);
         }
-
-        if (definition.getPayloadData() != null) {
-            attributesCount += definition.getPayloadData().size();
-            payloadFlag = true;
+        if (statistics != null) {
+            statistics.onEventsConsumed(consumer, eventBatch.size(), System.nanoTime() - startTime);
         }
-
-        this.attributesCount = attributesCount;
     }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package org.wso2.carbon.event.stream.core.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.event.stream.core.EventStreamHandle;
+
+import java.util.List;
+
+/**
+ * Handle bound to the junction of a tenant's stream. It is rebound when the junction is replaced and
+ * invalidated when the stream is unloaded.
+ */
+public class EventStreamHandleImpl implements EventStreamHandle {
+
+    private static final Log log = LogFactory.getLog(EventStreamHandleImpl.class);
+
+    private final int tenantId;
+    private final String streamId;
+    private volatile EventJunction eventJunction;
+
+    public EventStreamHandleImpl(int tenantId, String streamId, EventJunction eventJunction) {
+        this.tenantId = tenantId;
+        this.streamId = streamId;
+        this.eventJunction = eventJunction;
+    }
+
+    @Override
+    public String getStreamId() {
+        return streamId;
+    }
+
+    @Override
+    public int getTenantId() {
+        return tenantId;
+    }
+
+    @Override
+    public boolean isValid() {
+        return eventJunction != null;
+    }
+
+    @Override
+    public void publish(Event event) {
+        EventJunction junction = eventJunction;
+        if (junction != null) {
+            junction.sendEvent(event);
+        } else if (log.isDebugEnabled()) {
+            log.debug("Event " + event.toString() + " dropped since the stream " + streamId + " of tenant " + tenantId
+                    + " has been removed");
+        }
+    }
+
+    @Override
+    public void publish(List<Event> events) {
+        EventJunction junction = eventJunction;
+        if (junction != null) {
+            junction.sendEvents(events);
+        } else if (log.isDebugEnabled()) {
+            log.debug(events.size() + " events dropped since the stream " + streamId + " of tenant " + tenantId
+                    + " has been removed");
+        }
+    }
+
+    void setEventJunction(EventJunction eventJunction) {
+        this.eventJunction = eventJunction;
+    }
+
+    void invalidate() {
+        this.eventJunction = null;
+    }
+}
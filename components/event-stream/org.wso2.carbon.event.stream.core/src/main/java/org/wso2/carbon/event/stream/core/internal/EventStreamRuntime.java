@@ -21,20 +21,31 @@ import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 import org.wso2.carbon.databridge.commons.utils.DataBridgeCommonsUtils;
+import org.wso2.carbon.event.statistics.EventStatisticsMonitor;
+import org.wso2.carbon.event.statistics.EventStatisticsService;
 import org.wso2.carbon.event.stream.core.*;
 import org.wso2.carbon.event.stream.core.exception.EventStreamConfigurationException;
 import org.wso2.carbon.event.stream.core.internal.ds.EventStreamServiceValueHolder;
+import org.wso2.carbon.event.stream.core.internal.replay.EventReplayRing;
+import org.wso2.carbon.event.stream.core.internal.statistics.EventStreamStatistics;
+import org.wso2.carbon.event.stream.core.internal.util.EventStreamConstants;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class EventStreamRuntime {
 
     private static final Log log = LogFactory.getLog(EventStreamRuntime.class);
 
-    private Map<Integer, Map<String, EventJunction>> tenantSpecificEventJunctions =
-            new HashMap<Integer, Map<String, EventJunction>>();
+    private ConcurrentMap<Integer, ConcurrentMap<String, EventJunction>> tenantSpecificEventJunctions =
+            new ConcurrentHashMap<Integer, ConcurrentMap<String, EventJunction>>();
+
+    private ConcurrentMap<Integer, ConcurrentMap<String, EventStreamHandleImpl>> tenantSpecificStreamHandles =
+            new ConcurrentHashMap<Integer, ConcurrentMap<String, EventStreamHandleImpl>>();
+
+    // guards binding handles to junctions against the junctions being replaced or removed meanwhile
+    private final Object streamHandleLock = new Object();
 
     public void loadEventStream(String streamId)
             throws EventStreamConfigurationException {
@@ -44,13 +55,16 @@ public class EventStreamRuntime {
                 DataBridgeCommonsUtils.getStreamVersionFromStreamId(streamId));
         int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
         if (streamDefinition != null) {
-            Map<String, EventJunction> eventJunctionMap = tenantSpecificEventJunctions.get(tenantId);
-            if (eventJunctionMap == null) {
-                eventJunctionMap = new ConcurrentHashMap<String, EventJunction>();
-                tenantSpecificEventJunctions.put(tenantId, eventJunctionMap);
+            ConcurrentMap<String, EventJunction> eventJunctionMap = getEventJunctionMap(tenantId);
+            EventJunction junction = createEventJunction(tenantId, streamDefinition);
+            synchronized (streamHandleLock) {
+                releaseEventJunction(eventJunctionMap.put(streamDefinition.getStreamId(), junction));
+                EventStreamHandleImpl eventStreamHandle =
+                        getExistingEventStreamHandle(tenantId, streamDefinition.getStreamId());
+                if (eventStreamHandle != null) {
+                    eventStreamHandle.setEventJunction(junction);
+                }
             }
-            EventJunction junction = new EventJunction(streamDefinition);
-            eventJunctionMap.put(streamDefinition.getStreamId(), junction);
 
             for (EventStreamListener eventStreamListener : EventStreamServiceValueHolder.getEventStreamListenerList()) {
                 eventStreamListener.addedEventStream(tenantId, streamDefinition.getName(),
@@ -67,9 +81,18 @@ public class EventStreamRuntime {
                 DataBridgeCommonsUtils.getStreamVersionFromStreamId(streamId));
 
         if (streamDefinition == null) {
-            Map<String, EventJunction> eventJunctionMap = tenantSpecificEventJunctions.get(tenantId);
-            if (eventJunctionMap != null) {
-                eventJunctionMap.remove(streamId);
+            synchronized (streamHandleLock) {
+                Map<String, EventJunction> eventJunctionMap = tenantSpecificEventJunctions.get(tenantId);
+                if (eventJunctionMap != null) {
+                    releaseEventJunction(eventJunctionMap.remove(streamId));
+                }
+                Map<String, EventStreamHandleImpl> eventStreamHandleMap = tenantSpecificStreamHandles.get(tenantId);
+                if (eventStreamHandleMap != null) {
+                    EventStreamHandleImpl eventStreamHandle = eventStreamHandleMap.remove(streamId);
+                    if (eventStreamHandle != null) {
+                        eventStreamHandle.invalidate();
+                    }
+                }
             }
 
             for (EventStreamListener eventStreamListener : EventStreamServiceValueHolder.getEventStreamListenerList()) {
@@ -79,13 +102,27 @@ public class EventStreamRuntime {
 
     }
 
-    private EventJunction getOrConstructEventJunction(String streamId) throws EventStreamConfigurationException {
-        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
-        Map<String, EventJunction> eventJunctionMap = tenantSpecificEventJunctions.get(tenantId);
+    private ConcurrentMap<String, EventJunction> getEventJunctionMap(int tenantId) {
+        ConcurrentMap<String, EventJunction> eventJunctionMap = tenantSpecificEventJunctions.get(tenantId);
         if (eventJunctionMap == null) {
             eventJunctionMap = new ConcurrentHashMap<String, EventJunction>();
-            tenantSpecificEventJunctions.put(tenantId, eventJunctionMap);
+            ConcurrentMap<String, EventJunction> existingMap =
+                    tenantSpecificEventJunctions.putIfAbsent(tenantId, eventJunctionMap);
+            if (existingMap != null) {
+                eventJunctionMap = existingMap;
+            }
         }
+        return eventJunctionMap;
+    }
+
+    private EventStreamHandleImpl getExistingEventStreamHandle(int tenantId, String streamId) {
+        Map<String, EventStreamHandleImpl> eventStreamHandleMap = tenantSpecificStreamHandles.get(tenantId);
+        return eventStreamHandleMap == null ? null : eventStreamHandleMap.get(streamId);
+    }
+
+    private EventJunction getOrConstructEventJunction(String streamId) throws EventStreamConfigurationException {
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        ConcurrentMap<String, EventJunction> eventJunctionMap = getEventJunctionMap(tenantId);
         EventJunction eventJunction = eventJunctionMap.get(streamId);
         if (eventJunction == null) {
             StreamDefinition streamDefinition = null;
@@ -97,23 +134,101 @@ public class EventStreamRuntime {
             if (streamDefinition == null) {
                 throw new EventStreamConfigurationException("Stream " + streamId + " is not configured to tenant " + tenantId);
             }
-            eventJunction = new EventJunction(streamDefinition);
-            eventJunctionMap.put(streamDefinition.getStreamId(), eventJunction);
+            EventJunction newEventJunction = createEventJunction(tenantId, streamDefinition);
+            eventJunction = eventJunctionMap.putIfAbsent(streamDefinition.getStreamId(), newEventJunction);
+            if (eventJunction == null) {
+                eventJunction = newEventJunction;
+            } else {
+                releaseEventJunction(newEventJunction);
+            }
         }
         return eventJunction;
     }
 
+    private EventJunction createEventJunction(int tenantId, StreamDefinition streamDefinition) {
+        EventJunction eventJunction = new EventJunction(streamDefinition);
+        String streamId = streamDefinition.getStreamId();
+        if (Boolean.parseBoolean(System.getProperty(EventStreamConstants.STATISTICS_ENABLED_PROPERTY + "." + streamId,
+                System.getProperty(EventStreamConstants.STATISTICS_ENABLED_PROPERTY)))) {
+            EventStatisticsMonitor statisticsMonitor = null;
+            EventStatisticsService eventStatisticsService = EventStreamServiceValueHolder.getEventStatisticsService();
+            if (eventStatisticsService != null) {
+                statisticsMonitor = eventStatisticsService.getEventStatisticMonitor(tenantId,
+                        EventStreamConstants.EVENT_STREAM, streamId, null);
+            }
+            eventJunction.setStatistics(new EventStreamStatistics(tenantId, streamId, statisticsMonitor));
+        }
+        return eventJunction;
+    }
+
+    private void releaseEventJunction(EventJunction eventJunction) {
+        if (eventJunction != null && eventJunction.getStatistics() != null) {
+            eventJunction.getStatistics().destroy();
+            eventJunction.setStatistics(null);
+        }
+    }
+
+    /**
+     * Resolves the junction of the stream for the tenant of the caller once, and returns a handle that is
+     * shared by all the producers of that stream.
+     */
+    public EventStreamHandle getEventStreamHandle(String streamId) throws EventStreamConfigurationException {
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        EventStreamHandleImpl eventStreamHandle = getExistingEventStreamHandle(tenantId, streamId);
+        if (eventStreamHandle != null) {
+            return eventStreamHandle;
+        }
+        synchronized (streamHandleLock) {
+            return bindEventStreamHandle(tenantId, streamId, getOrConstructEventJunction(streamId));
+        }
+    }
+
+    /**
+     * Publishes through the handle of the stream, binding one when the stream has a junction but no handle yet.
+     * Events of streams without a junction are dropped.
+     */
     public void publish(String streamId, Event event) {
         int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
-        Map<String, EventJunction> eventJunctionMap = tenantSpecificEventJunctions.get(tenantId);
-        if(eventJunctionMap != null && eventJunctionMap.containsKey(streamId)) {
-            EventJunction eventJunction = eventJunctionMap.get(streamId);
-            eventJunction.sendEvent(event);
-        } else {
+        EventStreamHandleImpl eventStreamHandle = getExistingEventStreamHandle(tenantId, streamId);
+        if (eventStreamHandle == null) {
+            synchronized (streamHandleLock) {
+                Map<String, EventJunction> eventJunctionMap = tenantSpecificEventJunctions.get(tenantId);
+                EventJunction eventJunction = eventJunctionMap == null ? null : eventJunctionMap.get(streamId);
+                if (eventJunction != null) {
+                    eventStreamHandle = bindEventStreamHandle(tenantId, streamId, eventJunction);
+                }
+            }
+        }
+        if (eventStreamHandle != null) {
+            eventStreamHandle.publish(event);
+        } else if (log.isDebugEnabled()) {
             log.debug("Event " + event.toString() + " dropped since no junction found for the streamId " + streamId);
         }
     }
 
+    /**
+     * Has to be called holding the stream handle lock, so that the junction is not removed or replaced
+     * before the handle is registered where unloading the stream invalidates it.
+     */
+    private EventStreamHandleImpl bindEventStreamHandle(int tenantId, String streamId, EventJunction eventJunction) {
+        EventStreamHandleImpl eventStreamHandle = getExistingEventStreamHandle(tenantId, streamId);
+        if (eventStreamHandle != null) {
+            return eventStreamHandle;
+        }
+        ConcurrentMap<String, EventStreamHandleImpl> eventStreamHandleMap = tenantSpecificStreamHandles.get(tenantId);
+        if (eventStreamHandleMap == null) {
+            eventStreamHandleMap = new ConcurrentHashMap<String, EventStreamHandleImpl>();
+            ConcurrentMap<String, EventStreamHandleImpl> existingMap =
+                    tenantSpecificStreamHandles.putIfAbsent(tenantId, eventStreamHandleMap);
+            if (existingMap != null) {
+                eventStreamHandleMap = existingMap;
+            }
+        }
+        EventStreamHandleImpl newEventStreamHandle = new EventStreamHandleImpl(tenantId, streamId, eventJunction);
+        eventStreamHandleMap.put(streamId, newEventStreamHandle);
+        return newEventStreamHandle;
+    }
+
     public void subscribe(SiddhiEventConsumer siddhiEventConsumer) throws EventStreamConfigurationException {
         EventJunction eventJunction = getOrConstructEventJunction(siddhiEventConsumer.getStreamId());
         eventJunction.addConsumer(siddhiEventConsumer);
@@ -140,6 +255,37 @@ public class EventStreamRuntime {
         eventJunction.addConsumer(wso2EventListConsumer);
     }
 
+    public void subscribe(SiddhiEventConsumer siddhiEventConsumer, long fromTime)
+            throws EventStreamConfigurationException {
+        EventJunction eventJunction = getOrConstructEventJunction(siddhiEventConsumer.getStreamId());
+        eventJunction.addConsumer(siddhiEventConsumer, openReplayCursor(eventJunction, fromTime));
+    }
+
+    public void subscribe(RawEventConsumer rawEventConsumer, long fromTime) throws EventStreamConfigurationException {
+        EventJunction eventJunction = getOrConstructEventJunction(rawEventConsumer.getStreamId());
+        eventJunction.addConsumer(rawEventConsumer, openReplayCursor(eventJunction, fromTime));
+    }
+
+    public void subscribe(WSO2EventConsumer wso2EventConsumer, long fromTime) throws EventStreamConfigurationException {
+        EventJunction eventJunction = getOrConstructEventJunction(wso2EventConsumer.getStreamId());
+        eventJunction.addConsumer(wso2EventConsumer, openReplayCursor(eventJunction, fromTime));
+    }
+
+    public void subscribe(WSO2EventListConsumer wso2EventListConsumer, long fromTime)
+            throws EventStreamConfigurationException {
+        EventJunction eventJunction = getOrConstructEventJunction(wso2EventListConsumer.getStreamId());
+        eventJunction.addConsumer(wso2EventListConsumer, openReplayCursor(eventJunction, fromTime));
+    }
+
+    private EventReplayRing.Cursor openReplayCursor(EventJunction eventJunction, long fromTime) {
+        EventReplayRing.Cursor cursor = eventJunction.openReplayCursor(fromTime);
+        if (cursor == null) {
+            log.warn("Replay is not enabled for stream " + eventJunction.getStreamDefinition().getStreamId()
+                     + ", hence the consumer will only receive the events arriving from now on.");
+        }
+        return cursor;
+    }
+
     public void unsubscribe(SiddhiEventConsumer siddhiEventConsumer) {
         int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
         Map<String, EventJunction> eventJunctionMap = tenantSpecificEventJunctions.get(tenantId);
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal;
+
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.stream.core.internal.util.EventConverter;
+
+/**
+ * An event passing through a junction, shared by all of its consumers. The event is held in the form it was
+ * received in, and the other form (flattened event data or WSO2 event) is only created when a consumer asks for
+ * it, at most once per event. Hence it can be handed over to consumers on other threads as well.
+ */
+public final class JunctionEvent {
+
+    private final StreamDefinition streamDefinition;
+    private Object[] eventData;
+    private Event event;
+
+    public JunctionEvent(StreamDefinition streamDefinition, Object[] eventData) {
+        this.streamDefinition = streamDefinition;
+        this.eventData = eventData;
+    }
+
+    public JunctionEvent(StreamDefinition streamDefinition, Event event) {
+        this.streamDefinition = streamDefinition;
+        this.event = event;
+    }
+
+    public synchronized Object[] getEventData() {
+        if (eventData == null) {
+            eventData = EventConverter.convertToEventData(event, streamDefinition.getAttributeLayout());
+        }
+        return eventData;
+    }
+
+    public synchronized Event getEvent() {
+        if (event == null) {
+            event = EventConverter.convertToWso2Event(eventData, streamDefinition);
+        }
+        return event;
+    }
+}
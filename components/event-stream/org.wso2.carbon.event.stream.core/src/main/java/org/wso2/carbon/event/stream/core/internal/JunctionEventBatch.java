@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal;
+
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamAttributeLayout;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.stream.core.internal.util.EventConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of events passing through a junction, shared by all of its consumers. As with {@link JunctionEvent},
+ * the batch is held in the form it was received in and the other forms are created on demand, at most once.
+ * Siddhi events are only passed on as received, to the Siddhi event consumers.
+ */
+public final class JunctionEventBatch {
+
+    private final StreamDefinition streamDefinition;
+    private final int size;
+    private final org.wso2.siddhi.core.event.Event[] siddhiEvents;
+    private Object[][] eventDataBatch;
+    private List<Event> events;
+
+    public JunctionEventBatch(StreamDefinition streamDefinition, Object[][] eventDataBatch) {
+        this.streamDefinition = streamDefinition;
+        this.eventDataBatch = eventDataBatch;
+        this.size = eventDataBatch.length;
+        this.siddhiEvents = null;
+    }
+
+    public JunctionEventBatch(StreamDefinition streamDefinition, List<Event> events) {
+        this.streamDefinition = streamDefinition;
+        this.events = events;
+        this.size = events.size();
+        this.siddhiEvents = null;
+    }
+
+    public JunctionEventBatch(StreamDefinition streamDefinition, org.wso2.siddhi.core.event.Event[] siddhiEvents) {
+        this.streamDefinition = streamDefinition;
+        this.siddhiEvents = siddhiEvents;
+        this.size = siddhiEvents.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the batch as received, or null when it was not received as Siddhi events
+     */
+    public org.wso2.siddhi.core.event.Event[] getSiddhiEvents() {
+        return siddhiEvents;
+    }
+
+    public synchronized Object[][] getEventDataBatch() {
+        if (eventDataBatch == null && siddhiEvents != null) {
+            Object[][] dataBatch = new Object[size][];
+            for (int i = 0; i < size; i++) {
+                dataBatch[i] = siddhiEvents[i].getData();
+            }
+            eventDataBatch = dataBatch;
+        } else if (eventDataBatch == null) {
+            StreamAttributeLayout attributeLayout = streamDefinition.getAttributeLayout();
+            Object[][] dataBatch = new Object[size][];
+            for (int i = 0; i < size; i++) {
+                dataBatch[i] = EventConverter.convertToEventData(events.get(i), attributeLayout);
+            }
+            eventDataBatch = dataBatch;
+        }
+        return eventDataBatch;
+    }
+
+    public synchronized List<Event> getEvents() {
+        if (events == null) {
+            List<Event> eventList = new ArrayList<Event>(size);
+            for (Object[] eventData : getEventDataBatch()) {
+                eventList.add(EventConverter.convertToWso2Event(eventData, streamDefinition));
+            }
+            events = eventList;
+        }
+        return events;
+    }
+}
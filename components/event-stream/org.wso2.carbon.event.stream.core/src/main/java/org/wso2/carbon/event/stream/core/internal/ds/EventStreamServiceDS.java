@@ -17,6 +17,7 @@ package org.wso2.carbon.event.stream.core.internal.ds;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.ComponentContext;
+import org.wso2.carbon.event.statistics.EventStatisticsService;
 import org.wso2.carbon.event.stream.core.EventStreamListener;
 import org.wso2.carbon.event.stream.core.EventStreamService;
 import org.wso2.carbon.event.stream.core.internal.CarbonEventStreamService;
@@ -31,6 +32,9 @@ import org.wso2.carbon.utils.ConfigurationContextService;
  * @scr.reference name="eventStreamListener.service"
  * interface="org.wso2.carbon.event.stream.core.EventStreamListener" cardinality="0..n" policy="dynamic"
  * bind="setEventStreamListener" unbind="unsetEventStreamListener"
+ * @scr.reference name="eventStatistics.service"
+ * interface="org.wso2.carbon.event.statistics.EventStatisticsService" cardinality="0..1" policy="dynamic"
+ * bind="setEventStatisticsService" unbind="unsetEventStatisticsService"
  */
 public class EventStreamServiceDS {
     private static final Log log = LogFactory.getLog(EventStreamServiceDS.class);
@@ -68,4 +72,12 @@ public class EventStreamServiceDS {
     protected void unsetEventStreamListener(EventStreamListener eventStreamListener) {
         EventStreamServiceValueHolder.unregisterEventStreamListener(eventStreamListener);
     }
+
+    protected void setEventStatisticsService(EventStatisticsService eventStatisticsService) {
+        EventStreamServiceValueHolder.registerEventStatisticsService(eventStatisticsService);
+    }
+
+    protected void unsetEventStatisticsService(EventStatisticsService eventStatisticsService) {
+        EventStreamServiceValueHolder.registerEventStatisticsService(null);
+    }
 }
@@ -14,6 +14,7 @@
  */
 package org.wso2.carbon.event.stream.core.internal.ds;
 
+import org.wso2.carbon.event.statistics.EventStatisticsService;
 import org.wso2.carbon.event.stream.core.EventStreamListener;
 import org.wso2.carbon.event.stream.core.internal.CarbonEventStreamService;
 import org.wso2.carbon.event.stream.core.internal.EventStreamRuntime;
@@ -28,6 +29,7 @@ public class EventStreamServiceValueHolder {
     private static ConfigurationContextService configurationContextService;
     private static List<EventStreamListener> eventStreamListenerList =  new CopyOnWriteArrayList<EventStreamListener>();
     private static EventStreamRuntime eventStreamRuntime;
+    private static EventStatisticsService eventStatisticsService;
 
     private EventStreamServiceValueHolder() {
 
@@ -69,4 +71,12 @@ public class EventStreamServiceValueHolder {
     public static void registerEventStreamRuntime(EventStreamRuntime eventStreamRuntime) {
         EventStreamServiceValueHolder.eventStreamRuntime = eventStreamRuntime;
     }
+
+    public static EventStatisticsService getEventStatisticsService() {
+        return eventStatisticsService;
+    }
+
+    public static void registerEventStatisticsService(EventStatisticsService eventStatisticsService) {
+        EventStreamServiceValueHolder.eventStatisticsService = eventStatisticsService;
+    }
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.load;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.stream.core.EventLoadConfiguration;
+import org.wso2.carbon.event.stream.core.EventLoadResult;
+import org.wso2.carbon.event.stream.core.EventStreamHandle;
+import org.wso2.carbon.event.stream.core.internal.statistics.ProcessingTimeHistogram;
+import org.wso2.carbon.event.stream.core.internal.util.EventConverter;
+import org.wso2.carbon.event.stream.core.internal.util.SampleEventGenerator;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes sample events of a stream to its junction from one or more local threads, at a target rate or as fast
+ * as possible, measuring the achieved throughput and the time taken to publish each event.
+ * <p/>
+ * The events are generated before the run and the same instances are published in turns, so the measurements only
+ * cover the pipeline. When running at a target rate, each publisher sends its events on a fixed schedule, offset
+ * from the schedules of the other publishers so that the events are spread evenly over time, and catches up
+ * without pausing when it falls behind. The latency of each event is measured from the time it was scheduled to be sent
+ * rather than from the time it was actually sent, so that the time events wait behind a slow publish is part of
+ * the measured latency instead of being hidden by the delayed start. When running as fast as possible, the
+ * latency is the time taken to publish the event.
+ */
+public class EventLoadGenerator {
+
+    private static final Log log = LogFactory.getLog(EventLoadGenerator.class);
+
+    private final EventStreamHandle eventStreamHandle;
+    private final StreamDefinition streamDefinition;
+    private final EventLoadConfiguration configuration;
+    private final Event[] events;
+    private final ProcessingTimeHistogram latencyHistogram = new ProcessingTimeHistogram();
+    private final AtomicLong publishedEventCount = new AtomicLong();
+    private final AtomicLong failedEventCount = new AtomicLong();
+    private volatile boolean stopped;
+
+    public EventLoadGenerator(EventStreamHandle eventStreamHandle, StreamDefinition streamDefinition,
+                              EventLoadConfiguration configuration) {
+        this.eventStreamHandle = eventStreamHandle;
+        this.streamDefinition = streamDefinition;
+        this.configuration = configuration;
+        Object[][] eventData = SampleEventGenerator.generateEventData(streamDefinition, configuration);
+        this.events = new Event[eventData.length];
+        for (int i = 0; i < eventData.length; i++) {
+            events[i] = EventConverter.convertToWso2Event(eventData[i], streamDefinition);
+        }
+    }
+
+    /**
+     * Starts the load run on a thread of its own, which in turn runs the configured number of publisher threads.
+     *
+     * @return the outcome of the run, where cancelling the future stops the run
+     */
+    public Future<EventLoadResult> start() {
+        if (configuration.getEventCount() <= 0 && configuration.getDurationMillis() <= 0) {
+            throw new IllegalArgumentException("Either the event count or the duration of the load run " +
+                                               "for stream " + streamDefinition.getStreamId() + " needs to be set");
+        }
+        FutureTask<EventLoadResult> loadRun = new FutureTask<EventLoadResult>(new Callable<EventLoadResult>() {
+            @Override
+            public EventLoadResult call() {
+                return run();
+            }
+        }) {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                stop();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        Thread thread = new Thread(loadRun, "EventLoadGenerator-" + streamDefinition.getStreamId());
+        thread.setDaemon(true);
+        thread.start();
+        return loadRun;
+    }
+
+    private EventLoadResult run() {
+        int publisherCount = Math.max(configuration.getPublisherCount(), 1);
+        long eventCount = configuration.getEventCount() > 0 ? configuration.getEventCount() : Long.MAX_VALUE;
+        long intervalNanos = configuration.getEventsPerSecond() > 0 ?
+                TimeUnit.SECONDS.toNanos(publisherCount) / configuration.getEventsPerSecond() : 0;
+
+        log.info("Starting load run on stream " + streamDefinition.getStreamId() + " with " + publisherCount +
+                 " publishers.");
+        long startTime = System.nanoTime();
+        long durationNanos = configuration.getDurationMillis() > 0 ?
+                TimeUnit.MILLISECONDS.toNanos(configuration.getDurationMillis()) : Long.MAX_VALUE;
+        Thread[] publishers = new Thread[publisherCount];
+        for (int i = 0; i < publisherCount; i++) {
+            long publisherEventCount = eventCount == Long.MAX_VALUE ? eventCount :
+                    eventCount / publisherCount + (i < eventCount % publisherCount ? 1 : 0);
+            long firstScheduledTime = startTime + i * intervalNanos / publisherCount;
+            publishers[i] = new Thread(new Publisher(i, publisherEventCount, startTime, firstScheduledTime,
+                    durationNanos, intervalNanos), "EventLoadGenerator-" + streamDefinition.getStreamId() + "-" + i);
+            publishers[i].start();
+        }
+        boolean interrupted = false;
+        for (Thread publisher : publishers) {
+            while (publisher.isAlive()) {
+                try {
+                    publisher.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    stopped = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        EventLoadResult result = new EventLoadResult(streamDefinition.getStreamId(), publishedEventCount.get(),
+                failedEventCount.get(), elapsedMillis, latencyHistogram.getAverageTime() / 1000,
+                TimeUnit.NANOSECONDS.toMicros(latencyHistogram.getPercentile(50)),
+                TimeUnit.NANOSECONDS.toMicros(latencyHistogram.getPercentile(99)),
+                TimeUnit.NANOSECONDS.toMicros(latencyHistogram.getMaxTime()));
+        log.info("Completed load run: " + result);
+        return result;
+    }
+
+    /**
+     * Stops a run in progress, which then completes with the events published so far.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    private class Publisher implements Runnable {
+
+        private final int publisherIndex;
+        private final long eventCount;
+        private final long startTime;
+        private final long firstScheduledTime;
+        private final long durationNanos;
+        private final long intervalNanos;
+
+        private Publisher(int publisherIndex, long eventCount, long startTime, long firstScheduledTime,
+                          long durationNanos, long intervalNanos) {
+            this.publisherIndex = publisherIndex;
+            this.eventCount = eventCount;
+            this.startTime = startTime;
+            this.firstScheduledTime = firstScheduledTime;
+            this.durationNanos = durationNanos;
+            this.intervalNanos = intervalNanos;
+        }
+
+        @Override
+        public void run() {
+            int eventIndex = publisherIndex % events.length;
+            long published = 0;
+            long failed = 0;
+            for (long i = 0; i < eventCount && !stopped; i++) {
+                long now = System.nanoTime();
+                long scheduledTime = now;
+                if (intervalNanos > 0) {
+                    scheduledTime = firstScheduledTime + i * intervalNanos;
+                    while (now < scheduledTime && !stopped) {
+                        LockSupport.parkNanos(scheduledTime - now);
+                        now = System.nanoTime();
+                    }
+                }
+                if (now - startTime >= durationNanos) {
+                    break;
+                }
+                Event event = events[eventIndex];
+                if (++eventIndex == events.length) {
+                    eventIndex = 0;
+                }
+                try {
+                    eventStreamHandle.publish(event);
+                    latencyHistogram.record(System.nanoTime() - scheduledTime);
+                    published++;
+                } catch (RuntimeException e) {
+                    if (failed++ == 0) {
+                        log.error("Error while publishing load event to stream " + streamDefinition.getStreamId() +
+                                  ", further errors of this publisher are only logged at debug level: " +
+                                  e.getMessage(), e);
+                    } else if (log.isDebugEnabled()) {
+                        log.debug("Error while publishing load event to stream " + streamDefinition.getStreamId() +
+                                  ": " + e.getMessage(), e);
+                    }
+                }
+            }
+            publishedEventCount.addAndGet(published);
+            failedEventCount.addAndGet(failed);
+        }
+    }
+}
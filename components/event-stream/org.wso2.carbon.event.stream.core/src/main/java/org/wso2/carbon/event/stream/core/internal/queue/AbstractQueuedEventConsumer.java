@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.queue;
+
+import org.wso2.carbon.event.stream.core.internal.JunctionEvent;
+import org.wso2.carbon.event.stream.core.internal.JunctionEventBatch;
+import org.wso2.carbon.event.stream.core.internal.statistics.EventStreamStatistics;
+
+/**
+ * Base of the consumers that the junction calls in place of a queued consumer,
+ * where each call is queued and later delivered to the actual consumer by the worker of the queue.
+ */
+public abstract class AbstractQueuedEventConsumer {
+
+    protected final EventConsumerQueue consumerQueue;
+
+    protected AbstractQueuedEventConsumer(EventConsumerQueue consumerQueue) {
+        this.consumerQueue = consumerQueue;
+    }
+
+    /**
+     * Queues the event, leaving its conversion to the form the consumer needs to the worker of the queue.
+     */
+    public abstract void dispatch(JunctionEvent junctionEvent);
+
+    /**
+     * Queues the batch, leaving its conversion to the form the consumer needs to the worker of the queue.
+     */
+    public abstract void dispatch(JunctionEventBatch eventBatch);
+
+    public EventConsumerQueue getConsumerQueue() {
+        return consumerQueue;
+    }
+
+    /**
+     * @param statistics statistics of the junction, where the worker of the queue records the time taken to
+     *                   deliver the events, or null to stop recording it
+     */
+    public void setStatistics(EventStreamStatistics statistics) {
+        consumerQueue.setStatistics(statistics, this);
+    }
+
+    /**
+     * Stops the queue from accepting events and waits for the events already queued to be delivered.
+     */
+    public void shutdownQueue() {
+        consumerQueue.shutdown();
+        consumerQueue.awaitDrained();
+    }
+}
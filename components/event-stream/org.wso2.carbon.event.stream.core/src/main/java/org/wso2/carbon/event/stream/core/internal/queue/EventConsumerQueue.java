@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.queue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.event.stream.core.EventConsumerQueueConfiguration;
+import org.wso2.carbon.event.stream.core.internal.statistics.EventStreamStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue of a single consumer of a junction, drained by a worker thread of its own.
+ * Each dispatch is an event or a batch of events, as received by the junction, while both the bound of the queue
+ * and the counters are kept in events. A batch larger than the whole queue takes up all of it.
+ */
+public class EventConsumerQueue implements Runnable {
+
+    private static final Log log = LogFactory.getLog(EventConsumerQueue.class);
+    private static final long POLL_TIMEOUT_MS = 500;
+    private static final long DRAIN_TIMEOUT_MS = 30000;
+
+    private final String streamId;
+    private final String consumerName;
+    private final EventConsumerQueueConfiguration.FullQueuePolicy fullQueuePolicy;
+    private final int capacity;
+    private final Semaphore freeCapacity;
+    private final BlockingQueue<EventDispatch> queue;
+    private final Thread worker;
+
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile boolean closed = false;
+    private volatile EventStreamStatistics statistics;
+    private volatile Object statisticsConsumer;
+
+    public EventConsumerQueue(String streamId, String consumerName,
+                              EventConsumerQueueConfiguration queueConfiguration) {
+        this.streamId = streamId;
+        this.consumerName = consumerName;
+        this.fullQueuePolicy = queueConfiguration.getFullQueuePolicy() != null ?
+                queueConfiguration.getFullQueuePolicy() : EventConsumerQueueConfiguration.FullQueuePolicy.BLOCK;
+        this.capacity = queueConfiguration.getQueueSize() > 0 ?
+                queueConfiguration.getQueueSize() : EventConsumerQueueConfiguration.DEFAULT_QUEUE_SIZE;
+        // fair, so that a large batch waiting for space is not overtaken by smaller ones forever
+        this.freeCapacity = new Semaphore(capacity, true);
+        this.queue = new LinkedBlockingQueue<EventDispatch>();
+        this.worker = new Thread(this, "EventJunction-" + streamId + "-" + consumerName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void dispatch(EventDispatch dispatch) {
+        int eventCount = dispatch.getEventCount();
+        receivedCount.addAndGet(eventCount);
+        if (!running) {
+            droppedCount.addAndGet(eventCount);
+            return;
+        }
+        int requiredCapacity = getRequiredCapacity(dispatch);
+        switch (fullQueuePolicy) {
+            case DROP:
+                if (!freeCapacity.tryAcquire(requiredCapacity)) {
+                    droppedCount.addAndGet(eventCount);
+                    return;
+                }
+                break;
+            case DROP_OLDEST:
+                while (!freeCapacity.tryAcquire(requiredCapacity)) {
+                    EventDispatch oldest = take(queue.poll());
+                    if (oldest != null) {
+                        droppedCount.addAndGet(oldest.getEventCount());
+                    }
+                }
+                break;
+            default:
+                try {
+                    while (!freeCapacity.tryAcquire(requiredCapacity, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        if (closed) {
+                            droppedCount.addAndGet(eventCount);
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedCount.addAndGet(eventCount);
+                    return;
+                }
+        }
+        queue.add(dispatch);
+        // the worker may have drained the queue for the last time while the dispatch was being queued
+        if (closed && queue.remove(dispatch)) {
+            take(dispatch);
+            droppedCount.addAndGet(eventCount);
+        }
+    }
+
+    private int getRequiredCapacity(EventDispatch dispatch) {
+        return Math.min(dispatch.getEventCount(), capacity);
+    }
+
+    /**
+     * Frees the space held by a dispatch that has been taken off the queue.
+     */
+    private EventDispatch take(EventDispatch dispatch) {
+        if (dispatch != null) {
+            freeCapacity.release(getRequiredCapacity(dispatch));
+        }
+        return dispatch;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running || !queue.isEmpty()) {
+                EventDispatch dispatch;
+                try {
+                    dispatch = take(queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (dispatch != null) {
+                    EventStreamStatistics statistics = this.statistics;
+                    long startTime = statistics == null ? 0 : System.nanoTime();
+                    try {
+                        dispatch.run();
+                    } catch (Throwable t) {
+                        log.error("Error while dispatching events of stream " + streamId + " to " + consumerName +
+                                  ": " + t.getMessage(), t);
+                    }
+                    if (statistics != null) {
+                        statistics.onEventsConsumed(statisticsConsumer, dispatch.getEventCount(),
+                                System.nanoTime() - startTime);
+                    }
+                    processedCount.addAndGet(dispatch.getEventCount());
+                }
+            }
+        } finally {
+            // closes the queue before draining it, so that producers blocked on a full queue give up
+            // and a dispatch queued after the drain is taken back by its producer
+            closed = true;
+            List<EventDispatch> remaining = new ArrayList<EventDispatch>();
+            queue.drainTo(remaining);
+            for (EventDispatch dispatch : remaining) {
+                take(dispatch);
+                droppedCount.addAndGet(dispatch.getEventCount());
+            }
+        }
+    }
+
+    /**
+     * @param statistics statistics to record the time the consumer takes to process the queued events in,
+     *                   or null to stop recording it
+     * @param consumer   consumer the time is recorded against, as added to the junction
+     */
+    public void setStatistics(EventStreamStatistics statistics, Object consumer) {
+        this.statisticsConsumer = consumer;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Stops accepting dispatches, the already queued dispatches are still delivered to the consumer.
+     */
+    public void shutdown() {
+        running = false;
+    }
+
+    /**
+     * Waits for the worker to deliver the dispatches queued before {@link #shutdown()}, so that the consumer can be
+     * shut down after its last event. Returns at once when called by the worker itself.
+     *
+     * @return whether the queue has been drained within the timeout
+     */
+    public boolean awaitDrained() {
+        if (Thread.currentThread() == worker) {
+            return false;
+        }
+        try {
+            worker.join(DRAIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            log.warn("Timed out waiting for the queue of " + consumerName + " of stream " + streamId + " to drain, " +
+                     getLag() + " events are still pending");
+            return false;
+        }
+        return true;
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public String getConsumerName() {
+        return consumerName;
+    }
+
+    /**
+     * @return number of events accepted by the queue but not yet processed by the consumer
+     */
+    public long getLag() {
+        return receivedCount.get() - processedCount.get() - droppedCount.get();
+    }
+
+    /**
+     * @return number of events held by the queue, not counting the ones being delivered
+     */
+    public int getQueueSize() {
+        return capacity - freeCapacity.availablePermits();
+    }
+
+    /**
+     * @return number of events the queue can take before it is full
+     */
+    public int getRemainingCapacity() {
+        return freeCapacity.availablePermits();
+    }
+
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+}
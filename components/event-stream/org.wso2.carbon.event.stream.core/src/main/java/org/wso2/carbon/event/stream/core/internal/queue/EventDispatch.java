@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.queue;
+
+/**
+ * A delivery to the consumer of an {@link EventConsumerQueue}, carrying the number of events it delivers
+ * so that the counters of the queue are kept in events rather than in dispatches.
+ */
+public abstract class EventDispatch implements Runnable {
+
+    private final int eventCount;
+
+    protected EventDispatch(int eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.queue;
+
+import org.wso2.carbon.event.stream.core.RawEventBatchConsumer;
+import org.wso2.carbon.event.stream.core.RawEventConsumer;
+import org.wso2.carbon.event.stream.core.internal.JunctionEvent;
+import org.wso2.carbon.event.stream.core.internal.JunctionEventBatch;
+
+public class QueuedRawEventConsumer extends AbstractQueuedEventConsumer implements RawEventBatchConsumer {
+
+    private final RawEventConsumer consumer;
+
+    public QueuedRawEventConsumer(RawEventConsumer consumer, EventConsumerQueue consumerQueue) {
+        super(consumerQueue);
+        this.consumer = consumer;
+    }
+
+    @Override
+    public String getStreamId() {
+        return consumer.getStreamId();
+    }
+
+    @Override
+    public void consumeEventData(final Object[] eventData) {
+        consumerQueue.dispatch(new EventDispatch(1) {
+            @Override
+            public void run() {
+                consumer.consumeEventData(eventData);
+            }
+        });
+    }
+
+    @Override
+    public void consumeEventDataBatch(final Object[][] eventDataBatch) {
+        consumerQueue.dispatch(new EventDispatch(eventDataBatch.length) {
+            @Override
+            public void run() {
+                deliver(eventDataBatch);
+            }
+        });
+    }
+
+    @Override
+    public void dispatch(final JunctionEvent junctionEvent) {
+        consumerQueue.dispatch(new EventDispatch(1) {
+            @Override
+            public void run() {
+                consumer.consumeEventData(junctionEvent.getEventData());
+            }
+        });
+    }
+
+    @Override
+    public void dispatch(final JunctionEventBatch eventBatch) {
+        consumerQueue.dispatch(new EventDispatch(eventBatch.size()) {
+            @Override
+            public void run() {
+                deliver(eventBatch.getEventDataBatch());
+            }
+        });
+    }
+
+    private void deliver(Object[][] eventDataBatch) {
+        if (consumer instanceof RawEventBatchConsumer) {
+            ((RawEventBatchConsumer) consumer).consumeEventDataBatch(eventDataBatch);
+        } else {
+            for (Object[] eventData : eventDataBatch) {
+                consumer.consumeEventData(eventData);
+            }
+        }
+    }
+}
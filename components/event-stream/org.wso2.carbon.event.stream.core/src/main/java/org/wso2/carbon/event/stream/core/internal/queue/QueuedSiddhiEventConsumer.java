@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.queue;
+
+import org.wso2.carbon.event.stream.core.SiddhiEventConsumer;
+import org.wso2.carbon.event.stream.core.internal.JunctionEvent;
+import org.wso2.carbon.event.stream.core.internal.JunctionEventBatch;
+
+public class QueuedSiddhiEventConsumer extends AbstractQueuedEventConsumer implements SiddhiEventConsumer {
+
+    private final SiddhiEventConsumer consumer;
+
+    public QueuedSiddhiEventConsumer(SiddhiEventConsumer consumer, EventConsumerQueue consumerQueue) {
+        super(consumerQueue);
+        this.consumer = consumer;
+    }
+
+    @Override
+    public String getStreamId() {
+        return consumer.getStreamId();
+    }
+
+    @Override
+    public void consumeEvents(final org.wso2.siddhi.core.event.Event[] events) {
+        consumerQueue.dispatch(new EventDispatch(events.length) {
+            @Override
+            public void run() {
+                consumer.consumeEvents(events);
+            }
+        });
+    }
+
+    @Override
+    public void consumeEventData(final Object[] data) {
+        consumerQueue.dispatch(new EventDispatch(1) {
+            @Override
+            public void run() {
+                consumer.consumeEventData(data);
+            }
+        });
+    }
+
+    @Override
+    public void dispatch(final JunctionEvent junctionEvent) {
+        consumerQueue.dispatch(new EventDispatch(1) {
+            @Override
+            public void run() {
+                consumer.consumeEventData(junctionEvent.getEventData());
+            }
+        });
+    }
+
+    @Override
+    public void dispatch(final JunctionEventBatch eventBatch) {
+        consumerQueue.dispatch(new EventDispatch(eventBatch.size()) {
+            @Override
+            public void run() {
+                if (eventBatch.getSiddhiEvents() != null) {
+                    consumer.consumeEvents(eventBatch.getSiddhiEvents());
+                } else {
+                    for (Object[] eventData : eventBatch.getEventDataBatch()) {
+                        consumer.consumeEventData(eventData);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        shutdownQueue();
+        consumer.shutdown();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.queue;
+
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.stream.core.WSO2EventConsumer;
+import org.wso2.carbon.event.stream.core.internal.JunctionEvent;
+import org.wso2.carbon.event.stream.core.internal.JunctionEventBatch;
+
+public class QueuedWSO2EventConsumer extends AbstractQueuedEventConsumer implements WSO2EventConsumer {
+
+    private final WSO2EventConsumer consumer;
+
+    public QueuedWSO2EventConsumer(WSO2EventConsumer consumer, EventConsumerQueue consumerQueue) {
+        super(consumerQueue);
+        this.consumer = consumer;
+    }
+
+    @Override
+    public String getStreamId() {
+        return consumer.getStreamId();
+    }
+
+    @Override
+    public void onEvent(final Event event) {
+        consumerQueue.dispatch(new EventDispatch(1) {
+            @Override
+            public void run() {
+                consumer.onEvent(event);
+            }
+        });
+    }
+
+    @Override
+    public void dispatch(final JunctionEvent junctionEvent) {
+        consumerQueue.dispatch(new EventDispatch(1) {
+            @Override
+            public void run() {
+                consumer.onEvent(junctionEvent.getEvent());
+            }
+        });
+    }
+
+    @Override
+    public void dispatch(final JunctionEventBatch eventBatch) {
+        consumerQueue.dispatch(new EventDispatch(eventBatch.size()) {
+            @Override
+            public void run() {
+                for (Event event : eventBatch.getEvents()) {
+                    consumer.onEvent(event);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onAddDefinition(StreamDefinition definition) {
+        consumer.onAddDefinition(definition);
+    }
+
+    @Override
+    public void onRemoveDefinition(StreamDefinition definition) {
+        consumer.onRemoveDefinition(definition);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.queue;
+
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.event.stream.core.WSO2EventListConsumer;
+import org.wso2.carbon.event.stream.core.internal.JunctionEventBatch;
+
+import java.util.List;
+
+public class QueuedWSO2EventListConsumer extends QueuedWSO2EventConsumer implements WSO2EventListConsumer {
+
+    private final WSO2EventListConsumer consumer;
+
+    public QueuedWSO2EventListConsumer(WSO2EventListConsumer consumer, EventConsumerQueue consumerQueue) {
+        super(consumer, consumerQueue);
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void onEventList(final List<Event> events) {
+        consumerQueue.dispatch(new EventDispatch(events.size()) {
+            @Override
+            public void run() {
+                consumer.onEventList(events);
+            }
+        });
+    }
+
+    @Override
+    public void dispatch(final JunctionEventBatch eventBatch) {
+        consumerQueue.dispatch(new EventDispatch(eventBatch.size()) {
+            @Override
+            public void run() {
+                consumer.onEventList(eventBatch.getEvents());
+            }
+        });
+    }
+}
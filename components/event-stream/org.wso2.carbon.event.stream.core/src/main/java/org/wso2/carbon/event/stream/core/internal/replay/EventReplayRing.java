@@ -0,0 +1,486 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.replay;
+
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamAttributeLayout;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bounded ring of the latest events of a stream, serialised into a direct (off-heap) buffer, from which consumers
+ * can re-read the retained events through a {@link Cursor}. Once the ring is full, the oldest events are dropped
+ * to make room for the new ones.
+ * <p/>
+ * Each record holds its length, sequence number and timestamp followed by the attributes in the flattened attribute
+ * order, each preceded by a null flag, with strings written as their length and characters in modified UTF-8.
+ * A record that does not fit before the end of the buffer is written at its start, hence the record following the
+ * one at a given position is either right after it or at the start of the buffer, which always holds a record.
+ * Records are encoded on the writing thread and copied into the ring under its lock, so that writers only
+ * serialise on the copy. Writing does not allocate once the buffer of the writing thread has grown to the size of
+ * the records, and a record that does not fit in the ring at all is not retained.
+ */
+public class EventReplayRing {
+
+    private static final int HEADER_SIZE = 4 + 8 + 8;
+    private static final byte NULL_VALUE = 0;
+    private static final byte NON_NULL_VALUE = 1;
+    private static final int INITIAL_RECORD_BUFFER_SIZE = 1024;
+
+    /*
+    heap buffer of each writer thread into which records are encoded before being copied into the ring.
+     */
+    private static final ThreadLocal<ByteBuffer> RECORD_BUFFERS = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(INITIAL_RECORD_BUFFER_SIZE);
+        }
+    };
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final AttributeType[] attributeTypes;
+    private final int metaDataCount;
+    private final int correlationDataCount;
+    private final int payloadDataCount;
+
+    // position of the next record, position of the oldest record and the number of retained records
+    private int head;
+    private int tail;
+    private int count;
+    private long headSequence;
+    private long tailSequence;
+    private long droppedCount;
+
+    /**
+     * @param attributeLayout layout of the attributes of the stream
+     * @param retentionSize   size of the ring in bytes
+     */
+    public EventReplayRing(StreamAttributeLayout attributeLayout, int retentionSize) {
+        if (retentionSize < HEADER_SIZE) {
+            throw new IllegalArgumentException("Replay ring size " + retentionSize + " is too small to hold an event");
+        }
+        this.capacity = retentionSize;
+        this.buffer = ByteBuffer.allocateDirect(retentionSize);
+        this.attributeTypes = attributeLayout.getAttributeTypes();
+        this.metaDataCount = attributeLayout.getMetaDataCount();
+        this.correlationDataCount = attributeLayout.getCorrelationDataCount();
+        this.payloadDataCount = attributeLayout.getPayloadDataCount();
+    }
+
+    /**
+     * @param timestamp timestamp of the event
+     * @param eventData attributes of the event in the flattened attribute order
+     * @return sequence number of the recorded event, or -1 if the event is larger than the ring
+     * @throws IllegalArgumentException if an attribute value does not match its type, in which case the ring is
+     *                                  left untouched
+     */
+    public long write(long timestamp, Object[] eventData) {
+        int size = HEADER_SIZE + getSize(eventData, 0, attributeTypes.length);
+        if (size > capacity) {
+            return drop();
+        }
+        ByteBuffer record = getRecordBuffer(size);
+        int position = writeHeader(record, size, timestamp);
+        writeAttributes(record, eventData, 0, attributeTypes.length, position);
+        return append(record, size);
+    }
+
+    /**
+     * Records an event given as its meta, correlation and payload attributes, any of which may be null when the
+     * stream has no such attributes.
+     */
+    public long write(long timestamp, Object[] metaData, Object[] correlationData, Object[] payloadData) {
+        int payloadDataOffset = metaDataCount + correlationDataCount;
+        int size = HEADER_SIZE + getSize(metaData, 0, metaDataCount)
+                + getSize(correlationData, metaDataCount, correlationDataCount)
+                + getSize(payloadData, payloadDataOffset, payloadDataCount);
+        if (size > capacity) {
+            return drop();
+        }
+        ByteBuffer record = getRecordBuffer(size);
+        int position = writeHeader(record, size, timestamp);
+        position = writeAttributes(record, metaData, 0, metaDataCount, position);
+        position = writeAttributes(record, correlationData, metaDataCount, correlationDataCount, position);
+        writeAttributes(record, payloadData, payloadDataOffset, payloadDataCount, position);
+        return append(record, size);
+    }
+
+    /**
+     * Values missing from the given array are recorded as nulls, so that every record holds all the attributes.
+     */
+    private static Object getValue(Object[] values, int index) {
+        return values != null && index < values.length ? values[index] : null;
+    }
+
+    private int getSize(Object[] values, int attributeIndex, int attributeCount) {
+        int size = attributeCount;
+        for (int i = 0; i < attributeCount; i++) {
+            Object value = getValue(values, i);
+            if (value == null) {
+                continue;
+            }
+            AttributeType attributeType = attributeTypes[attributeIndex + i];
+            switch (attributeType) {
+                case BOOL:
+                    checkType(value, Boolean.class, attributeType);
+                    size += 1;
+                    break;
+                case INT:
+                    checkType(value, Integer.class, attributeType);
+                    size += 4;
+                    break;
+                case FLOAT:
+                    checkType(value, Float.class, attributeType);
+                    size += 4;
+                    break;
+                case LONG:
+                    checkType(value, Long.class, attributeType);
+                    size += 8;
+                    break;
+                case DOUBLE:
+                    checkType(value, Double.class, attributeType);
+                    size += 8;
+                    break;
+                default:
+                    size += 4 + getEncodedLength(value.toString());
+            }
+        }
+        return size;
+    }
+
+    private static void checkType(Object value, Class<?> valueClass, AttributeType attributeType) {
+        if (!valueClass.isInstance(value)) {
+            throw new IllegalArgumentException("Cannot record " + value.getClass().getName() + " value " + value
+                    + " as " + attributeType);
+        }
+    }
+
+    private static int getEncodedLength(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != 0 && c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return the record buffer of the calling thread, large enough to hold a record of the given size
+     */
+    private static ByteBuffer getRecordBuffer(int size) {
+        ByteBuffer record = RECORD_BUFFERS.get();
+        if (record.capacity() < size) {
+            record = ByteBuffer.allocate(Math.max(size, record.capacity() * 2));
+            RECORD_BUFFERS.set(record);
+        }
+        return record;
+    }
+
+    private synchronized long drop() {
+        droppedCount++;
+        return -1;
+    }
+
+    /**
+     * Copies the encoded record into the ring, assigning it the next sequence number. Only this copy is done while
+     * holding the lock of the ring, hence writers contend only for the time it takes to copy a record.
+     */
+    private synchronized long append(ByteBuffer record, int size) {
+        reserve(size);
+        record.limit(size).position(0);
+        buffer.position(head);
+        buffer.put(record);
+        record.clear();
+        buffer.putLong(head + 4, headSequence);
+        return commit(size);
+    }
+
+    /**
+     * Makes room for a record of the given size, which fits in the ring, at the head, wrapping around and dropping
+     * the oldest records as needed.
+     */
+    private void reserve(int size) {
+        if (capacity - head < size) {
+            evictUntil(capacity);
+            head = 0;
+        }
+        evictUntil(head + size);
+    }
+
+    private void evictUntil(int end) {
+        while (count > 0 && tail >= head && tail < end) {
+            tail += buffer.getInt(tail);
+            tailSequence++;
+            count--;
+            if (count > 0) {
+                tail = locate(tail, tailSequence);
+            }
+        }
+        if (count == 0) {
+            tail = head;
+            tailSequence = headSequence;
+        }
+    }
+
+    /**
+     * Writes the size and the timestamp of the record, leaving its sequence number to be set once it is appended.
+     */
+    private static int writeHeader(ByteBuffer record, int size, long timestamp) {
+        record.putInt(0, size);
+        record.putLong(12, timestamp);
+        return HEADER_SIZE;
+    }
+
+    private int writeAttributes(ByteBuffer record, Object[] values, int attributeIndex, int attributeCount,
+                                int position) {
+        for (int i = 0; i < attributeCount; i++) {
+            Object value = getValue(values, i);
+            if (value == null) {
+                record.put(position++, NULL_VALUE);
+                continue;
+            }
+            record.put(position++, NON_NULL_VALUE);
+            switch (attributeTypes[attributeIndex + i]) {
+                case BOOL:
+                    record.put(position, (byte) (((Boolean) value) ? 1 : 0));
+                    position += 1;
+                    break;
+                case INT:
+                    record.putInt(position, (Integer) value);
+                    position += 4;
+                    break;
+                case FLOAT:
+                    record.putFloat(position, (Float) value);
+                    position += 4;
+                    break;
+                case LONG:
+                    record.putLong(position, (Long) value);
+                    position += 8;
+                    break;
+                case DOUBLE:
+                    record.putDouble(position, (Double) value);
+                    position += 8;
+                    break;
+                default:
+                    position = writeString(record, value.toString(), position);
+            }
+        }
+        return position;
+    }
+
+    private static int writeString(ByteBuffer record, String value, int position) {
+        int lengthPosition = position;
+        position += 4;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != 0 && c < 0x80) {
+                record.put(position++, (byte) c);
+            } else if (c < 0x800) {
+                record.put(position++, (byte) (0xC0 | (c >> 6)));
+                record.put(position++, (byte) (0x80 | (c & 0x3F)));
+            } else {
+                record.put(position++, (byte) (0xE0 | (c >> 12)));
+                record.put(position++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                record.put(position++, (byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        record.putInt(lengthPosition, position - lengthPosition - 4);
+        return position;
+    }
+
+    private long commit(int size) {
+        if (count == 0) {
+            tail = head;
+            tailSequence = headSequence;
+        }
+        head += size;
+        count++;
+        return headSequence++;
+    }
+
+    private Object[] readAttributes(int position) {
+        Object[] eventData = new Object[attributeTypes.length];
+        for (int i = 0; i < eventData.length; i++) {
+            if (buffer.get(position++) == NULL_VALUE) {
+                continue;
+            }
+            switch (attributeTypes[i]) {
+                case BOOL:
+                    eventData[i] = buffer.get(position) != 0;
+                    position += 1;
+                    break;
+                case INT:
+                    eventData[i] = buffer.getInt(position);
+                    position += 4;
+                    break;
+                case FLOAT:
+                    eventData[i] = buffer.getFloat(position);
+                    position += 4;
+                    break;
+                case LONG:
+                    eventData[i] = buffer.getLong(position);
+                    position += 8;
+                    break;
+                case DOUBLE:
+                    eventData[i] = buffer.getDouble(position);
+                    position += 8;
+                    break;
+                default:
+                    int length = buffer.getInt(position);
+                    position += 4;
+                    eventData[i] = readString(position, length);
+                    position += length;
+            }
+        }
+        return eventData;
+    }
+
+    private String readString(int position, int length) {
+        char[] chars = new char[length];
+        int charCount = 0;
+        int end = position + length;
+        while (position < end) {
+            int b = buffer.get(position++) & 0xFF;
+            if (b < 0x80) {
+                chars[charCount++] = (char) b;
+            } else if (b < 0xE0) {
+                chars[charCount++] = (char) (((b & 0x1F) << 6) | (buffer.get(position++) & 0x3F));
+            } else {
+                chars[charCount++] = (char) (((b & 0x0F) << 12) | ((buffer.get(position++) & 0x3F) << 6)
+                        | (buffer.get(position++) & 0x3F));
+            }
+        }
+        return new String(chars, 0, charCount);
+    }
+
+    /**
+     * @param position end of the record preceding the given retained record
+     * @param sequence sequence number of the record
+     * @return position of the record
+     */
+    private int locate(int position, long sequence) {
+        return buffer.getLong(4) == sequence ? 0 : position;
+    }
+
+    /**
+     * @param timestamp time from which to read, in milliseconds
+     * @return a cursor positioned at the oldest retained event with a timestamp at or after the given time
+     */
+    public synchronized Cursor openCursorAtTime(long timestamp) {
+        Cursor cursor = new Cursor(tail, tailSequence);
+        while (cursor.sequence < headSequence
+                && buffer.getLong(locate(cursor.position, cursor.sequence) + 12) < timestamp) {
+            cursor.skip();
+        }
+        return cursor;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int getRetainedEventCount() {
+        return count;
+    }
+
+    public synchronized long getOldestSequence() {
+        return tailSequence;
+    }
+
+    public synchronized long getNextSequence() {
+        return headSequence;
+    }
+
+    /**
+     * @return number of events not retained for being larger than the ring
+     */
+    public synchronized long getDroppedEventCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Reads the retained events in order, from its position up to the latest event. A cursor is meant to be used
+     * by a single thread, and when the ring overtakes it, it moves on to the oldest retained event.
+     */
+    public class Cursor {
+
+        private int position;
+        private long sequence;
+        private long timestamp;
+        private long skippedCount;
+
+        private Cursor(int position, long sequence) {
+            this.position = position;
+            this.sequence = sequence;
+        }
+
+        private void skip() {
+            position = locate(position, sequence);
+            position += buffer.getInt(position);
+            sequence++;
+        }
+
+        /**
+         * @return attributes of the next event in the flattened attribute order,
+         * or null when there are no more events to read
+         */
+        public Object[] next() {
+            synchronized (EventReplayRing.this) {
+                if (sequence < tailSequence) {
+                    skippedCount += tailSequence - sequence;
+                    position = tail;
+                    sequence = tailSequence;
+                }
+                if (sequence >= headSequence) {
+                    return null;
+                }
+                position = locate(position, sequence);
+                timestamp = buffer.getLong(position + 12);
+                Object[] eventData = readAttributes(position + HEADER_SIZE);
+                position += buffer.getInt(position);
+                sequence++;
+                return eventData;
+            }
+        }
+
+        /**
+         * @return sequence number of the next event to be read
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * @return timestamp of the event last read
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return number of events dropped from the ring before the cursor could read them
+         */
+        public long getSkippedCount() {
+            return skippedCount;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.statistics;
+
+public class EventConsumerStatistics implements EventConsumerStatisticsMBean {
+
+    private static final double NANOS_IN_MICRO = 1000d;
+    private static final double NANOS_IN_MILLI = 1000000d;
+
+    private final String streamId;
+    private final String consumerName;
+    private final StripedCounter eventCount = new StripedCounter();
+    private final ProcessingTimeHistogram processingTimes = new ProcessingTimeHistogram();
+
+    public EventConsumerStatistics(String streamId, String consumerName) {
+        this.streamId = streamId;
+        this.consumerName = consumerName;
+    }
+
+    public void record(int events, long nanos) {
+        eventCount.add(events);
+        processingTimes.record(nanos);
+    }
+
+    @Override
+    public String getStreamId() {
+        return streamId;
+    }
+
+    @Override
+    public String getConsumerName() {
+        return consumerName;
+    }
+
+    @Override
+    public long getInvocationCount() {
+        return processingTimes.getCount();
+    }
+
+    @Override
+    public long getEventCount() {
+        return eventCount.sum();
+    }
+
+    @Override
+    public double getAvgProcessingTimeMicros() {
+        return processingTimes.getAverageTime() / NANOS_IN_MICRO;
+    }
+
+    @Override
+    public double getAvgProcessingTimePerEventMicros() {
+        long events = eventCount.sum();
+        return events == 0 ? 0 : processingTimes.getTotalTime() / NANOS_IN_MICRO / events;
+    }
+
+    @Override
+    public double getMaxProcessingTimeMicros() {
+        return processingTimes.getMaxTime() / NANOS_IN_MICRO;
+    }
+
+    @Override
+    public double getProcessingTime50thPercentileMicros() {
+        return processingTimes.getPercentile(50) / NANOS_IN_MICRO;
+    }
+
+    @Override
+    public double getProcessingTime99thPercentileMicros() {
+        return processingTimes.getPercentile(99) / NANOS_IN_MICRO;
+    }
+
+    @Override
+    public double getTotalProcessingTimeMillis() {
+        return processingTimes.getTotalTime() / NANOS_IN_MILLI;
+    }
+
+    @Override
+    public void resetCount() {
+        eventCount.reset();
+        processingTimes.reset();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.statistics;
+
+/**
+ * MBean exposing the processing times of a consumer of an event stream over JMX, in microseconds
+ */
+public interface EventConsumerStatisticsMBean {
+
+    public String getStreamId();
+
+    public String getConsumerName();
+
+    public long getInvocationCount();
+
+    public long getEventCount();
+
+    public double getAvgProcessingTimeMicros();
+
+    public double getAvgProcessingTimePerEventMicros();
+
+    public double getMaxProcessingTimeMicros();
+
+    public double getProcessingTime50thPercentileMicros();
+
+    public double getProcessingTime99thPercentileMicros();
+
+    public double getTotalProcessingTimeMillis();
+
+    public void resetCount();
+}
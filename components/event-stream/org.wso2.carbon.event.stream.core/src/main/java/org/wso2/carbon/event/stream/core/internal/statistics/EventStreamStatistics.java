@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.statistics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.event.statistics.EventBatchStatisticsMonitor;
+import org.wso2.carbon.event.statistics.EventStatisticsMonitor;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Statistics of the junction of an event stream: the number of events flowing through it, and the time each of
+ * its consumers takes to process them. The counts are also fed to the event statistics monitor of the stream,
+ * when the event statistics service is available, and all the statistics are exposed as MBeans.
+ */
+public class EventStreamStatistics implements EventStreamStatisticsMBean {
+
+    private static final Log log = LogFactory.getLog(EventStreamStatistics.class);
+
+    public static final String STREAM_MBEAN_TYPE = "EventStream";
+    public static final String CONSUMER_MBEAN_TYPE = "EventStreamConsumer";
+
+    private final int tenantId;
+    private final String streamId;
+    private final EventStatisticsMonitor statisticsMonitor;
+    private final EventBatchStatisticsMonitor batchStatisticsMonitor;
+    private final StripedCounter eventCount = new StripedCounter();
+    private final ConcurrentHashMap<Object, EventConsumerStatistics> consumerStatisticsMap =
+            new ConcurrentHashMap<Object, EventConsumerStatistics>();
+    private final AtomicInteger consumerSequence = new AtomicInteger();
+    private volatile long startTime = System.currentTimeMillis();
+
+    /**
+     * @param statisticsMonitor monitor of the stream in the event statistics service, or null if there is none
+     */
+    public EventStreamStatistics(int tenantId, String streamId, EventStatisticsMonitor statisticsMonitor) {
+        this.tenantId = tenantId;
+        this.streamId = streamId;
+        this.statisticsMonitor = statisticsMonitor;
+        this.batchStatisticsMonitor = statisticsMonitor instanceof EventBatchStatisticsMonitor ?
+                (EventBatchStatisticsMonitor) statisticsMonitor : null;
+        registerMBean(this, STREAM_MBEAN_TYPE, getMBeanId());
+    }
+
+    public void onEventsReceived(int count) {
+        eventCount.add(count);
+        if (batchStatisticsMonitor != null) {
+            batchStatisticsMonitor.incrementRequest(count);
+        } else if (statisticsMonitor != null) {
+            for (int i = 0; i < count; i++) {
+                statisticsMonitor.incrementRequest();
+            }
+        }
+    }
+
+    public void onEventsDispatched(int count) {
+        if (batchStatisticsMonitor != null) {
+            batchStatisticsMonitor.incrementResponse(count);
+        } else if (statisticsMonitor != null) {
+            for (int i = 0; i < count; i++) {
+                statisticsMonitor.incrementResponse();
+            }
+        }
+    }
+
+    /**
+     * Queued consumers report the time their queue worker takes to deliver the events, not the time to queue them.
+     *
+     * @param consumer consumer as added to the junction
+     * @param events   number of events handed over to the consumer
+     * @param nanos    time taken by the consumer to process them
+     */
+    public void onEventsConsumed(Object consumer, int events, long nanos) {
+        EventConsumerStatistics consumerStatistics = consumerStatisticsMap.get(consumer);
+        if (consumerStatistics == null) {
+            consumerStatistics = addConsumer(consumer);
+        }
+        consumerStatistics.record(events, nanos);
+    }
+
+    private EventConsumerStatistics addConsumer(Object consumer) {
+        String consumerName = consumer.getClass().getSimpleName();
+        if (consumerName.isEmpty()) {
+            consumerName = consumer.getClass().getName();
+        }
+        consumerName = consumerName + "-" + consumerSequence.incrementAndGet();
+        EventConsumerStatistics consumerStatistics = new EventConsumerStatistics(streamId, consumerName);
+        EventConsumerStatistics existingStatistics = consumerStatisticsMap.putIfAbsent(consumer, consumerStatistics);
+        if (existingStatistics != null) {
+            return existingStatistics;
+        }
+        registerMBean(consumerStatistics, CONSUMER_MBEAN_TYPE, getMBeanId() + "." + consumerName);
+        return consumerStatistics;
+    }
+
+    public void removeConsumer(Object consumer) {
+        EventConsumerStatistics consumerStatistics = consumerStatisticsMap.remove(consumer);
+        if (consumerStatistics != null) {
+            unregisterMBean(CONSUMER_MBEAN_TYPE, getMBeanId() + "." + consumerStatistics.getConsumerName());
+        }
+    }
+
+    /**
+     * Unregisters the MBeans of the stream and its consumers.
+     */
+    public void destroy() {
+        for (Object consumer : consumerStatisticsMap.keySet()) {
+            removeConsumer(consumer);
+        }
+        unregisterMBean(STREAM_MBEAN_TYPE, getMBeanId());
+    }
+
+    private String getMBeanId() {
+        return tenantId + "." + streamId;
+    }
+
+    @Override
+    public String getStreamId() {
+        return streamId;
+    }
+
+    @Override
+    public long getEventCount() {
+        return eventCount.sum();
+    }
+
+    @Override
+    public double getAvgCountPerSec() {
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        return elapsedTime <= 0 ? 0 : getEventCount() * 1000d / elapsedTime;
+    }
+
+    @Override
+    public int getConsumerCount() {
+        return consumerStatisticsMap.size();
+    }
+
+    @Override
+    public String getSlowestConsumer() {
+        String slowestConsumer = null;
+        double maxProcessingTime = -1;
+        for (EventConsumerStatistics consumerStatistics : consumerStatisticsMap.values()) {
+            double processingTime = consumerStatistics.getAvgProcessingTimePerEventMicros();
+            if (processingTime > maxProcessingTime) {
+                maxProcessingTime = processingTime;
+                slowestConsumer = consumerStatistics.getConsumerName();
+            }
+        }
+        return slowestConsumer;
+    }
+
+    @Override
+    public void resetCount() {
+        eventCount.reset();
+        startTime = System.currentTimeMillis();
+        for (EventConsumerStatistics consumerStatistics : consumerStatisticsMap.values()) {
+            consumerStatistics.resetCount();
+        }
+    }
+
+    private static ObjectName getObjectName(String type, String id) throws Exception {
+        String jmxAgentName = System.getProperty("jmx.agent.name");
+        if (jmxAgentName == null || "".equals(jmxAgentName)) {
+            jmxAgentName = "org.wso2.carbon.event";
+        }
+        return new ObjectName(jmxAgentName + ":Type=" + type + ",Name=" + ObjectName.quote(id));
+    }
+
+    private static void registerMBean(Object mbean, String type, String id) {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = getObjectName(type, id);
+            if (mbs.isRegistered(name)) {
+                mbs.unregisterMBean(name);
+            }
+            mbs.registerMBean(mbean, name);
+        } catch (Exception e) {
+            log.warn("Error registering the MBean '" + id + "' of type '" + type + "' for JMX management", e);
+        }
+    }
+
+    private static void unregisterMBean(String type, String id) {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = getObjectName(type, id);
+            if (mbs.isRegistered(name)) {
+                mbs.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            log.warn("Error un-registering the MBean '" + id + "' of type '" + type + "' for JMX management", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.statistics;
+
+/**
+ * MBean exposing the throughput of an event stream over JMX
+ */
+public interface EventStreamStatisticsMBean {
+
+    public String getStreamId();
+
+    public long getEventCount();
+
+    public double getAvgCountPerSec();
+
+    public int getConsumerCount();
+
+    /**
+     * @return name of the consumer that takes the longest time on average to process an event of the stream
+     */
+    public String getSlowestConsumer();
+
+    public void resetCount();
+}
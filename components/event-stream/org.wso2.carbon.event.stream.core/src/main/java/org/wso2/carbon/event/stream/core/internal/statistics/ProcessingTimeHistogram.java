@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of processing times in nanoseconds, where each power of two range is split into four buckets, keeping
+ * the error of a reported percentile under 25%. Buckets are striped per thread like {@link StripedCounter}, so
+ * recording seldom contends between threads, and percentiles are reported as the upper bound of their bucket.
+ */
+public class ProcessingTimeHistogram {
+
+    // four buckets for each power of two up to 2^40 ns, beyond which times fall in the last bucket
+    private static final int BUCKET_COUNT = 156;
+    private static final int STRIPE_COUNT = Math.min(StripedCounter.STRIPE_COUNT, 8);
+
+    private final AtomicLongArray buckets = new AtomicLongArray(STRIPE_COUNT * BUCKET_COUNT);
+    private final StripedCounter totalTime = new StripedCounter();
+    private final AtomicLong maxTime = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int stripe = StripedCounter.getStripe() & (STRIPE_COUNT - 1);
+        buckets.getAndIncrement(stripe * BUCKET_COUNT + getBucket(nanos));
+        totalTime.add(nanos);
+        long max = maxTime.get();
+        while (nanos > max && !maxTime.compareAndSet(max, nanos)) {
+            max = maxTime.get();
+        }
+    }
+
+    private static int getBucket(long nanos) {
+        if (nanos < 4) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - 2)) & 3;
+        return Math.min(4 * (exponent - 1) + subBucket, BUCKET_COUNT - 1);
+    }
+
+    private static long getBucketUpperBound(int bucket) {
+        if (bucket < 4) {
+            return bucket;
+        }
+        int exponent = bucket / 4 + 1;
+        int subBucket = bucket % 4;
+        return ((5L + subBucket) << (exponent - 2)) - 1;
+    }
+
+    private long[] getBucketCounts() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int stripe = 0; stripe < STRIPE_COUNT; stripe++) {
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                counts[bucket] += buckets.get(stripe * BUCKET_COUNT + bucket);
+            }
+        }
+        return counts;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (long bucketCount : getBucketCounts()) {
+            count += bucketCount;
+        }
+        return count;
+    }
+
+    public long getTotalTime() {
+        return totalTime.sum();
+    }
+
+    public long getMaxTime() {
+        return maxTime.get();
+    }
+
+    public double getAverageTime() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getTotalTime() / count;
+    }
+
+    /**
+     * @param percentile percentile in the range (0, 100]
+     * @return upper bound in nanoseconds of the bucket holding the given percentile, or 0 when nothing is recorded
+     */
+    public long getPercentile(double percentile) {
+        long[] counts = getBucketCounts();
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long cumulativeCount = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            cumulativeCount += counts[bucket];
+            if (cumulativeCount >= rank) {
+                long maxTime = this.maxTime.get();
+                return bucket == BUCKET_COUNT - 1 ? maxTime : Math.min(getBucketUpperBound(bucket), maxTime);
+            }
+        }
+        return maxTime.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        totalTime.reset();
+        maxTime.set(0);
+    }
+}
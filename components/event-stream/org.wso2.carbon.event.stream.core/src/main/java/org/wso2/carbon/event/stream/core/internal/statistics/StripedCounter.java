@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.statistics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter updated by many threads, where each thread adds to one of several cells kept on separate cache lines
+ * so that concurrent updates do not contend, and the cells are summed up only when the count is read.
+ */
+public class StripedCounter {
+
+    // longs per cache line, keeping the cells apart
+    private static final int CELL_SPACING = 8;
+    static final int STRIPE_COUNT = getStripeCount();
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPE_COUNT * CELL_SPACING);
+
+    private static int getStripeCount() {
+        int stripeCount = 1;
+        while (stripeCount < Runtime.getRuntime().availableProcessors() * 2) {
+            stripeCount <<= 1;
+        }
+        return stripeCount;
+    }
+
+    static int getStripe() {
+        return (int) Thread.currentThread().getId() & (STRIPE_COUNT - 1);
+    }
+
+    public void add(long value) {
+        cells.getAndAdd(getStripe() * CELL_SPACING, value);
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            sum += cells.get(i * CELL_SPACING);
+        }
+        return sum;
+    }
+
+    public void reset() {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            cells.set(i * CELL_SPACING, 0);
+        }
+    }
+}
@@ -15,46 +15,42 @@
 package org.wso2.carbon.event.stream.core.internal.util;
 
 import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamAttributeLayout;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
 
 public class EventConverter {
 
     public static Event convertToWso2Event(Object[] objArray, StreamDefinition streamDefinition) {
-        int metaSize;
-        int correlationSize;
-        int payloadSize;
+        StreamAttributeLayout attributeLayout = streamDefinition.getAttributeLayout();
 
         Object[] metaAttributes = null;
         Object[] correlationAttributes = null;
         Object[] payloadAttributes = null;
 
-        int attributeIndex = 0;
-
-        if (streamDefinition.getMetaData() != null) { // If there is at least 1 meta data field
-            metaSize = streamDefinition.getMetaData().size();
-            metaAttributes = new Object[metaSize];
-            for (int i = 0; i < metaSize; i++) {
-                metaAttributes[i] = objArray[attributeIndex++];
-            }
+        if (attributeLayout.getMetaDataTypes() != null) { // If there is at least 1 meta data field
+            metaAttributes = new Object[attributeLayout.getMetaDataCount()];
+            System.arraycopy(objArray, 0, metaAttributes, 0, metaAttributes.length);
         }
-        if (streamDefinition.getCorrelationData() != null) { // If there is at least 1 correlation data field
-            correlationSize = streamDefinition.getCorrelationData().size();
-            correlationAttributes = new Object[correlationSize];
-            for (int i = 0; i < correlationSize; i++) {
-                correlationAttributes[i] = objArray[attributeIndex++];
-            }
+        if (attributeLayout.getCorrelationDataTypes() != null) { // If there is at least 1 correlation data field
+            correlationAttributes = new Object[attributeLayout.getCorrelationDataCount()];
+            System.arraycopy(objArray, attributeLayout.getCorrelationDataOffset(), correlationAttributes, 0,
+                    correlationAttributes.length);
         }
-        if (streamDefinition.getPayloadData() != null) { // If there is at least 1 payload data field
-            payloadSize = streamDefinition.getPayloadData().size();
-            payloadAttributes = new Object[payloadSize];
-            for (int i = 0; i < payloadSize; i++) {
-                payloadAttributes[i] = objArray[attributeIndex++];
-            }
+        if (attributeLayout.getPayloadDataTypes() != null) { // If there is at least 1 payload data field
+            payloadAttributes = new Object[attributeLayout.getPayloadDataCount()];
+            System.arraycopy(objArray, attributeLayout.getPayloadDataOffset(), payloadAttributes, 0,
+                    payloadAttributes.length);
         }
 
         return new Event(streamDefinition.getStreamId(), System.currentTimeMillis(), metaAttributes, correlationAttributes, payloadAttributes);
     }
 
+    public static Object[] convertToEventData(Event event, StreamAttributeLayout attributeLayout) {
+        return convertToEventData(event, attributeLayout.getMetaDataTypes() != null,
+                attributeLayout.getCorrelationDataTypes() != null, attributeLayout.getPayloadDataTypes() != null,
+                attributeLayout.getAttributeCount());
+    }
+
     public static Object[] convertToEventData(Event event, boolean metaFlag, boolean correlationFlag, boolean payloadFlag, int size) {
 
         Object[] eventObject = new Object[size];
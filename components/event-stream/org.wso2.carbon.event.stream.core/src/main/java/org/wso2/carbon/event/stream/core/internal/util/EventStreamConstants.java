@@ -62,5 +62,35 @@ public interface EventStreamConstants {
     public static final String EVENT_ATTRIBUTE_VALUE_SEPARATOR = ":";
     public static final String EVENT_ATTRIBUTE_SEPARATOR = ",";
 
+    /*
+     system properties tuning the event streams. Each of them applies to all the streams, and can be overridden for
+     a given stream by suffixing the property name with "." and the stream id
+     (e.g. eventStream.consumerQueue.size.org.foo:1.0.0).
+      */
+
+    /*
+     consumer queues, giving the number of events a queue holds and what to do when it is full
+      */
+    public static final String CONSUMER_QUEUE_SIZE_PROPERTY = "eventStream.consumerQueue.size";
+    public static final String CONSUMER_QUEUE_POLICY_PROPERTY = "eventStream.consumerQueue.policy";
+
+    /*
+     parallel fan-out of events to the consumers, along with the size of the pool shared by all streams,
+     which is not set per stream
+      */
+    public static final String FAN_OUT_PARALLELISM_PROPERTY = "eventStream.fanOut.parallelism";
+    public static final String FAN_OUT_POOL_SIZE_PROPERTY = "eventStream.fanOut.poolSize";
+
+    /*
+     stream statistics, reported to the event statistics service under the given category and over JMX
+      */
+    public static final String STATISTICS_ENABLED_PROPERTY = "eventStream.statistics.enabled";
+    public static final String EVENT_STREAM = "Event Stream";
+
+    /*
+     replay ring, giving the retention size in bytes with an optional k, m or g suffix
+      */
+    public static final String REPLAY_RETENTION_SIZE_PROPERTY = "eventStream.replay.size";
+
 
 }
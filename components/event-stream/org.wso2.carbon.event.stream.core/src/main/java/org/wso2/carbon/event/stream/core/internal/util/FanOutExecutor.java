@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded pool shared by all the junctions to deliver an event to their consumers in parallel.
+ * The calling thread takes part in the delivery and returns only when all the consumers are done,
+ * so each consumer still sees the events of a junction in order.
+ * <p/>
+ * The groups a thread hands over to the pool are kept by that thread and reused for its next fan-out,
+ * which is safe since all of them are done by the time the fan-out returns.
+ */
+public final class FanOutExecutor {
+
+    private static final Log log = LogFactory.getLog(FanOutExecutor.class);
+    private static final int QUEUE_SIZE_PER_THREAD = 16;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static volatile FanOutExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<DeliveryGroups> deliveryGroups = new ThreadLocal<DeliveryGroups>() {
+        @Override
+        protected DeliveryGroups initialValue() {
+            return new DeliveryGroups();
+        }
+    };
+
+    private FanOutExecutor(int poolSize) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(poolSize * QUEUE_SIZE_PER_THREAD), new FanOutThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static FanOutExecutor getInstance() {
+        if (instance == null) {
+            synchronized (FanOutExecutor.class) {
+                if (instance == null) {
+                    instance = new FanOutExecutor(getPoolSize());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static int getPoolSize() {
+        int poolSize = Runtime.getRuntime().availableProcessors();
+        String poolSizeProperty = System.getProperty(EventStreamConstants.FAN_OUT_POOL_SIZE_PROPERTY);
+        if (poolSizeProperty != null) {
+            try {
+                poolSize = Integer.parseInt(poolSizeProperty.trim());
+            } catch (NumberFormatException e) {
+                log.error("Invalid fan-out pool size: " + poolSizeProperty + ", hence using " + poolSize + " threads.");
+            }
+        }
+        return Math.max(poolSize, 1);
+    }
+
+    /**
+     * Runs the deliveries split into at most the given number of groups, where the deliveries of a group run one
+     * after the other. One group runs on the calling thread, and so do the groups the pool cannot take up and all
+     * the groups of a fan-out started from a thread of the pool, so that nested fan-outs never wait on the pool.
+     *
+     * @param fanOut      deliveries of an event or a batch, each to a different consumer
+     * @param parallelism maximum number of deliveries that run concurrently
+     */
+    public void execute(FanOut fanOut, int parallelism) {
+        int groupCount = Math.min(parallelism, fanOut.size());
+        if (groupCount <= 1 || Thread.currentThread() instanceof FanOutThread) {
+            for (int i = 0; i < fanOut.size(); i++) {
+                fanOut.deliver(i);
+            }
+            return;
+        }
+        DeliveryGroups groups = deliveryGroups.get();
+        if (groups.inUse) {
+            // a consumer called on this thread started another fan-out
+            groups = new DeliveryGroups();
+        }
+        groups.execute(fanOut, groupCount);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Deliveries of an event or a batch, indexed from 0 to size - 1. Each delivery has to handle the failures
+     * of its consumer, as a delivery that throws skips the rest of its group.
+     */
+    public interface FanOut {
+
+        int size();
+
+        void deliver(int index);
+    }
+
+    private class DeliveryGroups {
+
+        private final Thread owner = Thread.currentThread();
+        private final AtomicInteger pendingGroups = new AtomicInteger();
+        private DeliveryGroup[] groups = new DeliveryGroup[0];
+        private boolean inUse;
+
+        private void execute(FanOut fanOut, int groupCount) {
+            if (groups.length < groupCount) {
+                DeliveryGroup[] newGroups = new DeliveryGroup[groupCount];
+                System.arraycopy(groups, 0, newGroups, 0, groups.length);
+                for (int i = groups.length; i < groupCount; i++) {
+                    newGroups[i] = new DeliveryGroup(this);
+                }
+                groups = newGroups;
+            }
+            inUse = true;
+            pendingGroups.set(groupCount - 1);
+            try {
+                for (int group = 1; group < groupCount; group++) {
+                    DeliveryGroup deliveryGroup = groups[group];
+                    deliveryGroup.reset(fanOut, group, groupCount);
+                    try {
+                        executor.execute(deliveryGroup);
+                    } catch (RejectedExecutionException e) {
+                        deliveryGroup.run();
+                    }
+                }
+                deliverGroup(fanOut, 0, groupCount);
+            } finally {
+                awaitGroups();
+                inUse = false;
+            }
+        }
+
+        private void awaitGroups() {
+            boolean interrupted = false;
+            while (pendingGroups.get() != 0) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                owner.interrupt();
+            }
+        }
+
+        private void onGroupDone() {
+            if (pendingGroups.decrementAndGet() == 0) {
+                LockSupport.unpark(owner);
+            }
+        }
+    }
+
+    private static void deliverGroup(FanOut fanOut, int group, int groupCount) {
+        for (int i = group; i < fanOut.size(); i += groupCount) {
+            fanOut.deliver(i);
+        }
+    }
+
+    private static class DeliveryGroup implements Runnable {
+
+        private final DeliveryGroups deliveryGroups;
+        private FanOut fanOut;
+        private int group;
+        private int groupCount;
+
+        private DeliveryGroup(DeliveryGroups deliveryGroups) {
+            this.deliveryGroups = deliveryGroups;
+        }
+
+        private void reset(FanOut fanOut, int group, int groupCount) {
+            this.fanOut = fanOut;
+            this.group = group;
+            this.groupCount = groupCount;
+        }
+
+        @Override
+        public void run() {
+            FanOut fanOut = this.fanOut;
+            this.fanOut = null;
+            try {
+                deliverGroup(fanOut, group, groupCount);
+            } finally {
+                deliveryGroups.onGroupDone();
+            }
+        }
+    }
+
+    private static class FanOutThread extends Thread {
+
+        private FanOutThread(Runnable runnable, String name) {
+            super(runnable, name);
+            setDaemon(true);
+        }
+    }
+
+    private static class FanOutThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new FanOutThread(runnable, "EventJunction-FanOut-" + threadCount.incrementAndGet());
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.databridge.commons.Attribute;
 import org.wso2.carbon.databridge.commons.AttributeType;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.stream.core.EventLoadConfiguration;
 import org.wso2.carbon.event.stream.core.exception.EventStreamConfigurationException;
 
 import javax.xml.namespace.QName;
@@ -134,6 +135,76 @@ public class SampleEventGenerator {
         return sampleEvent;
     }
 
+    /**
+     * Generates the data of sample events in the flattened meta, correlation and payload attribute order, with the
+     * values distributed as configured for a load run.
+     *
+     * @param streamDefinition definition of the stream
+     * @param configuration    configuration giving the number of events and the distribution of their values
+     * @return data of the events
+     */
+    public static Object[][] generateEventData(StreamDefinition streamDefinition,
+                                               EventLoadConfiguration configuration) {
+        AttributeType[] attributeTypes = streamDefinition.getAttributeLayout().getAttributeTypes();
+        Object[][] eventData = new Object[Math.max(configuration.getPrebuiltEventCount(), 1)][];
+        Random rand = new Random();
+        long minValue = configuration.getMinValue();
+        long range = Math.max(configuration.getMaxValue() - minValue, 0) + 1;
+        int stringCardinality = Math.max(configuration.getStringCardinality(), 1);
+        for (int i = 0; i < eventData.length; i++) {
+            Object[] data = new Object[attributeTypes.length];
+            for (int j = 0; j < attributeTypes.length; j++) {
+                switch (configuration.getValueDistribution()) {
+                    case SAMPLE:
+                        data[j] = getSampleObject(attributeTypes[j], rand);
+                        break;
+                    case SEQUENTIAL:
+                        data[j] = getLoadObject(attributeTypes[j], minValue + i % range, i % stringCardinality, rand);
+                        break;
+                    default:
+                        data[j] = getLoadObject(attributeTypes[j], minValue + (long) (rand.nextDouble() * range),
+                                rand.nextInt(stringCardinality), rand);
+                        break;
+                }
+            }
+            eventData[i] = data;
+        }
+        return eventData;
+    }
+
+    private static Object getLoadObject(AttributeType attributeType, long value, int stringKey, Random rand) {
+        switch (attributeType) {
+            case INT:
+                return (int) value;
+            case LONG:
+                return value;
+            case FLOAT:
+                return value + rand.nextFloat();
+            case DOUBLE:
+                return value + rand.nextDouble();
+            case BOOL:
+                return (value & 1) == 0;
+            default:
+                return "data" + stringKey;
+        }
+    }
+
+    private static Object getSampleObject(AttributeType attributeType, Random rand) {
+        switch (attributeType) {
+            case INT:
+                return intValues[rand.nextInt(intValues.length)];
+            case LONG:
+                return longValues[rand.nextInt(longValues.length)];
+            case FLOAT:
+                return floatValues[rand.nextInt(floatValues.length)];
+            case DOUBLE:
+                return doubleValues[rand.nextInt(doubleValues.length)];
+            case BOOL:
+                return booleanValues[rand.nextInt(booleanValues.length)];
+            default:
+                return stringValues[rand.nextInt(stringValues.length)];
+        }
+    }
 
     private static OMElement createPropertyElement(OMFactory factory, List<Attribute> attributeList,
                                                    String propertyTag) {
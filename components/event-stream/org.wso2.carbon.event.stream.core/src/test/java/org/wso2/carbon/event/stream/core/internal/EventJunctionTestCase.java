@@ -0,0 +1,614 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.statistics.EventBatchStatisticsMonitor;
+import org.wso2.carbon.event.statistics.EventStatisticsMonitor;
+import org.wso2.carbon.event.stream.core.EventConsumerQueueConfiguration;
+import org.wso2.carbon.event.stream.core.RawEventConsumer;
+import org.wso2.carbon.event.stream.core.SiddhiEventConsumer;
+import org.wso2.carbon.event.stream.core.WSO2EventConsumer;
+import org.wso2.carbon.event.stream.core.internal.statistics.EventStreamStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventJunctionTestCase {
+    private static final String STREAM_ID = "stock:1.0.0";
+    private static final int EVENT_COUNT = 300;
+
+    private StreamDefinition streamDefinition;
+
+    @Before
+    public void init() throws Exception {
+        streamDefinition = new StreamDefinition("stock", "1.0.0");
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+        streamDefinition.addPayloadData("sequence", AttributeType.INT);
+    }
+
+    private EventJunction createJunction(int fanOutParallelism) {
+        EventJunction eventJunction = new EventJunction(streamDefinition);
+        eventJunction.setQueueConfiguration(null);
+        eventJunction.setFanOutParallelism(fanOutParallelism);
+        return eventJunction;
+    }
+
+    private static Object[] createEventData(int sequence) {
+        return new Object[]{"IBM", sequence};
+    }
+
+    /**
+     * Sends the events alternating single events, batches of data and batches of events.
+     */
+    private void sendEvents(EventJunction eventJunction) {
+        int sequence = 0;
+        while (sequence < EVENT_COUNT) {
+            eventJunction.sendEventData(createEventData(sequence++));
+            eventJunction.sendEventDataBatch(new Object[][]{createEventData(sequence++), createEventData(sequence++)});
+            List<Event> events = new ArrayList<Event>();
+            for (int i = 0; i < 3; i++) {
+                events.add(new Event(STREAM_ID, System.currentTimeMillis(), null, null, createEventData(sequence++)));
+            }
+            eventJunction.sendEvents(events);
+        }
+    }
+
+    private static void assertInOrder(List<Integer> sequences) {
+        Assert.assertEquals(EVENT_COUNT, sequences.size());
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            Assert.assertEquals(i, sequences.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testFanOutPreservesOrder() {
+        EventJunction eventJunction = createJunction(4);
+        List<RecordingRawConsumer> rawConsumers = new ArrayList<RecordingRawConsumer>();
+        for (int i = 0; i < 5; i++) {
+            RecordingRawConsumer rawConsumer = new RecordingRawConsumer(false);
+            rawConsumers.add(rawConsumer);
+            eventJunction.addConsumer(rawConsumer);
+        }
+        RecordingWSO2EventConsumer wso2EventConsumer = new RecordingWSO2EventConsumer();
+        eventJunction.addConsumer(wso2EventConsumer);
+
+        sendEvents(eventJunction);
+        for (RecordingRawConsumer rawConsumer : rawConsumers) {
+            assertInOrder(rawConsumer.getSequences());
+        }
+        assertInOrder(wso2EventConsumer.getSequences());
+    }
+
+    @Test
+    public void testFanOutIsolatesFailures() {
+        EventJunction eventJunction = createJunction(2);
+        RecordingRawConsumer failingConsumer = new RecordingRawConsumer(true);
+        eventJunction.addConsumer(failingConsumer);
+        List<RecordingRawConsumer> rawConsumers = new ArrayList<RecordingRawConsumer>();
+        for (int i = 0; i < 3; i++) {
+            RecordingRawConsumer rawConsumer = new RecordingRawConsumer(false);
+            rawConsumers.add(rawConsumer);
+            eventJunction.addConsumer(rawConsumer);
+        }
+
+        sendEvents(eventJunction);
+        Assert.assertEquals(EVENT_COUNT, failingConsumer.getSequences().size());
+        for (RecordingRawConsumer rawConsumer : rawConsumers) {
+            assertInOrder(rawConsumer.getSequences());
+        }
+    }
+
+    @Test
+    public void testSiddhiEventsThroughFanOut() {
+        EventJunction eventJunction = createJunction(4);
+        RecordingSiddhiEventConsumer siddhiEventConsumer = new RecordingSiddhiEventConsumer();
+        eventJunction.addConsumer(siddhiEventConsumer);
+        RecordingRawConsumer rawConsumer = new RecordingRawConsumer(false);
+        eventJunction.addConsumer(rawConsumer);
+        RecordingWSO2EventConsumer wso2EventConsumer = new RecordingWSO2EventConsumer();
+        eventJunction.addConsumer(wso2EventConsumer);
+
+        for (int sequence = 0; sequence < EVENT_COUNT; sequence += 3) {
+            org.wso2.siddhi.core.event.Event[] events = new org.wso2.siddhi.core.event.Event[3];
+            for (int i = 0; i < 3; i++) {
+                events[i] = new org.wso2.siddhi.core.event.Event(System.currentTimeMillis(),
+                        createEventData(sequence + i));
+            }
+            eventJunction.sendEvents(events);
+        }
+        assertInOrder(siddhiEventConsumer.getSequences());
+        Assert.assertEquals(EVENT_COUNT / 3, siddhiEventConsumer.getBatchCount());
+        assertInOrder(rawConsumer.getSequences());
+        assertInOrder(wso2EventConsumer.getSequences());
+    }
+
+    @Test
+    public void testNestedFanOut() {
+        final EventJunction downstreamJunction = createJunction(2);
+        final EventJunction eventJunction = createJunction(2);
+        List<RecordingRawConsumer> downstreamConsumers = new ArrayList<RecordingRawConsumer>();
+        for (int i = 0; i < 2; i++) {
+            RecordingRawConsumer rawConsumer = new RecordingRawConsumer(false);
+            downstreamConsumers.add(rawConsumer);
+            downstreamJunction.addConsumer(rawConsumer);
+        }
+        RecordingRawConsumer rawConsumer = new RecordingRawConsumer(false);
+        eventJunction.addConsumer(rawConsumer);
+        eventJunction.addConsumer(new RawEventConsumer() {
+            @Override
+            public String getStreamId() {
+                return STREAM_ID;
+            }
+
+            @Override
+            public void consumeEventData(Object[] eventData) {
+                downstreamJunction.sendEventData(eventData);
+            }
+        });
+
+        sendEvents(eventJunction);
+        assertInOrder(rawConsumer.getSequences());
+        for (RecordingRawConsumer downstreamConsumer : downstreamConsumers) {
+            assertInOrder(downstreamConsumer.getSequences());
+        }
+    }
+
+    @Test
+    public void testMixedConsumersShareOneConversion() throws Exception {
+        streamDefinition = new StreamDefinition("stock", "1.0.0");
+        streamDefinition.addMetaData("host", AttributeType.STRING);
+        streamDefinition.addCorrelationData("id", AttributeType.LONG);
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+        streamDefinition.addPayloadData("sequence", AttributeType.INT);
+        EventConsumerQueueConfiguration[] queueConfigurations = {null, new EventConsumerQueueConfiguration(16,
+                EventConsumerQueueConfiguration.FullQueuePolicy.BLOCK)};
+        for (EventConsumerQueueConfiguration queueConfiguration : queueConfigurations) {
+            EventJunction eventJunction = createJunction(2);
+            eventJunction.setQueueConfiguration(queueConfiguration);
+            CapturingConsumer[] consumers = new CapturingConsumer[6];
+            for (int i = 0; i < consumers.length; i++) {
+                consumers[i] = new CapturingConsumer();
+                if (i < 2) {
+                    eventJunction.addConsumer((SiddhiEventConsumer) consumers[i]);
+                } else if (i < 4) {
+                    eventJunction.addConsumer((RawEventConsumer) consumers[i]);
+                } else {
+                    eventJunction.addConsumer((WSO2EventConsumer) consumers[i]);
+                }
+            }
+
+            Object[] eventData = {"host1", 7L, "IBM", 0};
+            eventJunction.sendEventData(eventData);
+            Event event = new Event(STREAM_ID, System.currentTimeMillis(), new Object[]{"host1"}, new Object[]{7L},
+                    new Object[]{"IBM", 1});
+            eventJunction.sendEvent(event);
+            List<Event> events = new ArrayList<Event>();
+            events.add(new Event(STREAM_ID, System.currentTimeMillis(), new Object[]{"host1"}, new Object[]{7L},
+                    new Object[]{"IBM", 2}));
+            eventJunction.sendEvents(events);
+            for (CapturingConsumer consumer : consumers) {
+                consumer.awaitCount(3);
+            }
+
+            // each consumer sees the form it needs, while the received form is passed on as is
+            for (int i = 0; i < 4; i++) {
+                Assert.assertSame(eventData, consumers[i].eventData.get(0));
+                Assert.assertArrayEquals(new Object[]{"host1", 7L, "IBM", 1}, consumers[i].eventData.get(1));
+                Assert.assertArrayEquals(new Object[]{"host1", 7L, "IBM", 2}, consumers[i].eventData.get(2));
+            }
+            for (int i = 4; i < 6; i++) {
+                Event convertedEvent = consumers[i].events.get(0);
+                Assert.assertEquals(STREAM_ID, convertedEvent.getStreamId());
+                Assert.assertArrayEquals(new Object[]{"host1"}, convertedEvent.getMetaData());
+                Assert.assertArrayEquals(new Object[]{7L}, convertedEvent.getCorrelationData());
+                Assert.assertArrayEquals(new Object[]{"IBM", 0}, convertedEvent.getPayloadData());
+                Assert.assertSame(event, consumers[i].events.get(1));
+                Assert.assertSame(events.get(0), consumers[i].events.get(2));
+            }
+
+            // and the other form is created once per event, whatever the number of consumers needing it
+            for (int i = 1; i < 4; i++) {
+                Assert.assertSame(consumers[0].eventData.get(1), consumers[i].eventData.get(1));
+                Assert.assertSame(consumers[0].eventData.get(2), consumers[i].eventData.get(2));
+            }
+            Assert.assertSame(consumers[4].events.get(0), consumers[5].events.get(0));
+            for (CapturingConsumer consumer : consumers) {
+                eventJunction.removeConsumer((RawEventConsumer) consumer);
+                eventJunction.removeConsumer((SiddhiEventConsumer) consumer);
+                eventJunction.removeConsumer((WSO2EventConsumer) consumer);
+            }
+        }
+    }
+
+    @Test
+    public void testQueuedEventsDeliveredBeforeDefinitionRemoved() {
+        EventJunction eventJunction = createJunction(1);
+        eventJunction.setQueueConfiguration(new EventConsumerQueueConfiguration(EVENT_COUNT,
+                EventConsumerQueueConfiguration.FullQueuePolicy.BLOCK));
+        RecordingWSO2EventConsumer consumer = new RecordingWSO2EventConsumer() {
+            @Override
+            public void onEvent(Event event) {
+                pause();
+                super.onEvent(event);
+            }
+        };
+        eventJunction.addConsumer(consumer);
+
+        sendEvents(eventJunction);
+        Assert.assertTrue(eventJunction.removeConsumer(consumer));
+        Assert.assertEquals(EVENT_COUNT, consumer.getSequencesAtRemoval());
+        assertInOrder(consumer.getSequences());
+    }
+
+    @Test
+    public void testQueuedConsumerTimedByWorker() throws InterruptedException {
+        EventJunction eventJunction = createJunction(1);
+        eventJunction.setQueueConfiguration(new EventConsumerQueueConfiguration(16,
+                EventConsumerQueueConfiguration.FullQueuePolicy.BLOCK));
+        CountingStatisticsMonitor statisticsMonitor = new CountingStatisticsMonitor();
+        final List<String> timingThreads = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger timedEvents = new AtomicInteger();
+        final List<Long> timings = Collections.synchronizedList(new ArrayList<Long>());
+        eventJunction.setStatistics(new EventStreamStatistics(-1234, STREAM_ID, statisticsMonitor) {
+            @Override
+            public void onEventsConsumed(Object consumer, int events, long nanos) {
+                timingThreads.add(Thread.currentThread().getName());
+                timings.add(nanos);
+                super.onEventsConsumed(consumer, events, nanos);
+                timedEvents.addAndGet(events);
+            }
+        });
+        final CountDownLatch consumed = new CountDownLatch(2);
+        eventJunction.addConsumer(new RawEventConsumer() {
+            @Override
+            public String getStreamId() {
+                return STREAM_ID;
+            }
+
+            @Override
+            public void consumeEventData(Object[] eventData) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                consumed.countDown();
+            }
+        });
+
+        eventJunction.sendEventDataBatch(new Object[][]{createEventData(0), createEventData(1)});
+        Assert.assertTrue(consumed.await(10, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (timedEvents.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(2, timedEvents.get());
+        Assert.assertEquals(1, timingThreads.size());
+        Assert.assertTrue(timingThreads.get(0).startsWith("EventJunction-" + STREAM_ID));
+        Assert.assertTrue(timings.get(0) >= TimeUnit.MILLISECONDS.toNanos(40));
+        Assert.assertEquals(1, statisticsMonitor.requestCalls);
+        Assert.assertEquals(2, statisticsMonitor.requestCount);
+        Assert.assertEquals(1, statisticsMonitor.responseCalls);
+        Assert.assertEquals(2, statisticsMonitor.responseCount);
+        eventJunction.getStatistics().destroy();
+    }
+
+    @Test
+    public void testUnretainedEventsDispatched() {
+        EventJunction eventJunction = createJunction(1);
+        eventJunction.setReplayRetentionSize(1024);
+        final AtomicInteger consumedEvents = new AtomicInteger();
+        eventJunction.addConsumer(new RawEventConsumer() {
+            @Override
+            public String getStreamId() {
+                return STREAM_ID;
+            }
+
+            @Override
+            public void consumeEventData(Object[] eventData) {
+                consumedEvents.incrementAndGet();
+            }
+        });
+
+        eventJunction.sendEventData(createEventData(0));
+        eventJunction.sendEventData(new Object[]{"IBM", "1"});
+        eventJunction.sendEventDataBatch(new Object[][]{{"IBM", true}, createEventData(3)});
+        Assert.assertEquals(4, consumedEvents.get());
+        Assert.assertEquals(2, eventJunction.getUnretainedEventCount());
+        Assert.assertEquals(2, eventJunction.getReplayRing().getRetainedEventCount());
+    }
+
+    @Test
+    public void testReplayHandOffWhilePublishing() throws InterruptedException {
+        final int eventCount = 20000;
+        final EventJunction eventJunction = createJunction(1);
+        eventJunction.setReplayRetentionSize(4 * 1024 * 1024);
+        final CountDownLatch started = new CountDownLatch(1);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < eventCount; i += 2) {
+                    if (i == 1000) {
+                        started.countDown();
+                    }
+                    eventJunction.sendEventData(createEventData(i));
+                    eventJunction.sendEventDataBatch(new Object[][]{createEventData(i + 1)});
+                    if (i % 20 == 0) {
+                        pause();
+                    }
+                }
+            }
+        });
+        producer.start();
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        RecordingRawConsumer consumer = new PacedRecordingRawConsumer();
+        eventJunction.addConsumer(consumer, eventJunction.openReplayCursor(0));
+        eventJunction.setQueueConfiguration(new EventConsumerQueueConfiguration(64,
+                EventConsumerQueueConfiguration.FullQueuePolicy.BLOCK));
+        RecordingRawConsumer queuedConsumer = new PacedRecordingRawConsumer();
+        eventJunction.addConsumer(queuedConsumer, eventJunction.openReplayCursor(0));
+        producer.join();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (queuedConsumer.getSequences().size() < eventCount && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        for (RecordingRawConsumer recordingConsumer : new RecordingRawConsumer[]{consumer, queuedConsumer}) {
+            List<Integer> sequences = recordingConsumer.getSequences();
+            Assert.assertEquals(eventCount, sequences.size());
+            for (int i = 0; i < eventCount; i++) {
+                Assert.assertEquals(i, sequences.get(i).intValue());
+            }
+        }
+        eventJunction.removeConsumer(queuedConsumer);
+    }
+
+    @Test
+    public void testStatisticsMonitorWithoutBatchesCountedPerEvent() {
+        EventJunction eventJunction = createJunction(1);
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger responses = new AtomicInteger();
+        eventJunction.setStatistics(new EventStreamStatistics(-1234, STREAM_ID, new EventStatisticsMonitor() {
+            @Override
+            public void incrementRequest() {
+                requests.incrementAndGet();
+            }
+
+            @Override
+            public void incrementResponse() {
+                responses.incrementAndGet();
+            }
+        }));
+        eventJunction.addConsumer(new RecordingRawConsumer(false));
+
+        eventJunction.sendEventDataBatch(new Object[][]{createEventData(0), createEventData(1), createEventData(2)});
+        Assert.assertEquals(3, requests.get());
+        Assert.assertEquals(3, responses.get());
+        eventJunction.getStatistics().destroy();
+    }
+
+    private static class CountingStatisticsMonitor implements EventBatchStatisticsMonitor {
+        private int requestCalls;
+        private int requestCount;
+        private int responseCalls;
+        private int responseCount;
+
+        @Override
+        public void incrementRequest() {
+            incrementRequest(1);
+        }
+
+        @Override
+        public void incrementRequest(int count) {
+            requestCalls++;
+            requestCount += count;
+        }
+
+        @Override
+        public void incrementResponse() {
+            incrementResponse(1);
+        }
+
+        @Override
+        public void incrementResponse(int count) {
+            responseCalls++;
+            responseCount += count;
+        }
+
+        @Override
+        public void incrementFiltered(int count) {
+        }
+    }
+
+    private static class RecordingRawConsumer implements RawEventConsumer {
+        private final List<Integer> sequences = Collections.synchronizedList(new ArrayList<Integer>());
+        private final boolean failing;
+
+        RecordingRawConsumer(boolean failing) {
+            this.failing = failing;
+        }
+
+        List<Integer> getSequences() {
+            return sequences;
+        }
+
+        @Override
+        public String getStreamId() {
+            return STREAM_ID;
+        }
+
+        @Override
+        public void consumeEventData(Object[] eventData) {
+            sequences.add((Integer) eventData[1]);
+            if (failing) {
+                throw new IllegalStateException("Cannot consume " + eventData[1]);
+            }
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes a while every now and then, so that a replay to it overlaps with the events being sent.
+     */
+    private static class PacedRecordingRawConsumer extends RecordingRawConsumer {
+        private int count;
+
+        PacedRecordingRawConsumer() {
+            super(false);
+        }
+
+        @Override
+        public void consumeEventData(Object[] eventData) {
+            if (++count % 100 == 0) {
+                pause();
+            }
+            super.consumeEventData(eventData);
+        }
+    }
+
+    private static class RecordingWSO2EventConsumer implements WSO2EventConsumer {
+        private final List<Integer> sequences = Collections.synchronizedList(new ArrayList<Integer>());
+        private volatile int sequencesAtRemoval = -1;
+
+        List<Integer> getSequences() {
+            return sequences;
+        }
+
+        int getSequencesAtRemoval() {
+            return sequencesAtRemoval;
+        }
+
+        @Override
+        public String getStreamId() {
+            return STREAM_ID;
+        }
+
+        @Override
+        public void onEvent(Event event) {
+            sequences.add((Integer) event.getPayloadData()[1]);
+        }
+
+        @Override
+        public void onAddDefinition(StreamDefinition definition) {
+        }
+
+        @Override
+        public void onRemoveDefinition(StreamDefinition definition) {
+            sequencesAtRemoval = sequences.size();
+        }
+    }
+
+    /**
+     * Records the instances it receives, whichever kind of consumer it is added to the junction as.
+     */
+    private static class CapturingConsumer implements SiddhiEventConsumer, RawEventConsumer, WSO2EventConsumer {
+        private final List<Object[]> eventData = Collections.synchronizedList(new ArrayList<Object[]>());
+        private final List<Event> events = Collections.synchronizedList(new ArrayList<Event>());
+
+        void awaitCount(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (eventData.size() + events.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(count, eventData.size() + events.size());
+        }
+
+        @Override
+        public String getStreamId() {
+            return STREAM_ID;
+        }
+
+        @Override
+        public void consumeEvents(org.wso2.siddhi.core.event.Event[] events) {
+            for (org.wso2.siddhi.core.event.Event event : events) {
+                eventData.add(event.getData());
+            }
+        }
+
+        @Override
+        public void consumeEventData(Object[] data) {
+            eventData.add(data);
+        }
+
+        @Override
+        public void onEvent(Event event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onAddDefinition(StreamDefinition definition) {
+        }
+
+        @Override
+        public void onRemoveDefinition(StreamDefinition definition) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static class RecordingSiddhiEventConsumer implements SiddhiEventConsumer {
+        private final List<Integer> sequences = Collections.synchronizedList(new ArrayList<Integer>());
+        private volatile int batchCount;
+
+        List<Integer> getSequences() {
+            return sequences;
+        }
+
+        int getBatchCount() {
+            return batchCount;
+        }
+
+        @Override
+        public String getStreamId() {
+            return STREAM_ID;
+        }
+
+        @Override
+        public void consumeEvents(org.wso2.siddhi.core.event.Event[] events) {
+            batchCount++;
+            for (org.wso2.siddhi.core.event.Event event : events) {
+                sequences.add((Integer) event.getData()[1]);
+            }
+        }
+
+        @Override
+        public void consumeEventData(Object[] data) {
+            sequences.add((Integer) data[1]);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
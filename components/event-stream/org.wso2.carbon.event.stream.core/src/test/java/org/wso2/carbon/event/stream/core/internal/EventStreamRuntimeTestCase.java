@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.stream.core.EventStreamHandle;
+import org.wso2.carbon.event.stream.core.RawEventConsumer;
+import org.wso2.carbon.event.stream.core.exception.EventStreamConfigurationException;
+import org.wso2.carbon.event.stream.core.internal.ds.EventStreamServiceValueHolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class EventStreamRuntimeTestCase {
+    private static final String STREAM_ID = "stock:1.0.0";
+
+    private final Map<String, StreamDefinition> streamDefinitions = new ConcurrentHashMap<String, StreamDefinition>();
+    private EventStreamRuntime eventStreamRuntime;
+    private CarbonEventStreamService eventStreamService;
+
+    @Before
+    public void init() throws Exception {
+        StreamDefinition streamDefinition = new StreamDefinition("stock", "1.0.0");
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+        streamDefinitions.put(STREAM_ID, streamDefinition);
+
+        eventStreamService = new CarbonEventStreamService() {
+            @Override
+            public StreamDefinition getStreamDefinition(String streamId) {
+                return streamDefinitions.get(streamId);
+            }
+
+            @Override
+            public StreamDefinition getStreamDefinition(String name, String version) {
+                return streamDefinitions.get(name + ":" + version);
+            }
+        };
+        eventStreamRuntime = new EventStreamRuntime();
+        EventStreamServiceValueHolder.setCarbonEventStreamService(eventStreamService);
+        EventStreamServiceValueHolder.registerEventStreamRuntime(eventStreamRuntime);
+    }
+
+    private static Event createEvent(String symbol) {
+        return new Event(STREAM_ID, System.currentTimeMillis(), null, null, new Object[]{symbol, 10.5});
+    }
+
+    @Test
+    public void testPublishThroughHandle() throws EventStreamConfigurationException {
+        RecordingConsumer consumer = new RecordingConsumer();
+        eventStreamRuntime.subscribe(consumer);
+        EventStreamHandle eventStreamHandle = eventStreamRuntime.getEventStreamHandle(STREAM_ID);
+        Assert.assertSame(eventStreamHandle, eventStreamRuntime.getEventStreamHandle(STREAM_ID));
+
+        eventStreamHandle.publish(createEvent("IBM"));
+        eventStreamService.publish(createEvent("WSO2"));
+        Assert.assertEquals(2, consumer.getEvents().size());
+        Assert.assertEquals("IBM", consumer.getEvents().get(0)[0]);
+        Assert.assertEquals("WSO2", consumer.getEvents().get(1)[0]);
+    }
+
+    @Test
+    public void testPublishWithoutJunctionIsDropped() throws EventStreamConfigurationException {
+        eventStreamService.publish(createEvent("IBM"));
+        RecordingConsumer consumer = new RecordingConsumer();
+        eventStreamRuntime.subscribe(consumer);
+        eventStreamService.publish(createEvent("WSO2"));
+        Assert.assertEquals(1, consumer.getEvents().size());
+        Assert.assertEquals("WSO2", consumer.getEvents().get(0)[0]);
+    }
+
+    @Test
+    public void testHandleInvalidatedOnUnload() throws EventStreamConfigurationException {
+        RecordingConsumer consumer = new RecordingConsumer();
+        eventStreamRuntime.subscribe(consumer);
+        EventStreamHandle eventStreamHandle = eventStreamRuntime.getEventStreamHandle(STREAM_ID);
+        StreamDefinition streamDefinition = streamDefinitions.remove(STREAM_ID);
+        eventStreamRuntime.unloadEventStream(STREAM_ID);
+        Assert.assertFalse(eventStreamHandle.isValid());
+        eventStreamHandle.publish(createEvent("IBM"));
+        eventStreamService.publish(createEvent("IBM"));
+        Assert.assertEquals(0, consumer.getEvents().size());
+
+        streamDefinitions.put(STREAM_ID, streamDefinition);
+        eventStreamRuntime.loadEventStream(STREAM_ID);
+        EventStreamHandle reloadedHandle = eventStreamRuntime.getEventStreamHandle(STREAM_ID);
+        Assert.assertNotSame(eventStreamHandle, reloadedHandle);
+        Assert.assertTrue(reloadedHandle.isValid());
+    }
+
+    @Test
+    public void testHandlesNotBoundToRemovedJunctions() throws Exception {
+        final StreamDefinition streamDefinition = streamDefinitions.get(STREAM_ID);
+        final List<EventStreamHandle> eventStreamHandles =
+                Collections.synchronizedList(new ArrayList<EventStreamHandle>());
+        Thread binder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 2000; i++) {
+                    try {
+                        eventStreamHandles.add(eventStreamRuntime.getEventStreamHandle(STREAM_ID));
+                    } catch (EventStreamConfigurationException e) {
+                        // the stream is removed at the moment
+                    }
+                }
+            }
+        });
+        binder.start();
+        for (int i = 0; i < 200; i++) {
+            streamDefinitions.remove(STREAM_ID);
+            eventStreamRuntime.unloadEventStream(STREAM_ID);
+            streamDefinitions.put(STREAM_ID, streamDefinition);
+            eventStreamRuntime.loadEventStream(STREAM_ID);
+        }
+        binder.join();
+        streamDefinitions.remove(STREAM_ID);
+        eventStreamRuntime.unloadEventStream(STREAM_ID);
+        for (EventStreamHandle eventStreamHandle : eventStreamHandles) {
+            Assert.assertFalse(eventStreamHandle.isValid());
+        }
+    }
+
+    private static class RecordingConsumer implements RawEventConsumer {
+        private final List<Object[]> events = Collections.synchronizedList(new ArrayList<Object[]>());
+
+        List<Object[]> getEvents() {
+            return events;
+        }
+
+        @Override
+        public String getStreamId() {
+            return STREAM_ID;
+        }
+
+        @Override
+        public void consumeEventData(Object[] eventData) {
+            events.add(eventData);
+        }
+    }
+}
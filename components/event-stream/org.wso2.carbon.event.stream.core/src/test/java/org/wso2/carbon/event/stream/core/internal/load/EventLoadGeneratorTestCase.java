@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.load;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.event.stream.core.EventLoadConfiguration;
+import org.wso2.carbon.event.stream.core.EventLoadResult;
+import org.wso2.carbon.event.stream.core.EventStreamHandle;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EventLoadGeneratorTestCase {
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private StreamDefinition streamDefinition;
+    private CountingStreamHandle eventStreamHandle;
+
+    @Before
+    public void init() throws Exception {
+        streamDefinition = new StreamDefinition("stock", "1.0.0");
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+        eventStreamHandle = new CountingStreamHandle();
+    }
+
+    @Test
+    public void testEventCount() throws Exception {
+        EventLoadConfiguration configuration = new EventLoadConfiguration(1000, 0);
+        configuration.setPublisherCount(3);
+        EventLoadResult result = new EventLoadGenerator(eventStreamHandle, streamDefinition, configuration).start()
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Assert.assertEquals(1000, result.getPublishedEventCount());
+        Assert.assertEquals(0, result.getFailedEventCount());
+        Assert.assertEquals(1000, eventStreamHandle.eventCount.get());
+    }
+
+    @Test
+    public void testRate() throws Exception {
+        EventLoadConfiguration configuration = new EventLoadConfiguration(400, 2000);
+        configuration.setPublisherCount(2);
+        long startTime = System.nanoTime();
+        Future<EventLoadResult> loadRun =
+                new EventLoadGenerator(eventStreamHandle, streamDefinition, configuration).start();
+        Assert.assertFalse("The run should not block the caller", loadRun.isDone());
+        EventLoadResult result = loadRun.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        Assert.assertEquals(400, result.getPublishedEventCount());
+        // 400 events at 2000 events per second take 200ms, which the run cannot beat
+        Assert.assertTrue("Run took " + elapsedMillis + "ms", elapsedMillis >= 190);
+        Assert.assertTrue("Run took " + elapsedMillis + "ms", elapsedMillis < 5000);
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        EventLoadConfiguration configuration = new EventLoadConfiguration(1000000, 1000);
+        configuration.setPublisherCount(2);
+        EventLoadGenerator eventLoadGenerator = new EventLoadGenerator(eventStreamHandle, streamDefinition,
+                configuration);
+        Future<EventLoadResult> loadRun = eventLoadGenerator.start();
+        Thread.sleep(100);
+        eventLoadGenerator.stop();
+        EventLoadResult result = loadRun.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Assert.assertTrue(result.getPublishedEventCount() > 0);
+        Assert.assertTrue(result.getPublishedEventCount() < 1000000);
+        Assert.assertEquals(result.getPublishedEventCount(), eventStreamHandle.eventCount.get());
+    }
+
+    @Test
+    public void testCancelStopsRun() throws Exception {
+        EventLoadConfiguration configuration = new EventLoadConfiguration(1000000, 1000);
+        Future<EventLoadResult> loadRun =
+                new EventLoadGenerator(eventStreamHandle, streamDefinition, configuration).start();
+        Thread.sleep(100);
+        Assert.assertTrue(loadRun.cancel(true));
+        Thread.sleep(100);
+        long eventCount = eventStreamHandle.eventCount.get();
+        Thread.sleep(100);
+        Assert.assertEquals(eventCount, eventStreamHandle.eventCount.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnboundedRunRejected() {
+        new EventLoadGenerator(eventStreamHandle, streamDefinition, new EventLoadConfiguration(0, 1000)).start();
+    }
+
+    private static class CountingStreamHandle implements EventStreamHandle {
+        private final AtomicLong eventCount = new AtomicLong();
+
+        @Override
+        public String getStreamId() {
+            return "stock:1.0.0";
+        }
+
+        @Override
+        public int getTenantId() {
+            return -1234;
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public void publish(Event event) {
+            eventCount.incrementAndGet();
+        }
+
+        @Override
+        public void publish(List<Event> events) {
+            eventCount.addAndGet(events.size());
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.queue;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.carbon.event.stream.core.EventConsumerQueueConfiguration;
+import org.wso2.carbon.event.stream.core.SiddhiEventConsumer;
+import org.wso2.siddhi.core.event.Event;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventConsumerQueueTestCase {
+    private static final long TIMEOUT_MS = 10000;
+
+    private static EventConsumerQueue createQueue(int queueSize,
+                                                  EventConsumerQueueConfiguration.FullQueuePolicy fullQueuePolicy) {
+        return new EventConsumerQueue("stock:1.0.0", "testConsumer",
+                new EventConsumerQueueConfiguration(queueSize, fullQueuePolicy));
+    }
+
+    private static void awaitLag(EventConsumerQueue queue, long lag) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (queue.getLag() != lag && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(lag, queue.getLag());
+    }
+
+    @Test
+    public void testCountersInEvents() throws InterruptedException {
+        EventConsumerQueue queue = createQueue(16, EventConsumerQueueConfiguration.FullQueuePolicy.BLOCK);
+        final AtomicInteger deliveredEvents = new AtomicInteger();
+        queue.dispatch(new CountingDispatch(5, deliveredEvents));
+        queue.dispatch(new CountingDispatch(1, deliveredEvents));
+        awaitLag(queue, 0);
+        queue.shutdown();
+        Assert.assertEquals(6, queue.getReceivedCount());
+        Assert.assertEquals(6, queue.getProcessedCount());
+        Assert.assertEquals(0, queue.getDroppedCount());
+        Assert.assertEquals(6, deliveredEvents.get());
+    }
+
+    @Test
+    public void testDropCountsEvents() throws InterruptedException {
+        EventConsumerQueue queue = createQueue(1, EventConsumerQueueConfiguration.FullQueuePolicy.DROP);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingDispatch blockingDispatch = new BlockingDispatch(release);
+        queue.dispatch(blockingDispatch);
+        Assert.assertTrue(blockingDispatch.awaitStarted());
+        AtomicInteger deliveredEvents = new AtomicInteger();
+        queue.dispatch(new CountingDispatch(3, deliveredEvents));
+        queue.dispatch(new CountingDispatch(4, deliveredEvents));
+        Assert.assertEquals(4, queue.getDroppedCount());
+        release.countDown();
+        awaitLag(queue, 0);
+        queue.shutdown();
+        Assert.assertEquals(8, queue.getReceivedCount());
+        Assert.assertEquals(4, queue.getProcessedCount());
+        Assert.assertEquals(3, deliveredEvents.get());
+    }
+
+    @Test
+    public void testDropOldestCountsEvents() throws InterruptedException {
+        EventConsumerQueue queue = createQueue(1, EventConsumerQueueConfiguration.FullQueuePolicy.DROP_OLDEST);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingDispatch blockingDispatch = new BlockingDispatch(release);
+        queue.dispatch(blockingDispatch);
+        Assert.assertTrue(blockingDispatch.awaitStarted());
+        AtomicInteger deliveredEvents = new AtomicInteger();
+        queue.dispatch(new CountingDispatch(3, deliveredEvents));
+        queue.dispatch(new CountingDispatch(4, deliveredEvents));
+        Assert.assertEquals(3, queue.getDroppedCount());
+        release.countDown();
+        awaitLag(queue, 0);
+        queue.shutdown();
+        Assert.assertEquals(4, deliveredEvents.get());
+    }
+
+    @Test
+    public void testCapacityCountsEvents() throws InterruptedException {
+        EventConsumerQueue queue = createQueue(10, EventConsumerQueueConfiguration.FullQueuePolicy.DROP);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingDispatch blockingDispatch = new BlockingDispatch(release);
+        queue.dispatch(blockingDispatch);
+        Assert.assertTrue(blockingDispatch.awaitStarted());
+        AtomicInteger deliveredEvents = new AtomicInteger();
+        queue.dispatch(new CountingDispatch(6, deliveredEvents));
+        Assert.assertEquals(6, queue.getQueueSize());
+        Assert.assertEquals(4, queue.getRemainingCapacity());
+        queue.dispatch(new CountingDispatch(5, deliveredEvents));
+        Assert.assertEquals(5, queue.getDroppedCount());
+        queue.dispatch(new CountingDispatch(4, deliveredEvents));
+        Assert.assertEquals(0, queue.getRemainingCapacity());
+        release.countDown();
+        awaitLag(queue, 0);
+        Assert.assertEquals(10, queue.getRemainingCapacity());
+
+        // a batch larger than the whole queue is still taken once the queue is empty
+        queue.dispatch(new CountingDispatch(25, deliveredEvents));
+        awaitLag(queue, 0);
+        queue.shutdown();
+        Assert.assertEquals(5, queue.getDroppedCount());
+        Assert.assertEquals(35, deliveredEvents.get());
+    }
+
+    @Test
+    public void testSiddhiConsumerShutDownAfterQueueDrains() throws InterruptedException {
+        EventConsumerQueue queue = createQueue(16, EventConsumerQueueConfiguration.FullQueuePolicy.BLOCK);
+        final AtomicInteger consumedEvents = new AtomicInteger();
+        final AtomicInteger eventsAtShutdown = new AtomicInteger(-1);
+        QueuedSiddhiEventConsumer queuedConsumer = new QueuedSiddhiEventConsumer(new SiddhiEventConsumer() {
+            @Override
+            public String getStreamId() {
+                return "stock:1.0.0";
+            }
+
+            @Override
+            public void consumeEvents(Event[] events) {
+                for (Event event : events) {
+                    consumeEventData(event.getData());
+                }
+            }
+
+            @Override
+            public void consumeEventData(Object[] data) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                consumedEvents.incrementAndGet();
+            }
+
+            @Override
+            public void shutdown() {
+                eventsAtShutdown.set(consumedEvents.get());
+            }
+        }, queue);
+        for (int i = 0; i < 10; i++) {
+            queuedConsumer.consumeEventData(new Object[]{"IBM", i});
+        }
+        queuedConsumer.shutdown();
+        Assert.assertEquals(10, eventsAtShutdown.get());
+        Assert.assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void testShutdownReleasesBlockedProducer() throws InterruptedException {
+        final EventConsumerQueue queue = createQueue(1, EventConsumerQueueConfiguration.FullQueuePolicy.BLOCK);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingDispatch blockingDispatch = new BlockingDispatch(release);
+        queue.dispatch(blockingDispatch);
+        Assert.assertTrue(blockingDispatch.awaitStarted());
+        final AtomicInteger deliveredEvents = new AtomicInteger();
+        queue.dispatch(new CountingDispatch(2, deliveredEvents));
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                queue.dispatch(new CountingDispatch(3, deliveredEvents));
+            }
+        });
+        producer.start();
+        producer.join(200);
+        Assert.assertTrue("Producer should block while the queue is full", producer.isAlive());
+
+        queue.shutdown();
+        release.countDown();
+        producer.join(TIMEOUT_MS);
+        Assert.assertFalse(producer.isAlive());
+        awaitLag(queue, 0);
+        Assert.assertEquals(6, queue.getReceivedCount());
+        Assert.assertEquals(queue.getReceivedCount(), queue.getProcessedCount() + queue.getDroppedCount());
+        Assert.assertEquals(queue.getProcessedCount() - 1, deliveredEvents.get());
+
+        queue.dispatch(new CountingDispatch(7, deliveredEvents));
+        Assert.assertEquals(13, queue.getReceivedCount());
+        awaitLag(queue, 0);
+    }
+
+    private static class CountingDispatch extends EventDispatch {
+        private final AtomicInteger deliveredEvents;
+
+        CountingDispatch(int eventCount, AtomicInteger deliveredEvents) {
+            super(eventCount);
+            this.deliveredEvents = deliveredEvents;
+        }
+
+        @Override
+        public void run() {
+            deliveredEvents.addAndGet(getEventCount());
+        }
+    }
+
+    private static class BlockingDispatch extends EventDispatch {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        BlockingDispatch(CountDownLatch release) {
+            super(1);
+            this.release = release;
+        }
+
+        boolean awaitStarted() throws InterruptedException {
+            return started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            started.countDown();
+            try {
+                release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.replay;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.carbon.databridge.commons.AttributeType;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+
+public class EventReplayRingTestCase {
+    /*
+    size of a record of an event with a single character symbol: header, null flags, symbol and price.
+     */
+    private static final int RECORD_SIZE = 20 + 2 + 4 + 1 + 8;
+
+    private StreamDefinition streamDefinition;
+
+    @Before
+    public void init() throws Exception {
+        streamDefinition = new StreamDefinition("stock", "1.0.0");
+        streamDefinition.addPayloadData("symbol", AttributeType.STRING);
+        streamDefinition.addPayloadData("price", AttributeType.DOUBLE);
+    }
+
+    private EventReplayRing createRing(int recordCount) {
+        return new EventReplayRing(streamDefinition.getAttributeLayout(), recordCount * RECORD_SIZE + RECORD_SIZE / 2);
+    }
+
+    private static Object[] createEventData(int sequence) {
+        return new Object[]{String.valueOf((char) ('A' + sequence)), sequence * 1.5};
+    }
+
+    private static void assertEvent(int sequence, Object[] eventData) {
+        Assert.assertArrayEquals(createEventData(sequence), eventData);
+    }
+
+    @Test
+    public void testReadInOrder() {
+        EventReplayRing ring = createRing(4);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(i, ring.write(100 + i, createEventData(i)));
+        }
+        EventReplayRing.Cursor cursor = ring.openCursorAtTime(0);
+        for (int i = 0; i < 3; i++) {
+            assertEvent(i, cursor.next());
+            Assert.assertEquals(100 + i, cursor.getTimestamp());
+        }
+        Assert.assertNull(cursor.next());
+        Assert.assertEquals(3, cursor.getSequence());
+    }
+
+    @Test
+    public void testWrapAround() {
+        EventReplayRing ring = createRing(2);
+        for (int i = 0; i < 7; i++) {
+            ring.write(100 + i, createEventData(i));
+        }
+        Assert.assertEquals(2, ring.getRetainedEventCount());
+        Assert.assertEquals(5, ring.getOldestSequence());
+        Assert.assertEquals(7, ring.getNextSequence());
+        EventReplayRing.Cursor cursor = ring.openCursorAtTime(0);
+        assertEvent(5, cursor.next());
+        assertEvent(6, cursor.next());
+        Assert.assertNull(cursor.next());
+        Assert.assertEquals(0, cursor.getSkippedCount());
+    }
+
+    @Test
+    public void testLocateRecordAtStartAfterWrap() {
+        EventReplayRing ring = createRing(2);
+        for (int i = 0; i < 3; i++) {
+            ring.write(100 + i, createEventData(i));
+        }
+        // the third record is written at the start of the buffer, past the end of the second one
+        EventReplayRing.Cursor cursor = ring.openCursorAtTime(0);
+        Assert.assertEquals(1, cursor.getSequence());
+        assertEvent(1, cursor.next());
+        assertEvent(2, cursor.next());
+        Assert.assertNull(cursor.next());
+
+        cursor = ring.openCursorAtTime(102);
+        Assert.assertEquals(2, cursor.getSequence());
+        assertEvent(2, cursor.next());
+    }
+
+    @Test
+    public void testCursorOvertakenByWriter() {
+        EventReplayRing ring = createRing(2);
+        ring.write(100, createEventData(0));
+        ring.write(101, createEventData(1));
+        EventReplayRing.Cursor cursor = ring.openCursorAtTime(0);
+        assertEvent(0, cursor.next());
+        for (int i = 2; i < 5; i++) {
+            ring.write(100 + i, createEventData(i));
+        }
+        assertEvent(3, cursor.next());
+        Assert.assertEquals(2, cursor.getSkippedCount());
+        assertEvent(4, cursor.next());
+        Assert.assertNull(cursor.next());
+    }
+
+    @Test
+    public void testOpenCursorAtTime() {
+        EventReplayRing ring = createRing(4);
+        for (int i = 0; i < 3; i++) {
+            ring.write(10 * (i + 1), createEventData(i));
+        }
+        EventReplayRing.Cursor cursor = ring.openCursorAtTime(15);
+        assertEvent(1, cursor.next());
+        Assert.assertNull(ring.openCursorAtTime(31).next());
+    }
+
+    @Test
+    public void testOversizedEventDropped() {
+        EventReplayRing ring = createRing(2);
+        ring.write(100, createEventData(0));
+        StringBuilder symbol = new StringBuilder();
+        for (int i = 0; i < ring.getCapacity(); i++) {
+            symbol.append('X');
+        }
+        Assert.assertEquals(-1, ring.write(101, new Object[]{symbol.toString(), 1.0}));
+        Assert.assertEquals(1, ring.getDroppedEventCount());
+        Assert.assertEquals(1, ring.getRetainedEventCount());
+        assertEvent(0, ring.openCursorAtTime(0).next());
+    }
+
+    @Test
+    public void testMismatchedValueLeavesRingUntouched() {
+        EventReplayRing ring = createRing(2);
+        ring.write(100, createEventData(0));
+        ring.write(101, createEventData(1));
+        Object[][] mismatchedEvents = {{"C", "2.5"}, {"C", 2.5f}, {"C", 2}};
+        for (Object[] mismatchedEvent : mismatchedEvents) {
+            try {
+                ring.write(102, mismatchedEvent);
+                Assert.fail("Expected the price " + mismatchedEvent[1] + " to be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(2, ring.getRetainedEventCount());
+        Assert.assertEquals(2, ring.getNextSequence());
+        EventReplayRing.Cursor cursor = ring.openCursorAtTime(0);
+        assertEvent(0, cursor.next());
+        assertEvent(1, cursor.next());
+        Assert.assertNull(cursor.next());
+    }
+
+    @Test
+    public void testSectionedWrite() {
+        EventReplayRing ring = createRing(2);
+        ring.write(100, null, null, new Object[]{"A", 0.0});
+        ring.write(101, null, null, new Object[]{"B"});
+        EventReplayRing.Cursor cursor = ring.openCursorAtTime(0);
+        Assert.assertArrayEquals(new Object[]{"A", 0.0}, cursor.next());
+        Assert.assertArrayEquals(new Object[]{"B", null}, cursor.next());
+    }
+}
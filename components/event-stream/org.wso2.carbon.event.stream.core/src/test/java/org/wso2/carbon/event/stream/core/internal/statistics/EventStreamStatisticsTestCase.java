@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.wso2.carbon.event.stream.core.internal.statistics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class EventStreamStatisticsTestCase {
+
+    @Test
+    public void testSlowestConsumerRankedByTimePerEvent() {
+        EventStreamStatistics statistics = new EventStreamStatistics(-1234, "stock:1.0.0", null);
+        Object busyConsumer = new Object();
+        Object slowConsumer = new Object();
+        // the busy consumer spends more time in total, but over many more events
+        statistics.onEventsConsumed(busyConsumer, 1000, TimeUnit.MILLISECONDS.toNanos(100));
+        statistics.onEventsConsumed(slowConsumer, 10, TimeUnit.MILLISECONDS.toNanos(20));
+        try {
+            Assert.assertEquals("Object-2", statistics.getSlowestConsumer());
+        } finally {
+            statistics.destroy();
+        }
+    }
+}